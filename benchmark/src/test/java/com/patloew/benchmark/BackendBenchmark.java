@@ -0,0 +1,100 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.RenderState;
+import com.patloew.commons.WatchFaceRenderer;
+import com.patloew.commons.WatchFaceResources;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.DataBufferInt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays the same {@link FrameScript} on a backend with partial updates, like the software
+ * canvas, and on a full-frame backend, like the hardware canvas. Both have to present the same
+ * pixels, the partial backend has to touch fewer of them.
+ */
+public class BackendBenchmark {
+    private static final int SIZE = FrameSpec.DEFAULT_SIZE;
+
+    private WatchFaceResources mResources;
+
+    @Before
+    public void setUp() throws Exception {
+        mResources = ResourceValues.load(1.5f);
+    }
+
+    @Test
+    public void backendsPresentSameFrames() {
+        final Graphics2DBackend partial = new Graphics2DBackend("partial", true, SIZE, SIZE);
+        final Graphics2DBackend full = new Graphics2DBackend("full", false, SIZE, SIZE);
+        final WatchFaceRenderer partialRenderer = new WatchFaceRenderer(mResources);
+        final WatchFaceRenderer fullRenderer = new WatchFaceRenderer(mResources);
+        final FrameScript script = newScript();
+
+        for(int frame = 0; frame < script.getFrameCount(); frame++) {
+            script.setFrame(frame);
+            drawFrame(partialRenderer, partial, script);
+            drawFrame(fullRenderer, full, script);
+            assertArrayEquals("frame " + frame, pixels(full), pixels(partial));
+        }
+
+        assertEquals(script.getFrameCount(), full.getFrames());
+        System.out.println("BackendBenchmark locked pixels: partial " + partial.getLockedPixels() + ", full " + full.getLockedPixels());
+        assertTrue(partial.getLockedPixels() * 4 < full.getLockedPixels());
+
+        partial.dispose();
+        full.dispose();
+    }
+
+    @Test
+    public void frameTimes() {
+        for(boolean partialUpdates : new boolean[] { true, false }) {
+            final Graphics2DBackend backend = new Graphics2DBackend(partialUpdates ? "partial" : "full", partialUpdates, SIZE, SIZE);
+            final WatchFaceRenderer renderer = new WatchFaceRenderer(mResources);
+            final FrameScript script = newScript();
+
+            // warm up, then measure the same script again
+            replay(renderer, backend, script);
+            final long startNanos = System.nanoTime();
+            final int iterations = 5;
+            for(int i = 0; i < iterations; i++) {
+                replay(renderer, backend, script);
+            }
+            final long nanos = System.nanoTime() - startNanos;
+
+            System.out.println(String.format("BackendBenchmark %s: %.3f ms/frame",
+                    backend.getName(), nanos / 1e6 / (iterations * script.getFrameCount())));
+            backend.dispose();
+        }
+    }
+
+    /** 10:09:58 at 30 fps for 3 seconds, across the minute rollover. */
+    private static FrameScript newScript() {
+        return new FrameScript(((10 * 60L + 9) * 60L + 58) * 1000L, 30, 90, true);
+    }
+
+    private static void replay(WatchFaceRenderer renderer, Graphics2DBackend backend, FrameScript script) {
+        for(int frame = 0; frame < script.getFrameCount(); frame++) {
+            script.setFrame(frame);
+            drawFrame(renderer, backend, script);
+        }
+    }
+
+    private static void drawFrame(WatchFaceRenderer renderer, Graphics2DBackend backend, FrameScript script) {
+        final RenderState state = RenderState.obtain(script, SIZE, SIZE);
+        try {
+            assertTrue(renderer.drawFrame(state, backend));
+        } finally {
+            state.recycle();
+        }
+    }
+
+    private static int[] pixels(Graphics2DBackend backend) {
+        return ((DataBufferInt) backend.getImage().getRaster().getDataBuffer()).getData();
+    }
+}
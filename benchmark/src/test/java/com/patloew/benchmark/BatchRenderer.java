@@ -0,0 +1,101 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawSurface;
+import com.patloew.commons.FaceDefinition;
+import com.patloew.commons.RenderState;
+import com.patloew.commons.WatchFaceRenderer;
+import com.patloew.commons.WatchFaceResources;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Renders batches of {@link FrameSpec}s headless and measures the throughput and allocations.
+ */
+public class BatchRenderer {
+    /**
+     * The default face with the tick ring and the numerals, shared by the dial benchmarks, the
+     * golden images and the thumbnail tests.
+     */
+    public static final FaceDefinition FULL_DIAL = new FaceDefinition.Builder()
+            .addBackground()
+            .addTickRing()
+            .addNumerals()
+            .addHands()
+            .addSecondHand()
+            .build();
+
+    private final WatchFaceRenderer mRenderer;
+
+    public BatchRenderer(WatchFaceResources resources) {
+        this(resources, FaceDefinition.DEFAULT);
+    }
+
+    public BatchRenderer(WatchFaceResources resources, FaceDefinition faceDefinition) {
+        mRenderer = new WatchFaceRenderer(resources, faceDefinition);
+    }
+
+    public WatchFaceRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    /**
+     * Renders one frame into a new image.
+     */
+    public BufferedImage render(FrameSpec spec) {
+        final Graphics2DDrawSurface surface = new Graphics2DDrawSurface(spec.getSize(), spec.getSize());
+        render(spec, surface);
+        surface.dispose();
+        return surface.getImage();
+    }
+
+    public void render(FrameSpec spec, DrawSurface surface) {
+        final RenderState state = RenderState.obtain(spec, surface.getWidth(), surface.getHeight());
+        try {
+            mRenderer.onDraw(state, surface);
+        } finally {
+            state.recycle();
+        }
+    }
+
+    /**
+     * Renders all specs {@code iterations} times, each one onto its own surface.
+     */
+    public Result run(List<FrameSpec> specs, DrawSurface[] surfaces, int iterations) {
+        final long startBytes = ThreadAllocations.get();
+        final long startNanos = System.nanoTime();
+        for(int i = 0; i < iterations; i++) {
+            for(int s = 0; s < surfaces.length; s++) {
+                render(specs.get(s), surfaces[s]);
+            }
+        }
+        final long nanos = System.nanoTime() - startNanos;
+        final long bytes = ThreadAllocations.get() - startBytes;
+        return new Result((long) iterations * surfaces.length, nanos, bytes);
+    }
+
+    public static class Result {
+        public final long frames;
+        public final long nanos;
+        public final long allocatedBytes;
+
+        Result(long frames, long nanos, long allocatedBytes) {
+            this.frames = frames;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public double getFramesPerSecond() {
+            return frames * 1e9 / nanos;
+        }
+
+        public double getBytesPerFrame() {
+            return (double) allocatedBytes / frames;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d frames, %.0f frames/s, %.1f bytes/frame", frames, getFramesPerSecond(), getBytesPerFrame());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawStyle;
+import com.patloew.commons.DrawSurface;
+
+/**
+ * {@link DrawSurface} which does not rasterize anything, but counts the draw calls. Rendering
+ * onto it measures the cost of the watch face code itself, without the cost of a graphics
+ * library.
+ */
+public class CountingDrawSurface implements DrawSurface {
+    private final int mWidth;
+    private final int mHeight;
+    private long mDrawCalls = 0;
+
+    public CountingDrawSurface(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public long getDrawCalls() {
+        return mDrawCalls;
+    }
+
+    public void resetDrawCalls() {
+        mDrawCalls = 0;
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public void save() { }
+
+    @Override
+    public void restore() { }
+
+    @Override
+    public void translate(float dx, float dy) { }
+
+    @Override
+    public void scale(float sx, float sy) { }
+
+    @Override
+    public void rotate(float degrees, float px, float py) { }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int offset, int count, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawText(String text, float centerX, float centerY, DrawStyle style) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top, float right, float bottom) {
+        mDrawCalls++;
+    }
+
+    @Override
+    public Layer createLayer(int width, int height) {
+        return new CountingLayer(width, height);
+    }
+
+    private static class CountingLayer implements Layer {
+        private final CountingDrawSurface mSurface;
+
+        CountingLayer(int width, int height) {
+            mSurface = new CountingDrawSurface(width, height);
+        }
+
+        @Override
+        public int getWidth() {
+            return mSurface.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return mSurface.getHeight();
+        }
+
+        @Override
+        public DrawSurface getSurface() {
+            return mSurface;
+        }
+
+        @Override
+        public void clear() { }
+
+        @Override
+        public void release() { }
+    }
+}
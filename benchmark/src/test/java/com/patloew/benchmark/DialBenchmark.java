@@ -0,0 +1,166 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawSurface;
+import com.patloew.commons.FaceDefinition;
+import com.patloew.commons.FaceLayer;
+import com.patloew.commons.RenderQuality;
+import com.patloew.commons.RenderState;
+import com.patloew.commons.TickRingLayer;
+import com.patloew.commons.WatchFaceResources;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Draw calls and time per frame of a full dial (background, tick ring, numerals and hands), drawn
+ * completely on every frame versus drawn through the layer engine cache.
+ */
+public class DialBenchmark {
+    private static final int ITERATIONS = 200;
+    private static final int ROUNDS = 10;
+
+    private static WatchFaceResources sResources;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        sResources = ResourceValues.load(1.5f);
+    }
+
+    private static FaceDefinition fullDial(boolean everyFrame) {
+        final FaceDefinition.Builder builder = new FaceDefinition.Builder();
+        for(FaceLayer.Factory factory : BatchRenderer.FULL_DIAL.getLayers()) {
+            builder.add(everyFrame ? new EveryFrameLayer.Factory(factory) : factory);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void tickRingIsTwoDrawCalls() {
+        final FrameSpec spec = new FrameSpec(10, 10, 30, true, FrameSpec.Mode.INTERACTIVE, false, FrameSpec.DEFAULT_SIZE);
+        final CountingDrawSurface surface = new CountingDrawSurface(FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE);
+        final TickRingLayer layer = new TickRingLayer(sResources);
+        final RenderState state = RenderState.obtain(spec, FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE);
+        layer.onConfigChanged(state, false);
+        layer.draw(surface, state);
+        state.recycle();
+
+        System.out.println("DialBenchmark tick ring: " + surface.getDrawCalls() + " draw calls for 60 ticks");
+        assertEquals(2, surface.getDrawCalls());
+    }
+
+    @Test
+    public void drawCallsPerFrame() {
+        final long uncached = measure(fullDial(true), new CountingDrawSurface(FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE));
+        final long cached = measure(fullDial(false), new CountingDrawSurface(FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE));
+
+        System.out.println("DialBenchmark draw calls per frame: " + uncached + " drawn every frame, " + cached + " cached");
+        assertTrue(cached < uncached);
+        assertEquals(2, cached);
+    }
+
+    @Test
+    public void timePerFrame() {
+        final long uncachedNanos = bestTimePerFrame(fullDial(true));
+        final long cachedNanos = bestTimePerFrame(fullDial(false));
+
+        System.out.println("DialBenchmark Graphics2D: " + uncachedNanos / 1000 + " us/frame drawn every frame, "
+                + cachedNanos / 1000 + " us/frame cached");
+    }
+
+    /**
+     * Times the steady state: the renderer is warmed up first, so the time of the first frames,
+     * which create and fill the cached layers, is not part of it.
+     *
+     * @return the best average time per frame of {@link #ROUNDS} rounds
+     */
+    private static long bestTimePerFrame(FaceDefinition face) {
+        final Graphics2DDrawSurface surface = new Graphics2DDrawSurface(FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE);
+        final BatchRenderer renderer = new BatchRenderer(sResources, face);
+        render(renderer, surface);
+
+        long best = Long.MAX_VALUE;
+        for(int round = 0; round < ROUNDS; round++) {
+            final long startNanos = System.nanoTime();
+            render(renderer, surface);
+            best = Math.min(best, (System.nanoTime() - startNanos) / ITERATIONS);
+        }
+        return best;
+    }
+
+    /**
+     * Renders one second steps within a minute.
+     *
+     * @return the draw calls of the last frame
+     */
+    private static long measure(FaceDefinition face, DrawSurface surface) {
+        return render(new BatchRenderer(sResources, face), surface);
+    }
+
+    private static long render(BatchRenderer renderer, DrawSurface surface) {
+        long drawCalls = 0;
+        for(int i = 0; i < ITERATIONS; i++) {
+            final FrameSpec spec = new FrameSpec(10, 10, i % 60, true, FrameSpec.Mode.INTERACTIVE, false, FrameSpec.DEFAULT_SIZE);
+            if(surface instanceof CountingDrawSurface) {
+                ((CountingDrawSurface) surface).resetDrawCalls();
+            }
+            renderer.render(spec, surface);
+            if(surface instanceof CountingDrawSurface) {
+                drawCalls = ((CountingDrawSurface) surface).getDrawCalls();
+            }
+        }
+        return drawCalls;
+    }
+
+    /**
+     * Wraps a layer so it is drawn directly on every frame, like without a layer cache.
+     */
+    private static class EveryFrameLayer extends FaceLayer {
+        private final FaceLayer mLayer;
+
+        EveryFrameLayer(FaceLayer layer) {
+            super(UpdateFrequency.SECOND);
+            mLayer = layer;
+        }
+
+        @Override
+        public boolean hasDeferredAssets() {
+            return mLayer.hasDeferredAssets();
+        }
+
+        @Override
+        public void loadAssets() {
+            mLayer.loadAssets();
+        }
+
+        @Override
+        public boolean isEnabled(RenderQuality quality) {
+            return mLayer.isEnabled(quality);
+        }
+
+        @Override
+        public void onConfigChanged(RenderState state, boolean mobilePreview) {
+            mLayer.onConfigChanged(state, mobilePreview);
+        }
+
+        @Override
+        public void draw(DrawSurface surface, RenderState state) {
+            mLayer.draw(surface, state);
+        }
+
+        static class Factory implements FaceLayer.Factory {
+            private final FaceLayer.Factory mFactory;
+
+            Factory(FaceLayer.Factory factory) {
+                mFactory = factory;
+            }
+
+            @Override
+            public FaceLayer create(WatchFaceResources resources) {
+                return new EveryFrameLayer(mFactory.create(resources));
+            }
+        }
+    }
+}
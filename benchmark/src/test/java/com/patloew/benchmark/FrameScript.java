@@ -0,0 +1,87 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.IWatchFaceConfig;
+import com.patloew.commons.RenderQuality;
+import com.patloew.commons.WatchFaceTime;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * A sequence of interactive frames at a fixed rate, e.g. a sweeping second hand across a minute
+ * rollover. The same script can be replayed on several backends to compare them.
+ */
+public class FrameScript implements IWatchFaceConfig {
+    private final WatchFaceTime mTime = new WatchFaceTime(TimeZone.getTimeZone("UTC"));
+    private final Calendar mCalendar = new GregorianCalendar();
+    private final long mStartMillis;
+    private final int mFps;
+    private final int mFrameCount;
+    private final boolean mRound;
+
+    /**
+     * @param startMillis time of the first frame, in milliseconds since midnight UTC
+     */
+    public FrameScript(long startMillis, int fps, int frameCount, boolean round) {
+        mStartMillis = startMillis;
+        mFps = fps;
+        mFrameCount = frameCount;
+        mRound = round;
+        setFrame(0);
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /** Sets the time to the given frame. */
+    public void setFrame(int frame) {
+        mTime.setTimeInMillis(mStartMillis + frame * 1000L / mFps);
+    }
+
+    @Override
+    public WatchFaceTime getTime() {
+        return mTime;
+    }
+
+    @Override
+    public Calendar getCalendar() {
+        return mTime.toCalendar(mCalendar);
+    }
+
+    @Override
+    public boolean isAmbient() {
+        return false;
+    }
+
+    @Override
+    public boolean isLowBitAmbient() {
+        return false;
+    }
+
+    @Override
+    public boolean isBurnInProtection() {
+        return false;
+    }
+
+    @Override
+    public boolean isRound() {
+        return mRound;
+    }
+
+    @Override
+    public int getSecondHandFps() {
+        return mFps;
+    }
+
+    @Override
+    public RenderQuality getRenderQuality() {
+        return RenderQuality.FULL;
+    }
+
+    @Override
+    public boolean isLightTheme() {
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.IWatchFaceConfig;
+import com.patloew.commons.RenderQuality;
+import com.patloew.commons.WatchFaceTime;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * One combination of time, shape, mode and theme to render. Also the {@link IWatchFaceConfig}
+ * for that frame.
+ */
+public class FrameSpec implements IWatchFaceConfig {
+    public enum Mode { INTERACTIVE, AMBIENT, LOW_BIT_AMBIENT, BURN_IN_AMBIENT }
+
+    /** Times of day (hour, minute, second) covering all hand quadrants and overlapping hands. */
+    private static final int[][] TIMES = { { 10, 10, 30 }, { 3, 45, 15 }, { 12, 0, 0 } };
+
+    public static final int DEFAULT_SIZE = 240;
+
+    private final WatchFaceTime mTime = new WatchFaceTime(TimeZone.getTimeZone("UTC"));
+    private final Calendar mCalendar = new GregorianCalendar();
+    private final int mHour, mMinute, mSecond;
+    private final boolean mRound;
+    private final Mode mMode;
+    private final boolean mLightTheme;
+    private final int mSize;
+
+    public FrameSpec(int hour, int minute, int second, boolean round, Mode mode, boolean lightTheme, int size) {
+        mHour = hour;
+        mMinute = minute;
+        mSecond = second;
+        mRound = round;
+        mMode = mode;
+        mLightTheme = lightTheme;
+        mSize = size;
+        mTime.setTimeInMillis(((hour * 60L + minute) * 60L + second) * 1000L);
+    }
+
+    /**
+     * @return the full matrix of times × round/square × interactive/ambient/low-bit ambient/burn-in
+     * protected ambient × light/dark theme
+     */
+    public static List<FrameSpec> all(int size) {
+        final List<FrameSpec> specs = new ArrayList<>();
+        for(int[] time : TIMES) {
+            for(boolean round : new boolean[] { true, false }) {
+                for(Mode mode : Mode.values()) {
+                    for(boolean lightTheme : new boolean[] { true, false }) {
+                        specs.add(new FrameSpec(time[0], time[1], time[2], round, mode, lightTheme, size));
+                    }
+                }
+            }
+        }
+        return specs;
+    }
+
+    /**
+     * Sets the time zone of a dual time hand for this frame.
+     *
+     * @return this spec
+     */
+    public FrameSpec setSecondaryTimeZone(TimeZone timeZone) {
+        mTime.setSecondaryTimeZone(timeZone);
+        return this;
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    /** @return a stable name, used for the golden image file */
+    public String getName() {
+        return String.format("%02d%02d%02d_%s_%s_%s_%d", mHour, mMinute, mSecond,
+                mRound ? "round" : "square", mMode.name().toLowerCase(), mLightTheme ? "light" : "dark", mSize);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    @Override
+    public WatchFaceTime getTime() {
+        return mTime;
+    }
+
+    @Override
+    public Calendar getCalendar() {
+        return mTime.toCalendar(mCalendar);
+    }
+
+    @Override
+    public boolean isAmbient() {
+        return mMode != Mode.INTERACTIVE;
+    }
+
+    @Override
+    public boolean isLowBitAmbient() {
+        return mMode == Mode.LOW_BIT_AMBIENT;
+    }
+
+    @Override
+    public boolean isBurnInProtection() {
+        return mMode == Mode.BURN_IN_AMBIENT;
+    }
+
+    @Override
+    public boolean isRound() {
+        return mRound;
+    }
+
+    @Override
+    public int getSecondHandFps() {
+        return 1;
+    }
+
+    @Override
+    public RenderQuality getRenderQuality() {
+        return RenderQuality.FULL;
+    }
+
+    @Override
+    public boolean isLightTheme() {
+        return mLightTheme;
+    }
+}
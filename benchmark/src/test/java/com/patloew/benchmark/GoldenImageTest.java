@@ -0,0 +1,190 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.ComplicationData;
+import com.patloew.commons.ComplicationManager;
+import com.patloew.commons.ComplicationProvider;
+import com.patloew.commons.ExampleFace;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Renders every combination of time, shape, mode and theme and compares it against the golden
+ * images in src/test/resources/golden. Run with {@code -Dgolden.update=true} to write new golden
+ * images after an intended visual change. On a mismatch, the actual image and a diff image are
+ * written to build/golden-diff.
+ */
+public class GoldenImageTest {
+    private static final File GOLDEN_DIR = new File("src/test/resources/golden");
+    private static final File DIFF_DIR = new File("build/golden-diff");
+
+    // anti-aliasing may differ slightly between Java2D versions
+    private static final int CHANNEL_TOLERANCE = 8;
+    private static final double MAX_DIFFERENT_PIXELS = 0.005;
+
+    private static final Executor CALLING_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static BatchRenderer sRenderer;
+    private static BatchRenderer sFullDialRenderer;
+    private static BatchRenderer sExampleRenderer;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        sRenderer = new BatchRenderer(ResourceValues.load(1.5f));
+        sFullDialRenderer = new BatchRenderer(ResourceValues.load(1.5f), BatchRenderer.FULL_DIAL);
+
+        // the battery and date slots of the example app, with fixed data loaded right away
+        final ComplicationManager complications = new ComplicationManager.Builder(CALLING_THREAD)
+                .add(new FixedProvider(new ComplicationData("85%")), 0.28f, 0.5f)
+                .add(new FixedProvider(new ComplicationData("1", "FRI")), 0.72f, 0.5f)
+                .build();
+        complications.refreshAll(0);
+        sExampleRenderer = new BatchRenderer(ResourceValues.load(1.5f), ExampleFace.create(complications));
+    }
+
+    @Test
+    public void renderMatchesGoldenImages() throws IOException {
+        assertMatchesGoldenImages(sRenderer, FrameSpec.all(FrameSpec.DEFAULT_SIZE), "");
+    }
+
+    @Test
+    public void fullDialMatchesGoldenImages() throws IOException {
+        final List<FrameSpec> specs = new ArrayList<>();
+        for(boolean round : new boolean[] { true, false }) {
+            specs.add(new FrameSpec(10, 10, 30, round, FrameSpec.Mode.INTERACTIVE, false, FrameSpec.DEFAULT_SIZE));
+        }
+        assertMatchesGoldenImages(sFullDialRenderer, specs, "fulldial_");
+    }
+
+    @Test
+    public void exampleFaceMatchesGoldenImages() throws IOException {
+        final List<FrameSpec> specs = new ArrayList<>();
+        for(boolean round : new boolean[] { true, false }) {
+            for(FrameSpec.Mode mode : new FrameSpec.Mode[] { FrameSpec.Mode.INTERACTIVE, FrameSpec.Mode.AMBIENT }) {
+                // the dual time hand points to 19:10
+                specs.add(new FrameSpec(10, 10, 30, round, mode, false, FrameSpec.DEFAULT_SIZE)
+                        .setSecondaryTimeZone(TimeZone.getTimeZone("GMT+09:00")));
+            }
+        }
+        assertMatchesGoldenImages(sExampleRenderer, specs, "example_");
+    }
+
+    private static void assertMatchesGoldenImages(BatchRenderer renderer, List<FrameSpec> specs, String prefix) throws IOException {
+        final boolean update = Boolean.getBoolean("golden.update");
+        final List<String> failures = new ArrayList<>();
+
+        for(FrameSpec spec : specs) {
+            final BufferedImage actual = renderer.render(spec);
+            final String name = prefix + spec.getName();
+            final File goldenFile = new File(GOLDEN_DIR, name + ".png");
+
+            if(update) {
+                GOLDEN_DIR.mkdirs();
+                ImageIO.write(actual, "png", goldenFile);
+                continue;
+            }
+
+            if(!goldenFile.exists()) {
+                failures.add(spec + ": missing golden image " + goldenFile);
+                continue;
+            }
+
+            final BufferedImage golden = ImageIO.read(goldenFile);
+            final BufferedImage diff = new BufferedImage(actual.getWidth(), actual.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            final double different = compare(golden, actual, diff);
+            if(different > MAX_DIFFERENT_PIXELS) {
+                DIFF_DIR.mkdirs();
+                ImageIO.write(actual, "png", new File(DIFF_DIR, name + "_actual.png"));
+                ImageIO.write(diff, "png", new File(DIFF_DIR, name + "_diff.png"));
+                failures.add(String.format("%s: %.2f%% of the pixels differ", spec, different * 100));
+            }
+        }
+
+        if(!failures.isEmpty()) {
+            fail(failures.size() + " golden image mismatches (see " + DIFF_DIR + "):\n" + join(failures));
+        }
+    }
+
+    @Test
+    public void renderIsDeterministic() {
+        final FrameSpec spec = FrameSpec.all(FrameSpec.DEFAULT_SIZE).get(0);
+        final BufferedImage first = sRenderer.render(spec);
+        final BufferedImage second = sRenderer.render(spec);
+        assertTrue(compare(first, second, null) == 0);
+    }
+
+    /**
+     * @param diff if not null, the differing pixels are marked in it
+     * @return the fraction of the pixels which differ by more than the tolerance in any channel
+     */
+    static double compare(BufferedImage expected, BufferedImage actual, BufferedImage diff) {
+        if(expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            return 1;
+        }
+        int different = 0;
+        for(int y = 0; y < expected.getHeight(); y++) {
+            for(int x = 0; x < expected.getWidth(); x++) {
+                final int e = expected.getRGB(x, y);
+                final int a = actual.getRGB(x, y);
+                boolean match = true;
+                for(int shift = 0; shift < 32; shift += 8) {
+                    if(Math.abs(((e >>> shift) & 0xFF) - ((a >>> shift) & 0xFF)) > CHANNEL_TOLERANCE) {
+                        match = false;
+                        break;
+                    }
+                }
+                if(!match) {
+                    different++;
+                }
+                if(diff != null) {
+                    diff.setRGB(x, y, match ? 0x20000000 | (a & 0xFFFFFF) : 0xFFFF00FF);
+                }
+            }
+        }
+        return (double) different / (expected.getWidth() * expected.getHeight());
+    }
+
+    private static class FixedProvider implements ComplicationProvider {
+        private final ComplicationData mData;
+
+        FixedProvider(ComplicationData data) {
+            mData = data;
+        }
+
+        @Override
+        public ComplicationData load() {
+            return mData;
+        }
+
+        @Override
+        public long getUpdateIntervalMillis() {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static String join(List<String> lines) {
+        final StringBuilder sb = new StringBuilder();
+        for(String line : lines) {
+            sb.append("  ").append(line).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawSurface;
+import com.patloew.commons.RenderBackend;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * {@link RenderBackend} presenting into a persistent {@link BufferedImage}, to compare backends
+ * headless. With partial updates, the locked region is clipped like the dirty region of
+ * {@link android.view.SurfaceHolder#lockCanvas(android.graphics.Rect)}, otherwise every frame
+ * repaints the whole image like a hardware canvas.
+ */
+public class Graphics2DBackend implements RenderBackend {
+    private final String mName;
+    private final boolean mPartialUpdates;
+    private final Graphics2DDrawSurface mSurface;
+    private long mLockedPixels = 0;
+    private int mFrames = 0;
+
+    public Graphics2DBackend(String name, boolean partialUpdates, int width, int height) {
+        mName = name;
+        mPartialUpdates = partialUpdates;
+        mSurface = new Graphics2DDrawSurface(width, height);
+    }
+
+    public BufferedImage getImage() {
+        return mSurface.getImage();
+    }
+
+    /** @return the number of pixels locked over all frames, a measure of the fill rate */
+    public long getLockedPixels() {
+        return mLockedPixels;
+    }
+
+    public int getFrames() {
+        return mFrames;
+    }
+
+    @Override
+    public String getName() {
+        return mName;
+    }
+
+    @Override
+    public boolean supportsPartialUpdates() {
+        return mPartialUpdates;
+    }
+
+    @Override
+    public DrawSurface lockSurface(float[] dirtyBounds) {
+        if(dirtyBounds == null) {
+            mSurface.clearClip();
+            mLockedPixels += (long) mSurface.getWidth() * mSurface.getHeight();
+        } else {
+            // rounded out to whole pixels, like the Rect passed to lockCanvas()
+            final int left = Math.max(0, (int) Math.floor(dirtyBounds[0]));
+            final int top = Math.max(0, (int) Math.floor(dirtyBounds[1]));
+            final int right = Math.min(mSurface.getWidth(), (int) Math.ceil(dirtyBounds[2]));
+            final int bottom = Math.min(mSurface.getHeight(), (int) Math.ceil(dirtyBounds[3]));
+            mSurface.setClip(left, top, right, bottom);
+            mLockedPixels += (long) Math.max(0, right - left) * Math.max(0, bottom - top);
+        }
+        return mSurface;
+    }
+
+    @Override
+    public void unlockAndPost(DrawSurface surface) {
+        mSurface.clearClip();
+        mFrames++;
+    }
+
+    public void dispose() {
+        mSurface.dispose();
+    }
+}
@@ -0,0 +1,226 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawStyle;
+import com.patloew.commons.DrawSurface;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+
+/**
+ * Software {@link DrawSurface} backed by a Java2D {@link BufferedImage}, to render the watch face
+ * headless on the JVM.
+ */
+public class Graphics2DDrawSurface implements DrawSurface {
+    // logical font, so the output does not depend on the fonts installed
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+
+    private final BufferedImage mImage;
+    private final Graphics2D mGraphics;
+    private final ArrayDeque<AffineTransform> mSaveStack = new ArrayDeque<>();
+
+    public Graphics2DDrawSurface(int width, int height) {
+        this(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    public Graphics2DDrawSurface(BufferedImage image) {
+        mImage = image;
+        mGraphics = image.createGraphics();
+        mGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+
+    public BufferedImage getImage() {
+        return mImage;
+    }
+
+    /** Clears the whole image to transparent. */
+    public void clear() {
+        final Composite composite = mGraphics.getComposite();
+        final AffineTransform transform = mGraphics.getTransform();
+        mGraphics.setTransform(new AffineTransform());
+        mGraphics.setComposite(AlphaComposite.Clear);
+        mGraphics.fillRect(0, 0, mImage.getWidth(), mImage.getHeight());
+        mGraphics.setComposite(composite);
+        mGraphics.setTransform(transform);
+    }
+
+    /**
+     * Restricts drawing to the given region, like the dirty region of a locked canvas. The region
+     * is in image coordinates, independent of the current transform.
+     */
+    public void setClip(float left, float top, float right, float bottom) {
+        final AffineTransform transform = mGraphics.getTransform();
+        mGraphics.setTransform(new AffineTransform());
+        mGraphics.setClip(new Rectangle2D.Float(left, top, right - left, bottom - top));
+        mGraphics.setTransform(transform);
+    }
+
+    public void clearClip() {
+        mGraphics.setClip(null);
+    }
+
+    public void dispose() {
+        mGraphics.dispose();
+    }
+
+    private void applyStyle(DrawStyle style) {
+        mGraphics.setColor(new Color(style.getColor(), true));
+        mGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                style.isAntiAlias() ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+    }
+
+    @Override
+    public int getWidth() {
+        return mImage.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mImage.getHeight();
+    }
+
+    @Override
+    public void save() {
+        mSaveStack.push(mGraphics.getTransform());
+    }
+
+    @Override
+    public void restore() {
+        mGraphics.setTransform(mSaveStack.pop());
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        mGraphics.translate(dx, dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        mGraphics.scale(sx, sy);
+    }
+
+    @Override
+    public void rotate(float degrees, float px, float py) {
+        mGraphics.rotate(Math.toRadians(degrees), px, py);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, DrawStyle style) {
+        applyStyle(style);
+        mGraphics.fill(new Rectangle2D.Float(left, top, right - left, bottom - top));
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, DrawStyle style) {
+        applyStyle(style);
+        mGraphics.fill(new RoundRectangle2D.Float(left, top, right - left, bottom - top, rx * 2, ry * 2));
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, DrawStyle style) {
+        applyStyle(style);
+        mGraphics.fill(new Ellipse2D.Float(cx - radius, cy - radius, radius * 2, radius * 2));
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, DrawStyle style) {
+        applyStyle(style);
+        mGraphics.setStroke(new BasicStroke(style.getStrokeWidth(),
+                style.isRoundCap() ? BasicStroke.CAP_ROUND : BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
+        mGraphics.draw(new Line2D.Float(startX, startY, stopX, stopY));
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, DrawStyle style) {
+        for(int i = offset; i + 3 < offset + count; i += 4) {
+            drawLine(points[i], points[i + 1], points[i + 2], points[i + 3], style);
+        }
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int offset, int count, DrawStyle style) {
+        applyStyle(style);
+        final Path2D.Float path = new Path2D.Float();
+        path.moveTo(points[offset], points[offset + 1]);
+        for(int i = offset + 2; i + 1 < offset + count; i += 2) {
+            path.lineTo(points[i], points[i + 1]);
+        }
+        path.closePath();
+        mGraphics.fill(path);
+    }
+
+    @Override
+    public void drawText(String text, float centerX, float centerY, DrawStyle style) {
+        applyStyle(style);
+        mGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, style.isAntiAlias()
+                ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        mGraphics.setFont(FONT.deriveFont(style.getTextSize()));
+        final FontMetrics metrics = mGraphics.getFontMetrics();
+        mGraphics.drawString(text, centerX - metrics.stringWidth(text) / 2f, centerY + (metrics.getAscent() - metrics.getDescent()) / 2f);
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top) {
+        mGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        mGraphics.drawImage(((ImageLayer) layer).mSurface.getImage(), AffineTransform.getTranslateInstance(left, top), null);
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top, float right, float bottom) {
+        final AffineTransform transform = AffineTransform.getTranslateInstance(left, top);
+        transform.scale((right - left) / layer.getWidth(), (bottom - top) / layer.getHeight());
+        mGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        mGraphics.drawImage(((ImageLayer) layer).mSurface.getImage(), transform, null);
+    }
+
+    @Override
+    public Layer createLayer(int width, int height) {
+        return new ImageLayer(width, height);
+    }
+
+    private static class ImageLayer implements Layer {
+        private final Graphics2DDrawSurface mSurface;
+
+        ImageLayer(int width, int height) {
+            mSurface = new Graphics2DDrawSurface(width, height);
+        }
+
+        @Override
+        public int getWidth() {
+            return mSurface.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return mSurface.getHeight();
+        }
+
+        @Override
+        public DrawSurface getSurface() {
+            return mSurface;
+        }
+
+        @Override
+        public void clear() {
+            mSurface.clear();
+        }
+
+        @Override
+        public void release() {
+            mSurface.dispose();
+        }
+    }
+}
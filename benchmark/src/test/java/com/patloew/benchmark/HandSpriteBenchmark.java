@@ -0,0 +1,209 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawStyle;
+import com.patloew.commons.DrawSurface;
+import com.patloew.commons.HandGeometry;
+import com.patloew.commons.HandSprite;
+import com.patloew.commons.HandStyle;
+import com.patloew.commons.WatchFaceResources;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Time per frame of three styled hands (tapered blades with inlays and shadows), drawn as
+ * {@link HandSprite}s versus filling their paths on every frame, and how far the sprites are from
+ * the paths in the resulting pixels.
+ */
+public class HandSpriteBenchmark {
+    private static final int SIZE = FrameSpec.DEFAULT_SIZE;
+    private static final int FPS = 30;
+    // two sweeps of the second hand
+    private static final int FRAMES = 2 * 60 * FPS;
+
+    private static final HandStyle HOUR_STYLE = new HandStyle.Builder()
+            .setWidths(2f, 1f)
+            .setInlay(0xFFFFFFFF, 0.3f)
+            .setShadow(0x40000000, 0.3f, 0.6f)
+            .build();
+    private static final HandStyle MINUTE_STYLE = new HandStyle.Builder()
+            .setWidths(2f, 0.75f)
+            .setInlay(0xFFFFFFFF, 0.3f)
+            .setShadow(0x40000000, 0.3f, 0.6f)
+            .build();
+    private static final HandStyle SECOND_STYLE = new HandStyle.Builder()
+            .setWidths(1f, 0.5f)
+            .setTailLength(8f)
+            .setShadow(0x40000000, 0.5f, 1f)
+            .build();
+
+    private static WatchFaceResources sResources;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        sResources = ResourceValues.load(1.5f);
+    }
+
+    @Test
+    public void spritesMatchPaths() {
+        final Graphics2DDrawSurface spriteSurface = new Graphics2DDrawSurface(SIZE, SIZE);
+        final Graphics2DDrawSurface pathSurface = new Graphics2DDrawSurface(SIZE, SIZE);
+        final Hands sprites = new SpriteHands();
+        final Hands paths = new PathHands();
+
+        long maxDifference = 0;
+        for(int frame = 0; frame < FRAMES; frame += 97) {
+            spriteSurface.clear();
+            pathSurface.clear();
+            sprites.draw(spriteSurface, frame);
+            paths.draw(pathSurface, frame);
+            maxDifference = Math.max(maxDifference, meanDifference(spriteSurface.getImage(), pathSurface.getImage()));
+        }
+        sprites.release();
+
+        // only the resampled edges differ
+        System.out.println("HandSpriteBenchmark mean pixel difference: " + maxDifference + " / 1000 per channel");
+        assertTrue(maxDifference < 1000);
+    }
+
+    @Test
+    public void spritesRasterizedOnce() {
+        final CountingDrawSurface surface = new CountingDrawSurface(SIZE, SIZE);
+        final Hands sprites = new SpriteHands();
+        sprites.draw(surface, 0);
+
+        surface.resetDrawCalls();
+        sprites.draw(surface, 1);
+        // a blit per hand and shadow, no paths
+        assertEquals(6, surface.getDrawCalls());
+        assertEquals(3, ((SpriteHands) sprites).mRasterizations);
+    }
+
+    @Test
+    public void timePerFrame() {
+        final Graphics2DDrawSurface surface = new Graphics2DDrawSurface(SIZE, SIZE);
+        measure(new PathHands(), surface);
+        measure(new SpriteHands(), surface);
+
+        final long pathNanos = measure(new PathHands(), surface);
+        final long spriteNanos = measure(new SpriteHands(), surface);
+
+        System.out.println("HandSpriteBenchmark Graphics2D: " + pathNanos / 1000 + " us/frame paths, "
+                + spriteNanos / 1000 + " us/frame sprites");
+    }
+
+    /** @return the average time per frame, including the rasterization of the sprites */
+    private static long measure(Hands hands, Graphics2DDrawSurface surface) {
+        final long startNanos = System.nanoTime();
+        for(int frame = 0; frame < FRAMES; frame++) {
+            hands.draw(surface, frame);
+        }
+        final long nanos = (System.nanoTime() - startNanos) / FRAMES;
+        hands.release();
+        return nanos;
+    }
+
+    /** @return the mean absolute difference per channel, in thousandths of a level */
+    private static long meanDifference(BufferedImage a, BufferedImage b) {
+        long sum = 0;
+        for(int y = 0; y < a.getHeight(); y++) {
+            for(int x = 0; x < a.getWidth(); x++) {
+                final int pixelA = a.getRGB(x, y);
+                final int pixelB = b.getRGB(x, y);
+                for(int shift = 0; shift < 32; shift += 8) {
+                    sum += Math.abs((pixelA >>> shift & 0xFF) - (pixelB >>> shift & 0xFF));
+                }
+            }
+        }
+        return sum * 1000 / (a.getWidth() * a.getHeight() * 4L);
+    }
+
+    /**
+     * Draws the hands at 10:09 with a sweeping second hand.
+     */
+    private abstract static class Hands {
+        private final HandGeometry mHandGeometry = new HandGeometry();
+        final DrawStyle mStyle = new DrawStyle();
+
+        Hands() {
+            mHandGeometry.setSecondSteps(FPS);
+            mStyle.setAntiAlias(true);
+        }
+
+        void draw(DrawSurface surface, int frame) {
+            final float center = SIZE / 2f;
+            final int millis = frame * 1000 / FPS;
+            mHandGeometry.update(10, 9, millis / 1000 % 60, millis % 1000);
+
+            drawHand(surface, 0, HOUR_STYLE, sResources.getHourHandStroke(), center - sResources.getHourOuterOffset(),
+                    sResources.getHourHandColor(), mHandGeometry.getHourDegrees());
+            drawHand(surface, 1, MINUTE_STYLE, sResources.getMinuteHandStroke(), center - sResources.getMinuteOuterOffset(),
+                    sResources.getMinuteHandColor(), mHandGeometry.getMinuteDegrees());
+            drawHand(surface, 2, SECOND_STYLE, sResources.getSecondHandStroke(), center - sResources.getSecondOuterOffset(),
+                    sResources.getSecondHandColor(), mHandGeometry.getSecondDegrees());
+        }
+
+        abstract void drawHand(DrawSurface surface, int hand, HandStyle handStyle, float stroke, float length, int color, float degrees);
+
+        void release() { }
+    }
+
+    /** Fills the outline, inlay and shadow of every hand on every frame. */
+    private static class PathHands extends Hands {
+        private final float[] mPoints = new float[HandStyle.OUTLINE_VALUES];
+
+        @Override
+        void drawHand(DrawSurface surface, int hand, HandStyle handStyle, float stroke, float length, int color, float degrees) {
+            final float center = SIZE / 2f;
+            handStyle.getOutline(stroke, length, mPoints);
+            if(handStyle.hasShadow()) {
+                surface.save();
+                surface.translate(handStyle.getShadowDx(stroke), handStyle.getShadowDy(stroke));
+                surface.rotate(degrees, center, center);
+                surface.translate(center, center);
+                mStyle.setColor(handStyle.getShadowColor());
+                surface.drawPolygon(mPoints, 0, HandStyle.OUTLINE_VALUES, mStyle);
+                surface.restore();
+            }
+
+            surface.save();
+            surface.rotate(degrees, center, center);
+            surface.translate(center, center);
+            mStyle.setColor(color);
+            surface.drawPolygon(mPoints, 0, HandStyle.OUTLINE_VALUES, mStyle);
+            if(handStyle.getInlay(stroke, length, mPoints)) {
+                mStyle.setColor(handStyle.getInlayColor());
+                surface.drawPolygon(mPoints, 0, HandStyle.INLAY_VALUES, mStyle);
+            }
+            surface.restore();
+        }
+    }
+
+    /** Blits the rotated sprites. */
+    private static class SpriteHands extends Hands {
+        private final HandSprite[] mSprites = { new HandSprite(), new HandSprite(), new HandSprite() };
+        int mRasterizations = 0;
+
+        @Override
+        void drawHand(DrawSurface surface, int hand, HandStyle handStyle, float stroke, float length, int color, float degrees) {
+            final float center = SIZE / 2f;
+            if(mSprites[hand].prepare(surface, handStyle, stroke, length, color, true)) {
+                mRasterizations++;
+            }
+            mSprites[hand].drawShadow(surface, center, center, degrees);
+            mSprites[hand].draw(surface, center, center, degrees);
+        }
+
+        @Override
+        void release() {
+            for(HandSprite sprite : mSprites) {
+                sprite.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawSurface;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Throughput and allocations of the watch face renderer over all frame combinations. Rendering
+ * onto a {@link CountingDrawSurface} measures the watch face code alone, rendering onto a
+ * {@link Graphics2DDrawSurface} includes software rasterization.
+ */
+public class RenderBenchmark {
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 1000;
+
+    private static List<FrameSpec> sSpecs;
+
+    // a new renderer per test, its static layer is created by the surface type under test
+    private BatchRenderer mRenderer;
+
+    @BeforeClass
+    public static void setUpClass() {
+        sSpecs = FrameSpec.all(FrameSpec.DEFAULT_SIZE);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mRenderer = new BatchRenderer(ResourceValues.load(1.5f));
+    }
+
+    @Test
+    public void rendererFramePathDoesNotAllocate() {
+        final DrawSurface[] surfaces = new DrawSurface[sSpecs.size()];
+        for(int i = 0; i < surfaces.length; i++) {
+            surfaces[i] = new CountingDrawSurface(FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE);
+        }
+
+        mRenderer.run(sSpecs, surfaces, WARMUP_ITERATIONS);
+        final BatchRenderer.Result result = mRenderer.run(sSpecs, surfaces, ITERATIONS);
+
+        System.out.println("RenderBenchmark renderer only: " + result);
+        // one-off allocations (e.g. a JIT deoptimization) are tolerated, allocations per frame are not
+        assertTrue(result.toString(), result.getBytesPerFrame() < 1);
+    }
+
+    @Test
+    public void softwareRasterization() {
+        final DrawSurface[] surfaces = new DrawSurface[sSpecs.size()];
+        for(int i = 0; i < surfaces.length; i++) {
+            surfaces[i] = new Graphics2DDrawSurface(FrameSpec.DEFAULT_SIZE, FrameSpec.DEFAULT_SIZE);
+        }
+
+        mRenderer.run(sSpecs, surfaces, WARMUP_ITERATIONS / 10);
+        final BatchRenderer.Result result = mRenderer.run(sSpecs, surfaces, ITERATIONS / 10);
+
+        System.out.println("RenderBenchmark Graphics2D: " + result);
+    }
+}
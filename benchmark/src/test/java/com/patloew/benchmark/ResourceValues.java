@@ -0,0 +1,98 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.WatchFaceResources;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Resolves the {@link WatchFaceResources} from the resource XML files of the commons module, like
+ * {@code WatchFaceDrawer.loadResources()} does on a device with the given density.
+ */
+public final class ResourceValues {
+    public static final File COMMONS_VALUES_DIR = new File("../commons/src/main/res/values");
+
+    private final Map<String, Integer> mColors = new HashMap<>();
+    private final Map<String, Float> mDimens = new HashMap<>();
+
+    public ResourceValues(File valuesDir, float density) throws Exception {
+        for(Element color : parse(new File(valuesDir, "colors.xml"), "color")) {
+            mColors.put(color.getAttribute("name"), parseColor(color.getTextContent().trim()));
+        }
+        for(Element dimen : parse(new File(valuesDir, "dimens.xml"), "dimen")) {
+            mDimens.put(dimen.getAttribute("name"), parseDimension(dimen.getTextContent().trim(), density));
+        }
+    }
+
+    public static WatchFaceResources load(float density) throws Exception {
+        return new ResourceValues(COMMONS_VALUES_DIR, density).toWatchFaceResources();
+    }
+
+    public int getColor(String name) {
+        final Integer color = mColors.get(name);
+        if(color == null) { throw new IllegalArgumentException("Unknown color " + name); }
+        return color;
+    }
+
+    public float getDimension(String name) {
+        final Float dimen = mDimens.get(name);
+        if(dimen == null) { throw new IllegalArgumentException("Unknown dimen " + name); }
+        return dimen;
+    }
+
+    public WatchFaceResources toWatchFaceResources() {
+        return new WatchFaceResources.Builder()
+                .setHandOuterOffsets(getDimension("hour_outer_offset"), getDimension("minute_outer_offset"), getDimension("second_outer_offset"))
+                .setHandStrokes(getDimension("hour_hand_stroke"), getDimension("minute_hand_stroke"), getDimension("seconds_hand_stroke"))
+                .setHandColors(getColor("hour_hand"), getColor("minute_hand"), getColor("second_hand"))
+                .setLowBitAmbientHandColor(getColor("low_bit_ambient_hand"))
+                .setBackgroundColors(getColor("watchface_background"), getColor("watchface_background_light"))
+                .setPreviewBorder(getColor("watchface_preview_border"), getDimension("watchface_preview_square_radius"))
+                .setDial(getColor("watchface_dial"), getDimension("dial_tick_length"), getDimension("dial_tick_stroke"), getDimension("dial_numeral_text_size"))
+                .build();
+    }
+
+    private static Element[] parse(File file, String tag) throws Exception {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+        final NodeList nodes = document.getElementsByTagName(tag);
+        final Element[] elements = new Element[nodes.getLength()];
+        for(int i = 0; i < elements.length; i++) {
+            elements[i] = (Element) nodes.item(i);
+        }
+        return elements;
+    }
+
+    /** Parses #RGB, #ARGB, #RRGGBB and #AARRGGBB like {@code android.graphics.Color.parseColor()}. */
+    static int parseColor(String value) {
+        if(!value.startsWith("#")) { throw new IllegalArgumentException("Unsupported color " + value); }
+        String hex = value.substring(1);
+        if(hex.length() == 3 || hex.length() == 4) {
+            final StringBuilder sb = new StringBuilder();
+            for(char c : hex.toCharArray()) { sb.append(c).append(c); }
+            hex = sb.toString();
+        }
+        long color = Long.parseLong(hex, 16);
+        if(hex.length() == 6) {
+            color |= 0xFF000000L;
+        } else if(hex.length() != 8) {
+            throw new IllegalArgumentException("Unsupported color " + value);
+        }
+        return (int) color;
+    }
+
+    static float parseDimension(String value, float density) {
+        if(value.endsWith("dp") || value.endsWith("dip")) {
+            return Float.parseFloat(value.substring(0, value.length() - (value.endsWith("dp") ? 2 : 3))) * density;
+        } else if(value.endsWith("px")) {
+            return Float.parseFloat(value.substring(0, value.length() - 2));
+        }
+        throw new IllegalArgumentException("Unsupported dimension " + value);
+    }
+}
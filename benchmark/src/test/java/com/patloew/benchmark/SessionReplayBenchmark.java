@@ -0,0 +1,143 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.RenderQuality;
+import com.patloew.commons.RenderState;
+import com.patloew.commons.SessionReplayer;
+import com.patloew.commons.SessionTrace;
+import com.patloew.commons.TickScheduler;
+import com.patloew.commons.VirtualClock;
+import com.patloew.commons.WatchFaceRenderer;
+import com.patloew.commons.WatchFaceSession;
+import com.patloew.commons.WatchFaceResources;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays a session trace at full speed and renders all of its frames headless. By default, a
+ * scripted session is recorded first. A trace pulled from the watch can be replayed instead:
+ *
+ * <pre>
+ * adb pull /data/data/com.patloew.watchfaceexample/files/session.trace
+ * -Dsession.trace=session.trace
+ * </pre>
+ */
+public class SessionReplayBenchmark {
+    private static final int SIZE = FrameSpec.DEFAULT_SIZE;
+    // 2016-01-01T10:09:58Z
+    private static final long START_MILLIS = 1451642998000L;
+
+    private WatchFaceResources mResources;
+
+    @Before
+    public void setUp() throws Exception {
+        mResources = ResourceValues.load(1.5f);
+    }
+
+    @Test
+    public void replay() throws IOException {
+        final String path = System.getProperty("session.trace");
+        final byte[] trace = path != null ? Files.readAllBytes(new File(path).toPath()) : recordScriptedSession();
+
+        final SessionTrace.Reader reader = new SessionTrace.Reader(trace);
+        final VirtualClock clock = new VirtualClock(reader.getStartMillis());
+        final RenderingHost host = new RenderingHost(mResources);
+        final WatchFaceSession session = new WatchFaceSession(clock, clock, host);
+        host.mSession = session;
+
+        final SessionReplayer.Result result = SessionReplayer.replay(reader, session, clock);
+        System.out.println("SessionReplayBenchmark " + trace.length + " bytes: " + result);
+        System.out.println(String.format("SessionReplayBenchmark %d frames drawn, %d pixels locked, %.3f ms/frame",
+                host.getFrameCount(), host.getLockedPixels(), result.getReplayNanos() / 1e6 / Math.max(1, host.getFrameCount())));
+        System.out.println("SessionReplayBenchmark ticks: " + session.getTickStats(new TickScheduler.Stats()));
+
+        if(path == null) {
+            // the scripted session is replayed with the tick logic it was recorded with
+            assertEquals(result.getRecordedFrameCount(), result.getFrameCount());
+            assertEquals(result.getFrameCount(), host.getFrameCount());
+        }
+        host.dispose();
+    }
+
+    /**
+     * Ten minutes: a ticking second hand, ambient mode with minute ticks, a sweeping second hand
+     * and a time zone change while invisible.
+     */
+    private static byte[] recordScriptedSession() {
+        final VirtualClock clock = new VirtualClock(START_MILLIS);
+        final WatchFaceSession session = new WatchFaceSession(clock, clock, new WatchFaceSession.Host() {
+            @Override
+            public void drawFrame(boolean fullFrame) { }
+        });
+        session.setTimeZone(TimeZone.getTimeZone("UTC"));
+        session.setSurfaceSize(SIZE, SIZE);
+        session.setRound(true);
+        session.setRecorder(new SessionTrace.Recorder(clock, 64 * 1024));
+
+        session.setVisible(true);
+        clock.advanceBy(90000);
+        session.setAmbient(true);
+        for(int i = 0; i < 3; i++) {
+            clock.advanceBy(60000);
+            session.onTimeTick();
+        }
+        session.setAmbient(false);
+        session.setRenderMode(30, RenderQuality.FULL);
+        clock.advanceBy(120000);
+        session.setVisible(false);
+        clock.advanceBy(60000);
+        session.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+        session.setRenderMode(1, RenderQuality.FULL);
+        session.setVisible(true);
+        clock.advanceBy(150000);
+        session.setVisible(false);
+
+        return session.getRecorder().toByteArray();
+    }
+
+    /**
+     * Draws the timer frames through a backend with partial updates and the full repaints onto the
+     * whole image, like the engine.
+     */
+    private static class RenderingHost implements WatchFaceSession.Host {
+        private final WatchFaceRenderer mRenderer;
+        private final Graphics2DBackend mBackend = new Graphics2DBackend("partial", true, SIZE, SIZE);
+        WatchFaceSession mSession;
+        private int mFrameCount = 0;
+
+        RenderingHost(WatchFaceResources resources) {
+            mRenderer = new WatchFaceRenderer(resources);
+        }
+
+        @Override
+        public void drawFrame(boolean fullFrame) {
+            final RenderState state = RenderState.obtain(mSession, SIZE, SIZE);
+            try {
+                assertTrue(mRenderer.drawFrame(state, mBackend, fullFrame));
+            } finally {
+                state.recycle();
+            }
+            mFrameCount++;
+        }
+
+        int getFrameCount() {
+            return mFrameCount;
+        }
+
+        long getLockedPixels() {
+            return mBackend.getLockedPixels();
+        }
+
+        void dispose() {
+            mBackend.dispose();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.patloew.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated by the current thread, using the HotSpot specific
+ * {@link com.sun.management.ThreadMXBean}.
+ */
+public final class ThreadAllocations {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static {
+        THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private ThreadAllocations() { }
+
+    public static long get() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,161 @@
+package com.patloew.benchmark;
+
+import com.patloew.commons.DrawSurface;
+import com.patloew.commons.RenderState;
+import com.patloew.commons.ThumbnailExporter;
+import com.patloew.commons.ThumbnailSpec;
+import com.patloew.commons.WatchFaceRenderer;
+import com.patloew.commons.WatchFaceResources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exports thumbnails in parallel and checks them against frames rendered one by one.
+ */
+public class ThumbnailExportTest {
+    private static final Executor CALLING_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static WatchFaceResources sResources;
+
+    private File mDirectory;
+    private int mThreads;
+    private ExecutorService mPool;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        sResources = ResourceValues.load(1.5f);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("thumbnails").toFile();
+        mThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        mPool = Executors.newFixedThreadPool(mThreads);
+    }
+
+    @After
+    public void tearDown() {
+        mPool.shutdown();
+        final File[] files = mDirectory.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private static List<ThumbnailSpec> specs() {
+        final List<ThumbnailSpec> specs = new ArrayList<>();
+        for(int size : new int[] { 160, 240, 320 }) {
+            for(boolean round : new boolean[] { true, false }) {
+                for(boolean lightTheme : new boolean[] { true, false }) {
+                    specs.add(new ThumbnailSpec.Builder(size, size).setRound(round).setLightTheme(lightTheme).build());
+                    specs.add(new ThumbnailSpec.Builder(size, size).setRound(round).setLightTheme(lightTheme).setAmbient(true, true).setTime(3, 45, 15).build());
+                }
+            }
+        }
+        return specs;
+    }
+
+    private static ThumbnailExporter createExporter() {
+        return new ThumbnailExporter(new WatchFaceRenderer(sResources, BatchRenderer.FULL_DIAL), new PngEncoder());
+    }
+
+    @Test
+    public void parallelExport_matchesSequentialRendering() throws Exception {
+        final List<ThumbnailSpec> specs = specs();
+        final ThumbnailExporter.Result result = createExporter().export(specs, mDirectory, mPool);
+
+        assertTrue(result.getErrors().toString(), result.isSuccessful());
+        assertEquals(specs.size(), result.getFiles().size());
+
+        final WatchFaceRenderer reference = new WatchFaceRenderer(sResources, BatchRenderer.FULL_DIAL);
+        for(ThumbnailSpec spec : specs) {
+            final BufferedImage exported = ImageIO.read(new File(mDirectory, spec.getName() + ".png"));
+            assertNotNull(spec.getName(), exported);
+
+            final Graphics2DDrawSurface surface = new Graphics2DDrawSurface(spec.getWidth(), spec.getHeight());
+            final RenderState state = RenderState.obtain(spec, spec.getWidth(), spec.getHeight());
+            reference.onDraw(state, surface);
+            state.recycle();
+            surface.dispose();
+
+            final BufferedImage expected = surface.getImage();
+            assertArrayEquals(spec.getName(),
+                    expected.getRGB(0, 0, spec.getWidth(), spec.getHeight(), null, 0, spec.getWidth()),
+                    exported.getRGB(0, 0, spec.getWidth(), spec.getHeight(), null, 0, spec.getWidth()));
+        }
+    }
+
+    @Test
+    public void failingThumbnail_doesNotStopTheOthers() throws Exception {
+        final List<ThumbnailSpec> specs = new ArrayList<>();
+        specs.add(new ThumbnailSpec.Builder(100, 100).setName("ok").build());
+        specs.add(new ThumbnailSpec.Builder(100, 100).setName("missing/dir").build());
+
+        final ThumbnailExporter.Result result = createExporter().export(specs, mDirectory, mPool);
+
+        assertEquals(1, result.getFiles().size());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("missing/dir"));
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        final List<ThumbnailSpec> specs = specs();
+        // warm up
+        createExporter().export(specs, mDirectory, mPool);
+
+        long start = System.nanoTime();
+        createExporter().export(specs, mDirectory, CALLING_THREAD);
+        final long sequentialNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        createExporter().export(specs, mDirectory, mPool);
+        final long parallelNanos = System.nanoTime() - start;
+
+        System.out.println(String.format("ThumbnailExportTest %d thumbnails: %.0f ms sequential, %.0f ms on %d threads",
+                specs.size(), sequentialNanos / 1e6, parallelNanos / 1e6, mThreads));
+    }
+
+    private static class PngEncoder implements ThumbnailExporter.Encoder {
+        @Override
+        public DrawSurface.Layer createTarget(int width, int height) {
+            return new Graphics2DDrawSurface(width, height).createLayer(width, height);
+        }
+
+        @Override
+        public void encode(DrawSurface.Layer target, OutputStream out) throws IOException {
+            ImageIO.write(((Graphics2DDrawSurface) target.getSurface()).getImage(), "png", out);
+        }
+
+        @Override
+        public String getFileExtension() {
+            return "png";
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.patloew.commons;
+
+/**
+ * Ambient mode on displays with low-bit ambient mode or burn-in protection. These frames are drawn
+ * by the {@link LayerEngine} from the layers of the face like all other frames, so every device
+ * shows the same face.
+ *
+ * With low-bit ambient mode, the layers draw in reduced colors without anti-aliasing, see
+ * {@link #quantize(int)}. With burn-in protection, the composed face is shifted by a few pixels
+ * every minute. The cached layers are only blitted with another offset and never rendered again
+ * for a shift.
+ */
+public final class AmbientMode {
+    /** Maximum shift in pixels in each direction. */
+    public static final int MAX_SHIFT = 2;
+
+    /**
+     * Shift positions (x, y) cycled through once per minute. Consecutive positions are neighbours
+     * on a 3x3 grid, so the face never jumps across the display.
+     */
+    private static final int[] SHIFT_PATTERN = {
+            0, 0,   2, 0,   2, 2,   0, 2,   -2, 2,   -2, 0,   -2, -2,   0, -2,   2, -2
+    };
+
+    public static final int SHIFT_PATTERN_LENGTH = SHIFT_PATTERN.length / 2;
+
+    private AmbientMode() { }
+
+    /**
+     * @return true if the face is shifted for burn-in protection in the given state
+     */
+    public static boolean isShifted(RenderState state) {
+        return state.isAmbient() && state.isBurnInProtection();
+    }
+
+    /**
+     * @return the index into the shift pattern for the given local time
+     */
+    public static int getShiftIndex(int hour, int minute) {
+        return (hour * 60 + minute) % SHIFT_PATTERN_LENGTH;
+    }
+
+    public static int getShiftX(int shiftIndex) {
+        return SHIFT_PATTERN[shiftIndex * 2];
+    }
+
+    public static int getShiftY(int shiftIndex) {
+        return SHIFT_PATTERN[shiftIndex * 2 + 1];
+    }
+
+    /**
+     * Reduces a color to one bit per channel (black, white and the primary and secondary colors),
+     * fully opaque.
+     */
+    public static int quantize(int color) {
+        int result = 0xFF000000;
+        for(int shift = 0; shift < 24; shift += 8) {
+            if(((color >>> shift) & 0xFF) >= 0x80) {
+                result |= 0xFF << shift;
+            }
+        }
+        return result;
+    }
+}
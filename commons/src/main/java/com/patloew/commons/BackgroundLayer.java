@@ -0,0 +1,44 @@
+package com.patloew.commons;
+
+/**
+ * Fills the face with the background color of the theme. In the mobile preview, round faces are
+ * drawn as a circle. In low-bit ambient mode, the color is reduced to one bit per channel.
+ */
+public class BackgroundLayer extends FaceLayer {
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new BackgroundLayer(resources);
+        }
+    };
+
+    private final WatchFaceResources mResources;
+    private final DrawStyle mStyle = new DrawStyle();
+    private boolean mCircle = false;
+
+    public BackgroundLayer(WatchFaceResources resources) {
+        super(UpdateFrequency.CONFIG_CHANGE);
+        mResources = resources;
+    }
+
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean useLightTheme = !state.isAmbient() && state.isLightTheme();
+        final int color = useLightTheme ? mResources.getBackgroundLightColor() : mResources.getBackgroundColor();
+        final boolean lowBitAmbient = state.isAmbient() && state.isLowBitAmbient();
+        mStyle.setColor(lowBitAmbient ? AmbientMode.quantize(color) : color);
+        mStyle.setAntiAlias(mobilePreview && !lowBitAmbient);
+        mCircle = mobilePreview && state.isRound();
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        final int width = state.getWidth();
+        final int height = state.getHeight();
+        if(mCircle) {
+            surface.drawCircle(width / 2f, height / 2f, width / 2f, mStyle);
+        } else {
+            surface.drawRect(0, 0, width, height, mStyle);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.patloew.commons;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+
+/**
+ * Battery level of the watch in percent, read from the sticky battery broadcast.
+ */
+public class BatteryComplicationProvider implements ComplicationProvider {
+    private static final long UPDATE_INTERVAL_MS = 60 * 1000;
+
+    private final Context mContext;
+
+    public BatteryComplicationProvider(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    @Override
+    public ComplicationData load() {
+        final Intent batteryStatus = mContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if(batteryStatus == null) {
+            return null;
+        }
+        final int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        final int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if(level < 0 || scale <= 0) {
+            return null;
+        }
+        return new ComplicationData(level * 100 / scale + "%");
+    }
+
+    @Override
+    public long getUpdateIntervalMillis() {
+        return UPDATE_INTERVAL_MS;
+    }
+}
@@ -0,0 +1,40 @@
+package com.patloew.commons;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link ThumbnailExporter.Encoder} which renders into ARGB_8888 bitmaps and compresses them as PNG
+ * or WebP.
+ */
+public class BitmapThumbnailEncoder implements ThumbnailExporter.Encoder {
+    private final Bitmap.CompressFormat mFormat;
+    private final int mQuality;
+
+    /**
+     * @param quality 0 to 100, ignored for PNG
+     */
+    public BitmapThumbnailEncoder(Bitmap.CompressFormat format, int quality) {
+        mFormat = format;
+        mQuality = quality;
+    }
+
+    @Override
+    public DrawSurface.Layer createTarget(int width, int height) {
+        return new CanvasDrawSurface.BitmapLayer(width, height);
+    }
+
+    @Override
+    public void encode(DrawSurface.Layer target, OutputStream out) throws IOException {
+        if(!((CanvasDrawSurface.BitmapLayer) target).getBitmap().compress(mFormat, mQuality, out)) {
+            throw new IOException("Could not encode thumbnail as " + mFormat);
+        }
+    }
+
+    @Override
+    public String getFileExtension() {
+        return mFormat == Bitmap.CompressFormat.PNG ? "png" : (mFormat == Bitmap.CompressFormat.WEBP ? "webp" : "jpg");
+    }
+}
@@ -0,0 +1,195 @@
+package com.patloew.commons;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * {@link DrawSurface} backed by an Android {@link Canvas}. The canvas can be swapped with
+ * {@link #setCanvas(Canvas)}, so one surface can be reused for every frame. A single
+ * {@link Paint} is updated from the {@link DrawStyle} of each draw call, so drawing does not
+ * allocate.
+ */
+public class CanvasDrawSurface implements DrawSurface {
+    private final Paint mPaint = new Paint();
+    private final Paint mLayerPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF mRect = new RectF();
+    private final Path mPath = new Path();
+    private Canvas mCanvas;
+
+    public CanvasDrawSurface() { }
+
+    public CanvasDrawSurface(Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    public Canvas getCanvas() {
+        return mCanvas;
+    }
+
+    public void setCanvas(Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    private Paint fillPaint(DrawStyle style) {
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(style.getColor());
+        mPaint.setAntiAlias(style.isAntiAlias());
+        return mPaint;
+    }
+
+    private Paint textPaint(DrawStyle style) {
+        fillPaint(style);
+        mPaint.setTextSize(style.getTextSize());
+        mPaint.setTextAlign(Paint.Align.CENTER);
+        return mPaint;
+    }
+
+    private Paint strokePaint(DrawStyle style) {
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setColor(style.getColor());
+        mPaint.setAntiAlias(style.isAntiAlias());
+        mPaint.setStrokeWidth(style.getStrokeWidth());
+        mPaint.setStrokeCap(style.isRoundCap() ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+        return mPaint;
+    }
+
+    @Override
+    public int getWidth() {
+        return mCanvas.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mCanvas.getHeight();
+    }
+
+    @Override
+    public void save() {
+        mCanvas.save();
+    }
+
+    @Override
+    public void restore() {
+        mCanvas.restore();
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        mCanvas.translate(dx, dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        mCanvas.scale(sx, sy);
+    }
+
+    @Override
+    public void rotate(float degrees, float px, float py) {
+        mCanvas.rotate(degrees, px, py);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, DrawStyle style) {
+        mCanvas.drawRect(left, top, right, bottom, fillPaint(style));
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, DrawStyle style) {
+        mRect.set(left, top, right, bottom);
+        mCanvas.drawRoundRect(mRect, rx, ry, fillPaint(style));
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, DrawStyle style) {
+        mCanvas.drawCircle(cx, cy, radius, fillPaint(style));
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, DrawStyle style) {
+        mCanvas.drawLine(startX, startY, stopX, stopY, strokePaint(style));
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, DrawStyle style) {
+        mCanvas.drawLines(points, offset, count, strokePaint(style));
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int offset, int count, DrawStyle style) {
+        mPath.rewind();
+        mPath.moveTo(points[offset], points[offset + 1]);
+        for(int i = offset + 2; i + 1 < offset + count; i += 2) {
+            mPath.lineTo(points[i], points[i + 1]);
+        }
+        mPath.close();
+        mCanvas.drawPath(mPath, fillPaint(style));
+    }
+
+    @Override
+    public void drawText(String text, float centerX, float centerY, DrawStyle style) {
+        final Paint paint = textPaint(style);
+        mCanvas.drawText(text, centerX, centerY - (paint.ascent() + paint.descent()) / 2f, paint);
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top) {
+        mCanvas.drawBitmap(((BitmapLayer) layer).getBitmap(), left, top, mLayerPaint);
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top, float right, float bottom) {
+        mRect.set(left, top, right, bottom);
+        mCanvas.drawBitmap(((BitmapLayer) layer).getBitmap(), null, mRect, mLayerPaint);
+    }
+
+    @Override
+    public Layer createLayer(int width, int height) {
+        return new BitmapLayer(width, height);
+    }
+
+    /**
+     * Offscreen layer backed by an ARGB_8888 {@link Bitmap}.
+     */
+    public static class BitmapLayer implements Layer {
+        private final Bitmap mBitmap;
+        private final CanvasDrawSurface mSurface;
+
+        public BitmapLayer(int width, int height) {
+            mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mSurface = new CanvasDrawSurface(new Canvas(mBitmap));
+        }
+
+        public Bitmap getBitmap() {
+            return mBitmap;
+        }
+
+        @Override
+        public int getWidth() {
+            return mBitmap.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return mBitmap.getHeight();
+        }
+
+        @Override
+        public DrawSurface getSurface() {
+            return mSurface;
+        }
+
+        @Override
+        public void clear() {
+            mBitmap.eraseColor(Color.TRANSPARENT);
+        }
+
+        @Override
+        public void release() {
+            mBitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.patloew.commons;
+
+import android.view.Choreographer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Scheduler} which runs the tasks on the first vsync after their delay, so frames drawn by
+ * them are aligned with the display. Must be used on a thread with a looper, usually the main
+ * thread.
+ */
+public class ChoreographerScheduler implements Scheduler {
+    // one callback per task, so scheduling the same task again does not allocate
+    private final Map<Runnable, Choreographer.FrameCallback> mCallbacks = new HashMap<>();
+
+    @Override
+    public void schedule(final Runnable task, long delayMs) {
+        Choreographer.FrameCallback callback = mCallbacks.get(task);
+        if(callback == null) {
+            callback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    task.run();
+                }
+            };
+            mCallbacks.put(task, callback);
+        }
+        Choreographer.getInstance().postFrameCallbackDelayed(callback, delayMs);
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        final Choreographer.FrameCallback callback = mCallbacks.get(task);
+        if(callback != null) {
+            Choreographer.getInstance().removeFrameCallback(callback);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.patloew.commons;
+
+/**
+ * Source of the current time. The watch face reads the time only through a clock, so a session
+ * can be replayed off-device with a {@link VirtualClock}.
+ */
+public interface Clock {
+    /** The system clock. */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /** @return the wall clock time, like {@link System#currentTimeMillis()} */
+    long currentTimeMillis();
+
+    /** @return a monotonic time for measuring intervals, like {@link System#nanoTime()} */
+    long nanoTime();
+}
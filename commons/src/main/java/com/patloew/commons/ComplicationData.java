@@ -0,0 +1,50 @@
+package com.patloew.commons;
+
+/**
+ * Preformatted content of a complication: a short text, e.g. "18" or "85%", and an optional title
+ * below it, e.g. "SAT". Formatting happens in the {@link ComplicationProvider}, on a background
+ * thread, so drawing does not allocate.
+ */
+public final class ComplicationData {
+    private final String mText;
+    private final String mTitle;
+
+    public ComplicationData(String text) {
+        this(text, null);
+    }
+
+    /**
+     * @param title shown below the text, or null
+     */
+    public ComplicationData(String text, String title) {
+        mText = text;
+        mTitle = title;
+    }
+
+    public String getText() {
+        return mText;
+    }
+
+    /** @return the title, or null if there is none */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) { return true; }
+        if(!(o instanceof ComplicationData)) { return false; }
+        final ComplicationData other = (ComplicationData) o;
+        return mText.equals(other.mText) && (mTitle == null ? other.mTitle == null : mTitle.equals(other.mTitle));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mText.hashCode() + (mTitle != null ? mTitle.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return mTitle != null ? mText + " " + mTitle : mText;
+    }
+}
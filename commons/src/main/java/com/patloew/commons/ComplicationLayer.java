@@ -0,0 +1,93 @@
+package com.patloew.commons;
+
+/**
+ * Text of the complication slots of a {@link ComplicationManager}, drawn on the dial. Only
+ * rendered again when the data changed, all other frames blit the cached layer.
+ */
+public class ComplicationLayer extends FaceLayer {
+    // the title is drawn smaller, below the text
+    private static final float TITLE_SCALE = 0.6f;
+
+    private final WatchFaceResources mResources;
+    private final ComplicationManager mComplications;
+    private final DrawStyle mTextStyle = new DrawStyle();
+    private final DrawStyle mTitleStyle = new DrawStyle();
+
+    public ComplicationLayer(WatchFaceResources resources, ComplicationManager complications) {
+        super(UpdateFrequency.DATA);
+        mResources = resources;
+        mComplications = complications;
+        mTextStyle.setTextSize(resources.getNumeralTextSize());
+        mTitleStyle.setTextSize(resources.getNumeralTextSize() * TITLE_SCALE);
+    }
+
+    /**
+     * @return a factory for layers showing the given complications
+     */
+    public static Factory factory(ComplicationManager complications) {
+        return new LayerFactory(complications);
+    }
+
+    @Override
+    public long getContentVersion() {
+        return mComplications.getVersion();
+    }
+
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean lowBitAmbient = state.isAmbient() && state.isLowBitAmbient();
+        final int color = lowBitAmbient ? mResources.getLowBitAmbientHandColor() : mResources.getDialColor();
+        final boolean antiAlias = !lowBitAmbient && state.getRenderQuality().isAntiAlias();
+        mTextStyle.setColor(color);
+        mTextStyle.setAntiAlias(antiAlias);
+        mTitleStyle.setColor(color);
+        mTitleStyle.setAntiAlias(antiAlias);
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        final int width = state.getWidth();
+        final int height = state.getHeight();
+        for(int i = 0; i < mComplications.getSlotCount(); i++) {
+            final ComplicationManager.Slot slot = mComplications.getSlot(i);
+            final ComplicationData data = slot.getData();
+            if(data == null) {
+                continue;
+            }
+
+            final float centerX = slot.getCenterX() * width;
+            final float centerY = slot.getCenterY() * height;
+            surface.drawText(data.getText(), centerX, centerY, mTextStyle);
+            if(data.getTitle() != null) {
+                surface.drawText(data.getTitle(), centerX, centerY + mTextStyle.getTextSize(), mTitleStyle);
+            }
+        }
+    }
+
+    /**
+     * Factories of the same manager are equal, so face definitions built with the same
+     * complications are equal as well.
+     */
+    private static final class LayerFactory implements Factory {
+        private final ComplicationManager mComplications;
+
+        LayerFactory(ComplicationManager complications) {
+            mComplications = complications;
+        }
+
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new ComplicationLayer(resources, mComplications);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LayerFactory && ((LayerFactory) o).mComplications == mComplications;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(mComplications);
+        }
+    }
+}
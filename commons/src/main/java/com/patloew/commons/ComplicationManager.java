@@ -0,0 +1,197 @@
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the data of the complication slots of a watch face in the background and publishes it to
+ * the render threads.
+ *
+ * The providers are run on the given executor when {@link #refresh(long)} finds their update
+ * interval elapsed. Only changed data bumps the {@link #getVersion() version}, which makes the
+ * {@link ComplicationLayer} render its text again. All other frames blit the cached layer, so
+ * the draw thread neither formats nor measures text.
+ *
+ * <pre>
+ * ComplicationManager complications = new ComplicationManager.Builder(executor)
+ *         .add(new DateComplicationProvider(), 0.72f, 0.5f)
+ *         .build();
+ * FaceDefinition face = new FaceDefinition.Builder()
+ *         .addBackground()
+ *         .addComplications(complications)
+ *         .addHands()
+ *         .build();
+ * </pre>
+ *
+ * {@link #refresh(long)} must be called from one thread, usually the main thread. The data can be
+ * read from any thread.
+ */
+public class ComplicationManager {
+    private static final long NEVER = Long.MIN_VALUE;
+
+    /** Called on the loading thread when the data of a slot changed. */
+    public interface Listener {
+        void onComplicationsChanged();
+    }
+
+    private final Executor mExecutor;
+    private final Slot[] mSlots;
+    private final AtomicLong mVersion = new AtomicLong();
+    private volatile Listener mListener;
+
+    private ComplicationManager(Builder builder) {
+        mExecutor = builder.mExecutor;
+        mSlots = builder.mSlots.toArray(new Slot[builder.mSlots.size()]);
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    public int getSlotCount() {
+        return mSlots.length;
+    }
+
+    public Slot getSlot(int index) {
+        return mSlots[index];
+    }
+
+    /**
+     * @return a value which changes whenever the data of a slot changed
+     */
+    public long getVersion() {
+        return mVersion.get();
+    }
+
+    /**
+     * Loads the slots whose update interval elapsed, e.g. on every time tick.
+     *
+     * @param nowMillis the current time, e.g. {@link System#currentTimeMillis()}
+     */
+    public void refresh(long nowMillis) {
+        for(Slot slot : mSlots) {
+            // also when the clock was set back
+            if(slot.mLastLoadMillis == NEVER || nowMillis - slot.mLastLoadMillis >= slot.mProvider.getUpdateIntervalMillis()
+                    || nowMillis < slot.mLastLoadMillis) {
+                load(slot, nowMillis);
+            }
+        }
+    }
+
+    /**
+     * Loads all slots, e.g. when the watch face becomes visible or the time zone changed.
+     */
+    public void refreshAll(long nowMillis) {
+        for(Slot slot : mSlots) {
+            load(slot, nowMillis);
+        }
+    }
+
+    private void load(final Slot slot, long nowMillis) {
+        if(!slot.mLoading.compareAndSet(false, true)) {
+            // the running load reads data which is recent enough
+            return;
+        }
+        slot.mLastLoadMillis = nowMillis;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final ComplicationData data;
+                    try {
+                        data = slot.mProvider.load();
+                    } catch(RuntimeException e) {
+                        // a failing provider keeps showing its last data
+                        return;
+                    }
+                    publish(slot, data);
+                } finally {
+                    // only now, so a newer load can't be published before this one
+                    slot.mLoading.set(false);
+                }
+            }
+        });
+    }
+
+    private void publish(Slot slot, ComplicationData data) {
+        if(data == null ? slot.mData == null : data.equals(slot.mData)) {
+            return;
+        }
+        // data first, a render thread which sees the new version also sees the new data
+        slot.mData = data;
+        mVersion.incrementAndGet();
+        final Listener listener = mListener;
+        if(listener != null) {
+            listener.onComplicationsChanged();
+        }
+    }
+
+    /**
+     * A complication on the face: its provider, its position and the last loaded data.
+     */
+    public static final class Slot {
+        private final ComplicationProvider mProvider;
+        private final float mCenterX;
+        private final float mCenterY;
+
+        private volatile ComplicationData mData;
+        private final AtomicBoolean mLoading = new AtomicBoolean(false);
+        // only used by the refreshing thread
+        private long mLastLoadMillis = NEVER;
+
+        Slot(ComplicationProvider provider, float centerX, float centerY) {
+            mProvider = provider;
+            mCenterX = centerX;
+            mCenterY = centerY;
+        }
+
+        public ComplicationProvider getProvider() {
+            return mProvider;
+        }
+
+        /** @return the horizontal center, as a fraction of the face width */
+        public float getCenterX() {
+            return mCenterX;
+        }
+
+        /** @return the vertical center, as a fraction of the face height */
+        public float getCenterY() {
+            return mCenterY;
+        }
+
+        /** @return the last loaded data, or null if there is none yet */
+        public ComplicationData getData() {
+            return mData;
+        }
+    }
+
+    public static class Builder {
+        private final Executor mExecutor;
+        private final List<Slot> mSlots = new ArrayList<>();
+
+        /**
+         * @param executor runs the providers, e.g. a single background thread
+         */
+        public Builder(Executor executor) {
+            mExecutor = executor;
+        }
+
+        /**
+         * Adds a slot, centered on the given point.
+         *
+         * @param centerX horizontal center, as a fraction of the face width
+         * @param centerY vertical center, as a fraction of the face height
+         */
+        public Builder add(ComplicationProvider provider, float centerX, float centerY) {
+            mSlots.add(new Slot(provider, centerX, centerY));
+            return this;
+        }
+
+        public ComplicationManager build() {
+            return new ComplicationManager(this);
+        }
+    }
+}
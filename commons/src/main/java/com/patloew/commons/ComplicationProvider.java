@@ -0,0 +1,18 @@
+package com.patloew.commons;
+
+/**
+ * Source of the data of a complication, e.g. date, battery, steps or weather. Providers are run
+ * by the {@link ComplicationManager} on a background thread, so they can block on I/O or sensors.
+ */
+public interface ComplicationProvider {
+    /**
+     * Loads and formats the current data. Called on a background thread, never concurrently for
+     * the same provider.
+     *
+     * @return the data, or null if there is none at the moment
+     */
+    ComplicationData load();
+
+    /** @return how often the data is loaded again, in milliseconds */
+    long getUpdateIntervalMillis();
+}
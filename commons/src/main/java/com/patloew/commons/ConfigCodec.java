@@ -0,0 +1,153 @@
+package com.patloew.commons;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compact binary format for syncing {@link WatchFaceOptions}.
+ *
+ * <pre>
+ * message  = type:byte seq:varint [baseSeq:varint, deltas only] field*
+ * field    = key:varint value       key = fieldId &lt;&lt; 3 | wireType
+ * </pre>
+ *
+ * A full message contains all fields, a delta only the fields which changed since the message
+ * with {@code baseSeq}. Sequence numbers and values are varints (values zigzag encoded), so a
+ * boolean or a small int takes one byte and a delta of one option is about 7 bytes. Fields with
+ * an unknown id are skipped, which keeps old receivers compatible with newer senders.
+ */
+public final class ConfigCodec {
+    public static final int TYPE_FULL = 1;
+    public static final int TYPE_DELTA = 2;
+    public static final int TYPE_RESYNC_REQUEST = 3;
+
+    private static final int WIRE_VARINT = 0;
+    /** Reserved for length-prefixed values of future fields. */
+    private static final int WIRE_BYTES = 2;
+
+    private ConfigCodec() { }
+
+    /**
+     * @return all fields of the options
+     */
+    public static byte[] encodeFull(int seq, WatchFaceOptions options) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(TYPE_FULL);
+        writeVarint(out, seq & 0xFFFFFFFFL);
+        for(int field = 1; field <= WatchFaceOptions.MAX_FIELD; field++) {
+            writeField(out, field, options.getField(field));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the fields which differ between {@code base} and {@code options}, or null if none
+     * changed
+     */
+    public static byte[] encodeDelta(int seq, int baseSeq, WatchFaceOptions base, WatchFaceOptions options) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(TYPE_DELTA);
+        writeVarint(out, seq & 0xFFFFFFFFL);
+        writeVarint(out, baseSeq & 0xFFFFFFFFL);
+        boolean changed = false;
+        for(int field = 1; field <= WatchFaceOptions.MAX_FIELD; field++) {
+            final int value = options.getField(field);
+            if(value != base.getField(field)) {
+                writeField(out, field, value);
+                changed = true;
+            }
+        }
+        return changed ? out.toByteArray() : null;
+    }
+
+    public static byte[] encodeResyncRequest() {
+        return new byte[] { TYPE_RESYNC_REQUEST };
+    }
+
+    /**
+     * Decoded header of a message. Reused to avoid allocations.
+     */
+    public static class Message {
+        public int type;
+        public int seq;
+        public int baseSeq;
+        /** Mask of {@link WatchFaceOptions#fieldBit(int)} of the fields which changed. */
+        public int changedFields;
+    }
+
+    /**
+     * Decodes a message and applies its fields to the options.
+     *
+     * @throws IllegalArgumentException if the message is malformed. The options might be partially
+     * updated in that case.
+     */
+    public static void decode(byte[] payload, WatchFaceOptions options, Message outMessage) {
+        final int[] pos = { 0 };
+        if(payload == null || payload.length == 0) {
+            throw new IllegalArgumentException("Empty config message");
+        }
+        outMessage.type = payload[pos[0]++];
+        outMessage.seq = 0;
+        outMessage.baseSeq = 0;
+        outMessage.changedFields = 0;
+
+        if(outMessage.type == TYPE_RESYNC_REQUEST) {
+            return;
+        } else if(outMessage.type != TYPE_FULL && outMessage.type != TYPE_DELTA) {
+            throw new IllegalArgumentException("Unknown config message type " + outMessage.type);
+        }
+
+        outMessage.seq = (int) readVarint(payload, pos);
+        if(outMessage.type == TYPE_DELTA) {
+            outMessage.baseSeq = (int) readVarint(payload, pos);
+        }
+
+        while(pos[0] < payload.length) {
+            final long key = readVarint(payload, pos);
+            final int field = (int) (key >>> 3);
+            final int wireType = (int) (key & 7);
+            if(wireType == WIRE_VARINT) {
+                final long raw = readVarint(payload, pos);
+                final int value = (int) ((raw >>> 1) ^ -(raw & 1));
+                if(options.setField(field, value)) {
+                    outMessage.changedFields |= WatchFaceOptions.fieldBit(field);
+                }
+            } else if(wireType == WIRE_BYTES) {
+                final long length = readVarint(payload, pos);
+                if(length < 0 || pos[0] + length > payload.length) {
+                    throw new IllegalArgumentException("Truncated config message");
+                }
+                pos[0] += (int) length;
+            } else {
+                throw new IllegalArgumentException("Unknown wire type " + wireType);
+            }
+        }
+    }
+
+    private static void writeField(ByteArrayOutputStream out, int field, int value) {
+        writeVarint(out, (field << 3) | WIRE_VARINT);
+        writeVarint(out, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(byte[] payload, int[] pos) {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            if(pos[0] >= payload.length) {
+                throw new IllegalArgumentException("Truncated config message");
+            }
+            final byte b = payload[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
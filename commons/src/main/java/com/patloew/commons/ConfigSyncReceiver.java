@@ -0,0 +1,86 @@
+package com.patloew.commons;
+
+/**
+ * Watch side of the config sync. Applies full updates and deltas from the {@link ConfigSyncSender}
+ * to the options in place, so the watch face keeps running and only has to react to the changed
+ * fields. A delta which is not based on the last applied message (e.g. because a message was
+ * lost) is dropped and a resync is requested instead.
+ *
+ * Must be used on the main thread.
+ */
+public class ConfigSyncReceiver implements ConfigTransport.Listener {
+    public interface Listener {
+        /**
+         * @param changedFields mask of {@link WatchFaceOptions#fieldBit(int)} of the changed fields
+         */
+        void onOptionsChanged(WatchFaceOptions options, int changedFields);
+    }
+
+    private final ConfigTransport mTransport;
+    private final WatchFaceOptions mOptions;
+    private final Listener mListener;
+
+    private final WatchFaceOptions mScratch = new WatchFaceOptions();
+    private final ConfigCodec.Message mMessage = new ConfigCodec.Message();
+
+    private boolean mSynced = false;
+    private boolean mResyncRequested = false;
+    private int mLastSeq;
+
+    /**
+     * @param options updated in place by received messages
+     */
+    public ConfigSyncReceiver(ConfigTransport transport, WatchFaceOptions options, Listener listener) {
+        mTransport = transport;
+        mOptions = options;
+        mListener = listener;
+        transport.setListener(this);
+    }
+
+    /** Asks the phone for all fields, e.g. when the watch face starts. */
+    public void requestSync() {
+        mResyncRequested = true;
+        mTransport.send(ConfigCodec.encodeResyncRequest());
+    }
+
+    public boolean isSynced() {
+        return mSynced;
+    }
+
+    @Override
+    public void onReceive(byte[] payload) {
+        // decode into a copy, so a malformed or out of order message leaves the options untouched
+        mScratch.copyFrom(mOptions);
+        try {
+            ConfigCodec.decode(payload, mScratch, mMessage);
+        } catch(IllegalArgumentException e) {
+            requestSync();
+            return;
+        }
+
+        switch(mMessage.type) {
+            case ConfigCodec.TYPE_FULL:
+                mResyncRequested = false;
+                break;
+            case ConfigCodec.TYPE_DELTA:
+                if(!mSynced || mMessage.baseSeq != mLastSeq) {
+                    // deltas arriving until the full update is received don't request it again
+                    mSynced = false;
+                    if(!mResyncRequested) {
+                        requestSync();
+                    }
+                    return;
+                }
+                break;
+            default:
+                return;
+        }
+
+        mSynced = true;
+        mLastSeq = mMessage.seq;
+        if(mMessage.changedFields != 0) {
+            mOptions.copyFrom(mScratch);
+            mListener.onOptionsChanged(mOptions, mMessage.changedFields);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.patloew.commons;
+
+import java.util.Random;
+
+/**
+ * Phone side of the config sync. Edits are coalesced: the first change after an idle period
+ * schedules a flush after the batch delay, further changes until then only update the pending
+ * options. A flush sends one delta with the fields which differ from the last sent options.
+ *
+ * The watch applies a delta only if it is based on the last message it received. Otherwise, or
+ * if the watch app just started, it sends a resync request, which is answered with all fields.
+ *
+ * Must be used on the main thread, the flushes are scheduled on it by the {@link Scheduler}.
+ */
+public class ConfigSyncSender implements ConfigTransport.Listener {
+    public static final long DEFAULT_BATCH_DELAY_MS = 300;
+
+    private final ConfigTransport mTransport;
+    private final Scheduler mScheduler;
+    private final long mBatchDelayMs;
+
+    private final WatchFaceOptions mSent = new WatchFaceOptions();
+    private final WatchFaceOptions mPending = new WatchFaceOptions();
+    private final WatchFaceOptions mScratch = new WatchFaceOptions();
+    private final ConfigCodec.Message mMessage = new ConfigCodec.Message();
+
+    // random start, so deltas of a new session don't match the sequence of an old one
+    private int mSeq = new Random().nextInt(1 << 14);
+    private boolean mFlushScheduled = false;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mFlushScheduled = false;
+            flush();
+        }
+    };
+
+    public ConfigSyncSender(ConfigTransport transport, Scheduler scheduler) {
+        this(transport, scheduler, DEFAULT_BATCH_DELAY_MS);
+    }
+
+    public ConfigSyncSender(ConfigTransport transport, Scheduler scheduler, long batchDelayMs) {
+        mTransport = transport;
+        mScheduler = scheduler;
+        mBatchDelayMs = batchDelayMs;
+        transport.setListener(this);
+    }
+
+    /**
+     * Sends all fields of the given options right away, e.g. when the phone app starts.
+     */
+    public void sendFull(WatchFaceOptions options) {
+        mPending.copyFrom(options);
+        cancelFlush();
+        sendFull();
+    }
+
+    /**
+     * Queues the given options. They are sent as one batched delta after the batch delay.
+     */
+    public void setOptions(WatchFaceOptions options) {
+        mPending.copyFrom(options);
+        if(!mFlushScheduled) {
+            mFlushScheduled = true;
+            mScheduler.schedule(mFlushRunnable, mBatchDelayMs);
+        }
+    }
+
+    /**
+     * Sends the pending changes now.
+     *
+     * @return true if a delta was sent
+     */
+    public boolean flush() {
+        cancelFlush();
+        final int seq = mSeq + 1;
+        final byte[] payload = ConfigCodec.encodeDelta(seq, mSeq, mSent, mPending);
+        if(payload == null) {
+            return false;
+        }
+        mSeq = seq;
+        mSent.copyFrom(mPending);
+        mTransport.send(payload);
+        return true;
+    }
+
+    private void sendFull() {
+        mSeq++;
+        mSent.copyFrom(mPending);
+        mTransport.send(ConfigCodec.encodeFull(mSeq, mSent));
+    }
+
+    private void cancelFlush() {
+        if(mFlushScheduled) {
+            mFlushScheduled = false;
+            mScheduler.cancel(mFlushRunnable);
+        }
+    }
+
+    @Override
+    public void onReceive(byte[] payload) {
+        try {
+            ConfigCodec.decode(payload, mScratch, mMessage);
+        } catch(IllegalArgumentException e) {
+            return;
+        }
+        if(mMessage.type == ConfigCodec.TYPE_RESYNC_REQUEST) {
+            // pending edits are included, so they don't have to be sent anymore
+            cancelFlush();
+            sendFull();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.patloew.commons;
+
+/**
+ * Channel for config messages between the phone and the watch, see {@link ConfigCodec}. On
+ * Android, this is the Wearable MessageApi ({@link WearableConfigTransport}), tests use an
+ * in-process stand-in.
+ */
+public interface ConfigTransport {
+    interface Listener {
+        /** Called on the main thread for every message from the other side. */
+        void onReceive(byte[] payload);
+    }
+
+    void setListener(Listener listener);
+
+    /** Sends the message to the other side. Messages might be lost, but are not reordered. */
+    void send(byte[] payload);
+}
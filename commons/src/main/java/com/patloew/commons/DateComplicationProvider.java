@@ -0,0 +1,46 @@
+package com.patloew.commons;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Day of the month, with the short day of the week as title, in the default locale and time zone.
+ */
+public class DateComplicationProvider implements ComplicationProvider {
+    // the date changes at midnight, which should not be shown more than a minute late
+    private static final long UPDATE_INTERVAL_MS = 60 * 1000;
+
+    private final Clock mClock;
+
+    public DateComplicationProvider() {
+        this(Clock.SYSTEM);
+    }
+
+    /**
+     * @param clock read on the loading thread
+     */
+    public DateComplicationProvider(Clock clock) {
+        mClock = clock;
+    }
+
+    @Override
+    public ComplicationData load() {
+        return format(mClock.currentTimeMillis(), TimeZone.getDefault(), Locale.getDefault());
+    }
+
+    @Override
+    public long getUpdateIntervalMillis() {
+        return UPDATE_INTERVAL_MS;
+    }
+
+    static ComplicationData format(long timeInMillis, TimeZone timeZone, Locale locale) {
+        final Date date = new Date(timeInMillis);
+        final SimpleDateFormat dayFormat = new SimpleDateFormat("d", locale);
+        dayFormat.setTimeZone(timeZone);
+        final SimpleDateFormat weekdayFormat = new SimpleDateFormat("EEE", locale);
+        weekdayFormat.setTimeZone(timeZone);
+        return new ComplicationData(dayFormat.format(date), weekdayFormat.format(date).toUpperCase(locale));
+    }
+}
@@ -0,0 +1,100 @@
+package com.patloew.commons;
+
+/**
+ * Precomputed line endpoints of the dial ticks, packed for a single
+ * {@link DrawSurface#drawLines(float[], int, int, DrawStyle)} call per tick style. The
+ * endpoints are only computed again when the size or shape changes.
+ *
+ * On round faces, the ticks are placed on a circle. On square faces, they reach out to the edge
+ * of the face.
+ *
+ * A geometry which is not updated anymore can be shared in the {@link SharedAssetCache}.
+ */
+public class DialGeometry implements SharedAssetCache.Asset {
+    private static final int HOUR_TICKS = 12;
+    private static final int MINUTE_TICKS = 60 - HOUR_TICKS;
+
+    private final float[] mMinuteTicks = new float[MINUTE_TICKS * 4];
+    private final float[] mHourTicks = new float[HOUR_TICKS * 4];
+
+    private boolean mValid = false;
+    private int mWidth;
+    private int mHeight;
+    private boolean mRound;
+    private float mTickLength;
+
+    /**
+     * Updates the geometry for the given face.
+     *
+     * @param tickLength length of the minute ticks, the hour ticks are twice as long
+     * @return true if the geometry was computed again
+     */
+    public boolean update(int width, int height, boolean round, float tickLength) {
+        if(matches(width, height, round, tickLength)) {
+            return false;
+        }
+        mValid = true;
+        mWidth = width;
+        mHeight = height;
+        mRound = round;
+        mTickLength = tickLength;
+
+        final float centerX = width / 2f;
+        final float centerY = height / 2f;
+        int minuteIndex = 0;
+        int hourIndex = 0;
+
+        for(int tick = 0; tick < 60; tick++) {
+            final double angle = tick / 30.0 * Math.PI;
+            final float dx = (float) Math.sin(angle);
+            final float dy = (float) -Math.cos(angle);
+
+            final float outerRadius;
+            if(round) {
+                outerRadius = centerX;
+            } else {
+                // distance from the center to the edge of the rectangle in this direction
+                final float toSide = Math.abs(dx) > 1e-6f ? centerX / Math.abs(dx) : Float.MAX_VALUE;
+                final float toTop = Math.abs(dy) > 1e-6f ? centerY / Math.abs(dy) : Float.MAX_VALUE;
+                outerRadius = Math.min(toSide, toTop);
+            }
+
+            final boolean hourTick = tick % 5 == 0;
+            final float innerRadius = outerRadius - (hourTick ? tickLength * 2 : tickLength);
+            final float[] target = hourTick ? mHourTicks : mMinuteTicks;
+            int i = hourTick ? hourIndex : minuteIndex;
+            target[i++] = centerX + dx * innerRadius;
+            target[i++] = centerY + dy * innerRadius;
+            target[i++] = centerX + dx * outerRadius;
+            target[i++] = centerY + dy * outerRadius;
+            if(hourTick) { hourIndex = i; } else { minuteIndex = i; }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if the geometry was computed for the given face
+     */
+    public boolean matches(int width, int height, boolean round, float tickLength) {
+        return mValid && mWidth == width && mHeight == height && mRound == round && mTickLength == tickLength;
+    }
+
+    @Override
+    public long getByteCount() {
+        return (mMinuteTicks.length + mHourTicks.length) * 4;
+    }
+
+    @Override
+    public void release() { }
+
+    /** @return the packed endpoints of the 48 minute ticks */
+    public float[] getMinuteTicks() {
+        return mMinuteTicks;
+    }
+
+    /** @return the packed endpoints of the 12 hour ticks, starting at 12 o'clock */
+    public float[] getHourTicks() {
+        return mHourTicks;
+    }
+}
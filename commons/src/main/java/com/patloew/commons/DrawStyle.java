@@ -0,0 +1,64 @@
+package com.patloew.commons;
+
+/**
+ * Platform independent paint attributes used with a {@link DrawSurface}.
+ */
+public class DrawStyle {
+    private int mColor = 0xFF000000;
+    private float mStrokeWidth = 0f;
+    private boolean mAntiAlias = false;
+    private boolean mRoundCap = false;
+    private float mTextSize = 12f;
+
+    public DrawStyle() { }
+
+    public DrawStyle(DrawStyle style) {
+        mColor = style.mColor;
+        mStrokeWidth = style.mStrokeWidth;
+        mAntiAlias = style.mAntiAlias;
+        mRoundCap = style.mRoundCap;
+        mTextSize = style.mTextSize;
+    }
+
+    /** @return the color as ARGB int */
+    public int getColor() {
+        return mColor;
+    }
+
+    public void setColor(int color) {
+        mColor = color;
+    }
+
+    public float getStrokeWidth() {
+        return mStrokeWidth;
+    }
+
+    public void setStrokeWidth(float strokeWidth) {
+        mStrokeWidth = strokeWidth;
+    }
+
+    public boolean isAntiAlias() {
+        return mAntiAlias;
+    }
+
+    public void setAntiAlias(boolean antiAlias) {
+        mAntiAlias = antiAlias;
+    }
+
+    /** @return whether lines are drawn with round caps */
+    public boolean isRoundCap() {
+        return mRoundCap;
+    }
+
+    public void setRoundCap(boolean roundCap) {
+        mRoundCap = roundCap;
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public void setTextSize(float textSize) {
+        mTextSize = textSize;
+    }
+}
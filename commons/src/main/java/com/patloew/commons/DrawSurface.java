@@ -0,0 +1,70 @@
+package com.patloew.commons;
+
+/**
+ * Drawing surface the watch face is rendered onto. On Android, this is backed by a
+ * {@link android.graphics.Canvas} (see {@link CanvasDrawSurface}). The interface only uses
+ * primitives and {@link DrawStyle}, so the watch face can also be rendered headless on the JVM.
+ *
+ * Shapes are filled, lines are stroked with the stroke width of the style.
+ */
+public interface DrawSurface {
+    int getWidth();
+    int getHeight();
+
+    void save();
+    void restore();
+    void translate(float dx, float dy);
+    void scale(float sx, float sy);
+    /** Rotates clockwise by the given degrees around the given point. */
+    void rotate(float degrees, float px, float py);
+
+    void drawRect(float left, float top, float right, float bottom, DrawStyle style);
+    void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, DrawStyle style);
+    void drawCircle(float cx, float cy, float radius, DrawStyle style);
+    void drawLine(float startX, float startY, float stopX, float stopY, DrawStyle style);
+    /**
+     * Draws a batch of lines in one call. Each line is 4 consecutive values (startX, startY,
+     * stopX, stopY), like {@link android.graphics.Canvas#drawLines(float[], int, int, android.graphics.Paint)}.
+     *
+     * @param count number of values to use, 4 per line
+     */
+    void drawLines(float[] points, int offset, int count, DrawStyle style);
+    /**
+     * Fills a closed polygon. Each corner is 2 consecutive values (x, y).
+     *
+     * @param count number of values to use, 2 per corner
+     */
+    void drawPolygon(float[] points, int offset, int count, DrawStyle style);
+    /** Draws the text with the text size of the style, centered on the given point. */
+    void drawText(String text, float centerX, float centerY, DrawStyle style);
+
+    /**
+     * Draws a layer which was created by {@link #createLayer(int, int)} of the same kind of
+     * surface. The layer is filtered if the surface is rotated or scaled.
+     */
+    void drawLayer(Layer layer, float left, float top);
+
+    /**
+     * Draws a layer scaled into the given rectangle, filtered, e.g. to derive a smaller copy of a
+     * cached layer.
+     */
+    void drawLayer(Layer layer, float left, float top, float right, float bottom);
+
+    /**
+     * Creates an offscreen layer, e.g. to cache content which rarely changes.
+     */
+    Layer createLayer(int width, int height);
+
+    /**
+     * Offscreen layer with its own surface.
+     */
+    interface Layer {
+        int getWidth();
+        int getHeight();
+        DrawSurface getSurface();
+        /** Clears the layer to transparent. */
+        void clear();
+        /** Frees the memory of the layer. It can't be used anymore afterwards. */
+        void release();
+    }
+}
@@ -0,0 +1,53 @@
+package com.patloew.commons;
+
+/**
+ * 24 hour hand showing the time of the secondary time zone, see
+ * {@link WatchFaceTime#setSecondaryTimeZone}. Nothing is drawn without one. Like the other hands,
+ * it only moves once a minute, so it is cached between minutes.
+ */
+public class DualTimeHandLayer extends FaceLayer {
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new DualTimeHandLayer(resources);
+        }
+    };
+
+    private static final int MILLIS_PER_MINUTE = 60 * 1000;
+
+    private final WatchFaceResources mResources;
+    private final HandGeometry mHandGeometry = new HandGeometry();
+    private final DrawStyle mStyle = new DrawStyle();
+
+    public DualTimeHandLayer(WatchFaceResources resources) {
+        super(UpdateFrequency.MINUTE);
+        mResources = resources;
+
+        mStyle.setStrokeWidth(resources.getSecondHandStroke());
+        mStyle.setRoundCap(true);
+    }
+
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean lowBitAmbient = state.isAmbient() && state.isLowBitAmbient();
+        mStyle.setColor(lowBitAmbient ? mResources.getLowBitAmbientHandColor() : mResources.getHourHandColor());
+        mStyle.setAntiAlias(!lowBitAmbient && state.getRenderQuality().isAntiAlias());
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        if(!state.hasSecondaryTime()) {
+            return;
+        }
+
+        final float centerX = state.getWidth() / 2f;
+        final float centerY = state.getHeight() / 2f;
+
+        // one turn a day: the hour hand table has a position every two minutes of the day
+        final int position = state.getSecondaryMillisOfDay() / MILLIS_PER_MINUTE / 2;
+        mHandGeometry.setLengths(0, 0, centerX - mResources.getMinuteOuterOffset());
+        mHandGeometry.update(position / 60, position % 60, 0);
+
+        surface.drawLine(centerX, centerY, centerX + mHandGeometry.getHourX(), centerY + mHandGeometry.getHourY(), mStyle);
+    }
+}
@@ -0,0 +1,76 @@
+package com.patloew.commons;
+
+import android.content.Context;
+
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+/**
+ * The face of the example app, shared by the watch face service, the phone preview and the
+ * thumbnail export, so all of them show the same layers: background, tick ring, battery and date
+ * complications, styled hands, the dual time hand and the second hand.
+ *
+ * <pre>
+ * ComplicationManager complications = ExampleFace.createComplications(context, Clock.SYSTEM, executor);
+ * WatchFaceDrawer drawer = new WatchFaceDrawer(context, ExampleFace.create(complications));
+ * </pre>
+ *
+ * The dual time hand is only drawn with a secondary time zone, which has to be set on every time
+ * the face is rendered with, see {@link #getSecondaryTimeZone(Context)}.
+ */
+public final class ExampleFace {
+    // hands tapered to the tip with a light inlay, casting a soft shadow to the bottom right
+    private static final HandStyle HOUR_HAND_STYLE = new HandStyle.Builder()
+            .setWidths(2f, 1f)
+            .setInlay(0xFFFFFFFF, 0.3f)
+            .setShadow(0x40000000, 0.3f, 0.6f)
+            .build();
+    private static final HandStyle MINUTE_HAND_STYLE = new HandStyle.Builder()
+            .setWidths(2f, 0.75f)
+            .setInlay(0xFFFFFFFF, 0.3f)
+            .setShadow(0x40000000, 0.3f, 0.6f)
+            .build();
+    private static final HandStyle SECOND_HAND_STYLE = new HandStyle.Builder()
+            .setWidths(1f, 0.5f)
+            .setTailLength(8f)
+            .setShadow(0x40000000, 0.5f, 1f)
+            .build();
+
+    private ExampleFace() { }
+
+    /**
+     * Creates the battery and the date slots. The caller refreshes them and shuts the executor
+     * down, see {@link ComplicationManager}.
+     *
+     * @param executor runs the providers, e.g. a single thread executor
+     */
+    public static ComplicationManager createComplications(Context context, Clock clock, Executor executor) {
+        return new ComplicationManager.Builder(executor)
+                .add(new BatteryComplicationProvider(context.getApplicationContext()), 0.28f, 0.5f)
+                .add(new DateComplicationProvider(clock), 0.72f, 0.5f)
+                .build();
+    }
+
+    /**
+     * @return the time zone of the dual time hand from the {@code secondary_time_zone} string
+     * resource, or null for none
+     */
+    public static TimeZone getSecondaryTimeZone(Context context) {
+        final String id = context.getString(R.string.secondary_time_zone);
+        return id.isEmpty() ? null : TimeZone.getTimeZone(id);
+    }
+
+    /**
+     * @param complications slots created by {@link #createComplications}
+     */
+    public static FaceDefinition create(ComplicationManager complications) {
+        return new FaceDefinition.Builder()
+                .addBackground()
+                .addTickRing()
+                .addComplications(complications)
+                .addHands(HOUR_HAND_STYLE, MINUTE_HAND_STYLE)
+                .addDualTimeHand()
+                .addSecondHand(SECOND_HAND_STYLE)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declarative definition of a watch face as a list of layers, from bottom to top. The definition
+ * is immutable and can be shared, every render thread creates its own layers from it.
+ *
+ * <pre>
+ * FaceDefinition face = new FaceDefinition.Builder()
+ *         .addBackground()
+ *         .addTickRing()
+ *         .addHands()
+ *         .addSecondHand()
+ *         .build();
+ * </pre>
+ */
+public final class FaceDefinition {
+    /** Background, hour and minute hands and second hand. */
+    public static final FaceDefinition DEFAULT = new Builder()
+            // define your watch face here
+            .addBackground()
+            .addHands()
+            .addSecondHand()
+            .build();
+
+    private final List<FaceLayer.Factory> mLayers;
+
+    private FaceDefinition(Builder builder) {
+        mLayers = Collections.unmodifiableList(new ArrayList<>(builder.mLayers));
+    }
+
+    public List<FaceLayer.Factory> getLayers() {
+        return mLayers;
+    }
+
+    /**
+     * @return new layer instances for one render thread
+     */
+    public List<FaceLayer> createLayers(WatchFaceResources resources) {
+        final List<FaceLayer> layers = new ArrayList<>(mLayers.size());
+        for(FaceLayer.Factory factory : mLayers) {
+            layers.add(factory.create(resources));
+        }
+        return layers;
+    }
+
+    /**
+     * Definitions with the same layer factories are equal, so they share their assets in the
+     * {@link SharedAssetCache}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof FaceDefinition && mLayers.equals(((FaceDefinition) o).mLayers));
+    }
+
+    @Override
+    public int hashCode() {
+        return mLayers.hashCode();
+    }
+
+    public static class Builder {
+        private final List<FaceLayer.Factory> mLayers = new ArrayList<>();
+
+        public Builder add(FaceLayer.Factory layer) {
+            mLayers.add(layer);
+            return this;
+        }
+
+        public Builder addBackground() {
+            return add(BackgroundLayer.FACTORY);
+        }
+
+        public Builder addTickRing() {
+            return add(TickRingLayer.FACTORY);
+        }
+
+        public Builder addNumerals() {
+            return add(NumeralsLayer.FACTORY);
+        }
+
+        /** Adds the text of the complication slots, see {@link ComplicationManager}. */
+        public Builder addComplications(ComplicationManager complications) {
+            return add(ComplicationLayer.factory(complications));
+        }
+
+        /** Adds the hour and minute hands. */
+        public Builder addHands() {
+            return add(HandsLayer.FACTORY);
+        }
+
+        /** Adds the hour and minute hands, drawn as sprites with the given styles. */
+        public Builder addHands(HandStyle hourStyle, HandStyle minuteStyle) {
+            return add(HandsLayer.factory(hourStyle, minuteStyle));
+        }
+
+        /** Adds a 24 hour hand for the secondary time zone, drawn only if one is set. */
+        public Builder addDualTimeHand() {
+            return add(DualTimeHandLayer.FACTORY);
+        }
+
+        public Builder addSecondHand() {
+            return add(SecondHandLayer.FACTORY);
+        }
+
+        /** Adds the second hand, drawn as a sprite with the given style. */
+        public Builder addSecondHand(HandStyle handStyle) {
+            return add(SecondHandLayer.factory(handStyle));
+        }
+
+        public FaceDefinition build() {
+            return new FaceDefinition(this);
+        }
+    }
+}
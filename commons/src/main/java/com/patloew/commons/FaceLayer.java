@@ -0,0 +1,165 @@
+package com.patloew.commons;
+
+/**
+ * One element of a watch face (background, dial, hands, ...), drawn by the {@link LayerEngine}.
+ *
+ * Each layer declares how often its content changes. Layers which change at most once a minute
+ * or only with their data are rendered into a cached offscreen layer and composited from it on the
+ * other frames, layers which change every second are drawn directly on every frame.
+ *
+ * Layers keep mutable drawing state (styles, geometry), so every render thread gets its own
+ * instances, created by a {@link Factory}.
+ *
+ * Layers with heavy assets (fonts, bitmaps, paths, locale data) should not load them in the
+ * constructor, which runs before the first frame. Instead they return true from
+ * {@link #hasDeferredAssets()} and load them in {@link #loadAssets()}, which the engine runs in the
+ * background. Until then, the layer is skipped, so the first frame only shows the lightweight
+ * layers, or it draws a simpler version of itself, see {@link #hasPlaceholder()}.
+ *
+ * Immutable assets which only depend on the config (e.g. geometry tables) can be shared with other
+ * renderers through {@link #getAssetCache()}. Handles acquired from it are released in
+ * {@link #release()}.
+ */
+public abstract class FaceLayer {
+    public enum UpdateFrequency {
+        /** Only changes with the config: size, shape, theme, ambient mode or mobile preview. */
+        CONFIG_CHANGE,
+        HOUR,
+        MINUTE,
+        /**
+         * Changes whenever {@link #getContentVersion()} changes, e.g. complications whose data is
+         * loaded in the background.
+         */
+        DATA,
+        /** Drawn on every frame, e.g. the second hand. */
+        SECOND
+    }
+
+    public interface Factory {
+        FaceLayer create(WatchFaceResources resources);
+    }
+
+    private final UpdateFrequency mUpdateFrequency;
+
+    // written by the loading thread, read by the render thread
+    private volatile boolean mAssetsLoaded = false;
+
+    private SharedAssetCache mAssetCache;
+    private DrawSurface mLayerFactory;
+
+    protected FaceLayer(UpdateFrequency updateFrequency) {
+        mUpdateFrequency = updateFrequency;
+    }
+
+    public final UpdateFrequency getUpdateFrequency() {
+        return mUpdateFrequency;
+    }
+
+    /**
+     * @return the cache for assets shared with other renderers, or null if nothing is shared
+     */
+    protected final SharedAssetCache getAssetCache() {
+        return mAssetCache;
+    }
+
+    final void setAssetCache(SharedAssetCache assetCache) {
+        mAssetCache = assetCache;
+    }
+
+    /**
+     * @return a surface of the kind the layer is drawn onto, to create offscreen layers with in
+     * {@link #loadAssets()}. Only set for layers with a {@link #hasPlaceholder() placeholder}.
+     */
+    protected final DrawSurface getLayerFactory() {
+        return mLayerFactory;
+    }
+
+    final void setLayerFactory(DrawSurface layerFactory) {
+        mLayerFactory = layerFactory;
+    }
+
+    /**
+     * Releases the shared assets of the layer. The layer is not drawn anymore afterwards.
+     */
+    public void release() { }
+
+    /**
+     * @return true if the layer has assets which are loaded by {@link #loadAssets()}
+     */
+    public boolean hasDeferredAssets() {
+        return false;
+    }
+
+    /**
+     * Loads the deferred assets of the layer. Called once, usually on a background thread while
+     * the render thread already draws the other layers. Must only touch state which is not used
+     * before the layer is ready.
+     */
+    public void loadAssets() { }
+
+    /**
+     * @return true if the layer with deferred assets is drawn before they are loaded, e.g. hands as
+     * plain lines until their sprites are rasterized. {@link #draw} has to check
+     * {@link #isReady()} then. The assets of such a layer are loaded after its first
+     * {@link #onConfigChanged}, so they can depend on the config of the first frame, e.g. its
+     * size.
+     */
+    public boolean hasPlaceholder() {
+        return false;
+    }
+
+    /**
+     * @return false while the deferred assets are not loaded yet
+     */
+    public final boolean isReady() {
+        return mAssetsLoaded || !hasDeferredAssets();
+    }
+
+    /** Runs {@link #loadAssets()} and publishes the result to the render thread. */
+    final void loadDeferredAssets() {
+        loadAssets();
+        mLayerFactory = null;
+        mAssetsLoaded = true;
+    }
+
+    /**
+     * @return a value which changes whenever the content of a {@link UpdateFrequency#DATA} layer
+     * changes. Can be called from any render thread.
+     */
+    public long getContentVersion() {
+        return 0;
+    }
+
+    /**
+     * @return false if the layer is left out at the given quality. Optional layers return false
+     * for {@link RenderQuality#MINIMAL}. Anti-aliasing is up to the layer, see
+     * {@link RenderQuality#isAntiAlias()}.
+     */
+    public boolean isEnabled(RenderQuality quality) {
+        return true;
+    }
+
+    /**
+     * Called before drawing when the config or the {@link RenderQuality} changed since the last
+     * frame. Also called while the layer is not ready or not enabled, so it must not depend on the
+     * deferred assets.
+     */
+    public void onConfigChanged(RenderState state, boolean mobilePreview) { }
+
+    /**
+     * Draws the layer. In the mobile preview, the surface is already scaled into the preview
+     * border.
+     */
+    public abstract void draw(DrawSurface surface, RenderState state);
+
+    /**
+     * Computes the bounds the layer draws into for the given state, to redraw only the changed
+     * region of the frame. Only called for layers updated every {@link UpdateFrequency#SECOND}.
+     *
+     * @param outBounds set to left, top, right and bottom of the drawn region
+     * @return false if the bounds are unknown, which causes a full repaint
+     */
+    public boolean getBounds(RenderState state, float[] outBounds) {
+        return false;
+    }
+}
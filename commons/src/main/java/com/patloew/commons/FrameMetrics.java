@@ -0,0 +1,208 @@
+package com.patloew.commons;
+
+import java.util.Arrays;
+
+/**
+ * Lightweight frame time instrumentation. Records the draw duration, the scheduling jitter (how
+ * late a frame started compared to the time it was scheduled for) and the number of skipped
+ * frames.
+ *
+ * The last frames are kept in fixed-size primitive ring buffers, so recording a frame does not
+ * allocate and does not lock. Frames are recorded by a single thread (the thread which draws),
+ * {@link #getSummary(Summary)} can be called from any thread. A summary taken while a frame is
+ * recorded might contain one frame of the next round, which is fine for statistics.
+ */
+public class FrameMetrics {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private final int mMask;
+    private final long[] mDrawDurations;
+    private final long[] mJitters;
+
+    // only written by the drawing thread, volatile for the readers
+    private volatile long mFrameCount = 0;
+    private volatile long mScheduledFrameCount = 0;
+    private volatile long mSkippedFrameCount = 0;
+
+    private long mIntendedFrameTimeNanos = NO_DEADLINE;
+    private long mFrameIntervalNanos = 0;
+
+    public FrameMetrics() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of frames kept for the percentiles, rounded up to a power of two
+     */
+    public FrameMetrics(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mMask = size - 1;
+        mDrawDurations = new long[size];
+        mJitters = new long[size];
+    }
+
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * Tells the metrics when the next frame is supposed to start, so the jitter and skipped frames
+     * can be computed when it is drawn. Frames which are drawn without being scheduled (e.g.
+     * because of an ambient mode change) only record their draw duration.
+     *
+     * @param intendedFrameTimeNanos the {@link System#nanoTime()} the next frame should start at
+     * @param frameIntervalNanos the interval between two scheduled frames
+     */
+    public void onFrameScheduled(long intendedFrameTimeNanos, long frameIntervalNanos) {
+        mIntendedFrameTimeNanos = intendedFrameTimeNanos;
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    /** @return the start time of the frame, to be passed to {@link #endFrame(long)} */
+    public long beginFrame() {
+        return System.nanoTime();
+    }
+
+    public void endFrame(long frameStartNanos) {
+        recordFrame(frameStartNanos, System.nanoTime());
+    }
+
+    public void recordFrame(long frameStartNanos, long frameEndNanos) {
+        final long frameCount = mFrameCount;
+        final int index = (int) (frameCount & mMask);
+
+        mDrawDurations[index] = frameEndNanos - frameStartNanos;
+
+        if(mIntendedFrameTimeNanos != NO_DEADLINE) {
+            long jitter = frameStartNanos - mIntendedFrameTimeNanos;
+            mJitters[(int) (mScheduledFrameCount & mMask)] = jitter;
+            mScheduledFrameCount = mScheduledFrameCount + 1;
+
+            if(mFrameIntervalNanos > 0 && jitter >= mFrameIntervalNanos) {
+                mSkippedFrameCount = mSkippedFrameCount + jitter / mFrameIntervalNanos;
+            }
+            mIntendedFrameTimeNanos = NO_DEADLINE;
+        }
+
+        mFrameCount = frameCount + 1;
+    }
+
+    /**
+     * Records frames which were skipped outside of {@link #recordFrame(long, long)}, e.g. by a
+     * scheduler which coalesced missed deadlines.
+     */
+    public void recordSkippedFrames(long count) {
+        mSkippedFrameCount = mSkippedFrameCount + count;
+    }
+
+    public void reset() {
+        mFrameCount = 0;
+        mScheduledFrameCount = 0;
+        mSkippedFrameCount = 0;
+        mIntendedFrameTimeNanos = NO_DEADLINE;
+    }
+
+    /**
+     * Computes percentiles over the frames currently in the ring buffers.
+     *
+     * @param summary summary to write into, so that it can be reused
+     * @return the given summary
+     */
+    public Summary getSummary(Summary summary) {
+        summary.ensureCapacity(getCapacity());
+
+        summary.mFrameCount = mFrameCount;
+        summary.mSkippedFrameCount = mSkippedFrameCount;
+
+        int count = (int) Math.min(summary.mFrameCount, getCapacity());
+        System.arraycopy(mDrawDurations, 0, summary.mScratch, 0, count);
+        Arrays.sort(summary.mScratch, 0, count);
+        summary.mDrawDurationP50 = percentile(summary.mScratch, count, 50);
+        summary.mDrawDurationP95 = percentile(summary.mScratch, count, 95);
+        summary.mDrawDurationP99 = percentile(summary.mScratch, count, 99);
+
+        count = (int) Math.min(mScheduledFrameCount, getCapacity());
+        System.arraycopy(mJitters, 0, summary.mScratch, 0, count);
+        Arrays.sort(summary.mScratch, 0, count);
+        summary.mJitterP50 = percentile(summary.mScratch, count, 50);
+        summary.mJitterP95 = percentile(summary.mScratch, count, 95);
+        summary.mJitterP99 = percentile(summary.mScratch, count, 99);
+
+        return summary;
+    }
+
+    /**
+     * @param values values sorted in ascending order
+     */
+    private static long percentile(long[] values, int count, int percentile) {
+        if(count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return values[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Percentiles of the draw duration and jitter in nanoseconds, as well as frame counters.
+     */
+    public static class Summary {
+        long[] mScratch = new long[0];
+
+        long mFrameCount;
+        long mSkippedFrameCount;
+        long mDrawDurationP50;
+        long mDrawDurationP95;
+        long mDrawDurationP99;
+        long mJitterP50;
+        long mJitterP95;
+        long mJitterP99;
+
+        void ensureCapacity(int capacity) {
+            if(mScratch.length < capacity) {
+                mScratch = new long[capacity];
+            }
+        }
+
+        public long getFrameCount() {
+            return mFrameCount;
+        }
+
+        public long getSkippedFrameCount() {
+            return mSkippedFrameCount;
+        }
+
+        public long getDrawDurationP50() {
+            return mDrawDurationP50;
+        }
+
+        public long getDrawDurationP95() {
+            return mDrawDurationP95;
+        }
+
+        public long getDrawDurationP99() {
+            return mDrawDurationP99;
+        }
+
+        public long getJitterP50() {
+            return mJitterP50;
+        }
+
+        public long getJitterP95() {
+            return mJitterP95;
+        }
+
+        public long getJitterP99() {
+            return mJitterP99;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("frames=%d skipped=%d draw p50/p95/p99=%.2f/%.2f/%.2f ms jitter p50/p95/p99=%.2f/%.2f/%.2f ms",
+                    mFrameCount, mSkippedFrameCount,
+                    mDrawDurationP50 / 1e6, mDrawDurationP95 / 1e6, mDrawDurationP99 / 1e6,
+                    mJitterP50 / 1e6, mJitterP95 / 1e6, mJitterP99 / 1e6);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.patloew.commons;
+
+/**
+ * Computes the end points of the watch hands relative to the center of the watch face. All
+ * results are stored in primitive fields, so {@link #update(int, int, int)} can be called on
+ * every frame without allocating.
+ *
+ * The hands can only take a limited number of positions (60 for the minute hand, 720 for the hour
+ * hand and 60 per step of the second hand), so the end points are read from precomputed tables,
+ * which are only rebuilt when the hand lengths or the second hand steps change.
+ */
+public class HandGeometry {
+    public static final int SECOND_POSITIONS = 60;
+    public static final int MINUTE_POSITIONS = 60;
+    public static final int HOUR_POSITIONS = 12 * 60;
+
+    // interleaved x/y end points for every hand position
+    private float[] mSecondTable = new float[SECOND_POSITIONS * 2];
+    private final float[] mMinuteTable = new float[MINUTE_POSITIONS * 2];
+    private final float[] mHourTable = new float[HOUR_POSITIONS * 2];
+
+    private int mSecondSteps = 1;
+    private float mSecondLength = Float.NaN;
+    private float mMinuteLength = Float.NaN;
+    private float mHourLength = Float.NaN;
+
+    private float mSecondX;
+    private float mSecondY;
+    private float mMinuteX;
+    private float mMinuteY;
+    private float mHourX;
+    private float mHourY;
+    private float mSecondDegrees;
+    private float mMinuteDegrees;
+    private float mHourDegrees;
+
+    /**
+     * Sets the lengths of the hands. The position tables are only rebuilt if a length changed.
+     */
+    public void setLengths(float secondLength, float minuteLength, float hourLength) {
+        if(secondLength != mSecondLength) {
+            mSecondLength = secondLength;
+            fillTable(mSecondTable, SECOND_POSITIONS * mSecondSteps, secondLength);
+        }
+        if(minuteLength != mMinuteLength) {
+            mMinuteLength = minuteLength;
+            fillTable(mMinuteTable, MINUTE_POSITIONS, minuteLength);
+        }
+        if(hourLength != mHourLength) {
+            mHourLength = hourLength;
+            fillTable(mHourTable, HOUR_POSITIONS, hourLength);
+        }
+    }
+
+    /**
+     * Sets the number of positions the second hand takes per second. Use 1 for a ticking second
+     * hand, or the frame rate for a sweeping second hand. The second hand table is only rebuilt
+     * if the steps changed.
+     */
+    public void setSecondSteps(int stepsPerSecond) {
+        if(stepsPerSecond < 1) {
+            stepsPerSecond = 1;
+        }
+
+        if(stepsPerSecond != mSecondSteps) {
+            mSecondSteps = stepsPerSecond;
+            mSecondTable = new float[SECOND_POSITIONS * stepsPerSecond * 2];
+            fillTable(mSecondTable, SECOND_POSITIONS * stepsPerSecond, mSecondLength);
+        }
+    }
+
+    private static void fillTable(float[] table, int positions, float length) {
+        for(int i = 0; i < positions; i++) {
+            double rot = 2 * Math.PI * i / positions;
+            table[i * 2] = (float) Math.sin(rot) * length;
+            table[i * 2 + 1] = (float) -Math.cos(rot) * length;
+        }
+    }
+
+    /**
+     * @param hour hour of the day in 12h format (0-11)
+     * @param minute minute of the hour (0-59)
+     * @param second second of the minute (0-59)
+     */
+    public void update(int hour, int minute, int second) {
+        update(hour, minute, second, 0);
+    }
+
+    /**
+     * @param hour hour of the day in 12h format (0-11)
+     * @param minute minute of the hour (0-59)
+     * @param second second of the minute (0-59)
+     * @param millis millisecond of the second (0-999), used to interpolate a sweeping second hand
+     */
+    public void update(int hour, int minute, int second, int millis) {
+        int position = second * mSecondSteps + millis * mSecondSteps / 1000;
+        mSecondX = mSecondTable[position * 2];
+        mSecondY = mSecondTable[position * 2 + 1];
+        mSecondDegrees = position * 360f / (SECOND_POSITIONS * mSecondSteps);
+
+        position = minute;
+        mMinuteX = mMinuteTable[position * 2];
+        mMinuteY = mMinuteTable[position * 2 + 1];
+        mMinuteDegrees = position * 360f / MINUTE_POSITIONS;
+
+        position = hour * 60 + minute;
+        mHourX = mHourTable[position * 2];
+        mHourY = mHourTable[position * 2 + 1];
+        mHourDegrees = position * 360f / HOUR_POSITIONS;
+    }
+
+    public float getSecondX() {
+        return mSecondX;
+    }
+
+    public float getSecondY() {
+        return mSecondY;
+    }
+
+    public float getMinuteX() {
+        return mMinuteX;
+    }
+
+    public float getMinuteY() {
+        return mMinuteY;
+    }
+
+    public float getHourX() {
+        return mHourX;
+    }
+
+    public float getHourY() {
+        return mHourY;
+    }
+
+    /** @return the clockwise rotation of the second hand from 12 o'clock */
+    public float getSecondDegrees() {
+        return mSecondDegrees;
+    }
+
+    /** @return the clockwise rotation of the minute hand from 12 o'clock */
+    public float getMinuteDegrees() {
+        return mMinuteDegrees;
+    }
+
+    /** @return the clockwise rotation of the hour hand from 12 o'clock */
+    public float getHourDegrees() {
+        return mHourDegrees;
+    }
+}
@@ -0,0 +1,130 @@
+package com.patloew.commons;
+
+/**
+ * A {@link HandStyle} rasterized into an offscreen layer pointing to 12 o'clock, drawn with a
+ * rotation around the center of the face. The shapes of the style are only drawn again when the
+ * size, color or anti-aliasing of the hand changes, every frame in between is one filtered blit
+ * of a layer about as large as the hand, plus one for the shadow.
+ *
+ * The shadow is a separate silhouette, so it keeps its offset independent of the rotation of the
+ * hand, like a shadow of a light above the face.
+ *
+ * Not thread-safe, every layer keeps its own sprites.
+ */
+public class HandSprite {
+    // transparent border, so the filtered edges of the rotated hand are not cut off
+    private static final int PADDING = 1;
+
+    private final float[] mPoints = new float[HandStyle.OUTLINE_VALUES];
+    private final DrawStyle mStyle = new DrawStyle();
+
+    private DrawSurface.Layer mLayer;
+    private DrawSurface.Layer mShadowLayer;
+    private HandStyle mHandStyle;
+    private float mStroke;
+    private float mLength;
+    private int mColor;
+    private boolean mAntiAlias;
+
+    private float mPivotX;
+    private float mPivotY;
+    private float mShadowDx;
+    private float mShadowDy;
+
+    /**
+     * Rasterizes the hand if it was not rasterized with the same parameters yet.
+     *
+     * @param target surface the sprite is drawn onto, the layers are created by it
+     * @param stroke stroke width of the hand in pixels
+     * @param length length from the center to the tip in pixels
+     * @param color ARGB color of the hand
+     * @return true if the hand was rasterized
+     */
+    public boolean prepare(DrawSurface target, HandStyle handStyle, float stroke, float length, int color, boolean antiAlias) {
+        if(mLayer != null && handStyle.equals(mHandStyle) && stroke == mStroke && length == mLength
+                && color == mColor && antiAlias == mAntiAlias) {
+            return false;
+        }
+        release();
+        mHandStyle = handStyle;
+        mStroke = stroke;
+        mLength = length;
+        mColor = color;
+        mAntiAlias = antiAlias;
+
+        final float halfWidth = handStyle.getHalfWidth(stroke);
+        final int width = (int) Math.ceil(halfWidth * 2) + PADDING * 2;
+        final int height = (int) Math.ceil(handStyle.getTailLength(stroke) + length) + PADDING * 2;
+        mPivotX = width / 2f;
+        mPivotY = PADDING + length;
+        mStyle.setAntiAlias(antiAlias);
+
+        mLayer = target.createLayer(width, height);
+        final DrawSurface surface = mLayer.getSurface();
+        surface.save();
+        surface.translate(mPivotX, mPivotY);
+        handStyle.getOutline(stroke, length, mPoints);
+        mStyle.setColor(color);
+        surface.drawPolygon(mPoints, 0, HandStyle.OUTLINE_VALUES, mStyle);
+        if(handStyle.getInlay(stroke, length, mPoints)) {
+            mStyle.setColor(handStyle.getInlayColor());
+            surface.drawPolygon(mPoints, 0, HandStyle.INLAY_VALUES, mStyle);
+        }
+        surface.restore();
+
+        if(handStyle.hasShadow()) {
+            mShadowDx = handStyle.getShadowDx(stroke);
+            mShadowDy = handStyle.getShadowDy(stroke);
+            mShadowLayer = target.createLayer(width, height);
+            final DrawSurface shadowSurface = mShadowLayer.getSurface();
+            shadowSurface.save();
+            shadowSurface.translate(mPivotX, mPivotY);
+            handStyle.getOutline(stroke, length, mPoints);
+            mStyle.setColor(handStyle.getShadowColor());
+            shadowSurface.drawPolygon(mPoints, 0, HandStyle.OUTLINE_VALUES, mStyle);
+            shadowSurface.restore();
+        }
+        return true;
+    }
+
+    /**
+     * Draws the shadow of the hand, if the style has one. Draw the shadows of all hands before
+     * the hands, so no shadow falls onto a hand below it.
+     *
+     * @param degrees clockwise rotation from 12 o'clock
+     */
+    public void drawShadow(DrawSurface surface, float centerX, float centerY, float degrees) {
+        if(mShadowLayer == null) {
+            return;
+        }
+        surface.save();
+        surface.translate(mShadowDx, mShadowDy);
+        surface.rotate(degrees, centerX, centerY);
+        surface.drawLayer(mShadowLayer, centerX - mPivotX, centerY - mPivotY);
+        surface.restore();
+    }
+
+    /**
+     * Draws the hand.
+     *
+     * @param degrees clockwise rotation from 12 o'clock
+     */
+    public void draw(DrawSurface surface, float centerX, float centerY, float degrees) {
+        surface.save();
+        surface.rotate(degrees, centerX, centerY);
+        surface.drawLayer(mLayer, centerX - mPivotX, centerY - mPivotY);
+        surface.restore();
+    }
+
+    /** Frees the layers. The sprite is rasterized again by the next {@link #prepare}. */
+    public void release() {
+        if(mLayer != null) {
+            mLayer.release();
+            mLayer = null;
+        }
+        if(mShadowLayer != null) {
+            mShadowLayer.release();
+            mShadowLayer = null;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.patloew.commons;
+
+/**
+ * Shape of a styled watch hand: a tapered blade with an optional counterweight tail, an inlay
+ * and a drop shadow. The color of the hand comes from the {@link WatchFaceResources}.
+ *
+ * All dimensions are multiples of the stroke width of the hand in the resources, so one style fits
+ * every screen density. Styled hands are rasterized once per size into a {@link HandSprite}, so a
+ * style may be as detailed as needed without making a frame more expensive.
+ *
+ * Styles are immutable and compared by value, so they can be used in a {@link FaceDefinition}.
+ */
+public final class HandStyle {
+    /** Number of values of an outline, 2 per corner. */
+    public static final int OUTLINE_VALUES = 12;
+    /** Number of values of an inlay, 2 per corner. */
+    public static final int INLAY_VALUES = 8;
+
+    // where the inlay starts, as a fraction of the length
+    private static final float INLAY_START = 0.3f;
+
+    private final float mBaseWidth;
+    private final float mTipWidth;
+    private final float mTailLength;
+    private final int mInlayColor;
+    private final float mInlayInset;
+    private final int mShadowColor;
+    private final float mShadowDx;
+    private final float mShadowDy;
+
+    private HandStyle(Builder builder) {
+        mBaseWidth = builder.mBaseWidth;
+        mTipWidth = builder.mTipWidth;
+        mTailLength = builder.mTailLength;
+        mInlayColor = builder.mInlayColor;
+        mInlayInset = builder.mInlayInset;
+        mShadowColor = builder.mShadowColor;
+        mShadowDx = builder.mShadowDx;
+        mShadowDy = builder.mShadowDy;
+    }
+
+    /**
+     * Computes the outline of the hand pointing to 12 o'clock, with the center of the face at
+     * (0, 0): tail, base and tip corners on both sides.
+     *
+     * @param stroke stroke width of the hand in pixels
+     * @param length length from the center to the tip in pixels
+     * @param out receives {@link #OUTLINE_VALUES} values
+     */
+    public void getOutline(float stroke, float length, float[] out) {
+        final float baseHalfWidth = mBaseWidth * stroke / 2f;
+        final float tipHalfWidth = mTipWidth * stroke / 2f;
+        final float tail = mTailLength * stroke;
+
+        out[0] = -baseHalfWidth;
+        out[1] = tail;
+        out[2] = -baseHalfWidth;
+        out[3] = 0;
+        out[4] = -tipHalfWidth;
+        out[5] = -length;
+        out[6] = tipHalfWidth;
+        out[7] = -length;
+        out[8] = baseHalfWidth;
+        out[9] = 0;
+        out[10] = baseHalfWidth;
+        out[11] = tail;
+    }
+
+    /**
+     * Computes the inlay inside the outer part of the blade, in the same coordinates as
+     * {@link #getOutline(float, float, float[])}.
+     *
+     * @param out receives {@link #INLAY_VALUES} values
+     * @return false if the style has no inlay or the hand is too narrow for it
+     */
+    public boolean getInlay(float stroke, float length, float[] out) {
+        if(!hasInlay() || length <= 0) {
+            return false;
+        }
+        final float inset = mInlayInset * stroke;
+        final float startY = -length * INLAY_START;
+        final float endY = -length + inset;
+        final float startHalfWidth = halfWidthAt(stroke, INLAY_START) - inset;
+        final float endHalfWidth = halfWidthAt(stroke, 1f - inset / length) - inset;
+        if(endY >= startY || startHalfWidth <= 0 || endHalfWidth < 0) {
+            return false;
+        }
+
+        out[0] = -startHalfWidth;
+        out[1] = startY;
+        out[2] = -endHalfWidth;
+        out[3] = endY;
+        out[4] = endHalfWidth;
+        out[5] = endY;
+        out[6] = startHalfWidth;
+        out[7] = startY;
+        return true;
+    }
+
+    // half the width of the blade at the given fraction of the length
+    private float halfWidthAt(float stroke, float fraction) {
+        return (mBaseWidth + (mTipWidth - mBaseWidth) * fraction) * stroke / 2f;
+    }
+
+    /** @return half the width of the widest part of the hand in pixels */
+    public float getHalfWidth(float stroke) {
+        return Math.max(mBaseWidth, mTipWidth) * stroke / 2f;
+    }
+
+    /** @return the length of the tail beyond the center in pixels */
+    public float getTailLength(float stroke) {
+        return mTailLength * stroke;
+    }
+
+    public boolean hasInlay() {
+        return mInlayColor != 0;
+    }
+
+    public int getInlayColor() {
+        return mInlayColor;
+    }
+
+    public boolean hasShadow() {
+        return mShadowColor != 0;
+    }
+
+    public int getShadowColor() {
+        return mShadowColor;
+    }
+
+    /** @return the horizontal offset of the shadow in pixels */
+    public float getShadowDx(float stroke) {
+        return mShadowDx * stroke;
+    }
+
+    /** @return the vertical offset of the shadow in pixels */
+    public float getShadowDy(float stroke) {
+        return mShadowDy * stroke;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) { return true; }
+        if(!(o instanceof HandStyle)) { return false; }
+        final HandStyle other = (HandStyle) o;
+        return Float.compare(mBaseWidth, other.mBaseWidth) == 0
+                && Float.compare(mTipWidth, other.mTipWidth) == 0
+                && Float.compare(mTailLength, other.mTailLength) == 0
+                && mInlayColor == other.mInlayColor
+                && Float.compare(mInlayInset, other.mInlayInset) == 0
+                && mShadowColor == other.mShadowColor
+                && Float.compare(mShadowDx, other.mShadowDx) == 0
+                && Float.compare(mShadowDy, other.mShadowDy) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        result = 31 * result + Float.floatToIntBits(mBaseWidth);
+        result = 31 * result + Float.floatToIntBits(mTipWidth);
+        result = 31 * result + Float.floatToIntBits(mTailLength);
+        result = 31 * result + mInlayColor;
+        result = 31 * result + Float.floatToIntBits(mInlayInset);
+        result = 31 * result + mShadowColor;
+        result = 31 * result + Float.floatToIntBits(mShadowDx);
+        result = 31 * result + Float.floatToIntBits(mShadowDy);
+        return result;
+    }
+
+    public static class Builder {
+        private float mBaseWidth = 1f;
+        private float mTipWidth = 1f;
+        private float mTailLength = 0f;
+        private int mInlayColor = 0;
+        private float mInlayInset = 0f;
+        private int mShadowColor = 0;
+        private float mShadowDx = 0f;
+        private float mShadowDy = 0f;
+
+        /**
+         * @param baseWidth width at the center
+         * @param tipWidth width at the tip, 0 for a pointed hand
+         */
+        public Builder setWidths(float baseWidth, float tipWidth) {
+            mBaseWidth = baseWidth;
+            mTipWidth = tipWidth;
+            return this;
+        }
+
+        /** @param tailLength length of the counterweight on the other side of the center */
+        public Builder setTailLength(float tailLength) {
+            mTailLength = tailLength;
+            return this;
+        }
+
+        /**
+         * @param color ARGB color of the inlay, 0 for none
+         * @param inset distance of the inlay from the edges of the blade
+         */
+        public Builder setInlay(int color, float inset) {
+            mInlayColor = color;
+            mInlayInset = inset;
+            return this;
+        }
+
+        /**
+         * @param color ARGB color of the shadow, usually translucent, 0 for none
+         * @param dx horizontal offset of the shadow, independent of the rotation of the hand
+         * @param dy vertical offset of the shadow, independent of the rotation of the hand
+         */
+        public Builder setShadow(int color, float dx, float dy) {
+            mShadowColor = color;
+            mShadowDx = dx;
+            mShadowDy = dy;
+            return this;
+        }
+
+        public HandStyle build() {
+            return new HandStyle(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.patloew.commons;
+
+import android.os.Handler;
+
+/**
+ * {@link Scheduler} which posts the tasks to a {@link Handler}.
+ */
+public class HandlerScheduler implements Scheduler {
+    private final Handler mHandler;
+
+    public HandlerScheduler(Handler handler) {
+        mHandler = handler;
+    }
+
+    @Override
+    public void schedule(Runnable task, long delayMs) {
+        mHandler.postDelayed(task, delayMs);
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        mHandler.removeCallbacks(task);
+    }
+}
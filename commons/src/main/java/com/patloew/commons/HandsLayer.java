@@ -0,0 +1,174 @@
+package com.patloew.commons;
+
+/**
+ * Hour and minute hand. Both only move once a minute, so they are cached between minutes.
+ *
+ * The hands are drawn as lines with round caps, or with {@link HandStyle}s as {@link HandSprite}s,
+ * see {@link #factory(HandStyle, HandStyle)}. The sprites are rasterized as deferred assets at the
+ * size of the first frame, which draws the hands as lines.
+ */
+public class HandsLayer extends FaceLayer {
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new HandsLayer(resources);
+        }
+    };
+
+    private final WatchFaceResources mResources;
+    private final HandGeometry mHandGeometry = new HandGeometry();
+    private final DrawStyle mMinuteHandStyle = new DrawStyle();
+    private final DrawStyle mHourHandStyle = new DrawStyle();
+
+    private final HandStyle mHourStyle;
+    private final HandStyle mMinuteStyle;
+    private final HandSprite mHourSprite = new HandSprite();
+    private final HandSprite mMinuteSprite = new HandSprite();
+    private boolean mLines = true;
+    private boolean mWholePixels = false;
+
+    // the sprites are rasterized with the config of the first frame in loadAssets()
+    private int mLoadWidth = -1;
+    private boolean mLoadAntiAlias;
+
+    public HandsLayer(WatchFaceResources resources) {
+        this(resources, null, null);
+    }
+
+    /**
+     * @param hourStyle style of the hour hand, or null for lines
+     * @param minuteStyle style of the minute hand, or null for lines
+     */
+    public HandsLayer(WatchFaceResources resources, HandStyle hourStyle, HandStyle minuteStyle) {
+        super(UpdateFrequency.MINUTE);
+        mResources = resources;
+        mHourStyle = hourStyle;
+        mMinuteStyle = minuteStyle;
+
+        mMinuteHandStyle.setStrokeWidth(resources.getMinuteHandStroke());
+        mMinuteHandStyle.setRoundCap(true);
+        mHourHandStyle.setStrokeWidth(resources.getHourHandStroke());
+        mHourHandStyle.setRoundCap(true);
+    }
+
+    /**
+     * @return a factory for hands drawn with the given styles
+     */
+    public static Factory factory(HandStyle hourStyle, HandStyle minuteStyle) {
+        if(hourStyle == null || minuteStyle == null) {
+            throw new IllegalArgumentException("Hand styles must not be null");
+        }
+        return new StyledFactory(hourStyle, minuteStyle);
+    }
+
+    @Override
+    public boolean hasDeferredAssets() {
+        return mHourStyle != null && mMinuteStyle != null;
+    }
+
+    @Override
+    public boolean hasPlaceholder() {
+        return true;
+    }
+
+    @Override
+    public void loadAssets() {
+        prepareSprites(getLayerFactory(), mLoadWidth / 2f, mLoadAntiAlias);
+    }
+
+    /**
+     * On devices with low-bit ambient mode, the hands are drawn as lines in a single color without
+     * anti-aliasing on whole pixels in ambient mode.
+     */
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean lowBitAmbient = state.isAmbient() && state.isLowBitAmbient();
+        final boolean antiAlias = !lowBitAmbient && state.getRenderQuality().isAntiAlias();
+        mMinuteHandStyle.setColor(lowBitAmbient ? mResources.getLowBitAmbientHandColor() : mResources.getMinuteHandColor());
+        mMinuteHandStyle.setAntiAlias(antiAlias);
+        mHourHandStyle.setColor(lowBitAmbient ? mResources.getLowBitAmbientHandColor() : mResources.getHourHandColor());
+        mHourHandStyle.setAntiAlias(antiAlias);
+        mLines = lowBitAmbient || mHourStyle == null || mMinuteStyle == null;
+        mWholePixels = lowBitAmbient;
+        if(mLoadWidth < 0) {
+            mLoadWidth = state.getWidth();
+            mLoadAntiAlias = state.getRenderQuality().isAntiAlias();
+        }
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        final float centerX = state.getWidth() / 2f;
+        final float centerY = state.getHeight() / 2f;
+
+        mHandGeometry.setLengths(0, centerX - mResources.getMinuteOuterOffset(), centerX - mResources.getHourOuterOffset());
+        mHandGeometry.update(state.getHour12(), state.getMinute(), 0);
+
+        if(!mLines && isReady()) {
+            drawSprites(surface, centerX, centerY);
+            return;
+        }
+        if(mWholePixels) {
+            final int x = Math.round(centerX);
+            final int y = Math.round(centerY);
+            surface.drawLine(x, y, x + Math.round(mHandGeometry.getMinuteX()), y + Math.round(mHandGeometry.getMinuteY()), mMinuteHandStyle);
+            surface.drawLine(x, y, x + Math.round(mHandGeometry.getHourX()), y + Math.round(mHandGeometry.getHourY()), mHourHandStyle);
+            return;
+        }
+        surface.drawLine(centerX, centerY, centerX + mHandGeometry.getMinuteX(), centerY + mHandGeometry.getMinuteY(), mMinuteHandStyle);
+        surface.drawLine(centerX, centerY, centerX + mHandGeometry.getHourX(), centerY + mHandGeometry.getHourY(), mHourHandStyle);
+    }
+
+    /** Rasterizes the sprites, unless they already are for the given size. */
+    private void prepareSprites(DrawSurface target, float centerX, boolean antiAlias) {
+        mMinuteSprite.prepare(target, mMinuteStyle, mResources.getMinuteHandStroke(), centerX - mResources.getMinuteOuterOffset(),
+                mResources.getMinuteHandColor(), antiAlias);
+        mHourSprite.prepare(target, mHourStyle, mResources.getHourHandStroke(), centerX - mResources.getHourOuterOffset(),
+                mResources.getHourHandColor(), antiAlias);
+    }
+
+    private void drawSprites(DrawSurface surface, float centerX, float centerY) {
+        // only rasterized again if the size or the quality changed since the first frame
+        prepareSprites(surface, centerX, mMinuteHandStyle.isAntiAlias());
+
+        final float minuteDegrees = mHandGeometry.getMinuteDegrees();
+        final float hourDegrees = mHandGeometry.getHourDegrees();
+        mMinuteSprite.drawShadow(surface, centerX, centerY, minuteDegrees);
+        mHourSprite.drawShadow(surface, centerX, centerY, hourDegrees);
+        mMinuteSprite.draw(surface, centerX, centerY, minuteDegrees);
+        mHourSprite.draw(surface, centerX, centerY, hourDegrees);
+    }
+
+    @Override
+    public void release() {
+        mMinuteSprite.release();
+        mHourSprite.release();
+    }
+
+    private static final class StyledFactory implements Factory {
+        private final HandStyle mHourStyle;
+        private final HandStyle mMinuteStyle;
+
+        StyledFactory(HandStyle hourStyle, HandStyle minuteStyle) {
+            mHourStyle = hourStyle;
+            mMinuteStyle = minuteStyle;
+        }
+
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new HandsLayer(resources, mHourStyle, mMinuteStyle);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof StyledFactory)) { return false; }
+            final StyledFactory other = (StyledFactory) o;
+            return mHourStyle.equals(other.mHourStyle) && mMinuteStyle.equals(other.mMinuteStyle);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mHourStyle.hashCode() + mMinuteStyle.hashCode();
+        }
+    }
+}
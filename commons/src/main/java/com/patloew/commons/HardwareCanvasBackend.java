@@ -0,0 +1,66 @@
+package com.patloew.commons;
+
+import android.annotation.TargetApi;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+
+/**
+ * {@link RenderBackend} which draws with a hardware accelerated canvas, rasterized by the GPU.
+ * Every frame is a full repaint, the cached layers are bitmaps which are uploaded as textures once
+ * they changed.
+ *
+ * Only available from Android 6.0 on, see {@link #isSupported()}. Once a surface was drawn with a
+ * hardware canvas, it can't be locked with a software canvas anymore, so all frames of the surface
+ * have to go through this backend.
+ */
+@TargetApi(Build.VERSION_CODES.M)
+public class HardwareCanvasBackend implements RenderBackend {
+    private final SurfaceHolder mHolder;
+    private final CanvasDrawSurface mSurface = new CanvasDrawSurface();
+    private Surface mLockedSurface;
+
+    public HardwareCanvasBackend(SurfaceHolder holder) {
+        mHolder = holder;
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+    }
+
+    @Override
+    public String getName() {
+        return "hardware";
+    }
+
+    @Override
+    public boolean supportsPartialUpdates() {
+        return false;
+    }
+
+    @Override
+    public DrawSurface lockSurface(float[] dirtyBounds) {
+        final Surface surface = mHolder.getSurface();
+        if(surface == null || !surface.isValid()) {
+            return null;
+        }
+        final Canvas canvas;
+        try {
+            canvas = surface.lockHardwareCanvas();
+        } catch(IllegalStateException | IllegalArgumentException e) {
+            // e.g. the surface is already connected to a software canvas
+            return null;
+        }
+        mLockedSurface = surface;
+        mSurface.setCanvas(canvas);
+        return mSurface;
+    }
+
+    @Override
+    public void unlockAndPost(DrawSurface surface) {
+        mLockedSurface.unlockCanvasAndPost(mSurface.getCanvas());
+        mLockedSurface = null;
+        mSurface.setCanvas(null);
+    }
+}
@@ -3,10 +3,18 @@ package com.patloew.commons;
 import java.util.Calendar;
 
 public interface IWatchFaceConfig {
+    WatchFaceTime getTime();
+    /** Compatibility adapter for code which still needs a {@link Calendar}, see {@link WatchFaceTime#toCalendar(Calendar)}. */
     Calendar getCalendar();
     boolean isAmbient();
     boolean isLowBitAmbient();
+    /** Whether the display needs burn-in protection in ambient mode. */
+    boolean isBurnInProtection();
     boolean isRound();
+    /** Frames per second the second hand is animated with, 1 for a ticking second hand. */
+    int getSecondHandFps();
+    /** How much effort frames are rendered with, see {@link RenderGovernor}. */
+    RenderQuality getRenderQuality();
 
     // put your watch face options here
     boolean isLightTheme();
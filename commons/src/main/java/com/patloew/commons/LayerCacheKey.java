@@ -0,0 +1,50 @@
+package com.patloew.commons;
+
+/**
+ * Invalidation key for cached layers. A cached layer has to be rebuilt whenever one of the values
+ * it was rendered with changes.
+ */
+public class LayerCacheKey {
+    private boolean mValid = false;
+
+    private int mWidth;
+    private int mHeight;
+    private boolean mRound;
+    private boolean mLightTheme;
+    private boolean mAmbient;
+    private boolean mMobilePreview;
+
+    /**
+     * Updates the key with the current values.
+     *
+     * @return true if the key changed (or was invalidated) and the layer has to be rebuilt
+     */
+    public boolean update(int width, int height, boolean round, boolean lightTheme, boolean ambient, boolean mobilePreview) {
+        if(matches(width, height, round, lightTheme, ambient, mobilePreview)) {
+            return false;
+        }
+
+        mValid = true;
+        mWidth = width;
+        mHeight = height;
+        mRound = round;
+        mLightTheme = lightTheme;
+        mAmbient = ambient;
+        mMobilePreview = mobilePreview;
+
+        return true;
+    }
+
+    /**
+     * @return true if the key is valid and has the given values, without updating it
+     */
+    public boolean matches(int width, int height, boolean round, boolean lightTheme, boolean ambient, boolean mobilePreview) {
+        return mValid && mWidth == width && mHeight == height && mRound == round && mLightTheme == lightTheme
+                && mAmbient == ambient && mMobilePreview == mobilePreview;
+    }
+
+    /** Forces a rebuild on the next call to {@link #update}. */
+    public void invalidate() {
+        mValid = false;
+    }
+}
@@ -0,0 +1,769 @@
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Draws the layers of a {@link FaceDefinition} and only redraws each layer when needed.
+ *
+ * Consecutive layers with the same {@link FaceLayer.UpdateFrequency} (other than
+ * {@link FaceLayer.UpdateFrequency#SECOND}) form a cache group, which is rendered into an
+ * offscreen layer and only rendered again when its update period rolled over or the config
+ * changed, or for {@link FaceLayer.UpdateFrequency#DATA} layers, when their content version
+ * changed. A cache group which directly follows another one starts from the content of that one,
+ * so a frame only blits the topmost of them. Layers updated every second are drawn directly on
+ * every frame. For the default face, a frame within a minute is one blit and the second hand.
+ *
+ * Deferred assets of the layers (see {@link FaceLayer#hasDeferredAssets()}) are loaded with the
+ * asset loader given to the constructor. Layers which are not ready yet are skipped, or draw their
+ * placeholder, whose assets only start loading with the first frame. When a layer becomes ready,
+ * its cache group is redrawn on the next frame, which is a full repaint.
+ *
+ * Layers which are not enabled at the {@link RenderQuality} of the frame are skipped as well. A
+ * quality change is handled like a config change.
+ *
+ * Ambient frames on displays with low-bit ambient mode or burn-in protection are drawn from the
+ * same layers, which reduce their colors in {@link FaceLayer#onConfigChanged}. With burn-in
+ * protection, the composed face is shifted every minute, see {@link AmbientMode}.
+ *
+ * With a {@link SharedAssetCache}, the bottom cache group of layers which only change with the
+ * config is shared with all other engines of the same face, resources, surface type and config,
+ * e.g. the watch face and the previews. The layers can share their own assets as well. If the
+ * shared layer is only cached at a larger size, up to {@link #MAX_DOWNSAMPLE_FACTOR}, it is
+ * downsampled instead of rendered again, e.g. for thumbnails of several sizes. The layers drawn on
+ * top, like the hands, are always drawn at the size of the frame.
+ *
+ * Not thread-safe, {@link WatchFaceRenderer} keeps one per render thread.
+ */
+public class LayerEngine {
+    // the mobile preview scales the face into the preview border
+    private static final float PREVIEW_INSET = 0.05f;
+    private static final float PREVIEW_SCALE = 0.9f;
+
+    /**
+     * A shared layer is derived from one at most this much larger. Bilinear filtering skips
+     * pixels of the source when it is more than twice as large.
+     */
+    public static final float MAX_DOWNSAMPLE_FACTOR = 2f;
+
+    private final FaceDefinition mFaceDefinition;
+    private final WatchFaceResources mResources;
+    private final SharedAssetCache mAssetCache;
+    private final Executor mAssetLoader;
+    private final Runnable mOnAssetsLoaded;
+    private final FaceLayer[] mLayers;
+    private final Step[] mSteps;
+
+    // readiness of the layers as seen by the last frame, see swapInLoadedLayers()
+    private final boolean[] mReady;
+    private int mPendingLayerCount = 0;
+    // layers with a placeholder load their assets on the first frame, see FaceLayer.hasPlaceholder()
+    private boolean mPlaceholderAssetsPending = false;
+    private final AtomicInteger mRemainingLoads = new AtomicInteger();
+    // enabled at the quality of the config, see FaceLayer.isEnabled()
+    private final boolean[] mEnabled;
+
+    private final DrawStyle mPreviewBorderStyle = new DrawStyle();
+    // fills the edge uncovered by the burn-in shift
+    private final DrawStyle mShiftBackgroundStyle = new DrawStyle();
+
+    private final LayerCacheKey mConfigKey = new LayerCacheKey();
+    private boolean mConfigLowBitAmbient;
+    private RenderQuality mConfigQuality;
+
+    // bounds of the direct layers in the last frame, to compute the dirty region of the next one
+    private boolean mLastFrameValid = false;
+    private final float[] mLastBounds;
+    private final float[] mBounds = new float[4];
+
+    /**
+     * Creates an engine which loads the deferred assets right away on the calling thread.
+     */
+    public LayerEngine(FaceDefinition face, WatchFaceResources resources) {
+        this(face, resources, null, null, null);
+    }
+
+    /**
+     * @param assetLoader runs the loading of deferred assets, or null to load them right away on
+     * the calling thread, the ones of layers with a placeholder on the first frame
+     * @param onAssetsLoaded called on the loading thread once all deferred assets are loaded, or
+     * null
+     * @param assetCache cache for assets shared with other engines, or null to share nothing
+     */
+    public LayerEngine(FaceDefinition face, WatchFaceResources resources, Executor assetLoader, Runnable onAssetsLoaded, SharedAssetCache assetCache) {
+        mFaceDefinition = face;
+        mResources = resources;
+        mAssetCache = assetCache;
+        mAssetLoader = assetLoader;
+        mOnAssetsLoaded = onAssetsLoaded;
+        mLayers = face.createLayers(resources).toArray(new FaceLayer[0]);
+        for(FaceLayer layer : mLayers) {
+            layer.setAssetCache(assetCache);
+        }
+        mSteps = createSteps(mLayers);
+        mLastBounds = new float[mLayers.length * 4];
+        mReady = new boolean[mLayers.length];
+        mEnabled = new boolean[mLayers.length];
+
+        mPreviewBorderStyle.setColor(resources.getPreviewBorderColor());
+        mPreviewBorderStyle.setAntiAlias(true);
+
+        startLoadingAssets();
+    }
+
+    private void startLoadingAssets() {
+        final List<FaceLayer> deferred = new ArrayList<>();
+        for(int i = 0; i < mLayers.length; i++) {
+            if(mLayers[i].isReady()) {
+                mReady[i] = true;
+            } else {
+                mPendingLayerCount++;
+                if(mLayers[i].hasPlaceholder()) {
+                    mPlaceholderAssetsPending = true;
+                } else {
+                    deferred.add(mLayers[i]);
+                }
+            }
+        }
+
+        mRemainingLoads.set(mPendingLayerCount);
+        if(mPendingLayerCount == 0) {
+            if(mOnAssetsLoaded != null) {
+                mOnAssetsLoaded.run();
+            }
+            return;
+        }
+        loadAssets(deferred);
+    }
+
+    /**
+     * Starts loading the assets of the layers with a placeholder, which may depend on the config
+     * the layers just got. Their layers are created by the given surface.
+     */
+    private void startLoadingPlaceholderAssets(DrawSurface layerFactory) {
+        mPlaceholderAssetsPending = false;
+        final List<FaceLayer> deferred = new ArrayList<>();
+        for(int i = 0; i < mLayers.length; i++) {
+            if(!mReady[i] && mLayers[i].hasPlaceholder()) {
+                mLayers[i].setLayerFactory(layerFactory);
+                deferred.add(mLayers[i]);
+            }
+        }
+        loadAssets(deferred);
+    }
+
+    private void loadAssets(List<FaceLayer> deferred) {
+        if(mAssetLoader == null) {
+            for(FaceLayer layer : deferred) {
+                layer.loadDeferredAssets();
+                onLayerLoaded();
+            }
+            swapInLoadedLayers();
+            return;
+        }
+
+        for(final FaceLayer layer : deferred) {
+            mAssetLoader.execute(new Runnable() {
+                @Override
+                public void run() {
+                    layer.loadDeferredAssets();
+                    onLayerLoaded();
+                }
+            });
+        }
+    }
+
+    private void onLayerLoaded() {
+        if(mRemainingLoads.decrementAndGet() == 0 && mOnAssetsLoaded != null) {
+            mOnAssetsLoaded.run();
+        }
+    }
+
+    /**
+     * @return false while deferred assets of some layers are still loading
+     */
+    public boolean isReady() {
+        for(FaceLayer layer : mLayers) {
+            if(!layer.isReady()) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Starts drawing the layers which became ready since the last frame.
+     *
+     * @return true if a layer became ready
+     */
+    private boolean swapInLoadedLayers() {
+        boolean swapped = false;
+        for(Step step : mSteps) {
+            for(int i = step.mStart; i < step.mEnd; i++) {
+                if(!mReady[i] && mLayers[i].isReady()) {
+                    mReady[i] = true;
+                    mPendingLayerCount--;
+                    step.mValid = false;
+                    swapped = true;
+                }
+            }
+        }
+        return swapped;
+    }
+
+    private boolean hasNewlyReadyLayers() {
+        if(mPendingLayerCount <= 0) {
+            return false;
+        }
+        for(int i = 0; i < mLayers.length; i++) {
+            if(!mReady[i] && mLayers[i].isReady()) { return true; }
+        }
+        return false;
+    }
+
+    private static Step[] createSteps(FaceLayer[] layers) {
+        final List<Step> steps = new ArrayList<>();
+        Step last = null;
+        for(int i = 0; i < layers.length; i++) {
+            final FaceLayer.UpdateFrequency frequency = layers[i].getUpdateFrequency();
+            if(frequency != FaceLayer.UpdateFrequency.SECOND && last != null && last.mCached && last.mFrequency == frequency) {
+                last.mEnd = i + 1;
+                continue;
+            }
+
+            final Step step = new Step(i, frequency);
+            if(step.mCached && last != null && last.mCached) {
+                // the new group starts from the content of the last one, which is not blitted anymore
+                step.mBase = last;
+                last.mBlit = false;
+            }
+            steps.add(step);
+            last = step;
+        }
+        return steps.toArray(new Step[steps.size()]);
+    }
+
+    /**
+     * @return the number of cached offscreen layers, for debugging and tests
+     */
+    public int getCacheGroupCount() {
+        int count = 0;
+        for(Step step : mSteps) {
+            if(step.mCached) { count++; }
+        }
+        return count;
+    }
+
+    /**
+     * Forces all layers of this engine to be drawn again on the next frame. Shared layers are only
+     * released by this engine, not removed from the asset cache: everything their content depends
+     * on is part of their key, so the next frame acquires them again, and other engines keep using
+     * them.
+     */
+    public void invalidate() {
+        mConfigKey.invalidate();
+        mLastFrameValid = false;
+        for(Step step : mSteps) {
+            releaseSharedLayer(step);
+        }
+    }
+
+    /**
+     * Releases the cached layers and the shared assets. The next frame renders everything again.
+     * Must not be called while a frame is drawn.
+     */
+    public void release() {
+        mConfigKey.invalidate();
+        mLastFrameValid = false;
+        for(Step step : mSteps) {
+            releaseSharedLayer(step);
+            if(step.mOwnLayer != null) {
+                step.mOwnLayer.release();
+                step.mOwnLayer = null;
+            }
+            step.mLayer = null;
+            step.mValid = false;
+        }
+        for(FaceLayer layer : mLayers) {
+            layer.release();
+        }
+    }
+
+    /**
+     * Computes the region which changes when the given state is drawn, compared to the last frame.
+     * If no cached layer has to be updated, this is the union of the old and new bounds of the
+     * layers drawn on every frame.
+     *
+     * @param outBounds set to left, top, right and bottom of the dirty region, or to the surface
+     * bounds if everything has to be redrawn
+     * @return false if a full repaint is needed
+     */
+    public boolean getDirtyBounds(RenderState state, boolean mobilePreview, float[] outBounds) {
+        final int width = state.getWidth();
+        final int height = state.getHeight();
+
+        if(!mLastFrameValid || state.isAmbient() || isConfigChanged(state, mobilePreview) || isAnyCacheOutdated(state) || hasNewlyReadyLayers()) {
+            return setFullBounds(width, height, outBounds);
+        }
+
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE, right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        final float[] bounds = mBounds;
+        for(Step step : mSteps) {
+            if(step.mCached) {
+                continue;
+            }
+            final int i = step.mStart;
+            if(!isDrawn(i)) {
+                continue;
+            }
+            if(!mLayers[i].getBounds(state, bounds)) {
+                return setFullBounds(width, height, outBounds);
+            }
+            final float[] last = mLastBounds;
+            left = Math.min(left, Math.min(bounds[0], last[i * 4]));
+            top = Math.min(top, Math.min(bounds[1], last[i * 4 + 1]));
+            right = Math.max(right, Math.max(bounds[2], last[i * 4 + 2]));
+            bottom = Math.max(bottom, Math.max(bounds[3], last[i * 4 + 3]));
+        }
+
+        if(left > right) {
+            // nothing is drawn on every frame
+            outBounds[0] = outBounds[1] = outBounds[2] = outBounds[3] = 0;
+            return true;
+        }
+
+        if(mobilePreview) {
+            final float translateXY = width * PREVIEW_INSET;
+            left = left * PREVIEW_SCALE + translateXY;
+            top = top * PREVIEW_SCALE + translateXY;
+            right = right * PREVIEW_SCALE + translateXY;
+            bottom = bottom * PREVIEW_SCALE + translateXY;
+        }
+
+        outBounds[0] = Math.max(0, left);
+        outBounds[1] = Math.max(0, top);
+        outBounds[2] = Math.min(width, right);
+        outBounds[3] = Math.min(height, bottom);
+        return true;
+    }
+
+    private static boolean setFullBounds(int width, int height, float[] outBounds) {
+        outBounds[0] = 0;
+        outBounds[1] = 0;
+        outBounds[2] = width;
+        outBounds[3] = height;
+        return false;
+    }
+
+    private boolean isConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean isAmbient = state.isAmbient();
+        return !mConfigKey.matches(state.getWidth(), state.getHeight(), state.isRound(), !isAmbient && state.isLightTheme(), isAmbient, mobilePreview)
+                || mConfigLowBitAmbient != state.isLowBitAmbient() || mConfigQuality != state.getRenderQuality();
+    }
+
+    private boolean isDrawn(int layer) {
+        return (mReady[layer] || mLayers[layer].hasPlaceholder()) && mEnabled[layer];
+    }
+
+    private boolean isAnyCacheOutdated(RenderState state) {
+        for(Step step : mSteps) {
+            if(step.mCached && (!step.mValid || step.mPeriod != getPeriod(step, state))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a value which changes whenever the content of the cache group changes
+     */
+    private long getPeriod(Step step, RenderState state) {
+        if(step.mFrequency != FaceLayer.UpdateFrequency.DATA) {
+            return getPeriod(step.mFrequency, state);
+        }
+        long version = 0;
+        for(int i = step.mStart; i < step.mEnd; i++) {
+            version = 31 * version + mLayers[i].getContentVersion();
+        }
+        return version;
+    }
+
+    /**
+     * @return a value which changes whenever a period of the given frequency rolls over
+     */
+    static long getPeriod(FaceLayer.UpdateFrequency frequency, RenderState state) {
+        switch(frequency) {
+            case HOUR:
+                // start of the local hour in UTC minutes, exact for time zones with half hour offsets
+                return state.getTimeInMillis() / 60000 - state.getMinute();
+            case MINUTE:
+                return state.getTimeInMillis() / 60000;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Draws all layers of the face, from the cache where possible.
+     */
+    public void onDraw(RenderState state, DrawSurface surface, boolean mobilePreview) {
+        final boolean isAmbient = state.isAmbient();
+
+        if(mConfigKey.update(state.getWidth(), state.getHeight(), state.isRound(), !isAmbient && state.isLightTheme(), isAmbient, mobilePreview)
+                | mConfigLowBitAmbient != state.isLowBitAmbient() | mConfigQuality != state.getRenderQuality()) {
+            mConfigLowBitAmbient = state.isLowBitAmbient();
+            mConfigQuality = state.getRenderQuality();
+            final int background = mResources.getBackgroundColor();
+            mShiftBackgroundStyle.setColor(state.isLowBitAmbient() ? AmbientMode.quantize(background) : background);
+            for(int i = 0; i < mLayers.length; i++) {
+                mEnabled[i] = mLayers[i].isEnabled(mConfigQuality);
+                mLayers[i].onConfigChanged(state, mobilePreview);
+            }
+            for(Step step : mSteps) {
+                step.mValid = false;
+            }
+        }
+
+        if(mPlaceholderAssetsPending) {
+            startLoadingPlaceholderAssets(surface);
+        }
+
+        // a layer which became ready after getDirtyBounds() might have been drawn clipped
+        final boolean swapped = mPendingLayerCount > 0 && swapInLoadedLayers();
+
+        if(mobilePreview && mSteps.length > 0 && !mSteps[0].mCached) {
+            drawPreviewBorder(surface, state);
+        }
+
+        final boolean shifted = !mobilePreview && AmbientMode.isShifted(state);
+        if(shifted) {
+            // the cached layers are only blitted with the offset, never rendered again for a shift
+            final int shiftIndex = AmbientMode.getShiftIndex(state.getHour(), state.getMinute());
+            final int shiftX = AmbientMode.getShiftX(shiftIndex);
+            final int shiftY = AmbientMode.getShiftY(shiftIndex);
+            drawShiftedEdges(surface, state.getWidth(), state.getHeight(), shiftX, shiftY);
+            surface.save();
+            surface.translate(shiftX, shiftY);
+        }
+
+        boolean allBoundsKnown = true;
+        for(Step step : mSteps) {
+            if(step.mCached) {
+                step.mRedrawn = false;
+                if(!step.mValid || step.mPeriod != getPeriod(step, state) || (step.mBase != null && step.mBase.mRedrawn)) {
+                    renderCacheGroup(step, surface, state, mobilePreview);
+                }
+                if(step.mBlit) {
+                    surface.drawLayer(step.mLayer, 0, 0);
+                }
+            } else if(isDrawn(step.mStart)) {
+                final FaceLayer layer = mLayers[step.mStart];
+                if(mobilePreview) {
+                    surface.save();
+                    applyPreviewTransform(surface, state, true);
+                    layer.draw(surface, state);
+                    surface.restore();
+                } else {
+                    layer.draw(surface, state);
+                }
+
+                if(!layer.getBounds(state, mBounds)) {
+                    allBoundsKnown = false;
+                } else {
+                    System.arraycopy(mBounds, 0, mLastBounds, step.mStart * 4, 4);
+                }
+            }
+        }
+
+        if(shifted) {
+            surface.restore();
+        }
+
+        mLastFrameValid = allBoundsKnown && !isAmbient && !swapped;
+    }
+
+    /**
+     * Fills the strips along the edges which the face shifted by (shiftX, shiftY) does not cover.
+     */
+    private void drawShiftedEdges(DrawSurface surface, int width, int height, int shiftX, int shiftY) {
+        if(shiftX > 0) {
+            surface.drawRect(0, 0, shiftX, height, mShiftBackgroundStyle);
+        } else if(shiftX < 0) {
+            surface.drawRect(width + shiftX, 0, width, height, mShiftBackgroundStyle);
+        }
+        if(shiftY > 0) {
+            surface.drawRect(0, 0, width, shiftY, mShiftBackgroundStyle);
+        } else if(shiftY < 0) {
+            surface.drawRect(0, height + shiftY, width, height, mShiftBackgroundStyle);
+        }
+    }
+
+    private void renderCacheGroup(Step step, DrawSurface target, RenderState state, boolean mobilePreview) {
+        // taken before drawing, data which changes meanwhile is drawn again on the next frame
+        final long period = getPeriod(step, state);
+        if(mAssetCache != null && step.mFrequency == FaceLayer.UpdateFrequency.CONFIG_CHANGE && step.mBase == null && isGroupReady(step)) {
+            useSharedLayer(step, target, state, mobilePreview);
+        } else {
+            releaseSharedLayer(step);
+            renderOwnLayer(step, target, state, mobilePreview);
+        }
+
+        step.mValid = true;
+        step.mRedrawn = true;
+        step.mPeriod = period;
+    }
+
+    private boolean isGroupReady(Step step) {
+        for(int i = step.mStart; i < step.mEnd; i++) {
+            if(!mReady[i]) { return false; }
+        }
+        return true;
+    }
+
+    private void useSharedLayer(Step step, DrawSurface target, RenderState state, boolean mobilePreview) {
+        final SharedLayerKey key = new SharedLayerKey(mFaceDefinition, mResources, target.getClass(), state, mobilePreview);
+        if(step.mShared != null && key.equals(step.mSharedKey)) {
+            return;
+        }
+        releaseSharedLayer(step);
+
+        SharedAssetCache.Handle<SharedLayer> shared = mAssetCache.acquire(key);
+        if(shared == null) {
+            shared = deriveSharedLayer(key, target);
+        }
+        if(shared == null) {
+            final DrawSurface.Layer layer = target.createLayer(state.getWidth(), state.getHeight());
+            drawCacheGroup(step, layer.getSurface(), state, mobilePreview);
+            shared = mAssetCache.put(key, new SharedLayer(layer));
+        }
+
+        step.mShared = shared;
+        step.mSharedKey = key;
+        step.mLayer = shared.get().mLayer;
+        // the private layer is not needed anymore
+        if(step.mOwnLayer != null) {
+            step.mOwnLayer.release();
+            step.mOwnLayer = null;
+        }
+    }
+
+    /**
+     * @return the shared layer for the key, downsampled from a larger size of it, or null if no
+     * larger size is cached
+     */
+    private SharedAssetCache.Handle<SharedLayer> deriveSharedLayer(SharedLayerKey key, DrawSurface target) {
+        final SharedAssetCache.Handle<SharedLayer> source = mAssetCache.acquireSource(key, MAX_DOWNSAMPLE_FACTOR);
+        if(source == null) {
+            return null;
+        }
+        try {
+            final DrawSurface.Layer layer = target.createLayer(key.mWidth, key.mHeight);
+            layer.getSurface().drawLayer(source.get().mLayer, 0, 0, key.mWidth, key.mHeight);
+            return mAssetCache.putDerived(key, new SharedLayer(layer));
+        } finally {
+            source.release();
+        }
+    }
+
+    private static void releaseSharedLayer(Step step) {
+        if(step.mShared != null) {
+            step.mShared.release();
+            step.mShared = null;
+            step.mSharedKey = null;
+            step.mLayer = null;
+        }
+    }
+
+    private void renderOwnLayer(Step step, DrawSurface target, RenderState state, boolean mobilePreview) {
+        final int width = state.getWidth();
+        final int height = state.getHeight();
+        if(step.mOwnLayer == null || step.mOwnLayer.getWidth() != width || step.mOwnLayer.getHeight() != height) {
+            if(step.mOwnLayer != null) {
+                step.mOwnLayer.release();
+            }
+            step.mOwnLayer = target.createLayer(width, height);
+        } else {
+            step.mOwnLayer.clear();
+        }
+        step.mLayer = step.mOwnLayer;
+        drawCacheGroup(step, step.mOwnLayer.getSurface(), state, mobilePreview);
+    }
+
+    private void drawCacheGroup(Step step, DrawSurface surface, RenderState state, boolean mobilePreview) {
+        if(step.mBase != null) {
+            surface.drawLayer(step.mBase.mLayer, 0, 0);
+        } else if(mobilePreview && step == mSteps[0]) {
+            drawPreviewBorder(surface, state);
+        }
+
+        surface.save();
+        applyPreviewTransform(surface, state, mobilePreview);
+        for(int i = step.mStart; i < step.mEnd; i++) {
+            if(isDrawn(i)) {
+                mLayers[i].draw(surface, state);
+            }
+        }
+        surface.restore();
+    }
+
+    private void drawPreviewBorder(DrawSurface surface, RenderState state) {
+        final int width = state.getWidth();
+        final int height = state.getHeight();
+        if(state.isRound()) {
+            surface.drawCircle(width / 2f, height / 2f, width / 2f, mPreviewBorderStyle);
+        } else {
+            final float radius = mResources.getPreviewSquareRadius();
+            surface.drawRoundRect(0, 0, width, height, radius, radius, mPreviewBorderStyle);
+        }
+    }
+
+    private static void applyPreviewTransform(DrawSurface surface, RenderState state, boolean mobilePreview) {
+        if(mobilePreview) {
+            final float translateXY = state.getWidth() * PREVIEW_INSET;
+            surface.translate(translateXY, translateXY);
+            surface.scale(PREVIEW_SCALE, PREVIEW_SCALE);
+        }
+    }
+
+    /**
+     * A cache group of consecutive layers with the same update frequency, or a single layer which
+     * is drawn directly on every frame.
+     */
+    private static class Step {
+        final int mStart;
+        int mEnd;
+        final FaceLayer.UpdateFrequency mFrequency;
+        final boolean mCached;
+
+        Step mBase;
+        boolean mBlit = true;
+        // the blitted layer, either the own layer or the shared one
+        DrawSurface.Layer mLayer;
+        DrawSurface.Layer mOwnLayer;
+        SharedAssetCache.Handle<SharedLayer> mShared;
+        SharedLayerKey mSharedKey;
+        boolean mValid = false;
+        boolean mRedrawn = false;
+        long mPeriod;
+
+        Step(int start, FaceLayer.UpdateFrequency frequency) {
+            mStart = start;
+            mEnd = start + 1;
+            mFrequency = frequency;
+            mCached = frequency != FaceLayer.UpdateFrequency.SECOND;
+        }
+    }
+
+    /**
+     * A rendered cache group in the {@link SharedAssetCache}.
+     */
+    private static class SharedLayer implements SharedAssetCache.Asset {
+        final DrawSurface.Layer mLayer;
+
+        SharedLayer(DrawSurface.Layer layer) {
+            mLayer = layer;
+        }
+
+        @Override
+        public long getByteCount() {
+            return (long) mLayer.getWidth() * mLayer.getHeight() * 4;
+        }
+
+        @Override
+        public void release() {
+            mLayer.release();
+        }
+    }
+
+    /**
+     * Everything the content of a shared cache group depends on. The options of the face are part
+     * of the face definition and the resources, e.g. the hand styles or the colors, the theme is
+     * part of the config. The time and the time zones are not, only layers which never change with
+     * the time are shared. The surface type is part of the key, as layers can only be drawn onto
+     * surfaces of the type which created them. The family key is the same without the size.
+     */
+    private static final class SharedLayerKey implements SharedAssetCache.ResolutionKey {
+        final FaceDefinition mFaceDefinition;
+        final WatchFaceResources mResources;
+        final Class<?> mSurfaceType;
+        final int mWidth;
+        final int mHeight;
+        final boolean mRound;
+        final boolean mLightTheme;
+        final boolean mAmbient;
+        final boolean mLowBitAmbient;
+        final boolean mMobilePreview;
+        final RenderQuality mRenderQuality;
+
+        SharedLayerKey(FaceDefinition faceDefinition, WatchFaceResources resources, Class<?> surfaceType, RenderState state, boolean mobilePreview) {
+            mFaceDefinition = faceDefinition;
+            mResources = resources;
+            mSurfaceType = surfaceType;
+            mWidth = state.getWidth();
+            mHeight = state.getHeight();
+            mRound = state.isRound();
+            mAmbient = state.isAmbient();
+            mLightTheme = !mAmbient && state.isLightTheme();
+            mLowBitAmbient = state.isLowBitAmbient();
+            mMobilePreview = mobilePreview;
+            mRenderQuality = state.getRenderQuality();
+        }
+
+        private SharedLayerKey(SharedLayerKey key, int width, int height) {
+            mFaceDefinition = key.mFaceDefinition;
+            mResources = key.mResources;
+            mSurfaceType = key.mSurfaceType;
+            mWidth = width;
+            mHeight = height;
+            mRound = key.mRound;
+            mAmbient = key.mAmbient;
+            mLightTheme = key.mLightTheme;
+            mLowBitAmbient = key.mLowBitAmbient;
+            mMobilePreview = key.mMobilePreview;
+            mRenderQuality = key.mRenderQuality;
+        }
+
+        @Override
+        public Object getFamilyKey() {
+            return new SharedLayerKey(this, 0, 0);
+        }
+
+        @Override
+        public int getWidth() {
+            return mWidth;
+        }
+
+        @Override
+        public int getHeight() {
+            return mHeight;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof SharedLayerKey)) { return false; }
+            final SharedLayerKey other = (SharedLayerKey) o;
+            return mWidth == other.mWidth && mHeight == other.mHeight && mRound == other.mRound
+                    && mLightTheme == other.mLightTheme && mAmbient == other.mAmbient
+                    && mLowBitAmbient == other.mLowBitAmbient && mMobilePreview == other.mMobilePreview
+                    && mRenderQuality == other.mRenderQuality
+                    && mSurfaceType == other.mSurfaceType && mFaceDefinition.equals(other.mFaceDefinition)
+                    && mResources.equals(other.mResources);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mFaceDefinition.hashCode();
+            result = 31 * result + mResources.hashCode();
+            result = 31 * result + mSurfaceType.hashCode();
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + (mRound ? 1 : 0);
+            result = 31 * result + (mLightTheme ? 1 : 0);
+            result = 31 * result + (mAmbient ? 1 : 0);
+            result = 31 * result + (mLowBitAmbient ? 1 : 0);
+            result = 31 * result + (mMobilePreview ? 1 : 0);
+            result = 31 * result + mRenderQuality.hashCode();
+            return result;
+        }
+    }
+}
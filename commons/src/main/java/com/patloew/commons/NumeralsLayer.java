@@ -0,0 +1,57 @@
+package com.patloew.commons;
+
+import java.text.NumberFormat;
+
+/**
+ * Numerals at 12, 3, 6 and 9 o'clock, inside the tick ring. The numerals are formatted with the
+ * digits of the default locale.
+ */
+public class NumeralsLayer extends FaceLayer {
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new NumeralsLayer(resources);
+        }
+    };
+
+    private static final int[] HOURS = { 12, 3, 6, 9 };
+
+    private final WatchFaceResources mResources;
+    private final DrawStyle mStyle = new DrawStyle();
+    private final String[] mNumerals = new String[HOURS.length];
+
+    public NumeralsLayer(WatchFaceResources resources) {
+        super(UpdateFrequency.CONFIG_CHANGE);
+        mResources = resources;
+        mStyle.setTextSize(resources.getNumeralTextSize());
+
+        final NumberFormat format = NumberFormat.getIntegerInstance();
+        for(int i = 0; i < HOURS.length; i++) {
+            mNumerals[i] = format.format(HOURS[i]);
+        }
+    }
+
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean lowBitAmbient = state.isAmbient() && state.isLowBitAmbient();
+        mStyle.setColor(lowBitAmbient ? mResources.getLowBitAmbientHandColor() : mResources.getDialColor());
+        mStyle.setAntiAlias(!lowBitAmbient && state.getRenderQuality().isAntiAlias());
+    }
+
+    @Override
+    public boolean isEnabled(RenderQuality quality) {
+        return quality != RenderQuality.MINIMAL;
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        final float centerX = state.getWidth() / 2f;
+        final float centerY = state.getHeight() / 2f;
+        final float radius = centerX - mResources.getTickLength() * 2 - mResources.getNumeralTextSize();
+
+        surface.drawText(mNumerals[0], centerX, centerY - radius, mStyle);
+        surface.drawText(mNumerals[1], centerX + radius, centerY, mStyle);
+        surface.drawText(mNumerals[2], centerX, centerY + radius, mStyle);
+        surface.drawText(mNumerals[3], centerX - radius, centerY, mStyle);
+    }
+}
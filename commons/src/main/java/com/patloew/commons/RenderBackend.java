@@ -0,0 +1,31 @@
+package com.patloew.commons;
+
+/**
+ * Presents the frames of the watch face, e.g. through a software or a hardware accelerated
+ * canvas. The renderer draws onto the surface the backend locked, so the drawing code is the same
+ * for all backends, see {@link WatchFaceRenderer#drawFrame(RenderState, RenderBackend)}.
+ *
+ * A backend is used by one render thread.
+ */
+public interface RenderBackend {
+    /** @return a short name, for logging and benchmarks */
+    String getName();
+
+    /**
+     * @return true if the content outside of the locked region is kept, so a frame only has to
+     * redraw the region which changed. Otherwise every frame is a full repaint.
+     */
+    boolean supportsPartialUpdates();
+
+    /**
+     * Locks the target for a new frame.
+     *
+     * @param dirtyBounds left, top, right and bottom of the region to redraw, or null to redraw
+     * everything. The backend might lock a larger region, the surface is clipped to it.
+     * @return the surface to draw onto, or null if the target is not available
+     */
+    DrawSurface lockSurface(float[] dirtyBounds);
+
+    /** Shows the frame drawn onto the surface returned by {@link #lockSurface(float[])}. */
+    void unlockAndPost(DrawSurface surface);
+}
@@ -0,0 +1,345 @@
+package com.patloew.commons;
+
+/**
+ * Picks the render rate and {@link RenderQuality} of the interactive mode from the power state of
+ * the device: battery level, charging, temperature, whether a peek card covers the face and how
+ * long frames take to draw.
+ *
+ * The governor is a pure policy. The signals come from a pluggable {@link SignalSource}, e.g. the
+ * battery broadcast on the watch or fixed values in tests, and the thresholds from a
+ * {@link Policy}, so battery life can be traded against smoothness by tuning values instead of
+ * code.
+ *
+ * <ul>
+ * <li>A peek card covering the face or a low battery fall back to a ticking second hand.</li>
+ * <li>A critical battery or a hot device switch to {@link RenderQuality#MINIMAL}: no second hand,
+ * so no timer is needed and the face is only updated once a minute.</li>
+ * <li>A warm device ticks without anti-aliasing.</li>
+ * <li>The sweep rate is lowered until the measured frame cost fits into the frame budget. Below the
+ * minimal sweep rate, the second hand ticks.</li>
+ * </ul>
+ *
+ * Battery limits do not apply while charging, the temperature limits do.
+ *
+ * Not thread-safe, meant to be used on the thread which schedules the frames.
+ */
+public class RenderGovernor {
+    /** Value of a signal which is not known, e.g. because the device does not report it. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /** Fills in the current signals. */
+    public interface SignalSource {
+        /**
+         * @param signals reset to unknown values, to be filled with what the source knows
+         */
+        void readSignals(Signals signals);
+    }
+
+    /** What limited the last decision. */
+    public enum Constraint {
+        NONE,
+        PEEK_CARD,
+        BATTERY_LOW,
+        BATTERY_CRITICAL,
+        TEMPERATURE_WARM,
+        TEMPERATURE_HOT,
+        FRAME_COST
+    }
+
+    private final Policy mPolicy;
+    private final SignalSource mSignalSource;
+    private final Signals mSignals = new Signals();
+    private final Decision mDecision = new Decision();
+    private final Decision mNextDecision = new Decision();
+
+    public RenderGovernor(Policy policy, SignalSource signalSource) {
+        mPolicy = policy;
+        mSignalSource = signalSource;
+    }
+
+    public Policy getPolicy() {
+        return mPolicy;
+    }
+
+    /** @return the last decision, updated in place by {@link #update(int)} */
+    public Decision getDecision() {
+        return mDecision;
+    }
+
+    /**
+     * Reads the signals and decides again.
+     *
+     * @param requestedFps the second hand rate the user chose, 1 for a ticking second hand
+     * @return true if the decision changed, so the timer has to be updated and the face redrawn
+     */
+    public boolean update(int requestedFps) {
+        mSignals.reset();
+        mSignalSource.readSignals(mSignals);
+        decide(mPolicy, mSignals, requestedFps, mNextDecision);
+        if(mNextDecision.equals(mDecision)) {
+            mDecision.mConstraint = mNextDecision.mConstraint;
+            return false;
+        }
+        mDecision.set(mNextDecision);
+        return true;
+    }
+
+    /**
+     * The policy itself, without state.
+     *
+     * @param out decision to write into, so that it can be reused
+     */
+    public static void decide(Policy policy, Signals signals, int requestedFps, Decision out) {
+        out.mFps = Math.max(1, requestedFps);
+        out.mQuality = RenderQuality.FULL;
+        out.mConstraint = Constraint.NONE;
+
+        if(signals.isPeekCardVisible()) {
+            out.limit(1, RenderQuality.FULL, Constraint.PEEK_CARD);
+        }
+
+        final int batteryLevel = signals.getBatteryLevel();
+        if(!signals.isCharging() && batteryLevel != UNKNOWN) {
+            if(batteryLevel < policy.mCriticalBatteryLevel) {
+                out.limit(0, RenderQuality.MINIMAL, Constraint.BATTERY_CRITICAL);
+            } else if(batteryLevel < policy.mLowBatteryLevel) {
+                out.limit(1, RenderQuality.FULL, Constraint.BATTERY_LOW);
+            }
+        }
+
+        final int temperature = signals.getTemperature();
+        if(temperature != UNKNOWN) {
+            if(temperature >= policy.mHotTemperature) {
+                out.limit(0, RenderQuality.MINIMAL, Constraint.TEMPERATURE_HOT);
+            } else if(temperature >= policy.mWarmTemperature) {
+                out.limit(1, RenderQuality.REDUCED, Constraint.TEMPERATURE_WARM);
+            }
+        }
+
+        final long frameCostNanos = signals.getFrameCostNanos();
+        if(out.mFps > 1 && frameCostNanos > 0) {
+            // highest rate at which a frame takes at most the budget share of the frame interval
+            final long affordableFps = 10000000L * policy.mFrameBudgetPercent / frameCostNanos;
+            if(affordableFps < out.mFps) {
+                out.limit(affordableFps >= policy.mMinSweepFps ? (int) affordableFps : 1, RenderQuality.FULL, Constraint.FRAME_COST);
+            }
+        }
+    }
+
+    /**
+     * Inputs of the governor. Signals a source does not set stay {@link #UNKNOWN} and are ignored.
+     */
+    public static class Signals {
+        private int mBatteryLevel;
+        private boolean mCharging;
+        private int mTemperature;
+        private boolean mPeekCardVisible;
+        private long mFrameCostNanos;
+
+        public Signals() {
+            reset();
+        }
+
+        public void reset() {
+            mBatteryLevel = UNKNOWN;
+            mCharging = false;
+            mTemperature = UNKNOWN;
+            mPeekCardVisible = false;
+            mFrameCostNanos = 0;
+        }
+
+        /**
+         * @param level battery level in percent
+         */
+        public void setBattery(int level, boolean charging) {
+            mBatteryLevel = level;
+            mCharging = charging;
+        }
+
+        /**
+         * @param temperature device temperature in tenths of a degree Celsius, as reported by
+         * the battery
+         */
+        public void setTemperature(int temperature) {
+            mTemperature = temperature;
+        }
+
+        public void setPeekCardVisible(boolean peekCardVisible) {
+            mPeekCardVisible = peekCardVisible;
+        }
+
+        /**
+         * @param frameCostNanos typical draw duration of a frame, e.g. the 95th percentile of the
+         * {@link FrameMetrics}, or 0 if not measured yet
+         */
+        public void setFrameCostNanos(long frameCostNanos) {
+            mFrameCostNanos = frameCostNanos;
+        }
+
+        public int getBatteryLevel() {
+            return mBatteryLevel;
+        }
+
+        public boolean isCharging() {
+            return mCharging;
+        }
+
+        public int getTemperature() {
+            return mTemperature;
+        }
+
+        public boolean isPeekCardVisible() {
+            return mPeekCardVisible;
+        }
+
+        public long getFrameCostNanos() {
+            return mFrameCostNanos;
+        }
+    }
+
+    /**
+     * Render rate and quality of the interactive mode.
+     */
+    public static final class Decision {
+        private int mFps = 1;
+        private RenderQuality mQuality = RenderQuality.FULL;
+        private Constraint mConstraint = Constraint.NONE;
+
+        /**
+         * @return frames per second of the second hand: 0 if no timer is needed because the
+         * face only changes once a minute, 1 for a ticking or more for a sweeping second hand
+         */
+        public int getFps() {
+            return mFps;
+        }
+
+        public RenderQuality getQuality() {
+            return mQuality;
+        }
+
+        /** @return what limited the rate or quality, for logging and tuning */
+        public Constraint getConstraint() {
+            return mConstraint;
+        }
+
+        void set(Decision other) {
+            mFps = other.mFps;
+            mQuality = other.mQuality;
+            mConstraint = other.mConstraint;
+        }
+
+        private void limit(int fps, RenderQuality quality, Constraint constraint) {
+            if(fps < mFps || quality.ordinal() > mQuality.ordinal()) {
+                mFps = Math.min(mFps, fps);
+                mQuality = mQuality.min(quality);
+                mConstraint = constraint;
+            }
+        }
+
+        /** Equal if rate and quality are, the constraint does not matter for rendering. */
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Decision)) { return false; }
+            final Decision other = (Decision) o;
+            return mFps == other.mFps && mQuality == other.mQuality;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mFps + mQuality.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Decision{fps=" + mFps + ", quality=" + mQuality + ", constraint=" + mConstraint + "}";
+        }
+    }
+
+    /**
+     * Thresholds of the governor.
+     */
+    public static final class Policy {
+        private final int mLowBatteryLevel;
+        private final int mCriticalBatteryLevel;
+        private final int mWarmTemperature;
+        private final int mHotTemperature;
+        private final int mFrameBudgetPercent;
+        private final int mMinSweepFps;
+
+        private Policy(Builder builder) {
+            mLowBatteryLevel = builder.mLowBatteryLevel;
+            mCriticalBatteryLevel = builder.mCriticalBatteryLevel;
+            mWarmTemperature = builder.mWarmTemperature;
+            mHotTemperature = builder.mHotTemperature;
+            mFrameBudgetPercent = builder.mFrameBudgetPercent;
+            mMinSweepFps = builder.mMinSweepFps;
+        }
+
+        public int getLowBatteryLevel() {
+            return mLowBatteryLevel;
+        }
+
+        public int getCriticalBatteryLevel() {
+            return mCriticalBatteryLevel;
+        }
+
+        public int getWarmTemperature() {
+            return mWarmTemperature;
+        }
+
+        public int getHotTemperature() {
+            return mHotTemperature;
+        }
+
+        public int getFrameBudgetPercent() {
+            return mFrameBudgetPercent;
+        }
+
+        public int getMinSweepFps() {
+            return mMinSweepFps;
+        }
+
+        public static class Builder {
+            private int mLowBatteryLevel = 15;
+            private int mCriticalBatteryLevel = 5;
+            private int mWarmTemperature = 400;
+            private int mHotTemperature = 450;
+            private int mFrameBudgetPercent = 50;
+            private int mMinSweepFps = 10;
+
+            /**
+             * @param low below this level in percent, the second hand ticks
+             * @param critical below this level in percent, the quality is minimal
+             */
+            public Builder setBatteryLevels(int low, int critical) {
+                mLowBatteryLevel = low;
+                mCriticalBatteryLevel = critical;
+                return this;
+            }
+
+            /**
+             * @param warm from this temperature on, the second hand ticks without anti-aliasing
+             * @param hot from this temperature on, the quality is minimal
+             */
+            public Builder setTemperatures(int warm, int hot) {
+                mWarmTemperature = warm;
+                mHotTemperature = hot;
+                return this;
+            }
+
+            /**
+             * @param frameBudgetPercent share of the frame interval a frame may take to draw
+             * @param minSweepFps lowest sweep rate, below it the second hand ticks
+             */
+            public Builder setFrameBudget(int frameBudgetPercent, int minSweepFps) {
+                mFrameBudgetPercent = frameBudgetPercent;
+                mMinSweepFps = minSweepFps;
+                return this;
+            }
+
+            public Policy build() {
+                return new Policy(this);
+            }
+        }
+    }
+}
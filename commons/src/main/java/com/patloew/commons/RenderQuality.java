@@ -0,0 +1,23 @@
+package com.patloew.commons;
+
+/**
+ * How much effort a frame is rendered with, picked by the {@link RenderGovernor}. Cheaper levels
+ * save battery and keep frames in budget on a hot or slow device.
+ */
+public enum RenderQuality {
+    /** Anti-aliased, all layers. */
+    FULL,
+    /** Without anti-aliasing. */
+    REDUCED,
+    /** Without anti-aliasing and without the optional layers, see {@link FaceLayer#isEnabled(RenderQuality)}. */
+    MINIMAL;
+
+    public boolean isAntiAlias() {
+        return this == FULL;
+    }
+
+    /** @return the cheaper of both levels */
+    public RenderQuality min(RenderQuality other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+}
@@ -0,0 +1,174 @@
+package com.patloew.commons;
+
+import android.graphics.Rect;
+
+/**
+ * Immutable snapshot of everything a frame is rendered from: time, ambient state, shape, theme and
+ * bounds. A snapshot can be passed to another thread and rendered there while the source config
+ * keeps changing.
+ *
+ * Instances are pooled to avoid allocations in the frame path. Get one with
+ * {@link #obtain(IWatchFaceConfig, Rect)} and give it back with {@link #recycle()} once the frame
+ * is drawn. A recycled snapshot must not be used anymore.
+ */
+public final class RenderState {
+    private static final int MAX_POOL_SIZE = 8;
+
+    private static final Object sPoolSync = new Object();
+    private static RenderState sPool;
+    private static int sPoolSize = 0;
+
+    private RenderState mNext;
+
+    private long mTimeInMillis;
+    private int mHour;
+    private int mMinute;
+    private int mSecond;
+    private int mMillis;
+    private int mSecondaryMillisOfDay;
+
+    private boolean mAmbient;
+    private boolean mLowBitAmbient;
+    private boolean mBurnInProtection;
+    private boolean mRound;
+    private boolean mLightTheme;
+    private int mSecondHandFps;
+    private RenderQuality mRenderQuality;
+
+    private int mWidth;
+    private int mHeight;
+
+    private RenderState() { }
+
+    /**
+     * @return a snapshot of the given config, for a surface with the size of the given bounds
+     */
+    public static RenderState obtain(IWatchFaceConfig config, Rect bounds) {
+        return obtain(config, bounds.width(), bounds.height());
+    }
+
+    /**
+     * @return a snapshot of the given config, for a surface with the given size
+     */
+    public static RenderState obtain(IWatchFaceConfig config, int width, int height) {
+        RenderState state = null;
+        synchronized (sPoolSync) {
+            if(sPool != null) {
+                state = sPool;
+                sPool = state.mNext;
+                state.mNext = null;
+                sPoolSize--;
+            }
+        }
+        if(state == null) {
+            state = new RenderState();
+        }
+
+        final WatchFaceTime time = config.getTime();
+        state.mTimeInMillis = time.getTimeInMillis();
+        state.mHour = time.getHour();
+        state.mMinute = time.getMinute();
+        state.mSecond = time.getSecond();
+        state.mMillis = time.getMillis();
+        state.mSecondaryMillisOfDay = time.getSecondaryMillisOfDay();
+
+        state.mAmbient = config.isAmbient();
+        state.mLowBitAmbient = config.isLowBitAmbient();
+        state.mBurnInProtection = config.isBurnInProtection();
+        state.mRound = config.isRound();
+        state.mLightTheme = config.isLightTheme();
+        state.mSecondHandFps = config.getSecondHandFps();
+        state.mRenderQuality = config.getRenderQuality();
+
+        state.mWidth = width;
+        state.mHeight = height;
+
+        return state;
+    }
+
+    /**
+     * Returns this snapshot to the pool.
+     */
+    public void recycle() {
+        synchronized (sPoolSync) {
+            if(sPoolSize < MAX_POOL_SIZE) {
+                mNext = sPool;
+                sPool = this;
+                sPoolSize++;
+            }
+        }
+    }
+
+    /** @return the UTC time in milliseconds */
+    public long getTimeInMillis() {
+        return mTimeInMillis;
+    }
+
+    /** @return the local hour of the day (0-23) */
+    public int getHour() {
+        return mHour;
+    }
+
+    /** @return the local hour in 12h format (0-11) */
+    public int getHour12() {
+        return mHour % 12;
+    }
+
+    public int getMinute() {
+        return mMinute;
+    }
+
+    public int getSecond() {
+        return mSecond;
+    }
+
+    public int getMillis() {
+        return mMillis;
+    }
+
+    /** @return true if the time has a secondary time zone, see {@link WatchFaceTime#setSecondaryTimeZone} */
+    public boolean hasSecondaryTime() {
+        return mSecondaryMillisOfDay >= 0;
+    }
+
+    /** @return the milliseconds since midnight in the secondary time zone, or -1 without one */
+    public int getSecondaryMillisOfDay() {
+        return mSecondaryMillisOfDay;
+    }
+
+    public boolean isAmbient() {
+        return mAmbient;
+    }
+
+    public boolean isLowBitAmbient() {
+        return mLowBitAmbient;
+    }
+
+    public boolean isBurnInProtection() {
+        return mBurnInProtection;
+    }
+
+    public boolean isRound() {
+        return mRound;
+    }
+
+    public boolean isLightTheme() {
+        return mLightTheme;
+    }
+
+    public int getSecondHandFps() {
+        return mSecondHandFps;
+    }
+
+    public RenderQuality getRenderQuality() {
+        return mRenderQuality;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+}
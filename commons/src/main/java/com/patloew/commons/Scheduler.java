@@ -0,0 +1,12 @@
+package com.patloew.commons;
+
+/**
+ * Runs tasks later on the thread which scheduled them, e.g. backed by a {@code Handler} (see
+ * {@link HandlerScheduler}) or by a {@link VirtualClock} off-device.
+ */
+public interface Scheduler {
+    void schedule(Runnable task, long delayMs);
+
+    /** Removes all pending runs of the task. */
+    void cancel(Runnable task);
+}
@@ -0,0 +1,189 @@
+package com.patloew.commons;
+
+/**
+ * Ticking or sweeping second hand, drawn on every frame. Hidden in ambient mode and at
+ * {@link RenderQuality#MINIMAL}.
+ *
+ * The hand is drawn as a line with round caps, or with a {@link HandStyle} as a
+ * {@link HandSprite}, see {@link #factory(HandStyle)}. Drawing the sprite is a rotated blit, so a
+ * detailed style costs the same on every frame as a simple one. The sprite is rasterized as a
+ * deferred asset at the size of the first frame, until then the hand is drawn as a line.
+ */
+public class SecondHandLayer extends FaceLayer {
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new SecondHandLayer(resources);
+        }
+    };
+
+    private final WatchFaceResources mResources;
+    private final HandGeometry mHandGeometry = new HandGeometry();
+    private final DrawStyle mStyle = new DrawStyle();
+
+    private final HandStyle mHandStyle;
+    private final HandSprite mSprite = new HandSprite();
+
+    // half the stroke for the round cap, or half the width and the shadow offset of a styled
+    // hand if larger, plus one pixel for anti-aliasing
+    private final float mMargin;
+
+    // the sprite is rasterized with the config of the first frame in loadAssets()
+    private int mLoadWidth = -1;
+    private boolean mLoadAntiAlias;
+
+    public SecondHandLayer(WatchFaceResources resources) {
+        this(resources, null);
+    }
+
+    /**
+     * @param handStyle style of the hand, or null for a line
+     */
+    public SecondHandLayer(WatchFaceResources resources, HandStyle handStyle) {
+        super(UpdateFrequency.SECOND);
+        mResources = resources;
+        mHandStyle = handStyle;
+        final float stroke = resources.getSecondHandStroke();
+        if(handStyle != null) {
+            // also covers the line drawn until the sprite is loaded
+            final float styleMargin = handStyle.getHalfWidth(stroke) + Math.max(Math.abs(handStyle.getShadowDx(stroke)), Math.abs(handStyle.getShadowDy(stroke)));
+            mMargin = Math.max(styleMargin, stroke / 2f) + 1f;
+        } else {
+            mMargin = stroke / 2f + 1f;
+        }
+
+        mStyle.setColor(resources.getSecondHandColor());
+        mStyle.setStrokeWidth(resources.getSecondHandStroke());
+        mStyle.setRoundCap(true);
+    }
+
+    /**
+     * @return a factory for second hands drawn with the given style
+     */
+    public static Factory factory(HandStyle handStyle) {
+        if(handStyle == null) {
+            throw new IllegalArgumentException("Hand style must not be null");
+        }
+        return new StyledFactory(handStyle);
+    }
+
+    /** Without the second hand, the face only changes once a minute. */
+    @Override
+    public boolean isEnabled(RenderQuality quality) {
+        return quality != RenderQuality.MINIMAL;
+    }
+
+    @Override
+    public boolean hasDeferredAssets() {
+        return mHandStyle != null;
+    }
+
+    @Override
+    public boolean hasPlaceholder() {
+        return true;
+    }
+
+    @Override
+    public void loadAssets() {
+        mSprite.prepare(getLayerFactory(), mHandStyle, mResources.getSecondHandStroke(), getLength(mLoadWidth),
+                mResources.getSecondHandColor(), mLoadAntiAlias);
+    }
+
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        mStyle.setAntiAlias(state.getRenderQuality().isAntiAlias());
+        if(mLoadWidth < 0) {
+            mLoadWidth = state.getWidth();
+            mLoadAntiAlias = state.getRenderQuality().isAntiAlias();
+        }
+    }
+
+    private float getLength(RenderState state) {
+        return getLength(state.getWidth());
+    }
+
+    private float getLength(int width) {
+        return width / 2f - mResources.getSecondOuterOffset();
+    }
+
+    private void updateHandGeometry(RenderState state) {
+        mHandGeometry.setLengths(getLength(state), 0, 0);
+        mHandGeometry.setSecondSteps(state.getSecondHandFps());
+        mHandGeometry.update(0, 0, state.getSecond(), state.getMillis());
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        if(state.isAmbient()) {
+            return;
+        }
+
+        final float centerX = state.getWidth() / 2f;
+        final float centerY = state.getHeight() / 2f;
+        updateHandGeometry(state);
+        if(mHandStyle != null && isReady()) {
+            // only rasterized again if the size or the quality changed since the first frame
+            mSprite.prepare(surface, mHandStyle, mResources.getSecondHandStroke(), getLength(state),
+                    mStyle.getColor(), mStyle.isAntiAlias());
+            mSprite.drawShadow(surface, centerX, centerY, mHandGeometry.getSecondDegrees());
+            mSprite.draw(surface, centerX, centerY, mHandGeometry.getSecondDegrees());
+            return;
+        }
+        surface.drawLine(centerX, centerY, centerX + mHandGeometry.getSecondX(), centerY + mHandGeometry.getSecondY(), mStyle);
+    }
+
+    @Override
+    public boolean getBounds(RenderState state, float[] outBounds) {
+        if(state.isAmbient()) {
+            return false;
+        }
+
+        final float centerX = state.getWidth() / 2f;
+        final float centerY = state.getHeight() / 2f;
+        updateHandGeometry(state);
+        final float secondX = centerX + mHandGeometry.getSecondX();
+        final float secondY = centerY + mHandGeometry.getSecondY();
+        // the end of the tail, on the other side of the center
+        float tailX = centerX;
+        float tailY = centerY;
+        if(mHandStyle != null) {
+            final float tailScale = mHandStyle.getTailLength(mResources.getSecondHandStroke()) / getLength(state);
+            tailX -= mHandGeometry.getSecondX() * tailScale;
+            tailY -= mHandGeometry.getSecondY() * tailScale;
+        }
+
+        outBounds[0] = Math.min(tailX, secondX) - mMargin;
+        outBounds[1] = Math.min(tailY, secondY) - mMargin;
+        outBounds[2] = Math.max(tailX, secondX) + mMargin;
+        outBounds[3] = Math.max(tailY, secondY) + mMargin;
+        return true;
+    }
+
+    @Override
+    public void release() {
+        mSprite.release();
+    }
+
+    private static final class StyledFactory implements Factory {
+        private final HandStyle mHandStyle;
+
+        StyledFactory(HandStyle handStyle) {
+            mHandStyle = handStyle;
+        }
+
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new SecondHandLayer(resources, mHandStyle);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StyledFactory && ((StyledFactory) o).mHandStyle.equals(mHandStyle);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHandStyle.hashCode();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.patloew.commons;
+
+import java.util.TimeZone;
+
+/**
+ * Replays a {@link SessionTrace} into a {@link WatchFaceSession} driven by a {@link VirtualClock}.
+ * The inputs are applied at their recorded times, the frames are scheduled by the session itself,
+ * so a change of the tick logic shows up as a different number of frames. Nothing
+ * waits, a trace of a day replays in the time its frames take to draw.
+ *
+ * <pre>
+ * SessionTrace.Reader trace = new SessionTrace.Reader(bytes);
+ * VirtualClock clock = new VirtualClock(trace.getStartMillis());
+ * WatchFaceSession session = new WatchFaceSession(clock, clock, host);
+ * SessionReplayer.Result result = SessionReplayer.replay(trace, session, clock);
+ * </pre>
+ */
+public final class SessionReplayer {
+    private SessionReplayer() { }
+
+    /**
+     * Applies all events of the trace, from the current position of the reader on.
+     *
+     * @param clock the clock and scheduler the session was created with
+     * @throws IllegalArgumentException if the trace is malformed
+     */
+    public static Result replay(SessionTrace.Reader trace, WatchFaceSession session, VirtualClock clock) {
+        final Result result = new Result();
+        final long framesBefore = session.getFrameCount();
+        final long invalidationsBefore = session.getInvalidationCount();
+        final long startNanos = System.nanoTime();
+        final long startMillis = clock.currentTimeMillis();
+
+        while(trace.next()) {
+            // runs the timer frames which are due before the event. Frames due at the time of an
+            // input ran before it only if the recording says so, e.g. a frame scheduled by the
+            // input itself runs after it.
+            clock.advanceTo(trace.getTimeMillis(), trace.getType() == SessionTrace.TYPE_FRAME);
+            apply(trace, session, result);
+            result.mEventCount++;
+        }
+
+        result.mDurationMillis = clock.currentTimeMillis() - startMillis;
+        result.mReplayNanos = System.nanoTime() - startNanos;
+        result.mFrameCount = session.getFrameCount() - framesBefore;
+        result.mInvalidationCount = session.getInvalidationCount() - invalidationsBefore;
+        return result;
+    }
+
+    private static void apply(SessionTrace.Reader trace, WatchFaceSession session, Result result) {
+        switch(trace.getType()) {
+            case SessionTrace.TYPE_VISIBILITY:
+                session.setVisible(trace.getFlag());
+                break;
+            case SessionTrace.TYPE_AMBIENT:
+                session.setAmbient(trace.getFlag());
+                break;
+            case SessionTrace.TYPE_TIME_ZONE:
+                if(trace.getFlag()) {
+                    session.setSecondaryTimeZone(trace.getText().isEmpty() ? null : TimeZone.getTimeZone(trace.getText()));
+                } else {
+                    session.setTimeZone(TimeZone.getTimeZone(trace.getText()));
+                }
+                break;
+            case SessionTrace.TYPE_TIME_TICK:
+                session.onTimeTick();
+                break;
+            case SessionTrace.TYPE_FRAME:
+                // drawn by the replayed session instead
+                result.mRecordedFrameCount++;
+                break;
+            case SessionTrace.TYPE_INVALIDATE:
+                session.invalidate();
+                break;
+            case SessionTrace.TYPE_SURFACE_SIZE:
+                session.setSurfaceSize(trace.getValue0(), trace.getValue1());
+                break;
+            case SessionTrace.TYPE_ROUND:
+                session.setRound(trace.getFlag());
+                break;
+            case SessionTrace.TYPE_PROPERTIES:
+                session.setProperties((trace.getFlags() & SessionTrace.FLAG_LOW_BIT_AMBIENT) != 0,
+                        (trace.getFlags() & SessionTrace.FLAG_BURN_IN_PROTECTION) != 0);
+                break;
+            case SessionTrace.TYPE_LIGHT_THEME:
+                session.setLightTheme(trace.getFlag());
+                break;
+            case SessionTrace.TYPE_RENDER_MODE:
+                session.setRenderMode(trace.getValue0(), RenderQuality.values()[trace.getFlags() % RenderQuality.values().length]);
+                break;
+        }
+    }
+
+    public static class Result {
+        private int mEventCount;
+        private long mRecordedFrameCount;
+        private long mFrameCount;
+        private long mInvalidationCount;
+        private long mDurationMillis;
+        private long mReplayNanos;
+
+        /** @return the number of events in the trace */
+        public int getEventCount() {
+            return mEventCount;
+        }
+
+        /** @return the number of frames drawn during the recording */
+        public long getRecordedFrameCount() {
+            return mRecordedFrameCount;
+        }
+
+        /** @return the number of frames drawn during the replay */
+        public long getFrameCount() {
+            return mFrameCount;
+        }
+
+        /** @return the number of full repaints requested during the replay */
+        public long getInvalidationCount() {
+            return mInvalidationCount;
+        }
+
+        /** @return the recorded time span, from the start of the replay to the last event */
+        public long getDurationMillis() {
+            return mDurationMillis;
+        }
+
+        /** @return the wall time the replay took */
+        public long getReplayNanos() {
+            return mReplayNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events over %d s, %d frames (%d recorded), %d repaints, replayed in %.1f ms",
+                    mEventCount, mDurationMillis / 1000, mFrameCount, mRecordedFrameCount, mInvalidationCount, mReplayNanos / 1e6);
+        }
+    }
+}
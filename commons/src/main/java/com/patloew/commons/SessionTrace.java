@@ -0,0 +1,288 @@
+package com.patloew.commons;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Compact binary trace of the inputs of a {@link WatchFaceSession}: visibility and ambient mode
+ * changes, time zone changes, time ticks, display properties and render modes. Recorded on the
+ * watch by a {@link Recorder} and replayed off-device by a {@link SessionReplayer}.
+ *
+ * <pre>
+ * trace  = magic:4 version:byte startMillis:8 event*
+ * event  = header:byte deltaMillis:varint payload
+ * header = type | flags &lt;&lt; 5
+ * </pre>
+ *
+ * The delta to the previous event is zigzag encoded, the wall clock might be set back. Boolean
+ * values are stored in the flags, so most events take two or three bytes. The frames the session
+ * drew are recorded as well, they are outputs and only used to compare a replay with the recording.
+ */
+public final class SessionTrace {
+    private static final byte[] MAGIC = { 'W', 'F', 'S', 'T' };
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 8;
+
+    private static final int TYPE_BITS = 5;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /** Flags: visible. */
+    public static final int TYPE_VISIBILITY = 1;
+    /** Flags: ambient. */
+    public static final int TYPE_AMBIENT = 2;
+    /** Flags: secondary time zone. Payload: time zone id, empty for no secondary time zone. */
+    public static final int TYPE_TIME_ZONE = 3;
+    public static final int TYPE_TIME_TICK = 4;
+    /** A frame drawn by the session. Flags: full frame. */
+    public static final int TYPE_FRAME = 5;
+    /** A full repaint requested from outside of the session, e.g. after an options change. */
+    public static final int TYPE_INVALIDATE = 6;
+    /** Payload: width, height. */
+    public static final int TYPE_SURFACE_SIZE = 7;
+    /** Flags: round. */
+    public static final int TYPE_ROUND = 8;
+    /** Flags: {@link #FLAG_LOW_BIT_AMBIENT}, {@link #FLAG_BURN_IN_PROTECTION}. */
+    public static final int TYPE_PROPERTIES = 9;
+    /** Flags: light theme. */
+    public static final int TYPE_LIGHT_THEME = 10;
+    /** Flags: {@link RenderQuality} ordinal. Payload: fps. */
+    public static final int TYPE_RENDER_MODE = 11;
+
+    public static final int FLAG_LOW_BIT_AMBIENT = 1;
+    public static final int FLAG_BURN_IN_PROTECTION = 2;
+
+    private SessionTrace() { }
+
+    /**
+     * Records events into memory. Events after the size limit are dropped, so a long session can't
+     * use up the memory of the watch.
+     *
+     * Not thread-safe, used on the thread of the session.
+     */
+    public static class Recorder {
+        private final Clock mClock;
+        private final int mMaxBytes;
+        private final ByteArrayOutputStream mOut;
+        private long mLastMillis;
+        private int mEventCount = 0;
+        private boolean mFull = false;
+
+        /**
+         * @param maxBytes size limit of the trace
+         */
+        public Recorder(Clock clock, int maxBytes) {
+            mClock = clock;
+            mMaxBytes = maxBytes;
+            mOut = new ByteArrayOutputStream(Math.min(maxBytes, 4096));
+            mLastMillis = clock.currentTimeMillis();
+            mOut.write(MAGIC, 0, MAGIC.length);
+            mOut.write(VERSION);
+            for(int shift = 56; shift >= 0; shift -= 8) {
+                mOut.write((int) (mLastMillis >>> shift));
+            }
+        }
+
+        public void record(int type, int flags) {
+            record(type, flags, 0, 0, 0);
+        }
+
+        /**
+         * @param valueCount number of values in the payload, 0 to 2
+         */
+        public void record(int type, int flags, int valueCount, int value0, int value1) {
+            if(!reserve(12)) {
+                return;
+            }
+            writeHeader(type, flags);
+            if(valueCount > 0) {
+                ConfigCodec.writeVarint(mOut, value0 & 0xFFFFFFFFL);
+            }
+            if(valueCount > 1) {
+                ConfigCodec.writeVarint(mOut, value1 & 0xFFFFFFFFL);
+            }
+        }
+
+        public void record(int type, int flags, String text) {
+            final byte[] bytes = encode(text);
+            if(!reserve(7 + 5 + bytes.length)) {
+                return;
+            }
+            writeHeader(type, flags);
+            ConfigCodec.writeVarint(mOut, bytes.length);
+            mOut.write(bytes, 0, bytes.length);
+        }
+
+        private boolean reserve(int maxEventBytes) {
+            if(mFull || mOut.size() + maxEventBytes > mMaxBytes) {
+                mFull = true;
+                return false;
+            }
+            return true;
+        }
+
+        private void writeHeader(int type, int flags) {
+            final long now = mClock.currentTimeMillis();
+            final long delta = now - mLastMillis;
+            mLastMillis = now;
+            mOut.write(type | flags << TYPE_BITS);
+            ConfigCodec.writeVarint(mOut, (delta << 1) ^ (delta >> 63));
+            mEventCount++;
+        }
+
+        public int getEventCount() {
+            return mEventCount;
+        }
+
+        /** @return true if events were dropped because of the size limit */
+        public boolean isFull() {
+            return mFull;
+        }
+
+        public int size() {
+            return mOut.size();
+        }
+
+        public byte[] toByteArray() {
+            return mOut.toByteArray();
+        }
+    }
+
+    /**
+     * Reads the events of a trace one after the other. Reused for all events, so reading does not
+     * allocate, except for time zone ids.
+     */
+    public static class Reader {
+        private final byte[] mTrace;
+        private final int[] mPos = { HEADER_SIZE };
+        private final long mStartMillis;
+
+        private long mTimeMillis;
+        private int mType;
+        private int mFlags;
+        private int mValue0;
+        private int mValue1;
+        private String mText;
+
+        /**
+         * @throws IllegalArgumentException if the data is not a trace of a supported version
+         */
+        public Reader(byte[] trace) {
+            if(trace == null || trace.length < HEADER_SIZE) {
+                throw new IllegalArgumentException("Not a session trace");
+            }
+            for(int i = 0; i < MAGIC.length; i++) {
+                if(trace[i] != MAGIC[i]) {
+                    throw new IllegalArgumentException("Not a session trace");
+                }
+            }
+            if(trace[MAGIC.length] != VERSION) {
+                throw new IllegalArgumentException("Unsupported session trace version " + trace[MAGIC.length]);
+            }
+            long startMillis = 0;
+            for(int i = MAGIC.length + 1; i < HEADER_SIZE; i++) {
+                startMillis = startMillis << 8 | (trace[i] & 0xFF);
+            }
+            mTrace = trace;
+            mStartMillis = startMillis;
+            mTimeMillis = startMillis;
+        }
+
+        public long getStartMillis() {
+            return mStartMillis;
+        }
+
+        /**
+         * Moves to the next event.
+         *
+         * @return false at the end of the trace
+         * @throws IllegalArgumentException if the trace is malformed
+         */
+        public boolean next() {
+            if(mPos[0] >= mTrace.length) {
+                return false;
+            }
+            final int header = mTrace[mPos[0]++] & 0xFF;
+            mType = header & TYPE_MASK;
+            mFlags = header >>> TYPE_BITS;
+            final long delta = ConfigCodec.readVarint(mTrace, mPos);
+            mTimeMillis += (delta >>> 1) ^ -(delta & 1);
+            mText = null;
+
+            switch(mType) {
+                case TYPE_TIME_ZONE:
+                    final int length = (int) ConfigCodec.readVarint(mTrace, mPos);
+                    if(length < 0 || mPos[0] + length > mTrace.length) {
+                        throw new IllegalArgumentException("Truncated session trace");
+                    }
+                    mText = decode(mTrace, mPos[0], length);
+                    mPos[0] += length;
+                    break;
+                case TYPE_SURFACE_SIZE:
+                    mValue0 = (int) ConfigCodec.readVarint(mTrace, mPos);
+                    mValue1 = (int) ConfigCodec.readVarint(mTrace, mPos);
+                    break;
+                case TYPE_RENDER_MODE:
+                    mValue0 = (int) ConfigCodec.readVarint(mTrace, mPos);
+                    break;
+                case TYPE_VISIBILITY:
+                case TYPE_AMBIENT:
+                case TYPE_TIME_TICK:
+                case TYPE_FRAME:
+                case TYPE_INVALIDATE:
+                case TYPE_ROUND:
+                case TYPE_PROPERTIES:
+                case TYPE_LIGHT_THEME:
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown session trace event " + mType);
+            }
+            return true;
+        }
+
+        /** @return the wall clock time of the event */
+        public long getTimeMillis() {
+            return mTimeMillis;
+        }
+
+        public int getType() {
+            return mType;
+        }
+
+        public int getFlags() {
+            return mFlags;
+        }
+
+        /** @return the boolean value of the event, stored in the flags */
+        public boolean getFlag() {
+            return mFlags != 0;
+        }
+
+        public int getValue0() {
+            return mValue0;
+        }
+
+        public int getValue1() {
+            return mValue1;
+        }
+
+        public String getText() {
+            return mText;
+        }
+    }
+
+    private static byte[] encode(String text) {
+        try {
+            return text.getBytes("UTF-8");
+        } catch(UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(byte[] bytes, int offset, int length) {
+        try {
+            return new String(bytes, offset, length, "UTF-8");
+        } catch(UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
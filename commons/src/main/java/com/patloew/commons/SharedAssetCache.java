@@ -0,0 +1,326 @@
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide, reference-counted cache of immutable render assets (static layers, geometry
+ * tables), so several watch face engines, previews and thumbnail renderers with the same
+ * resolution, shape and theme share one copy.
+ *
+ * An asset is used through a {@link Handle}. While any handle of an asset is not released, the
+ * asset is kept. Unused assets stay cached for the next user, up to a byte budget, and the least
+ * recently used ones are evicted first. On Android, {@link WatchFaceDrawer} trims the cache when
+ * the system calls {@code onTrimMemory}.
+ *
+ * Assets with a {@link ResolutionKey} exist at several sizes. The sizes of one asset form a family,
+ * so a user which misses its size can {@link #acquireSource find a larger size} and derive its own
+ * from it, e.g. by downsampling, instead of rendering it again.
+ *
+ * Thread-safe. Assets must not be modified after they were put into the cache.
+ */
+public class SharedAssetCache {
+    public static final long DEFAULT_MAX_UNUSED_BYTES = 4 * 1024 * 1024;
+
+    private static final SharedAssetCache sInstance = new SharedAssetCache(DEFAULT_MAX_UNUSED_BYTES);
+
+    /**
+     * Key of an asset which exists at several sizes, e.g. a static layer rendered for the watch,
+     * the preview and the thumbnails.
+     */
+    public interface ResolutionKey {
+        /** @return a key which is equal for all sizes of the asset */
+        Object getFamilyKey();
+
+        int getWidth();
+
+        int getHeight();
+    }
+
+    /** An immutable render asset. */
+    public interface Asset {
+        /** @return the approximate memory used by the asset */
+        long getByteCount();
+
+        /** Frees the asset when it was evicted and is not used anymore. */
+        void release();
+    }
+
+    private final Map<Object, Entry> mEntries = new HashMap<>();
+    // unused entries in least recently used order
+    private final LinkedHashMap<Object, Entry> mUnused = new LinkedHashMap<>();
+    // all sizes of the assets with a resolution key, by family key
+    private final Map<Object, List<Entry>> mFamilies = new HashMap<>();
+    private long mUnusedBytes = 0;
+    private long mMaxUnusedBytes;
+
+    private long mHitCount = 0;
+    private long mMissCount = 0;
+    private long mSourceHitCount = 0;
+
+    public static SharedAssetCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * @param maxUnusedBytes budget for the assets which are cached but not used
+     */
+    public SharedAssetCache(long maxUnusedBytes) {
+        mMaxUnusedBytes = maxUnusedBytes;
+    }
+
+    public synchronized void setMaxUnusedBytes(long maxUnusedBytes) {
+        mMaxUnusedBytes = maxUnusedBytes;
+        trimToSize(maxUnusedBytes);
+    }
+
+    /**
+     * @return a new handle of the asset for the key, or null if it is not cached
+     */
+    public synchronized <T extends Asset> Handle<T> acquire(Object key) {
+        final Entry entry = mEntries.get(key);
+        if(entry == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return acquire(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Asset> Handle<T> acquire(Entry entry) {
+        if(entry.mRefCount == 0) {
+            mUnused.remove(entry.mKey);
+            mUnusedBytes -= entry.mByteCount;
+        }
+        entry.mRefCount++;
+        return new Handle<>(this, entry, (T) entry.mAsset);
+    }
+
+    /**
+     * Finds the size of the asset to derive the size of the key from: the smallest size which was
+     * put with {@link #put}, is at least as large as the key, has the same aspect ratio and is at
+     * most the given factor larger. Derived sizes are never used, so derived assets don't lose
+     * quality with every step.
+     *
+     * @param maxScale the largest factor the source may be larger than the key
+     * @return a new handle of the source, or null if there is none
+     */
+    public synchronized <T extends Asset> Handle<T> acquireSource(ResolutionKey key, float maxScale) {
+        final List<Entry> family = mFamilies.get(key.getFamilyKey());
+        Entry source = null;
+        if(family != null) {
+            final int width = key.getWidth();
+            final int height = key.getHeight();
+            for(Entry entry : family) {
+                final ResolutionKey candidate = (ResolutionKey) entry.mKey;
+                final int candidateWidth = candidate.getWidth();
+                final int candidateHeight = candidate.getHeight();
+                if(entry.mSource && candidateWidth >= width && candidateHeight >= height
+                        && candidateWidth <= width * maxScale && candidateHeight <= height * maxScale
+                        // the same aspect ratio, up to one pixel of rounding
+                        && Math.abs((long) candidateWidth * height - (long) candidateHeight * width) < Math.max(candidateWidth, candidateHeight)
+                        && (source == null || candidateWidth < ((ResolutionKey) source.mKey).getWidth())) {
+                    source = entry;
+                }
+            }
+        }
+        if(source == null) {
+            return null;
+        }
+        mSourceHitCount++;
+        return acquire(source);
+    }
+
+    /**
+     * Puts an asset into the cache. If another user put an asset for the key in the meantime, that
+     * one is used and the given asset is released.
+     *
+     * @return a new handle of the cached asset
+     */
+    public synchronized <T extends Asset> Handle<T> put(Object key, T asset) {
+        return put(key, asset, true);
+    }
+
+    /**
+     * Puts an asset which was derived from another size of its family, see {@link #acquireSource}.
+     *
+     * @return a new handle of the cached asset
+     */
+    public synchronized <T extends Asset> Handle<T> putDerived(ResolutionKey key, T asset) {
+        return put(key, asset, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Asset> Handle<T> put(Object key, T asset, boolean source) {
+        final Entry existing = mEntries.get(key);
+        if(existing != null) {
+            asset.release();
+            return acquire(existing);
+        }
+
+        final Entry entry = new Entry(key, asset, source);
+        entry.mRefCount = 1;
+        mEntries.put(key, entry);
+        if(key instanceof ResolutionKey) {
+            final Object familyKey = ((ResolutionKey) key).getFamilyKey();
+            List<Entry> family = mFamilies.get(familyKey);
+            if(family == null) {
+                family = new ArrayList<>(2);
+                mFamilies.put(familyKey, family);
+            }
+            family.add(entry);
+        }
+        return new Handle<>(this, entry, asset);
+    }
+
+    /**
+     * Removes the asset for the key, e.g. because it is outdated. Current users keep it until they
+     * release their handles, new users get a new asset. For a {@link ResolutionKey}, all sizes of
+     * the asset are outdated and removed.
+     */
+    public synchronized void remove(Object key) {
+        final List<Entry> family = key instanceof ResolutionKey ? mFamilies.get(((ResolutionKey) key).getFamilyKey()) : null;
+        if(family != null) {
+            for(Entry entry : family.toArray(new Entry[family.size()])) {
+                detach(entry);
+            }
+        } else {
+            final Entry entry = mEntries.get(key);
+            if(entry != null) {
+                detach(entry);
+            }
+        }
+    }
+
+    private void detach(Entry entry) {
+        removeEntry(entry);
+        entry.mDetached = true;
+        if(entry.mRefCount == 0) {
+            mUnused.remove(entry.mKey);
+            mUnusedBytes -= entry.mByteCount;
+            entry.mAsset.release();
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        mEntries.remove(entry.mKey);
+        if(entry.mKey instanceof ResolutionKey) {
+            final Object familyKey = ((ResolutionKey) entry.mKey).getFamilyKey();
+            final List<Entry> family = mFamilies.get(familyKey);
+            if(family != null && family.remove(entry) && family.isEmpty()) {
+                mFamilies.remove(familyKey);
+            }
+        }
+    }
+
+    /**
+     * Evicts unused assets, least recently used first, until they take at most the given size.
+     */
+    public synchronized void trimToSize(long maxUnusedBytes) {
+        final Iterator<Entry> it = mUnused.values().iterator();
+        while(mUnusedBytes > maxUnusedBytes && it.hasNext()) {
+            final Entry entry = it.next();
+            it.remove();
+            removeEntry(entry);
+            mUnusedBytes -= entry.mByteCount;
+            entry.mAsset.release();
+        }
+    }
+
+    /** Evicts all unused assets. */
+    public void evictUnused() {
+        trimToSize(0);
+    }
+
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+
+    public synchronized long getUnusedBytes() {
+        return mUnusedBytes;
+    }
+
+    /** @return the number of {@link #acquire} calls which found their asset */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /** @return the number of {@link #acquire} calls which did not find their asset */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /** @return the number of {@link #acquireSource} calls which found a size to derive from */
+    public synchronized long getSourceHitCount() {
+        return mSourceHitCount;
+    }
+
+    public synchronized void resetCounters() {
+        mHitCount = 0;
+        mMissCount = 0;
+        mSourceHitCount = 0;
+    }
+
+    private synchronized void release(Entry entry) {
+        if(--entry.mRefCount > 0) {
+            return;
+        }
+        if(entry.mDetached) {
+            entry.mAsset.release();
+        } else {
+            mUnused.put(entry.mKey, entry);
+            mUnusedBytes += entry.mByteCount;
+            trimToSize(mMaxUnusedBytes);
+        }
+    }
+
+    private static class Entry {
+        final Object mKey;
+        final Asset mAsset;
+        final long mByteCount;
+        // put by its renderer, not derived from another size
+        final boolean mSource;
+        int mRefCount = 0;
+        boolean mDetached = false;
+
+        Entry(Object key, Asset asset, boolean source) {
+            mKey = key;
+            mAsset = asset;
+            mByteCount = asset.getByteCount();
+            mSource = source;
+        }
+    }
+
+    /**
+     * A reference to a cached asset. Must be released when the asset is not used anymore.
+     */
+    public static final class Handle<T extends Asset> {
+        private final SharedAssetCache mCache;
+        private final Entry mEntry;
+        private final T mAsset;
+        private boolean mReleased = false;
+
+        Handle(SharedAssetCache cache, Entry entry, T asset) {
+            mCache = cache;
+            mEntry = entry;
+            mAsset = asset;
+        }
+
+        public T get() {
+            return mAsset;
+        }
+
+        /** Releases the reference. Further calls do nothing. */
+        public void release() {
+            if(!mReleased) {
+                mReleased = true;
+                mCache.release(mEntry);
+            }
+        }
+    }
+}
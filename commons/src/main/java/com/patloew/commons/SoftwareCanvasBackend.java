@@ -0,0 +1,54 @@
+package com.patloew.commons;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.SurfaceHolder;
+
+/**
+ * {@link RenderBackend} which draws with a software canvas locked from a {@link SurfaceHolder}.
+ * Supports partial updates, only the dirty region is locked. Works on all devices, so it is the
+ * fallback of the other backends.
+ */
+public class SoftwareCanvasBackend implements RenderBackend {
+    private final SurfaceHolder mHolder;
+    private final CanvasDrawSurface mSurface = new CanvasDrawSurface();
+    private final Rect mDirtyRect = new Rect();
+
+    public SoftwareCanvasBackend(SurfaceHolder holder) {
+        mHolder = holder;
+    }
+
+    @Override
+    public String getName() {
+        return "software";
+    }
+
+    @Override
+    public boolean supportsPartialUpdates() {
+        return true;
+    }
+
+    @Override
+    public DrawSurface lockSurface(float[] dirtyBounds) {
+        final Canvas canvas;
+        if(dirtyBounds != null) {
+            // lockCanvas() might grow the dirty region, e.g. if the previous buffer content can't
+            // be preserved. The renderer draws everything, so the canvas clip takes care of this.
+            mDirtyRect.set((int) Math.floor(dirtyBounds[0]), (int) Math.floor(dirtyBounds[1]), (int) Math.ceil(dirtyBounds[2]), (int) Math.ceil(dirtyBounds[3]));
+            canvas = mHolder.lockCanvas(mDirtyRect);
+        } else {
+            canvas = mHolder.lockCanvas();
+        }
+        if(canvas == null) {
+            return null;
+        }
+        mSurface.setCanvas(canvas);
+        return mSurface;
+    }
+
+    @Override
+    public void unlockAndPost(DrawSurface surface) {
+        mHolder.unlockCanvasAndPost(mSurface.getCanvas());
+        mSurface.setCanvas(null);
+    }
+}
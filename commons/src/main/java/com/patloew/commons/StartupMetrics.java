@@ -0,0 +1,94 @@
+package com.patloew.commons;
+
+/**
+ * Startup instrumentation of a watch face. Records when the resources were resolved, when the
+ * first frame was drawn (the time to first frame) and when the deferred assets of the layers were
+ * loaded, relative to the start of the watch face.
+ *
+ * Only the first call of each mark is recorded. Marks can be set from any thread, the deferred
+ * assets are usually marked by the loading thread.
+ */
+public class StartupMetrics {
+    public static final long NOT_REACHED = -1;
+
+    private volatile long mStartNanos;
+    private volatile long mResourcesNanos = NOT_REACHED;
+    private volatile long mFirstFrameNanos = NOT_REACHED;
+    private volatile long mAssetsNanos = NOT_REACHED;
+
+    public StartupMetrics() {
+        mStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Restarts the measurement.
+     *
+     * @param startNanos the {@link System#nanoTime()} the watch face started at
+     */
+    public synchronized void begin(long startNanos) {
+        mStartNanos = startNanos;
+        mResourcesNanos = NOT_REACHED;
+        mFirstFrameNanos = NOT_REACHED;
+        mAssetsNanos = NOT_REACHED;
+    }
+
+    public void markResourcesLoaded() {
+        markResourcesLoaded(System.nanoTime());
+    }
+
+    public synchronized void markResourcesLoaded(long nanos) {
+        if(mResourcesNanos == NOT_REACHED) {
+            mResourcesNanos = nanos - mStartNanos;
+        }
+    }
+
+    public void markFirstFrame() {
+        // checked without the lock, this is called on every frame
+        if(mFirstFrameNanos == NOT_REACHED) {
+            markFirstFrame(System.nanoTime());
+        }
+    }
+
+    public synchronized void markFirstFrame(long nanos) {
+        if(mFirstFrameNanos == NOT_REACHED) {
+            mFirstFrameNanos = nanos - mStartNanos;
+        }
+    }
+
+    public void markAssetsLoaded() {
+        markAssetsLoaded(System.nanoTime());
+    }
+
+    public synchronized void markAssetsLoaded(long nanos) {
+        if(mAssetsNanos == NOT_REACHED) {
+            mAssetsNanos = nanos - mStartNanos;
+        }
+    }
+
+    /** @return nanoseconds until the resources were resolved, or {@link #NOT_REACHED} */
+    public long getResourcesNanos() {
+        return mResourcesNanos;
+    }
+
+    /** @return nanoseconds until the first frame was drawn, or {@link #NOT_REACHED} */
+    public long getTimeToFirstFrameNanos() {
+        return mFirstFrameNanos;
+    }
+
+    /** @return nanoseconds until all deferred assets were loaded, or {@link #NOT_REACHED} */
+    public long getAssetsNanos() {
+        return mAssetsNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "StartupMetrics{resources=" + format(mResourcesNanos)
+                + ", firstFrame=" + format(mFirstFrameNanos)
+                + ", assets=" + format(mAssetsNanos)
+                + "}";
+    }
+
+    private static String format(long nanos) {
+        return nanos == NOT_REACHED ? "-" : String.format("%.2fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,265 @@
+package com.patloew.commons;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports thumbnails of the watch face at many sizes, shapes, themes and times, e.g. for the
+ * watch face picker or store assets.
+ *
+ * Every thumbnail is a job on the given executor. The renderer keeps a render context per thread,
+ * so each worker draws with its own layers. The output is encoded straight to its file, and each
+ * worker reuses its render target for the next job of the same size, so at most one image per
+ * worker and size is in memory, no matter how many thumbnails are exported.
+ *
+ * The jobs are sorted by size, shape and theme, so consecutive jobs of a worker can reuse the
+ * cached layers. The largest size comes first: with a {@link SharedAssetCache}, the static layers
+ * of the smaller sizes are then downsampled from it instead of rendered again.
+ */
+public class ThumbnailExporter {
+    /**
+     * Creates the render targets and encodes them, e.g. as PNG or WebP.
+     */
+    public interface Encoder {
+        DrawSurface.Layer createTarget(int width, int height);
+
+        void encode(DrawSurface.Layer target, OutputStream out) throws IOException;
+
+        /** @return the file extension, without dot */
+        String getFileExtension();
+    }
+
+    private static final Comparator<ThumbnailSpec> CONFIG_ORDER = new Comparator<ThumbnailSpec>() {
+        @Override
+        public int compare(ThumbnailSpec a, ThumbnailSpec b) {
+            // largest first
+            int result = compareInts(b.getWidth(), a.getWidth());
+            if(result == 0) { result = compareInts(b.getHeight(), a.getHeight()); }
+            if(result == 0) { result = compareBooleans(a.isRound(), b.isRound()); }
+            if(result == 0) { result = compareBooleans(a.isAmbient(), b.isAmbient()); }
+            if(result == 0) { result = compareBooleans(a.isLowBitAmbient(), b.isLowBitAmbient()); }
+            if(result == 0) { result = compareBooleans(a.isLightTheme(), b.isLightTheme()); }
+            return result;
+        }
+
+        private int compareInts(int a, int b) {
+            return a < b ? -1 : (a == b ? 0 : 1);
+        }
+
+        private int compareBooleans(boolean a, boolean b) {
+            return a == b ? 0 : (a ? 1 : -1);
+        }
+    };
+
+    private final WatchFaceRenderer mRenderer;
+    private final Encoder mEncoder;
+
+    /**
+     * @param renderer renderer for the thumbnails. It should not be in mobile preview mode, unless
+     * the thumbnails should show the preview border.
+     */
+    public ThumbnailExporter(WatchFaceRenderer renderer, Encoder encoder) {
+        mRenderer = renderer;
+        mEncoder = encoder;
+    }
+
+    /**
+     * Releases the cached layers and shared assets of the renderer on all worker threads. Must not
+     * be called while an export is running.
+     */
+    public void release() {
+        mRenderer.release();
+    }
+
+    /**
+     * Renders and writes the thumbnails into the directory, named after
+     * {@link ThumbnailSpec#getName()}. Blocks until all jobs are done. A failing thumbnail does not
+     * stop the others, its error is part of the result.
+     *
+     * @param executor runs the jobs, e.g. a thread pool with a thread per core
+     * @throws InterruptedException if the calling thread was interrupted while waiting. Jobs which
+     * did not start yet are skipped then.
+     */
+    public Result export(List<ThumbnailSpec> specs, File directory, Executor executor) throws InterruptedException {
+        final List<ThumbnailSpec> sorted = new ArrayList<>(specs);
+        Collections.sort(sorted, CONFIG_ORDER);
+
+        final Export export = new Export(directory, sorted.size());
+        for(ThumbnailSpec spec : sorted) {
+            executor.execute(new Job(export, spec));
+        }
+
+        try {
+            export.mDone.await();
+        } catch(InterruptedException e) {
+            export.mCancelled = true;
+            throw e;
+        }
+        return export.mResult;
+    }
+
+    private void render(Export export, ThumbnailSpec spec) throws IOException {
+        final DrawSurface.Layer target = export.mTargets.obtain(spec.getWidth(), spec.getHeight());
+        try {
+            target.clear();
+            final RenderState state = RenderState.obtain(spec, spec.getWidth(), spec.getHeight());
+            try {
+                mRenderer.onDraw(state, target.getSurface());
+            } finally {
+                state.recycle();
+            }
+
+            final File file = new File(export.mDirectory, spec.getName() + "." + mEncoder.getFileExtension());
+            boolean written = false;
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+            try {
+                mEncoder.encode(target, out);
+                written = true;
+            } finally {
+                out.close();
+                if(!written) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+            export.mResult.addFile(file);
+        } finally {
+            export.mTargets.recycle(target);
+        }
+    }
+
+    /** State of one {@link #export} call. */
+    private class Export {
+        final File mDirectory;
+        final Result mResult = new Result();
+        final TargetPool mTargets = new TargetPool();
+        final CountDownLatch mDone;
+        final AtomicInteger mRemaining;
+        volatile boolean mCancelled = false;
+
+        Export(File directory, int count) {
+            mDirectory = directory;
+            mDone = new CountDownLatch(count);
+            mRemaining = new AtomicInteger(count);
+        }
+    }
+
+    private class Job implements Runnable {
+        private final Export mExport;
+        private final ThumbnailSpec mSpec;
+
+        Job(Export export, ThumbnailSpec spec) {
+            mExport = export;
+            mSpec = spec;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if(!mExport.mCancelled) {
+                    render(mExport, mSpec);
+                }
+            } catch(IOException | RuntimeException e) {
+                mExport.mResult.addError(mSpec, e);
+            } finally {
+                // the last job frees the targets, even if the caller stopped waiting
+                if(mExport.mRemaining.decrementAndGet() == 0) {
+                    mExport.mTargets.releaseAll();
+                }
+                mExport.mDone.countDown();
+            }
+        }
+    }
+
+    /**
+     * Render targets which are not used by a job at the moment, by size.
+     */
+    private class TargetPool {
+        private final Map<Long, ArrayDeque<DrawSurface.Layer>> mFree = new HashMap<>();
+        private final List<DrawSurface.Layer> mAll = new ArrayList<>();
+
+        DrawSurface.Layer obtain(int width, int height) {
+            synchronized (this) {
+                final ArrayDeque<DrawSurface.Layer> free = mFree.get(key(width, height));
+                if(free != null && !free.isEmpty()) {
+                    return free.pop();
+                }
+            }
+            // created outside of the lock, this allocates the image
+            final DrawSurface.Layer target = mEncoder.createTarget(width, height);
+            synchronized (this) {
+                mAll.add(target);
+            }
+            return target;
+        }
+
+        synchronized void recycle(DrawSurface.Layer target) {
+            final Long key = key(target.getWidth(), target.getHeight());
+            ArrayDeque<DrawSurface.Layer> free = mFree.get(key);
+            if(free == null) {
+                free = new ArrayDeque<>();
+                mFree.put(key, free);
+            }
+            free.push(target);
+        }
+
+        synchronized void releaseAll() {
+            for(DrawSurface.Layer target : mAll) {
+                target.release();
+            }
+            mAll.clear();
+            mFree.clear();
+        }
+
+        private long key(int width, int height) {
+            return ((long) width << 32) | height;
+        }
+    }
+
+    /**
+     * Files written by an export and the errors of the thumbnails which failed.
+     */
+    public static class Result {
+        private final List<File> mFiles = new ArrayList<>();
+        private final List<String> mErrors = new ArrayList<>();
+
+        synchronized void addFile(File file) {
+            mFiles.add(file);
+        }
+
+        synchronized void addError(ThumbnailSpec spec, Exception e) {
+            mErrors.add(spec.getName() + ": " + e);
+        }
+
+        public synchronized List<File> getFiles() {
+            return new ArrayList<>(mFiles);
+        }
+
+        /** @return one message per failed thumbnail */
+        public synchronized List<String> getErrors() {
+            return new ArrayList<>(mErrors);
+        }
+
+        public synchronized boolean isSuccessful() {
+            return mErrors.isEmpty();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return mFiles.size() + " thumbnails written, " + mErrors.size() + " failed";
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.patloew.commons;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * One thumbnail to export with the {@link ThumbnailExporter}: size, shape, theme, mode and time.
+ * Also the {@link IWatchFaceConfig} the thumbnail is rendered with.
+ *
+ * <pre>
+ * ThumbnailSpec spec = new ThumbnailSpec.Builder(320, 320)
+ *         .setRound(true)
+ *         .setTime(10, 10, 30)
+ *         .build();
+ * </pre>
+ */
+public final class ThumbnailSpec implements IWatchFaceConfig {
+    private final int mWidth;
+    private final int mHeight;
+    private final boolean mRound;
+    private final boolean mLightTheme;
+    private final boolean mAmbient;
+    private final boolean mLowBitAmbient;
+    private final String mName;
+
+    // only read while rendering, which happens on one thread at a time
+    private final WatchFaceTime mTime;
+    private final Calendar mCalendar = new GregorianCalendar();
+
+    private ThumbnailSpec(Builder builder) {
+        mWidth = builder.mWidth;
+        mHeight = builder.mHeight;
+        mRound = builder.mRound;
+        mLightTheme = builder.mLightTheme;
+        mAmbient = builder.mAmbient;
+        mLowBitAmbient = builder.mLowBitAmbient;
+        mTime = new WatchFaceTime(builder.mTimeZone);
+        mTime.setSecondaryTimeZone(builder.mSecondaryTimeZone);
+        mTime.setTimeInMillis(builder.mTimeInMillis);
+        mName = builder.mName != null ? builder.mName : String.format(Locale.US, "%02d%02d%02d_%s_%s_%s_%dx%d",
+                mTime.getHour(), mTime.getMinute(), mTime.getSecond(), mRound ? "round" : "square",
+                mAmbient ? (mLowBitAmbient ? "lowbit" : "ambient") : "interactive", mLightTheme ? "light" : "dark", mWidth, mHeight);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /** @return the file name of the thumbnail, without extension */
+    public String getName() {
+        return mName;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+
+    @Override
+    public WatchFaceTime getTime() {
+        return mTime;
+    }
+
+    @Override
+    public Calendar getCalendar() {
+        return mTime.toCalendar(mCalendar);
+    }
+
+    @Override
+    public boolean isAmbient() {
+        return mAmbient;
+    }
+
+    @Override
+    public boolean isLowBitAmbient() {
+        return mLowBitAmbient;
+    }
+
+    /** Thumbnails are never shifted for burn-in protection. */
+    @Override
+    public boolean isBurnInProtection() {
+        return false;
+    }
+
+    @Override
+    public boolean isRound() {
+        return mRound;
+    }
+
+    @Override
+    public int getSecondHandFps() {
+        return 1;
+    }
+
+    @Override
+    public RenderQuality getRenderQuality() {
+        return RenderQuality.FULL;
+    }
+
+    @Override
+    public boolean isLightTheme() {
+        return mLightTheme;
+    }
+
+    public static class Builder {
+        private final int mWidth;
+        private final int mHeight;
+        private boolean mRound = true;
+        private boolean mLightTheme = true;
+        private boolean mAmbient = false;
+        private boolean mLowBitAmbient = false;
+        private TimeZone mTimeZone = TimeZone.getTimeZone("UTC");
+        private TimeZone mSecondaryTimeZone;
+        // 10:10:30, the classic watch face pose
+        private long mTimeInMillis = ((10 * 60L + 10) * 60L + 30) * 1000L;
+        private String mName;
+
+        public Builder(int width, int height) {
+            mWidth = width;
+            mHeight = height;
+        }
+
+        public Builder setRound(boolean round) {
+            mRound = round;
+            return this;
+        }
+
+        public Builder setLightTheme(boolean lightTheme) {
+            mLightTheme = lightTheme;
+            return this;
+        }
+
+        public Builder setAmbient(boolean ambient, boolean lowBitAmbient) {
+            mAmbient = ambient;
+            mLowBitAmbient = lowBitAmbient;
+            return this;
+        }
+
+        /** Sets the time of day shown by the thumbnail, in UTC. */
+        public Builder setTime(int hour, int minute, int second) {
+            mTimeZone = TimeZone.getTimeZone("UTC");
+            mTimeInMillis = ((hour * 60L + minute) * 60L + second) * 1000L;
+            return this;
+        }
+
+        public Builder setTime(long timeInMillis, TimeZone timeZone) {
+            mTimeZone = timeZone;
+            mTimeInMillis = timeInMillis;
+            return this;
+        }
+
+        /**
+         * Sets the time zone of the dual time hand, see {@link WatchFaceTime#setSecondaryTimeZone}.
+         *
+         * @param timeZone the time zone, or null for none
+         */
+        public Builder setSecondaryTimeZone(TimeZone timeZone) {
+            mSecondaryTimeZone = timeZone;
+            return this;
+        }
+
+        /** Overrides the default file name, which is derived from the other values. */
+        public Builder setName(String name) {
+            mName = name;
+            return this;
+        }
+
+        public ThumbnailSpec build() {
+            return new ThumbnailSpec(this);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.patloew.commons;
+
+/**
+ * Minute ticks around the edge of the face, with longer and thicker ticks for the hours. The tick
+ * endpoints are precomputed by {@link DialGeometry}, so the ring is drawn with two
+ * {@link DrawSurface#drawLines} calls instead of one call per tick. The geometry is shared with
+ * other renderers of the same size and shape through the asset cache.
+ */
+public class TickRingLayer extends FaceLayer {
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public FaceLayer create(WatchFaceResources resources) {
+            return new TickRingLayer(resources);
+        }
+    };
+
+    private final WatchFaceResources mResources;
+    private final DrawStyle mMinuteTickStyle = new DrawStyle();
+    private final DrawStyle mHourTickStyle = new DrawStyle();
+    // used without an asset cache
+    private final DialGeometry mDialGeometry = new DialGeometry();
+    private SharedAssetCache.Handle<DialGeometry> mSharedDialGeometry;
+
+    public TickRingLayer(WatchFaceResources resources) {
+        super(UpdateFrequency.CONFIG_CHANGE);
+        mResources = resources;
+
+        mMinuteTickStyle.setStrokeWidth(resources.getTickStroke());
+        mHourTickStyle.setStrokeWidth(resources.getTickStroke() * 2);
+    }
+
+    @Override
+    public void onConfigChanged(RenderState state, boolean mobilePreview) {
+        final boolean lowBitAmbient = state.isAmbient() && state.isLowBitAmbient();
+        final boolean antiAlias = !lowBitAmbient && state.getRenderQuality().isAntiAlias();
+        final int color = lowBitAmbient ? mResources.getLowBitAmbientHandColor() : mResources.getDialColor();
+        mMinuteTickStyle.setColor(color);
+        mMinuteTickStyle.setAntiAlias(antiAlias);
+        mHourTickStyle.setColor(color);
+        mHourTickStyle.setAntiAlias(antiAlias);
+    }
+
+    @Override
+    public void draw(DrawSurface surface, RenderState state) {
+        final DialGeometry dialGeometry = getDialGeometry(state.getWidth(), state.getHeight(), state.isRound(), mResources.getTickLength());
+
+        final float[] minuteTicks = dialGeometry.getMinuteTicks();
+        final float[] hourTicks = dialGeometry.getHourTicks();
+        surface.drawLines(minuteTicks, 0, minuteTicks.length, mMinuteTickStyle);
+        surface.drawLines(hourTicks, 0, hourTicks.length, mHourTickStyle);
+    }
+
+    private DialGeometry getDialGeometry(int width, int height, boolean round, float tickLength) {
+        final SharedAssetCache cache = getAssetCache();
+        if(cache == null) {
+            mDialGeometry.update(width, height, round, tickLength);
+            return mDialGeometry;
+        }
+
+        if(mSharedDialGeometry != null) {
+            if(mSharedDialGeometry.get().matches(width, height, round, tickLength)) {
+                return mSharedDialGeometry.get();
+            }
+            mSharedDialGeometry.release();
+        }
+
+        final GeometryKey key = new GeometryKey(width, height, round, tickLength);
+        mSharedDialGeometry = cache.acquire(key);
+        if(mSharedDialGeometry == null) {
+            final DialGeometry dialGeometry = new DialGeometry();
+            dialGeometry.update(width, height, round, tickLength);
+            mSharedDialGeometry = cache.put(key, dialGeometry);
+        }
+        return mSharedDialGeometry.get();
+    }
+
+    @Override
+    public void release() {
+        if(mSharedDialGeometry != null) {
+            mSharedDialGeometry.release();
+            mSharedDialGeometry = null;
+        }
+    }
+
+    private static final class GeometryKey {
+        final int mWidth;
+        final int mHeight;
+        final boolean mRound;
+        final float mTickLength;
+
+        GeometryKey(int width, int height, boolean round, float tickLength) {
+            mWidth = width;
+            mHeight = height;
+            mRound = round;
+            mTickLength = tickLength;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof GeometryKey)) { return false; }
+            final GeometryKey other = (GeometryKey) o;
+            return mWidth == other.mWidth && mHeight == other.mHeight && mRound == other.mRound
+                    && Float.compare(mTickLength, other.mTickLength) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((mWidth * 31 + mHeight) * 31 + (mRound ? 1 : 0)) * 31 + Float.floatToIntBits(mTickLength);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.patloew.commons;
+
+/**
+ * Schedules the frames of a watch face: the timer frames of the second hand, spread evenly over
+ * each second of the wall clock, and the full repaints requested by {@link #requestFullFrame()}.
+ *
+ * <ul>
+ * <li>The scheduler tracks the deadline of the next timer frame instead of a delay, so the frames
+ * don't drift, however long drawing takes. The k-th frame of a second is due at
+ * {@code round(k * 1000 / fps)} milliseconds into it, so every second starts with a frame, also
+ * for rates which don't divide 1000.</li>
+ * <li>A frame which runs late, e.g. because the process was paused, is drawn once for the current
+ * time. The deadlines missed in between are skipped and counted instead of drawn one after the
+ * other.</li>
+ * <li>All requests until the next frame are merged into a single draw. A full repaint requested
+ * shortly before a timer deadline waits for it, so e.g. the time tick at the full minute and the
+ * timer frame of that second are one frame.</li>
+ * <li>Starting the timer with the rate it already has, or stopping it twice, does not
+ * schedule anything again.</li>
+ * </ul>
+ *
+ * Must be used on the thread of the {@link Scheduler}.
+ */
+public class TickScheduler {
+    /**
+     * A full repaint waits for a timer deadline up to this delay, about one vsync, instead of
+     * being drawn on its own.
+     */
+    public static final long MAX_COALESCE_DELAY_MS = 16;
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int MILLIS_PER_SECOND = 1000;
+
+    /** Draws the frames. */
+    public interface Callback {
+        /**
+         * @param fullFrame true if a full repaint was requested, otherwise only the second hand
+         * moved
+         */
+        void onFrame(boolean fullFrame);
+    }
+
+    private final Clock mClock;
+    private final Scheduler mScheduler;
+    private final Callback mCallback;
+    private FrameMetrics mFrameMetrics;
+
+    private int mFramesPerSecond = 0;
+    private long mDeadlineMillis = NONE;
+    private boolean mFullFramePending = false;
+    // due time of the scheduled task
+    private long mScheduledMillis = NONE;
+
+    private long mTimerFrameCount = 0;
+    private long mFullFrameCount = 0;
+    private long mSkippedFrameCount = 0;
+    private long mCoalescedCount = 0;
+    private long mLatenessSumMillis = 0;
+    private long mMaxLatenessMillis = 0;
+
+    private final Runnable mFrameTask = new Runnable() {
+        @Override
+        public void run() {
+            mScheduledMillis = NONE;
+            onFrameDue();
+        }
+    };
+
+    public TickScheduler(Clock clock, Scheduler scheduler, Callback callback) {
+        mClock = clock;
+        mScheduler = scheduler;
+        mCallback = callback;
+    }
+
+    /**
+     * @param frameMetrics metrics which are told when the timer frames were due, or null. Only
+     * useful with the system clock, the metrics measure with {@link System#nanoTime()}.
+     */
+    public void setFrameMetrics(FrameMetrics frameMetrics) {
+        mFrameMetrics = frameMetrics;
+    }
+
+    /**
+     * Starts the timer. If it was not running, its first frame is drawn right away.
+     *
+     * @param framesPerSecond timer frames per second, 1 to 1000, e.g. 1 for a ticking second hand
+     */
+    public void start(int framesPerSecond) {
+        if(framesPerSecond <= 0 || framesPerSecond > MILLIS_PER_SECOND) {
+            throw new IllegalArgumentException("Frame rate must be between 1 and " + MILLIS_PER_SECOND + ": " + framesPerSecond);
+        }
+        if(mFramesPerSecond == framesPerSecond) {
+            return;
+        }
+        final boolean wasRunning = mFramesPerSecond > 0;
+        mFramesPerSecond = framesPerSecond;
+        final long now = mClock.currentTimeMillis();
+        // a changed rate keeps the frame which is due, the new rate applies after it
+        mDeadlineMillis = wasRunning ? Math.min(mDeadlineMillis, nextDeadline(now)) : now;
+        updateSchedule(now);
+    }
+
+    /** Stops the timer. A requested full frame is still drawn. */
+    public void stop() {
+        if(mFramesPerSecond == 0) {
+            return;
+        }
+        mFramesPerSecond = 0;
+        mDeadlineMillis = NONE;
+        updateSchedule(mClock.currentTimeMillis());
+    }
+
+    public boolean isRunning() {
+        return mFramesPerSecond > 0;
+    }
+
+    /** @return the timer frames per second, or 0 if the timer is stopped */
+    public int getFramesPerSecond() {
+        return mFramesPerSecond;
+    }
+
+    /**
+     * Requests a full repaint. Requests until the next frame are merged into one.
+     */
+    public void requestFullFrame() {
+        if(mFullFramePending) {
+            mCoalescedCount++;
+            return;
+        }
+        mFullFramePending = true;
+        updateSchedule(mClock.currentTimeMillis());
+    }
+
+    /** Cancels everything, e.g. when the watch face is destroyed. */
+    public void release() {
+        mFramesPerSecond = 0;
+        mDeadlineMillis = NONE;
+        mFullFramePending = false;
+        updateSchedule(NONE);
+    }
+
+    /** @return the first frame deadline after the given wall clock time */
+    private long nextDeadline(long nowMillis) {
+        final long second = nowMillis - nowMillis % MILLIS_PER_SECOND;
+        final long millis = nowMillis - second;
+        long frame = millis * mFramesPerSecond / MILLIS_PER_SECOND + 1;
+        if(getFrameOffset(frame) <= millis) {
+            // rounded down onto the current time
+            frame++;
+        }
+        return second + getFrameOffset(frame);
+    }
+
+    /** @return the deadline of the given frame, relative to the start of its second */
+    private long getFrameOffset(long frame) {
+        return Math.round(frame * (double) MILLIS_PER_SECOND / mFramesPerSecond);
+    }
+
+    /** @return the longest time between two deadlines, the rounded ones are up to 1 ms apart */
+    private long getMaxIntervalMillis() {
+        return (MILLIS_PER_SECOND + mFramesPerSecond - 1) / mFramesPerSecond;
+    }
+
+    /**
+     * Schedules the task for the earliest thing to do, unless it already is.
+     */
+    private void updateSchedule(long nowMillis) {
+        long due = NONE;
+        if(mDeadlineMillis != NONE) {
+            if(mDeadlineMillis - nowMillis > getMaxIntervalMillis()) {
+                // the clock was set back
+                mDeadlineMillis = nextDeadline(nowMillis);
+            }
+            due = mDeadlineMillis;
+        }
+        if(mFullFramePending && (due == NONE || due - nowMillis > MAX_COALESCE_DELAY_MS)) {
+            due = nowMillis;
+        }
+
+        if(due == mScheduledMillis) {
+            return;
+        }
+        if(mScheduledMillis != NONE) {
+            mScheduler.cancel(mFrameTask);
+        }
+        mScheduledMillis = due;
+        if(due != NONE) {
+            mScheduler.schedule(mFrameTask, Math.max(0, due - nowMillis));
+        }
+    }
+
+    private void onFrameDue() {
+        final long now = mClock.currentTimeMillis();
+        final boolean timerFrame = mDeadlineMillis != NONE && now >= mDeadlineMillis;
+        final boolean fullFrame = mFullFramePending;
+
+        if(timerFrame) {
+            final long lateness = now - mDeadlineMillis;
+            // deadlines which passed without a frame are not drawn anymore
+            final long skipped = lateness * mFramesPerSecond / MILLIS_PER_SECOND;
+            mTimerFrameCount++;
+            mSkippedFrameCount += skipped;
+            mLatenessSumMillis += lateness;
+            mMaxLatenessMillis = Math.max(mMaxLatenessMillis, lateness);
+            if(fullFrame) {
+                mCoalescedCount++;
+            }
+            if(mFrameMetrics != null) {
+                mFrameMetrics.onFrameScheduled(mClock.nanoTime() - lateness * 1000000L, 1000000000L / mFramesPerSecond);
+            }
+            mDeadlineMillis = nextDeadline(now);
+        }
+        if(fullFrame) {
+            mFullFrameCount++;
+            mFullFramePending = false;
+        }
+
+        if(timerFrame || fullFrame) {
+            mCallback.onFrame(fullFrame);
+        }
+        // the callback might have changed the timer
+        updateSchedule(mClock.currentTimeMillis());
+    }
+
+    /**
+     * @param stats stats to write into, so that they can be reused
+     * @return the given stats
+     */
+    public Stats getStats(Stats stats) {
+        stats.mTimerFrameCount = mTimerFrameCount;
+        stats.mFullFrameCount = mFullFrameCount;
+        stats.mSkippedFrameCount = mSkippedFrameCount;
+        stats.mCoalescedCount = mCoalescedCount;
+        stats.mMeanLatenessMillis = mTimerFrameCount > 0 ? (double) mLatenessSumMillis / mTimerFrameCount : 0;
+        stats.mMaxLatenessMillis = mMaxLatenessMillis;
+        return stats;
+    }
+
+    public void resetStats() {
+        mTimerFrameCount = 0;
+        mFullFrameCount = 0;
+        mSkippedFrameCount = 0;
+        mCoalescedCount = 0;
+        mLatenessSumMillis = 0;
+        mMaxLatenessMillis = 0;
+    }
+
+    /**
+     * How far the frames drifted from their deadlines.
+     */
+    public static class Stats {
+        private long mTimerFrameCount;
+        private long mFullFrameCount;
+        private long mSkippedFrameCount;
+        private long mCoalescedCount;
+        private double mMeanLatenessMillis;
+        private long mMaxLatenessMillis;
+
+        /** @return the number of timer frames drawn */
+        public long getTimerFrameCount() {
+            return mTimerFrameCount;
+        }
+
+        /** @return the number of full repaints drawn, including those merged into a timer frame */
+        public long getFullFrameCount() {
+            return mFullFrameCount;
+        }
+
+        /** @return the number of timer deadlines which passed without a frame */
+        public long getSkippedFrameCount() {
+            return mSkippedFrameCount;
+        }
+
+        /** @return the number of requests which were merged into another frame */
+        public long getCoalescedCount() {
+            return mCoalescedCount;
+        }
+
+        /** @return the mean delay of the timer frames after their deadline */
+        public double getMeanLatenessMillis() {
+            return mMeanLatenessMillis;
+        }
+
+        public long getMaxLatenessMillis() {
+            return mMaxLatenessMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d timer frames, %d full, %d skipped, %d coalesced, lateness mean %.1f ms max %d ms",
+                    mTimerFrameCount, mFullFrameCount, mSkippedFrameCount, mCoalescedCount, mMeanLatenessMillis, mMaxLatenessMillis);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * The UTC offsets of a time zone over a span of time, with the transitions between them (DST
+ * changes and rule changes) precomputed into a small primitive table. Between two transitions the
+ * offset is constant, so the local time of a frame is one add and one modulo, without asking the
+ * time zone.
+ *
+ * {@link TimeZone} has no API for its transitions on this API level, so they are found by sampling
+ * the offset once a day and searching the millisecond of the change in the days where it changed.
+ * Two transitions within one day are not found, no time zone has those.
+ *
+ * Immutable, so a table can be shared between threads.
+ */
+public final class TimeZoneTransitions {
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    /** A table covers a day before and a bit more than a year after the time it is computed for. */
+    public static final long DEFAULT_SPAN_MILLIS = 400 * MILLIS_PER_DAY;
+
+    private final TimeZone mTimeZone;
+    private final long mValidUntil;
+    // start of every span of a constant offset, the first one is the start of the table
+    private final long[] mStarts;
+    private final int[] mOffsets;
+
+    private TimeZoneTransitions(TimeZone timeZone, long[] starts, int[] offsets, long validUntil) {
+        mTimeZone = timeZone;
+        mStarts = starts;
+        mOffsets = offsets;
+        mValidUntil = validUntil;
+    }
+
+    /**
+     * @return the table for the time zone, from a day before the given time for
+     * {@link #DEFAULT_SPAN_MILLIS}
+     */
+    public static TimeZoneTransitions compute(TimeZone timeZone, long timeMillis) {
+        return compute(timeZone, timeMillis - MILLIS_PER_DAY, DEFAULT_SPAN_MILLIS);
+    }
+
+    public static TimeZoneTransitions compute(TimeZone timeZone, long fromMillis, long spanMillis) {
+        final List<Long> starts = new ArrayList<>();
+        final List<Integer> offsets = new ArrayList<>();
+        final long untilMillis = fromMillis + spanMillis;
+
+        long time = fromMillis;
+        int offset = timeZone.getOffset(time);
+        starts.add(time);
+        offsets.add(offset);
+        while(time < untilMillis) {
+            final long next = Math.min(time + MILLIS_PER_DAY, untilMillis);
+            final int nextOffset = timeZone.getOffset(next);
+            if(nextOffset != offset) {
+                // the first millisecond with the new offset
+                long low = time;
+                long high = next;
+                while(high - low > 1) {
+                    final long mid = low + (high - low) / 2;
+                    if(timeZone.getOffset(mid) == offset) {
+                        low = mid;
+                    } else {
+                        high = mid;
+                    }
+                }
+                starts.add(high);
+                offsets.add(nextOffset);
+                offset = nextOffset;
+            }
+            time = next;
+        }
+
+        final long[] startArray = new long[starts.size()];
+        final int[] offsetArray = new int[offsets.size()];
+        for(int i = 0; i < startArray.length; i++) {
+            startArray[i] = starts.get(i);
+            offsetArray[i] = offsets.get(i);
+        }
+        return new TimeZoneTransitions(timeZone, startArray, offsetArray, untilMillis);
+    }
+
+    public TimeZone getTimeZone() {
+        return mTimeZone;
+    }
+
+    /** @return true if the table has the offset of the given time */
+    public boolean covers(long timeMillis) {
+        return timeMillis >= mStarts[0] && timeMillis < mValidUntil;
+    }
+
+    /**
+     * @return the index of the span with the offset of the given time, which must be covered by
+     * the table
+     */
+    public int indexOf(long timeMillis) {
+        // a handful of spans per year, a linear search is the fastest
+        int index = 0;
+        while(index + 1 < mStarts.length && mStarts[index + 1] <= timeMillis) {
+            index++;
+        }
+        return index;
+    }
+
+    /** @return the number of spans, one more than the number of transitions */
+    public int getSpanCount() {
+        return mStarts.length;
+    }
+
+    /** @return the first millisecond of the span */
+    public long getSpanStart(int index) {
+        return mStarts[index];
+    }
+
+    /** @return the first millisecond after the span, a transition or the end of the table */
+    public long getSpanEnd(int index) {
+        return index + 1 < mStarts.length ? mStarts[index + 1] : mValidUntil;
+    }
+
+    /** @return the UTC offset in milliseconds during the span */
+    public int getSpanOffset(int index) {
+        return mOffsets[index];
+    }
+
+    /**
+     * @return the UTC offset in milliseconds at the given time, from the time zone if the time is
+     * not covered by the table
+     */
+    public int getOffset(long timeMillis) {
+        return covers(timeMillis) ? mOffsets[indexOf(timeMillis)] : mTimeZone.getOffset(timeMillis);
+    }
+}
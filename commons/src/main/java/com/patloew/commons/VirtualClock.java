@@ -0,0 +1,106 @@
+package com.patloew.commons;
+
+import java.util.PriorityQueue;
+
+/**
+ * {@link Clock} and {@link Scheduler} with a time which only moves when it is advanced. Scheduled
+ * tasks run in the order of their due time while advancing, without waiting, so a session can be
+ * replayed at full speed with the same timing on every run.
+ *
+ * Not thread-safe.
+ */
+public class VirtualClock implements Clock, Scheduler {
+    private final long mStartMillis;
+    private final PriorityQueue<Task> mTasks = new PriorityQueue<>();
+    private long mTimeMillis;
+    private long mTaskSequence = 0;
+
+    /**
+     * @param startMillis the wall clock time to start at
+     */
+    public VirtualClock(long startMillis) {
+        mStartMillis = startMillis;
+        mTimeMillis = startMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return mTimeMillis;
+    }
+
+    /** @return the time since the start of the clock, with millisecond resolution */
+    @Override
+    public long nanoTime() {
+        return (mTimeMillis - mStartMillis) * 1000000L;
+    }
+
+    @Override
+    public void schedule(Runnable task, long delayMs) {
+        mTasks.add(new Task(task, mTimeMillis + Math.max(0, delayMs), mTaskSequence++));
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        for(Task t : mTasks.toArray(new Task[mTasks.size()])) {
+            if(t.mRunnable == task) {
+                mTasks.remove(t);
+            }
+        }
+    }
+
+    /** @return the number of tasks waiting to run */
+    public int getPendingTaskCount() {
+        return mTasks.size();
+    }
+
+    /**
+     * Moves the time forward, running the tasks which are due until then at their due time. Tasks
+     * scheduled by those tasks run as well if they are due.
+     *
+     * A time before the current one sets the clock back, like a user changing the time. The
+     * pending tasks keep their due times then.
+     */
+    public void advanceTo(long timeMillis) {
+        advanceTo(timeMillis, true);
+    }
+
+    /**
+     * @param runDueTasks whether the tasks due at exactly the given time run as well. If not, they
+     * run on the next advance, after whatever happens at that time.
+     */
+    public void advanceTo(long timeMillis, boolean runDueTasks) {
+        Task task;
+        while((task = mTasks.peek()) != null
+                && (task.mDueMillis < timeMillis || (runDueTasks && task.mDueMillis == timeMillis))) {
+            mTasks.poll();
+            mTimeMillis = Math.max(mTimeMillis, task.mDueMillis);
+            task.mRunnable.run();
+        }
+        mTimeMillis = timeMillis;
+    }
+
+    public void advanceBy(long deltaMillis) {
+        advanceTo(mTimeMillis + deltaMillis);
+    }
+
+    private static final class Task implements Comparable<Task> {
+        final Runnable mRunnable;
+        final long mDueMillis;
+        // tasks due at the same time run in the order they were scheduled
+        final long mSequence;
+
+        Task(Runnable runnable, long dueMillis, long sequence) {
+            mRunnable = runnable;
+            mDueMillis = dueMillis;
+            mSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if(mDueMillis != other.mDueMillis) {
+                return mDueMillis < other.mDueMillis ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+}
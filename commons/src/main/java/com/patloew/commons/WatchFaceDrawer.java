@@ -17,162 +17,246 @@
 
 package com.patloew.commons;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.RectF;
+import android.os.AsyncTask;
 
-import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Android front end of the {@link WatchFaceRenderer}. Resolves the resources and draws onto a
+ * {@link Canvas} through a {@link CanvasDrawSurface}. The watch and the phone preview both draw
+ * the face through this class, see {@link FaceDefinition}.
+ *
+ * Like the renderer, one drawer can be used by several render threads at once.
+ *
+ * Startup is staged: the constructor only resolves the resources, the deferred assets of the
+ * layers are loaded on a background thread and swapped in once they are ready, see
+ * {@link #setAssetListener(WatchFaceRenderer.AssetListener)}.
+ *
+ * All drawers of the process share their static layers and geometry through
+ * {@link SharedAssetCache#getInstance()}, which is trimmed when the system is low on memory. Call
+ * {@link #release()} when the drawer is not used anymore.
+ */
 public class WatchFaceDrawer {
-    private boolean mIsMobilePreview = false;
-
-    private float mHourOuterOffset;
-    private float mMinuteOuterOffset;
-    private float mSecondOuterOffset;
+    private static final AtomicBoolean sTrimCallbacksRegistered = new AtomicBoolean(false);
 
-    private float mPreviewSquareRadius;
+    private final WatchFaceRenderer mRenderer;
 
-    private Paint mBackgroundPaint;
-    private Paint mPreviewBorderPaint;
-    private Paint mSecondHandPaint;
-    private Paint mMinuteHandPaint;
-    private Paint mHourHandPaint;
+    private final ThreadLocal<CanvasDrawSurface> mSurfaces = new ThreadLocal<CanvasDrawSurface>() {
+        @Override
+        protected CanvasDrawSurface initialValue() {
+            return new CanvasDrawSurface();
+        }
+    };
 
-    // put your resources here (Paint objects, dimensions, colors, …)
+    private final ThreadLocal<float[]> mDirtyBounds = new ThreadLocal<float[]>() {
+        @Override
+        protected float[] initialValue() {
+            return new float[4];
+        }
+    };
 
     public WatchFaceDrawer(Context context) {
+        this(context, FaceDefinition.DEFAULT);
+    }
+
+    public WatchFaceDrawer(Context context, FaceDefinition faceDefinition) {
+        final long startNanos = System.nanoTime();
+        final WatchFaceResources resources = loadResources(context);
+        mRenderer = new WatchFaceRenderer(resources, faceDefinition, AsyncTask.THREAD_POOL_EXECUTOR, SharedAssetCache.getInstance());
+        mRenderer.getStartupMetrics().begin(startNanos);
+        mRenderer.getStartupMetrics().markResourcesLoaded();
+
+        if(sTrimCallbacksRegistered.compareAndSet(false, true)) {
+            context.getApplicationContext().registerComponentCallbacks(new TrimCallbacks(SharedAssetCache.getInstance()));
+        }
+    }
+
+    /**
+     * Resolves the dimensions and colors of the watch face.
+     */
+    public static WatchFaceResources loadResources(Context context) {
         Resources res = context.getResources();
 
         // initialize your resources
 
-        mHourOuterOffset = res.getDimension(R.dimen.hour_outer_offset);
-        mMinuteOuterOffset = res.getDimension(R.dimen.minute_outer_offset);
-        mSecondOuterOffset = res.getDimension(R.dimen.second_outer_offset);
+        return new WatchFaceResources.Builder()
+                .setHandOuterOffsets(res.getDimension(R.dimen.hour_outer_offset), res.getDimension(R.dimen.minute_outer_offset), res.getDimension(R.dimen.second_outer_offset))
+                .setHandStrokes(res.getDimension(R.dimen.hour_hand_stroke), res.getDimension(R.dimen.minute_hand_stroke), res.getDimension(R.dimen.seconds_hand_stroke))
+                .setHandColors(res.getColor(R.color.hour_hand), res.getColor(R.color.minute_hand), res.getColor(R.color.second_hand))
+                .setLowBitAmbientHandColor(res.getColor(R.color.low_bit_ambient_hand))
+                .setBackgroundColors(res.getColor(R.color.watchface_background), res.getColor(R.color.watchface_background_light))
+                .setPreviewBorder(res.getColor(R.color.watchface_preview_border), res.getDimension(R.dimen.watchface_preview_square_radius))
+                .setDial(res.getColor(R.color.watchface_dial), res.getDimension(R.dimen.dial_tick_length), res.getDimension(R.dimen.dial_tick_stroke), res.getDimension(R.dimen.dial_numeral_text_size))
+                .build();
+    }
 
-        mPreviewSquareRadius = res.getDimension(R.dimen.watchface_preview_square_radius);
+    public WatchFaceRenderer getRenderer() {
+        return mRenderer;
+    }
 
-        mBackgroundPaint = new Paint();
-        mBackgroundPaint.setColor(res.getColor(R.color.watchface_background));
+    /**
+     * Creates an exporter for thumbnails of this face. The thumbnails are rendered by their own
+     * renderer without the preview border, sharing the static layers with this drawer.
+     *
+     * @param quality 0 to 100, ignored for PNG
+     */
+    public ThumbnailExporter createThumbnailExporter(Bitmap.CompressFormat format, int quality) {
+        final WatchFaceRenderer renderer = new WatchFaceRenderer(mRenderer.getResources(), mRenderer.getFaceDefinition(), null, SharedAssetCache.getInstance());
+        return new ThumbnailExporter(renderer, new BitmapThumbnailEncoder(format, quality));
+    }
 
-        mSecondHandPaint = new Paint();
-        mSecondHandPaint.setColor(res.getColor(R.color.second_hand));
-        mSecondHandPaint.setStrokeWidth(res.getDimension(R.dimen.seconds_hand_stroke));
-        mSecondHandPaint.setAntiAlias(true);
-        mSecondHandPaint.setStrokeCap(Paint.Cap.ROUND);
+    /**
+     * @see WatchFaceRenderer#release()
+     */
+    public void release() {
+        mRenderer.release();
+    }
 
-        mMinuteHandPaint = new Paint(mSecondHandPaint);
-        mMinuteHandPaint.setColor(res.getColor(R.color.minute_hand));
-        mMinuteHandPaint.setStrokeWidth(res.getDimension(R.dimen.minute_hand_stroke));
+    /**
+     * @see WatchFaceRenderer#prepare()
+     */
+    public void prepare() {
+        mRenderer.prepare();
+    }
 
-        mHourHandPaint = new Paint(mSecondHandPaint);
-        mHourHandPaint.setColor(res.getColor(R.color.hour_hand));
-        mHourHandPaint.setStrokeWidth(res.getDimension(R.dimen.hour_hand_stroke));
+    /**
+     * Sets a listener which is called on a background thread when deferred assets were loaded.
+     * The watch face should be redrawn then.
+     */
+    public void setAssetListener(WatchFaceRenderer.AssetListener assetListener) {
+        mRenderer.setAssetListener(assetListener);
     }
 
-    public void setMobilePreview(Context context, boolean isMobilePreview) {
-        Resources res = context.getResources();
+    /**
+     * @see WatchFaceRenderer#getStartupMetrics()
+     */
+    public StartupMetrics getStartupMetrics() {
+        return mRenderer.getStartupMetrics();
+    }
 
+    public void setMobilePreview(Context context, boolean isMobilePreview) {
         // here you can change specific resources, based on whether the watch face
         // is drawn in the phone app or on the watch
 
-        mIsMobilePreview = isMobilePreview;
-        mBackgroundPaint.setAntiAlias(isMobilePreview ? true : false);
+        mRenderer.setMobilePreview(isMobilePreview);
+    }
 
-        if(mIsMobilePreview && mPreviewBorderPaint == null) {
-            mPreviewBorderPaint = new Paint();
-            mPreviewBorderPaint.setColor(res.getColor(R.color.watchface_preview_border));
-            mPreviewBorderPaint.setAntiAlias(true);
-        }
+    /**
+     * Kept for compatibility. The layers are updated for the ambient mode when a frame with a
+     * changed ambient state is drawn, so nothing has to be done here anymore.
+     */
+    public void onAmbientModeChanged(Context context, IWatchFaceConfig config) { }
+
+    /**
+     * @see WatchFaceRenderer#invalidateStaticLayer()
+     */
+    public void invalidateStaticLayer() {
+        mRenderer.invalidateStaticLayer();
     }
 
-    public void onAmbientModeChanged(Context context, IWatchFaceConfig config) {
-        if(config.isLowBitAmbient()) {
-            Resources res = context.getResources();
+    /**
+     * @see WatchFaceRenderer#getFrameMetrics()
+     */
+    public FrameMetrics getFrameMetrics() {
+        return mRenderer.getFrameMetrics();
+    }
 
-            final boolean inAmbientMode = config.isAmbient();
+    /**
+     * Adapter for {@link #getDirtyRegion(RenderState, Rect)}, using a snapshot of the given config.
+     */
+    public boolean getDirtyRegion(IWatchFaceConfig config, Rect bounds, Rect outDirty) {
+        final RenderState state = RenderState.obtain(config, bounds);
+        try {
+            return getDirtyRegion(state, outDirty);
+        } finally {
+            state.recycle();
+        }
+    }
 
-            mSecondHandPaint.setAntiAlias(!inAmbientMode);
-            mMinuteHandPaint.setAntiAlias(!inAmbientMode);
-            mHourHandPaint.setAntiAlias(!inAmbientMode);
+    /**
+     * Computes the region which changes when the given state is drawn, rounded out to pixels.
+     *
+     * @see WatchFaceRenderer#getDirtyBounds(RenderState, float[])
+     */
+    public boolean getDirtyRegion(RenderState state, Rect outDirty) {
+        final float[] bounds = mDirtyBounds.get();
+        final boolean partial = mRenderer.getDirtyBounds(state, bounds);
+        outDirty.set((int) Math.floor(bounds[0]), (int) Math.floor(bounds[1]), (int) Math.ceil(bounds[2]), (int) Math.ceil(bounds[3]));
+        return partial;
+    }
 
-            mSecondHandPaint.setColor(res.getColor(inAmbientMode ? R.color.low_bit_ambient_hand : R.color.second_hand));
-            mMinuteHandPaint.setColor(res.getColor(inAmbientMode ? R.color.low_bit_ambient_hand : R.color.minute_hand));
-            mHourHandPaint.setColor(res.getColor(inAmbientMode ? R.color.low_bit_ambient_hand : R.color.hour_hand));
+    /**
+     * Adapter for {@link #onDraw(RenderState, Canvas)}, using a snapshot of the given config.
+     */
+    public void onDraw(Context context, IWatchFaceConfig config, Canvas canvas, Rect bounds) {
+        final RenderState state = RenderState.obtain(config, bounds);
+        try {
+            onDraw(state, canvas);
+        } finally {
+            state.recycle();
         }
     }
 
-    public void onDraw(Context context, IWatchFaceConfig config, Canvas canvas, Rect bounds) {
-        final Calendar calendar = config.getCalendar();
-        final boolean isAmbient = config.isAmbient();
-        final boolean isRound = config.isRound();
-        final boolean useLightTheme = !isAmbient && config.isLightTheme();
-
-        mBackgroundPaint.setColor(context.getResources().getColor(useLightTheme ? R.color.watchface_background_light : R.color.watchface_background));
-
-        /////////////////////////////////////////////////////////////////////
-        // Draw your watch face here, using the provided canvas and bounds //
-        /////////////////////////////////////////////////////////////////////
-
-        final int width = bounds.width();
-        final int height = bounds.height();
-
-        // Find the center. Ignore the window insets so that, on round
-        // watches with a "chin", the watch face is centered on the entire
-        // screen, not just the usable portion.
-        float centerX = width / 2f;
-        float centerY = height / 2f;
-
-
-        // Draw the background.
-        if(mIsMobilePreview) {
-            if(isRound) {
-                canvas.drawCircle(centerX, centerY, centerX, mPreviewBorderPaint);
-            } else {
-                float radius = mPreviewSquareRadius;
-                RectF rectF = new RectF(0, 0, canvas.getWidth(), canvas.getHeight());
-                canvas.drawRoundRect(rectF, radius, radius, mPreviewBorderPaint);
-            }
+    /**
+     * Draws the given state through the backend, e.g. a {@link SoftwareCanvasBackend} or a
+     * {@link HardwareCanvasBackend}.
+     *
+     * @see WatchFaceRenderer#drawFrame(RenderState, RenderBackend)
+     */
+    public boolean drawFrame(RenderState state, RenderBackend backend) {
+        return mRenderer.drawFrame(state, backend);
+    }
 
-            float translateXY = width * 0.05f;
-            canvas.translate(translateXY, translateXY);
-            canvas.scale(0.9f, 0.9f);
+    /**
+     * @see WatchFaceRenderer#drawFrame(RenderState, RenderBackend, boolean)
+     */
+    public boolean drawFrame(RenderState state, RenderBackend backend, boolean fullFrame) {
+        return mRenderer.drawFrame(state, backend, fullFrame);
+    }
 
-            if(isRound) {
-                canvas.drawCircle(centerX, centerY, centerX, mBackgroundPaint);
-            } else {
-                canvas.drawRect(0, 0, canvas.getWidth(), canvas.getHeight(), mBackgroundPaint);
-            }
-        } else {
-            canvas.drawRect(0, 0, canvas.getWidth(), canvas.getHeight(), mBackgroundPaint);
-        }
+    /**
+     * Draws the given state. Can be called from several threads at once.
+     */
+    public void onDraw(RenderState state, Canvas canvas) {
+        final CanvasDrawSurface surface = mSurfaces.get();
+        surface.setCanvas(canvas);
+        mRenderer.onDraw(state, surface);
+        surface.setCanvas(null);
+    }
 
-        float secRot = calendar.get(Calendar.SECOND) / 30f * (float) Math.PI;
-        final int minutes = calendar.get(Calendar.MINUTE);
-        float minRot = minutes / 30f * (float) Math.PI;
-        float hrRot = ((calendar.get(Calendar.HOUR) + (minutes / 60f)) / 6f) *
-                (float) Math.PI;
+    /**
+     * Evicts unused shared assets when the system is low on memory. Assets in use are kept, they
+     * are needed for the next frame anyway.
+     */
+    private static class TrimCallbacks implements ComponentCallbacks2 {
+        private final SharedAssetCache mCache;
 
-        float secLength = centerX - mSecondOuterOffset;
-        float minLength = centerX - mMinuteOuterOffset;
-        float hrLength = centerX - mHourOuterOffset;
+        TrimCallbacks(SharedAssetCache cache) {
+            mCache = cache;
+        }
 
-        if (!isAmbient) {
-            float secX = (float) Math.sin(secRot) * secLength;
-            float secY = (float) -Math.cos(secRot) * secLength;
-            canvas.drawLine(centerX, centerY, centerX + secX, centerY + secY, mSecondHandPaint);
+        @Override
+        public void onTrimMemory(int level) {
+            if(level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+                mCache.evictUnused();
+            } else if(level >= TRIM_MEMORY_RUNNING_LOW) {
+                mCache.trimToSize(SharedAssetCache.DEFAULT_MAX_UNUSED_BYTES / 2);
+            }
         }
 
-        float minX = (float) Math.sin(minRot) * minLength;
-        float minY = (float) -Math.cos(minRot) * minLength;
-        canvas.drawLine(centerX, centerY, centerX + minX, centerY + minY, mMinuteHandPaint);
+        @Override
+        public void onLowMemory() {
+            mCache.evictUnused();
+        }
 
-        float hrX = (float) Math.sin(hrRot) * hrLength;
-        float hrY = (float) -Math.cos(hrRot) * hrLength;
-        canvas.drawLine(centerX, centerY, centerX + hrX, centerY + hrY, mHourHandPaint);
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) { }
     }
-
 }
-
@@ -0,0 +1,104 @@
+package com.patloew.commons;
+
+/**
+ * User options of the watch face, which are edited on the phone and synced to the watch by
+ * {@link ConfigSyncSender} and {@link ConfigSyncReceiver}.
+ *
+ * Every option has a stable field id for the binary format of {@link ConfigCodec}. Ids must never
+ * be reused, so an old watch app can skip options of a newer phone app.
+ */
+public class WatchFaceOptions {
+    public static final int FIELD_LIGHT_THEME = 1;
+    public static final int FIELD_SECOND_HAND_FPS = 2;
+
+    /** Highest field id in use. */
+    static final int MAX_FIELD = FIELD_SECOND_HAND_FPS;
+
+    private boolean mLightTheme = true;
+    private int mSecondHandFps = 1;
+
+    public WatchFaceOptions() { }
+
+    public WatchFaceOptions(WatchFaceOptions options) {
+        copyFrom(options);
+    }
+
+    public void copyFrom(WatchFaceOptions options) {
+        mLightTheme = options.mLightTheme;
+        mSecondHandFps = options.mSecondHandFps;
+    }
+
+    /** @return the bit for the given field id in a changed fields mask */
+    public static int fieldBit(int field) {
+        return 1 << field;
+    }
+
+    public boolean isLightTheme() {
+        return mLightTheme;
+    }
+
+    public void setLightTheme(boolean lightTheme) {
+        mLightTheme = lightTheme;
+    }
+
+    /** @return frames per second of the second hand, 1 for a ticking second hand */
+    public int getSecondHandFps() {
+        return mSecondHandFps;
+    }
+
+    public void setSecondHandFps(int secondHandFps) {
+        mSecondHandFps = secondHandFps;
+    }
+
+    /**
+     * @return the value of the given field as int (booleans as 0 or 1)
+     */
+    int getField(int field) {
+        switch(field) {
+            case FIELD_LIGHT_THEME:
+                return mLightTheme ? 1 : 0;
+            case FIELD_SECOND_HAND_FPS:
+                return mSecondHandFps;
+            default:
+                throw new IllegalArgumentException("Unknown field " + field);
+        }
+    }
+
+    /**
+     * Sets the given field, ignoring unknown fields.
+     *
+     * @return true if the value changed
+     */
+    boolean setField(int field, int value) {
+        if(field < 1 || field > MAX_FIELD || getField(field) == value) {
+            return false;
+        }
+        switch(field) {
+            case FIELD_LIGHT_THEME:
+                mLightTheme = value != 0;
+                break;
+            case FIELD_SECOND_HAND_FPS:
+                mSecondHandFps = value;
+                break;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) { return true; }
+        if(!(o instanceof WatchFaceOptions)) { return false; }
+        final WatchFaceOptions other = (WatchFaceOptions) o;
+        return mLightTheme == other.mLightTheme && mSecondHandFps == other.mSecondHandFps;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (mLightTheme ? 1 : 0) + mSecondHandFps;
+    }
+
+    @Override
+    public String toString() {
+        return "WatchFaceOptions{lightTheme=" + mLightTheme + ", secondHandFps=" + mSecondHandFps + "}";
+    }
+}
@@ -0,0 +1,273 @@
+/* Watch face drawing code is from Android Studio examples. License:
+ *
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Platform independent watch face renderer. Draws a {@link RenderState} snapshot onto a
+ * {@link DrawSurface}, so the same code renders on an Android canvas and headless on the JVM.
+ *
+ * The face is defined by a {@link FaceDefinition} and drawn by a {@link LayerEngine}, which only
+ * redraws each layer when needed. The resources and the face definition never change. Everything
+ * which is mutated while drawing (layers, cached layers, frame metrics, dirty region tracking)
+ * lives in a render context per thread, so one renderer can be used by several render threads at
+ * once.
+ *
+ * With an asset loader, the deferred assets of the layers are loaded in the background and the
+ * first frames are drawn without the layers which are not ready yet, or with their placeholders,
+ * e.g. styled hands as lines until their sprites are rasterized. Call {@link #prepare()} to start
+ * loading the assets which do not depend on the first frame before it.
+ *
+ * With a {@link SharedAssetCache}, static layers and geometry are shared with other renderers.
+ * {@link #release()} gives them back when the renderer is not used anymore.
+ *
+ * Frames are either drawn onto a given surface with {@link #onDraw}, or presented through a
+ * {@link RenderBackend} with {@link #drawFrame}, which only redraws the dirty region if the backend
+ * supports it.
+ */
+public class WatchFaceRenderer {
+    /** Called on the loading thread when the deferred assets of a render context are loaded. */
+    public interface AssetListener {
+        void onAssetsLoaded();
+    }
+
+    private final WatchFaceResources mResources;
+    private final FaceDefinition mFaceDefinition;
+    private final Executor mAssetLoader;
+    private final SharedAssetCache mAssetCache;
+    private final StartupMetrics mStartupMetrics = new StartupMetrics();
+    private volatile AssetListener mAssetListener;
+
+    private final Runnable mOnAssetsLoaded = new Runnable() {
+        @Override
+        public void run() {
+            mStartupMetrics.markAssetsLoaded();
+            final AssetListener listener = mAssetListener;
+            if(listener != null) {
+                listener.onAssetsLoaded();
+            }
+        }
+    };
+
+    private volatile boolean mIsMobilePreview = false;
+
+    // incremented to invalidate the cached layers of all render contexts
+    private volatile int mInvalidationGeneration = 0;
+
+    private final ThreadLocal<RenderContext> mRenderContexts = new ThreadLocal<RenderContext>() {
+        @Override
+        protected RenderContext initialValue() {
+            final RenderContext ctx = new RenderContext();
+            synchronized (mAllRenderContexts) {
+                mAllRenderContexts.add(ctx);
+            }
+            return ctx;
+        }
+    };
+    // to release the render contexts of all threads
+    private final List<RenderContext> mAllRenderContexts = new ArrayList<>();
+
+    public WatchFaceRenderer(WatchFaceResources resources) {
+        this(resources, FaceDefinition.DEFAULT);
+    }
+
+    public WatchFaceRenderer(WatchFaceResources resources, FaceDefinition faceDefinition) {
+        this(resources, faceDefinition, null, null);
+    }
+
+    /**
+     * @param assetLoader runs the loading of deferred assets, or null to load them on the render
+     * thread before its first frame
+     * @param assetCache cache for assets shared with other renderers, usually
+     * {@link SharedAssetCache#getInstance()}, or null to share nothing
+     */
+    public WatchFaceRenderer(WatchFaceResources resources, FaceDefinition faceDefinition, Executor assetLoader, SharedAssetCache assetCache) {
+        mResources = resources;
+        mFaceDefinition = faceDefinition;
+        mAssetLoader = assetLoader;
+        mAssetCache = assetCache;
+    }
+
+    public WatchFaceResources getResources() {
+        return mResources;
+    }
+
+    public FaceDefinition getFaceDefinition() {
+        return mFaceDefinition;
+    }
+
+    public void setAssetListener(AssetListener assetListener) {
+        mAssetListener = assetListener;
+    }
+
+    /**
+     * @return the startup instrumentation. The first frame and the loaded assets are marked by the
+     * renderer, the start and the resources by the caller.
+     */
+    public StartupMetrics getStartupMetrics() {
+        return mStartupMetrics;
+    }
+
+    /**
+     * Creates the render context of the calling thread and starts loading the deferred assets, so
+     * they might already be ready for the first frame.
+     */
+    public void prepare() {
+        getRenderContext();
+    }
+
+    /**
+     * @return false while deferred assets are still loading for the calling thread
+     */
+    public boolean isReady() {
+        return getRenderContext().mLayerEngine.isReady();
+    }
+
+    /**
+     * Releases the cached layers and shared assets of all render threads. Must not be called while
+     * a frame is drawn. Render threads which draw again afterwards acquire them again.
+     */
+    public void release() {
+        synchronized (mAllRenderContexts) {
+            for(RenderContext ctx : mAllRenderContexts) {
+                ctx.mLayerEngine.release();
+            }
+        }
+    }
+
+    public void setMobilePreview(boolean isMobilePreview) {
+        mIsMobilePreview = isMobilePreview;
+        invalidateStaticLayer();
+    }
+
+    public boolean isMobilePreview() {
+        return mIsMobilePreview;
+    }
+
+    /**
+     * Forces all cached layers to be rebuilt on the next frame, on all render threads. Call this
+     * when a watch face option changes which is drawn in a cached layer. Layers shared with other
+     * renderers are acquired again from the {@link SharedAssetCache}, not rendered again, see
+     * {@link LayerEngine#invalidate()}.
+     */
+    public void invalidateStaticLayer() {
+        synchronized (this) {
+            mInvalidationGeneration++;
+        }
+    }
+
+    /**
+     * @return the frame time instrumentation of the calling thread. {@link #onDraw} records its
+     * draw duration, the caller can tell it about scheduled frames to record the jitter as well.
+     */
+    public FrameMetrics getFrameMetrics() {
+        return mRenderContexts.get().mFrameMetrics;
+    }
+
+    /**
+     * Computes the region which changes when the given state is drawn, compared to the last frame
+     * drawn by {@link #onDraw} on the calling thread. Within a minute, usually only the second hand
+     * moves, so this is the union of its old and new bounds. Drawing the next frame with a surface
+     * clipped to this region restores it from the cached layers and redraws the second hand in it.
+     *
+     * @param outBounds set to left, top, right and bottom of the dirty region, or to the surface
+     * bounds if everything has to be redrawn
+     * @return false if a full repaint is needed (first frame, cached layer update, ambient mode or
+     * config change)
+     * @see LayerEngine#getDirtyBounds(RenderState, boolean, float[])
+     */
+    public boolean getDirtyBounds(RenderState state, float[] outBounds) {
+        return getRenderContext().mLayerEngine.getDirtyBounds(state, mIsMobilePreview, outBounds);
+    }
+
+    /**
+     * Draws the given state. Can be called from several threads at once.
+     */
+    public void onDraw(RenderState state, DrawSurface surface) {
+        final RenderContext ctx = getRenderContext();
+        final long frameStart = ctx.mFrameMetrics.beginFrame();
+        ctx.mLayerEngine.onDraw(state, surface, mIsMobilePreview);
+
+        ctx.mFrameMetrics.endFrame(frameStart);
+        mStartupMetrics.markFirstFrame();
+    }
+
+    /**
+     * Draws the given state through the backend. If the backend supports partial updates, only the
+     * region returned by {@link #getDirtyBounds} is locked and redrawn.
+     *
+     * @return false if the backend could not lock its target, the frame was not drawn then
+     */
+    public boolean drawFrame(RenderState state, RenderBackend backend) {
+        return drawFrame(state, backend, false);
+    }
+
+    /**
+     * @param fullFrame true to lock and redraw the whole target, e.g. when its content might have
+     * been lost
+     * @see #drawFrame(RenderState, RenderBackend)
+     */
+    public boolean drawFrame(RenderState state, RenderBackend backend, boolean fullFrame) {
+        final float[] dirtyBounds = getRenderContext().mDirtyBounds;
+        final boolean partial = !fullFrame && backend.supportsPartialUpdates() && getDirtyBounds(state, dirtyBounds);
+        if(partial && (dirtyBounds[0] >= dirtyBounds[2] || dirtyBounds[1] >= dirtyBounds[3])) {
+            // nothing changed
+            return true;
+        }
+
+        final DrawSurface surface = backend.lockSurface(partial ? dirtyBounds : null);
+        if(surface == null) {
+            return false;
+        }
+        try {
+            onDraw(state, surface);
+        } finally {
+            backend.unlockAndPost(surface);
+        }
+        return true;
+    }
+
+    /**
+     * @return the render context of the calling thread, with its cached layers invalidated if
+     * {@link #invalidateStaticLayer()} was called since its last frame
+     */
+    private RenderContext getRenderContext() {
+        final RenderContext ctx = mRenderContexts.get();
+        final int generation = mInvalidationGeneration;
+        if(ctx.mInvalidationGeneration != generation) {
+            ctx.mInvalidationGeneration = generation;
+            ctx.mLayerEngine.invalidate();
+        }
+        return ctx;
+    }
+
+    /**
+     * Mutable drawing state of one render thread.
+     */
+    private class RenderContext {
+        final LayerEngine mLayerEngine = new LayerEngine(mFaceDefinition, mResources, mAssetLoader, mOnAssetsLoaded, mAssetCache);
+        final FrameMetrics mFrameMetrics = new FrameMetrics();
+
+        final float[] mDirtyBounds = new float[4];
+
+        int mInvalidationGeneration = WatchFaceRenderer.this.mInvalidationGeneration;
+    }
+}
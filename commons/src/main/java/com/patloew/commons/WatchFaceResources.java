@@ -0,0 +1,249 @@
+package com.patloew.commons;
+
+/**
+ * Resolved dimensions (in pixels) and colors (as ARGB ints) of the watch face. On Android, they
+ * are read from the resources by {@link WatchFaceDrawer}, headless renderers can build them
+ * directly.
+ *
+ * Resources are compared by value, so renderers with equal resources share their assets in the
+ * {@link SharedAssetCache}.
+ */
+public final class WatchFaceResources {
+    private final float mHourOuterOffset;
+    private final float mMinuteOuterOffset;
+    private final float mSecondOuterOffset;
+    private final float mPreviewSquareRadius;
+    private final float mTickLength;
+    private final float mTickStroke;
+    private final float mNumeralTextSize;
+
+    private final float mSecondHandStroke;
+    private final float mMinuteHandStroke;
+    private final float mHourHandStroke;
+
+    private final int mBackgroundColor;
+    private final int mBackgroundLightColor;
+    private final int mPreviewBorderColor;
+    private final int mSecondHandColor;
+    private final int mMinuteHandColor;
+    private final int mHourHandColor;
+    private final int mLowBitAmbientHandColor;
+    private final int mDialColor;
+
+    private WatchFaceResources(Builder builder) {
+        mHourOuterOffset = builder.mHourOuterOffset;
+        mMinuteOuterOffset = builder.mMinuteOuterOffset;
+        mSecondOuterOffset = builder.mSecondOuterOffset;
+        mPreviewSquareRadius = builder.mPreviewSquareRadius;
+        mSecondHandStroke = builder.mSecondHandStroke;
+        mMinuteHandStroke = builder.mMinuteHandStroke;
+        mHourHandStroke = builder.mHourHandStroke;
+        mBackgroundColor = builder.mBackgroundColor;
+        mBackgroundLightColor = builder.mBackgroundLightColor;
+        mPreviewBorderColor = builder.mPreviewBorderColor;
+        mSecondHandColor = builder.mSecondHandColor;
+        mMinuteHandColor = builder.mMinuteHandColor;
+        mHourHandColor = builder.mHourHandColor;
+        mLowBitAmbientHandColor = builder.mLowBitAmbientHandColor;
+        mDialColor = builder.mDialColor;
+        mTickLength = builder.mTickLength;
+        mTickStroke = builder.mTickStroke;
+        mNumeralTextSize = builder.mNumeralTextSize;
+    }
+
+    public float getHourOuterOffset() {
+        return mHourOuterOffset;
+    }
+
+    public float getMinuteOuterOffset() {
+        return mMinuteOuterOffset;
+    }
+
+    public float getSecondOuterOffset() {
+        return mSecondOuterOffset;
+    }
+
+    public float getPreviewSquareRadius() {
+        return mPreviewSquareRadius;
+    }
+
+    public float getSecondHandStroke() {
+        return mSecondHandStroke;
+    }
+
+    public float getMinuteHandStroke() {
+        return mMinuteHandStroke;
+    }
+
+    public float getHourHandStroke() {
+        return mHourHandStroke;
+    }
+
+    public int getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    public int getBackgroundLightColor() {
+        return mBackgroundLightColor;
+    }
+
+    public int getPreviewBorderColor() {
+        return mPreviewBorderColor;
+    }
+
+    public int getSecondHandColor() {
+        return mSecondHandColor;
+    }
+
+    public int getMinuteHandColor() {
+        return mMinuteHandColor;
+    }
+
+    public int getHourHandColor() {
+        return mHourHandColor;
+    }
+
+    public int getLowBitAmbientHandColor() {
+        return mLowBitAmbientHandColor;
+    }
+
+    public int getDialColor() {
+        return mDialColor;
+    }
+
+    /** @return the length of the minute ticks, the hour ticks are twice as long */
+    public float getTickLength() {
+        return mTickLength;
+    }
+
+    public float getTickStroke() {
+        return mTickStroke;
+    }
+
+    public float getNumeralTextSize() {
+        return mNumeralTextSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) { return true; }
+        if(!(o instanceof WatchFaceResources)) { return false; }
+        final WatchFaceResources other = (WatchFaceResources) o;
+        return Float.compare(mHourOuterOffset, other.mHourOuterOffset) == 0
+                && Float.compare(mMinuteOuterOffset, other.mMinuteOuterOffset) == 0
+                && Float.compare(mSecondOuterOffset, other.mSecondOuterOffset) == 0
+                && Float.compare(mPreviewSquareRadius, other.mPreviewSquareRadius) == 0
+                && Float.compare(mTickLength, other.mTickLength) == 0
+                && Float.compare(mTickStroke, other.mTickStroke) == 0
+                && Float.compare(mNumeralTextSize, other.mNumeralTextSize) == 0
+                && Float.compare(mSecondHandStroke, other.mSecondHandStroke) == 0
+                && Float.compare(mMinuteHandStroke, other.mMinuteHandStroke) == 0
+                && Float.compare(mHourHandStroke, other.mHourHandStroke) == 0
+                && mBackgroundColor == other.mBackgroundColor
+                && mBackgroundLightColor == other.mBackgroundLightColor
+                && mPreviewBorderColor == other.mPreviewBorderColor
+                && mSecondHandColor == other.mSecondHandColor
+                && mMinuteHandColor == other.mMinuteHandColor
+                && mHourHandColor == other.mHourHandColor
+                && mLowBitAmbientHandColor == other.mLowBitAmbientHandColor
+                && mDialColor == other.mDialColor;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        result = 31 * result + Float.floatToIntBits(mHourOuterOffset);
+        result = 31 * result + Float.floatToIntBits(mMinuteOuterOffset);
+        result = 31 * result + Float.floatToIntBits(mSecondOuterOffset);
+        result = 31 * result + Float.floatToIntBits(mPreviewSquareRadius);
+        result = 31 * result + Float.floatToIntBits(mTickLength);
+        result = 31 * result + Float.floatToIntBits(mTickStroke);
+        result = 31 * result + Float.floatToIntBits(mNumeralTextSize);
+        result = 31 * result + Float.floatToIntBits(mSecondHandStroke);
+        result = 31 * result + Float.floatToIntBits(mMinuteHandStroke);
+        result = 31 * result + Float.floatToIntBits(mHourHandStroke);
+        result = 31 * result + mBackgroundColor;
+        result = 31 * result + mBackgroundLightColor;
+        result = 31 * result + mPreviewBorderColor;
+        result = 31 * result + mSecondHandColor;
+        result = 31 * result + mMinuteHandColor;
+        result = 31 * result + mHourHandColor;
+        result = 31 * result + mLowBitAmbientHandColor;
+        result = 31 * result + mDialColor;
+        return result;
+    }
+
+    public static class Builder {
+        private float mHourOuterOffset;
+        private float mMinuteOuterOffset;
+        private float mSecondOuterOffset;
+        private float mPreviewSquareRadius;
+
+        private float mSecondHandStroke;
+        private float mMinuteHandStroke;
+        private float mHourHandStroke;
+
+        private int mBackgroundColor;
+        private int mBackgroundLightColor;
+        private int mPreviewBorderColor;
+        private int mSecondHandColor;
+        private int mMinuteHandColor;
+        private int mHourHandColor;
+        private int mLowBitAmbientHandColor;
+
+        private int mDialColor;
+        private float mTickLength;
+        private float mTickStroke;
+        private float mNumeralTextSize;
+
+        public Builder setHandOuterOffsets(float hourOuterOffset, float minuteOuterOffset, float secondOuterOffset) {
+            mHourOuterOffset = hourOuterOffset;
+            mMinuteOuterOffset = minuteOuterOffset;
+            mSecondOuterOffset = secondOuterOffset;
+            return this;
+        }
+
+        public Builder setHandStrokes(float hourHandStroke, float minuteHandStroke, float secondHandStroke) {
+            mHourHandStroke = hourHandStroke;
+            mMinuteHandStroke = minuteHandStroke;
+            mSecondHandStroke = secondHandStroke;
+            return this;
+        }
+
+        public Builder setHandColors(int hourHandColor, int minuteHandColor, int secondHandColor) {
+            mHourHandColor = hourHandColor;
+            mMinuteHandColor = minuteHandColor;
+            mSecondHandColor = secondHandColor;
+            return this;
+        }
+
+        public Builder setLowBitAmbientHandColor(int lowBitAmbientHandColor) {
+            mLowBitAmbientHandColor = lowBitAmbientHandColor;
+            return this;
+        }
+
+        public Builder setBackgroundColors(int backgroundColor, int backgroundLightColor) {
+            mBackgroundColor = backgroundColor;
+            mBackgroundLightColor = backgroundLightColor;
+            return this;
+        }
+
+        public Builder setPreviewBorder(int previewBorderColor, float previewSquareRadius) {
+            mPreviewBorderColor = previewBorderColor;
+            mPreviewSquareRadius = previewSquareRadius;
+            return this;
+        }
+
+        public Builder setDial(int dialColor, float tickLength, float tickStroke, float numeralTextSize) {
+            mDialColor = dialColor;
+            mTickLength = tickLength;
+            mTickStroke = tickStroke;
+            mNumeralTextSize = numeralTextSize;
+            return this;
+        }
+
+        public WatchFaceResources build() {
+            return new WatchFaceResources(this);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.patloew.commons;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * State and tick logic of a running watch face, independent of the Android engine: visibility,
+ * ambient mode, time zone, display properties and the timer which draws the frames of the second
+ * hand in interactive mode.
+ *
+ * All frames are scheduled by a {@link TickScheduler}, so the timer frames and the repaints after
+ * state changes are merged into one draw per deadline.
+ *
+ * Time and timer come from an injected {@link Clock} and {@link Scheduler}. On the watch, these
+ * are the system clock and the display vsync. Off-device, a {@link VirtualClock} drives the same
+ * logic at full speed. All inputs can be recorded into a {@link SessionTrace} and replayed with a
+ * {@link SessionReplayer}, so scheduling and rendering can be measured with the same input on
+ * every run.
+ *
+ * The session is the {@link IWatchFaceConfig} the frames are drawn with. Must be used on one
+ * thread, usually the main thread.
+ */
+public class WatchFaceSession implements IWatchFaceConfig {
+
+    /** Draws the frames of the session. */
+    public interface Host {
+        /**
+         * Draws a frame with the current state of the session.
+         *
+         * @param fullFrame true if the whole face has to be repainted, e.g. after an ambient mode
+         * change. Otherwise it's a frame of the timer: usually only the second hand moved, so only
+         * the region which changed has to be redrawn.
+         */
+        void drawFrame(boolean fullFrame);
+    }
+
+    private final Clock mClock;
+    private final TickScheduler mTicks;
+    private final Host mHost;
+    private final WatchFaceTime mTime = new WatchFaceTime();
+    private final GregorianCalendar mCalendar = new GregorianCalendar();
+
+    private SessionTrace.Recorder mRecorder;
+
+    private int mWidth = 0;
+    private int mHeight = 0;
+    private boolean mRound = false;
+    private boolean mLowBitAmbient = false;
+    private boolean mBurnInProtection = false;
+    private boolean mLightTheme = false;
+    private boolean mVisible = false;
+    private boolean mAmbient = false;
+    private int mFps = 1;
+    private RenderQuality mQuality = RenderQuality.FULL;
+
+    private long mFrameCount = 0;
+    private long mInvalidationCount = 0;
+
+    private final TickScheduler.Callback mTickCallback = new TickScheduler.Callback() {
+        @Override
+        public void onFrame(boolean fullFrame) {
+            if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_FRAME, fullFrame ? 1 : 0); }
+            mFrameCount++;
+            updateTime();
+            mHost.drawFrame(fullFrame);
+        }
+    };
+
+    public WatchFaceSession(Clock clock, Scheduler scheduler, Host host) {
+        mClock = clock;
+        mTicks = new TickScheduler(clock, scheduler, mTickCallback);
+        mHost = host;
+        updateTime();
+    }
+
+    public Clock getClock() {
+        return mClock;
+    }
+
+    /**
+     * Records all inputs from now on, e.g. in debug builds.
+     *
+     * @param recorder recorder using the clock of this session, or null to stop recording
+     */
+    public void setRecorder(SessionTrace.Recorder recorder) {
+        mRecorder = recorder;
+        if(recorder != null) {
+            // the current state, so the trace can be replayed on its own
+            recorder.record(SessionTrace.TYPE_TIME_ZONE, 0, mTime.getTimeZone().getID());
+            recorder.record(SessionTrace.TYPE_TIME_ZONE, 1, secondaryTimeZoneId());
+            recorder.record(SessionTrace.TYPE_SURFACE_SIZE, 0, 2, mWidth, mHeight);
+            recorder.record(SessionTrace.TYPE_ROUND, mRound ? 1 : 0);
+            recorder.record(SessionTrace.TYPE_PROPERTIES, propertyFlags());
+            recorder.record(SessionTrace.TYPE_LIGHT_THEME, mLightTheme ? 1 : 0);
+            recorder.record(SessionTrace.TYPE_RENDER_MODE, mQuality.ordinal(), 1, mFps, 0);
+            recorder.record(SessionTrace.TYPE_AMBIENT, mAmbient ? 1 : 0);
+            recorder.record(SessionTrace.TYPE_VISIBILITY, mVisible ? 1 : 0);
+        }
+    }
+
+    public SessionTrace.Recorder getRecorder() {
+        return mRecorder;
+    }
+
+    /**
+     * @param frameMetrics metrics which are told when the next timer frame is due, or null. Only
+     * useful with the system clock, the metrics measure with {@link System#nanoTime()}.
+     */
+    public void setFrameMetrics(FrameMetrics frameMetrics) {
+        mTicks.setFrameMetrics(frameMetrics);
+    }
+
+    /**
+     * @param stats stats to write into, so that they can be reused
+     * @return how far the timer frames drifted from their deadlines
+     */
+    public TickScheduler.Stats getTickStats(TickScheduler.Stats stats) {
+        return mTicks.getStats(stats);
+    }
+
+    /** Sets the time to the current time of the clock, e.g. before drawing a frame. */
+    public void updateTime() {
+        mTime.setTimeInMillis(mClock.currentTimeMillis());
+    }
+
+    public void setSurfaceSize(int width, int height) {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_SURFACE_SIZE, 0, 2, width, height); }
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public void setRound(boolean round) {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_ROUND, round ? 1 : 0); }
+        mRound = round;
+    }
+
+    public void setProperties(boolean lowBitAmbient, boolean burnInProtection) {
+        mLowBitAmbient = lowBitAmbient;
+        mBurnInProtection = burnInProtection;
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_PROPERTIES, propertyFlags()); }
+    }
+
+    public void setLightTheme(boolean lightTheme) {
+        if(mLightTheme != lightTheme) {
+            if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_LIGHT_THEME, lightTheme ? 1 : 0); }
+            mLightTheme = lightTheme;
+            invalidateFace();
+        }
+    }
+
+    /**
+     * Sets the rate and quality of the interactive mode, e.g. from a {@link RenderGovernor}.
+     *
+     * @param fps 0 if no timer is needed, 1 for a ticking or more for a sweeping second hand
+     */
+    public void setRenderMode(int fps, RenderQuality quality) {
+        if(mFps != fps || mQuality != quality) {
+            if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_RENDER_MODE, quality.ordinal(), 1, fps, 0); }
+            mFps = fps;
+            mQuality = quality;
+            updateTimer();
+            invalidateFace();
+        }
+    }
+
+    public void setVisible(boolean visible) {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_VISIBILITY, visible ? 1 : 0); }
+        mVisible = visible;
+        // whether the timer should be running depends on whether we're visible
+        updateTimer();
+    }
+
+    public void setAmbient(boolean ambient) {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_AMBIENT, ambient ? 1 : 0); }
+        if(mAmbient != ambient) {
+            mAmbient = ambient;
+            invalidateFace();
+        }
+        updateTimer();
+    }
+
+    public void setTimeZone(TimeZone timeZone) {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_TIME_ZONE, 0, timeZone.getID()); }
+        mTime.setTimeZone(timeZone);
+        updateTime();
+    }
+
+    /**
+     * @param timeZone time zone of the dual time hand, or null for none
+     */
+    public void setSecondaryTimeZone(TimeZone timeZone) {
+        mTime.setSecondaryTimeZone(timeZone);
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_TIME_ZONE, 1, secondaryTimeZoneId()); }
+        updateTime();
+    }
+
+    private String secondaryTimeZoneId() {
+        final TimeZone timeZone = mTime.getSecondaryTimeZone();
+        return timeZone != null ? timeZone.getID() : "";
+    }
+
+    /** Called once a minute by the system, in all modes. */
+    public void onTimeTick() {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_TIME_TICK, 0); }
+        invalidateFace();
+    }
+
+    /**
+     * Requests a full repaint for a reason outside of the session, e.g. changed options. Must be
+     * called on the thread of the session.
+     */
+    public void invalidate() {
+        if(mRecorder != null) { mRecorder.record(SessionTrace.TYPE_INVALIDATE, 0); }
+        invalidateFace();
+    }
+
+    /** Stops the timer and drops pending frames, e.g. when the engine is destroyed. */
+    public void release() {
+        mTicks.release();
+        mVisible = false;
+    }
+
+    public boolean isVisible() {
+        return mVisible;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /** @return true if the timer draws the frames of the second hand */
+    public boolean isTimerRunning() {
+        return mTicks.isRunning();
+    }
+
+    /** @return the number of frames drawn, timer frames and full repaints */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /** @return the number of full repaints requested */
+    public long getInvalidationCount() {
+        return mInvalidationCount;
+    }
+
+    private int propertyFlags() {
+        return (mLowBitAmbient ? SessionTrace.FLAG_LOW_BIT_AMBIENT : 0)
+                | (mBurnInProtection ? SessionTrace.FLAG_BURN_IN_PROTECTION : 0);
+    }
+
+    private void invalidateFace() {
+        mInvalidationCount++;
+        mTicks.requestFullFrame();
+    }
+
+    /**
+     * The timer should only run when we're visible and in interactive mode, and the render mode
+     * did not hide the second hand.
+     */
+    private boolean shouldTimerBeRunning() {
+        return mVisible && !mAmbient && mFps > 0;
+    }
+
+    /**
+     * Starts the timer if it should be running or stops it if it shouldn't be running. A started
+     * timer draws its first frame right away, a running one keeps its deadline.
+     */
+    private void updateTimer() {
+        if(shouldTimerBeRunning()) {
+            // the second hand moves in sync with the wall clock
+            mTicks.start(getSecondHandFps());
+        } else {
+            mTicks.stop();
+        }
+    }
+
+
+    // IWatchFaceConfig
+
+    @Override
+    public WatchFaceTime getTime() {
+        return mTime;
+    }
+
+    @Override
+    public Calendar getCalendar() {
+        return mTime.toCalendar(mCalendar);
+    }
+
+    @Override
+    public boolean isAmbient() {
+        return mAmbient;
+    }
+
+    @Override
+    public boolean isLowBitAmbient() {
+        return mLowBitAmbient;
+    }
+
+    @Override
+    public boolean isBurnInProtection() {
+        return mBurnInProtection;
+    }
+
+    @Override
+    public boolean isRound() {
+        return mRound;
+    }
+
+    @Override
+    public int getSecondHandFps() {
+        if(mAmbient) {
+            return 1;
+        }
+        return Math.max(1, mFps);
+    }
+
+    @Override
+    public RenderQuality getRenderQuality() {
+        return mAmbient ? RenderQuality.FULL : mQuality;
+    }
+
+    @Override
+    public boolean isLightTheme() {
+        return mLightTheme;
+    }
+}
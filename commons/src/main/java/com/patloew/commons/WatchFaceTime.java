@@ -0,0 +1,193 @@
+package com.patloew.commons;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Cheap replacement for {@link Calendar} in the drawing code. The local time of day is split into
+ * primitive hour/minute/second fields with a few integer operations, instead of the full field
+ * computation done by {@link Calendar#get(int)}.
+ *
+ * The transitions of the UTC offset are precomputed into {@link TimeZoneTransitions} when the
+ * time zone is set, so a frame only checks whether its time is still in the span of the cached
+ * offset. The table is only computed again when the time zone changes or the time leaves it,
+ * about once a year.
+ *
+ * A secondary time zone, e.g. for a dual time hand, is handled the same way. Its time of day is
+ * one more add and modulo per frame.
+ */
+public class WatchFaceTime {
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private final ZoneOffset mZone = new ZoneOffset();
+    private final ZoneOffset mSecondaryZone = new ZoneOffset();
+
+    private boolean mTimeSet = false;
+    private long mTimeInMillis;
+    private int mMillisOfDay;
+    private int mHour;
+    private int mMinute;
+    private int mSecond;
+    private int mMillis;
+    // -1 without a secondary time zone
+    private int mSecondaryMillisOfDay = -1;
+
+    public WatchFaceTime() {
+        this(TimeZone.getDefault());
+    }
+
+    public WatchFaceTime(TimeZone timeZone) {
+        mZone.setTimeZone(timeZone);
+    }
+
+    public TimeZone getTimeZone() {
+        return mZone.mTimeZone;
+    }
+
+    /**
+     * Sets the time zone and recomputes the fields for the current time. The transitions are only
+     * computed again if the time zone has other rules than the current one.
+     */
+    public void setTimeZone(TimeZone timeZone) {
+        mZone.setTimeZone(timeZone);
+        updateFields();
+    }
+
+    public TimeZone getSecondaryTimeZone() {
+        return mSecondaryZone.mTimeZone;
+    }
+
+    /**
+     * Sets a second time zone whose time of day is computed with every time, e.g. for a dual time
+     * hand.
+     *
+     * @param timeZone the time zone, or null for none
+     */
+    public void setSecondaryTimeZone(TimeZone timeZone) {
+        mSecondaryZone.setTimeZone(timeZone);
+        updateFields();
+    }
+
+    private void updateFields() {
+        // before the first time, there is nothing to compute the transitions for
+        if(mTimeSet) {
+            setTimeInMillis(mTimeInMillis);
+        }
+    }
+
+    public void setToNow() {
+        setTimeInMillis(System.currentTimeMillis());
+    }
+
+    public void setTimeInMillis(long timeInMillis) {
+        mTimeSet = true;
+        mTimeInMillis = timeInMillis;
+
+        if(mSecondaryZone.mTimeZone != null) {
+            mSecondaryMillisOfDay = (int) floorMod(timeInMillis + mSecondaryZone.getOffset(timeInMillis), MILLIS_PER_DAY);
+        } else {
+            mSecondaryMillisOfDay = -1;
+        }
+
+        int millisOfDay = (int) floorMod(timeInMillis + mZone.getOffset(timeInMillis), MILLIS_PER_DAY);
+        mMillisOfDay = millisOfDay;
+        mHour = (int) (millisOfDay / MILLIS_PER_HOUR);
+        millisOfDay -= mHour * MILLIS_PER_HOUR;
+        mMinute = (int) (millisOfDay / MILLIS_PER_MINUTE);
+        millisOfDay -= mMinute * MILLIS_PER_MINUTE;
+        mSecond = (int) (millisOfDay / MILLIS_PER_SECOND);
+        mMillis = (int) (millisOfDay - mSecond * MILLIS_PER_SECOND);
+    }
+
+    private static long floorMod(long x, long y) {
+        long mod = x % y;
+        return mod < 0 ? mod + y : mod;
+    }
+
+    /** @return the UTC time in milliseconds, as set by {@link #setTimeInMillis(long)} */
+    public long getTimeInMillis() {
+        return mTimeInMillis;
+    }
+
+    /** @return the milliseconds since local midnight */
+    public int getMillisOfDay() {
+        return mMillisOfDay;
+    }
+
+    /** @return the hour of the day (0-23) */
+    public int getHour() {
+        return mHour;
+    }
+
+    /** @return the hour in 12h format (0-11), like {@link Calendar#HOUR} */
+    public int getHour12() {
+        return mHour % 12;
+    }
+
+    public int getMinute() {
+        return mMinute;
+    }
+
+    public int getSecond() {
+        return mSecond;
+    }
+
+    public int getMillis() {
+        return mMillis;
+    }
+
+    /** @return the milliseconds since midnight in the secondary time zone, or -1 without one */
+    public int getSecondaryMillisOfDay() {
+        return mSecondaryMillisOfDay;
+    }
+
+    /**
+     * Sets time and time zone of the given calendar to the ones of this time. Use this where a
+     * {@link Calendar} is still needed, not in the drawing code.
+     */
+    public Calendar toCalendar(Calendar calendar) {
+        final TimeZone timeZone = mZone.mTimeZone;
+        if(!calendar.getTimeZone().equals(timeZone)) {
+            calendar.setTimeZone(timeZone);
+        }
+        calendar.setTimeInMillis(mTimeInMillis);
+        return calendar;
+    }
+
+    /**
+     * The UTC offset of a time zone, cached for the span between two of its transitions.
+     */
+    private static final class ZoneOffset {
+        TimeZone mTimeZone;
+        private TimeZoneTransitions mTransitions;
+        private int mOffset;
+        private long mValidFrom = Long.MAX_VALUE;
+        private long mValidUntil = Long.MIN_VALUE;
+
+        void setTimeZone(TimeZone timeZone) {
+            if(timeZone != null && mTimeZone != null && timeZone.getID().equals(mTimeZone.getID()) && timeZone.hasSameRules(mTimeZone)) {
+                return;
+            }
+            mTimeZone = timeZone;
+            mTransitions = null;
+            mValidFrom = Long.MAX_VALUE;
+            mValidUntil = Long.MIN_VALUE;
+        }
+
+        int getOffset(long timeInMillis) {
+            if(timeInMillis < mValidFrom || timeInMillis >= mValidUntil) {
+                if(mTransitions == null || !mTransitions.covers(timeInMillis)) {
+                    mTransitions = TimeZoneTransitions.compute(mTimeZone, timeInMillis);
+                }
+                final int index = mTransitions.indexOf(timeInMillis);
+                mOffset = mTransitions.getSpanOffset(index);
+                mValidFrom = mTransitions.getSpanStart(index);
+                mValidUntil = mTransitions.getSpanEnd(index);
+            }
+            return mOffset;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.patloew.commons;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.ResultCallback;
+import com.google.android.gms.wearable.MessageApi;
+import com.google.android.gms.wearable.MessageEvent;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.NodeApi;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ConfigTransport} over the Wearable MessageApi. Messages are sent to all connected nodes.
+ * Messages sent before the client is connected are queued and sent once it is.
+ *
+ * Must be used on the main thread.
+ */
+public class WearableConfigTransport implements ConfigTransport, MessageApi.MessageListener, GoogleApiClient.ConnectionCallbacks {
+    public static final String PATH = "/watchface/config";
+
+    private final GoogleApiClient mGoogleApiClient;
+    private final List<byte[]> mQueue = new ArrayList<>();
+    private Listener mListener;
+
+    public WearableConfigTransport(Context context) {
+        mGoogleApiClient = new GoogleApiClient.Builder(context.getApplicationContext())
+                .addApi(Wearable.API)
+                .addConnectionCallbacks(this)
+                .build();
+    }
+
+    public void connect() {
+        mGoogleApiClient.connect();
+    }
+
+    public void disconnect() {
+        if(mGoogleApiClient.isConnected()) {
+            Wearable.MessageApi.removeListener(mGoogleApiClient, this);
+        }
+        mGoogleApiClient.disconnect();
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        mQueue.add(payload);
+        if(mGoogleApiClient.isConnected()) {
+            sendQueue();
+        }
+    }
+
+    private void sendQueue() {
+        if(mQueue.isEmpty()) {
+            return;
+        }
+        final byte[][] payloads = mQueue.toArray(new byte[mQueue.size()][]);
+        mQueue.clear();
+
+        Wearable.NodeApi.getConnectedNodes(mGoogleApiClient).setResultCallback(new ResultCallback<NodeApi.GetConnectedNodesResult>() {
+            @Override
+            public void onResult(NodeApi.GetConnectedNodesResult result) {
+                for(Node node : result.getNodes()) {
+                    for(byte[] payload : payloads) {
+                        Wearable.MessageApi.sendMessage(mGoogleApiClient, node.getId(), PATH, payload);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onConnected(Bundle connectionHint) {
+        Wearable.MessageApi.addListener(mGoogleApiClient, this);
+        sendQueue();
+    }
+
+    @Override
+    public void onConnectionSuspended(int cause) { }
+
+    @Override
+    public void onMessageReceived(MessageEvent messageEvent) {
+        if(mListener != null && PATH.equals(messageEvent.getPath())) {
+            mListener.onReceive(messageEvent.getData());
+        }
+    }
+}
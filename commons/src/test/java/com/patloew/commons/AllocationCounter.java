@@ -0,0 +1,26 @@
+package com.patloew.commons;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread, using the HotSpot specific
+ * {@link com.sun.management.ThreadMXBean}.
+ */
+public class AllocationCounter {
+    private final com.sun.management.ThreadMXBean mThreadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long mStart;
+
+    public AllocationCounter() {
+        mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public void start() {
+        mStart = mThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public long stop() {
+        return mThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - mStart;
+    }
+}
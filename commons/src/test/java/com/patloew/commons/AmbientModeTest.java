@@ -0,0 +1,179 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AmbientModeTest {
+    private static final WatchFaceResources RESOURCES = new WatchFaceResources.Builder()
+            .setHandOuterOffsets(60f, 37.5f, 15f)
+            .setHandStrokes(7.5f, 4.5f, 2.25f)
+            .setHandColors(0xFF4DC57B, 0xFF2881FD, 0xFFCC0A00)
+            .setLowBitAmbientHandColor(0xFFFFFFFF)
+            .setBackgroundColors(0xFF101010, 0xFFFFFFFF)
+            .setPreviewBorder(0xFF808080, 12f)
+            .setDial(0xFF808080, 7.5f, 1.5f, 21f)
+            .build();
+
+    private static final HandStyle STYLE = new HandStyle.Builder()
+            .setWidths(2f, 1f)
+            .setShadow(0x40000000, 0.5f, 1f)
+            .build();
+
+    private static final FaceDefinition FACE = new FaceDefinition.Builder()
+            .addBackground()
+            .addTickRing()
+            .addHands(STYLE, STYLE)
+            .addSecondHand(STYLE)
+            .build();
+
+    private TestWatchFaceConfig mConfig;
+    private WatchFaceRenderer mRenderer;
+
+    @Before
+    public void setUp() {
+        mConfig = new TestWatchFaceConfig();
+        mConfig.time.setTimeInMillis(1451653384567L); // 2016-01-01T13:03:04.567Z
+        mConfig.ambient = true;
+        mConfig.lowBitAmbient = true;
+        mRenderer = new WatchFaceRenderer(RESOURCES, FACE);
+    }
+
+    private void draw(RecordingDrawSurface surface) {
+        final RenderState state = RenderState.obtain(mConfig, 320, 320);
+        mRenderer.onDraw(state, surface);
+        state.recycle();
+    }
+
+    @Test
+    public void quantize() {
+        assertEquals(0xFFFF0000, AmbientMode.quantize(0xFFCC0A00));
+        assertEquals(0xFF00FF00, AmbientMode.quantize(0xFF4DC57B));
+        assertEquals(0xFFFFFFFF, AmbientMode.quantize(0x80808080));
+        assertEquals(0xFF000000, AmbientMode.quantize(0x00000000));
+    }
+
+    @Test
+    public void shiftPattern_isBoundedAndMovesToNeighbours() {
+        for(int i = 0; i < AmbientMode.SHIFT_PATTERN_LENGTH; i++) {
+            final int next = (i + 1) % AmbientMode.SHIFT_PATTERN_LENGTH;
+            assertTrue(Math.abs(AmbientMode.getShiftX(i)) <= AmbientMode.MAX_SHIFT);
+            assertTrue(Math.abs(AmbientMode.getShiftY(i)) <= AmbientMode.MAX_SHIFT);
+            assertTrue(Math.abs(AmbientMode.getShiftX(next) - AmbientMode.getShiftX(i)) <= AmbientMode.MAX_SHIFT);
+            assertTrue(Math.abs(AmbientMode.getShiftY(next) - AmbientMode.getShiftY(i)) <= AmbientMode.MAX_SHIFT);
+        }
+        assertEquals(0, AmbientMode.getShiftIndex(0, 0));
+        assertEquals(1, AmbientMode.getShiftIndex(0, 1));
+        assertEquals((13 * 60 + 3) % AmbientMode.SHIFT_PATTERN_LENGTH, AmbientMode.getShiftIndex(13, 3));
+    }
+
+    @Test
+    public void lowBit_drawsFaceLayersInReducedColorsWithoutAntiAliasing() {
+        final RecordingDrawSurface surface = new RecordingDrawSurface(320, 320);
+        draw(surface);
+
+        assertEquals(Arrays.asList("layer 320x320 0.0 0.0"), surface.calls);
+        final List<String> calls = cacheGroupCalls(surface);
+        assertTrue(calls.contains("rect 0.0 0.0 320.0 320.0 #FF000000 0.0"));
+        // the tick ring is part of the ambient face, the styled hands are lines
+        assertEquals(2, count(calls, "lines "));
+        assertEquals(2, count(calls, "line "));
+        assertEquals(0, count(calls, "polygon "));
+        for(String call : calls) {
+            assertFalse(call, call.endsWith(" aa"));
+            if(call.startsWith("line ")) {
+                final String[] line = call.split(" ");
+                assertEquals("#FFFFFFFF", line[5]);
+                for(int c = 1; c < 5; c++) {
+                    final float value = Float.parseFloat(line[c]);
+                    assertEquals(Math.round(value), value, 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void burnInProtection_shiftsWithoutRenderingLayersAgain() {
+        mConfig.lowBitAmbient = false;
+        mConfig.burnInProtection = true;
+        final RecordingDrawSurface surface = new RecordingDrawSurface(320, 320);
+
+        for(int minute = 0; minute < AmbientMode.SHIFT_PATTERN_LENGTH; minute++) {
+            mConfig.time.setTimeInMillis(minute * 60000L);
+            surface.calls.clear();
+            draw(surface);
+
+            final int shiftX = AmbientMode.getShiftX(minute);
+            final int shiftY = AmbientMode.getShiftY(minute);
+            final int edges = (shiftX != 0 ? 1 : 0) + (shiftY != 0 ? 1 : 0);
+            assertEquals(edges, count(surface.calls, "rect "));
+            assertEquals("translate " + (float) shiftX + " " + (float) shiftY, surface.calls.get(edges + 1));
+            assertEquals("layer 320x320 0.0 0.0", surface.calls.get(edges + 2));
+        }
+
+        // the background with the tick ring and the hands on top, and the sprites and shadows of
+        // the three hands, which are rasterized on the first frame
+        assertEquals(2 + 6, surface.layersCreated);
+    }
+
+    @Test
+    public void plainAmbient_isNotShifted() {
+        mConfig.lowBitAmbient = false;
+        final RecordingDrawSurface surface = new RecordingDrawSurface(320, 320);
+        draw(surface);
+
+        assertEquals(Arrays.asList("layer 320x320 0.0 0.0"), surface.calls);
+    }
+
+    @Test
+    public void mobilePreview_isNotShifted() {
+        mConfig.burnInProtection = true;
+        mConfig.time.setTimeInMillis(60000L);
+        mRenderer.setMobilePreview(true);
+        final RecordingDrawSurface surface = new RecordingDrawSurface(320, 320);
+        draw(surface);
+
+        // 00:01 would be shifted by (2, 0)
+        assertFalse(surface.calls.contains("translate 2.0 0.0"));
+    }
+
+    @Test
+    public void lowBitAfterInteractive_reusesLayers() {
+        final RecordingDrawSurface surface = new RecordingDrawSurface(320, 320);
+        for(boolean ambient : new boolean[] { false, true, false }) {
+            mConfig.ambient = ambient;
+            draw(surface);
+        }
+
+        // the two cached groups, and the sprites and shadows of the three hands
+        assertEquals(2 + 6, surface.layersCreated);
+    }
+
+    /**
+     * @return the calls drawing the face, without the ones rasterizing the hand sprites
+     */
+    private static List<String> cacheGroupCalls(RecordingDrawSurface surface) {
+        final List<String> calls = new ArrayList<>(surface.calls);
+        for(RecordingDrawSurface layerSurface : surface.layerSurfaces) {
+            if(layerSurface.getWidth() == surface.getWidth() && layerSurface.getHeight() == surface.getHeight()) {
+                calls.addAll(cacheGroupCalls(layerSurface));
+            }
+        }
+        return calls;
+    }
+
+    private static int count(List<String> calls, String prefix) {
+        int count = 0;
+        for(String call : calls) {
+            if(call.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
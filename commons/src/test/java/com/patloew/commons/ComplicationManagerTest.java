@@ -0,0 +1,206 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ComplicationManagerTest {
+    private static final WatchFaceResources RESOURCES = new WatchFaceResources.Builder()
+            .setHandOuterOffsets(60f, 37.5f, 15f)
+            .setHandStrokes(7.5f, 4.5f, 2.25f)
+            .setHandColors(0xFF4DC57B, 0xFF2881FD, 0xFFCC0A00)
+            .setLowBitAmbientHandColor(0xFFFFFFFF)
+            .setBackgroundColors(0xFF000000, 0xFFFFFFFF)
+            .setPreviewBorder(0xFF808080, 12f)
+            .setDial(0xFF808080, 7.5f, 1.5f, 20f)
+            .build();
+
+    private final List<Runnable> mQueue = new ArrayList<>();
+    private final Executor mExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mQueue.add(command);
+        }
+    };
+
+    private FakeProvider mProvider;
+    private ComplicationManager mComplications;
+    private int mChanges;
+
+    @Before
+    public void setUp() {
+        mProvider = new FakeProvider(60000);
+        mComplications = new ComplicationManager.Builder(mExecutor)
+                .add(mProvider, 0.5f, 0.75f)
+                .build();
+        mComplications.setListener(new ComplicationManager.Listener() {
+            @Override
+            public void onComplicationsChanged() {
+                mChanges++;
+            }
+        });
+    }
+
+    private void runQueue() {
+        final List<Runnable> tasks = new ArrayList<>(mQueue);
+        mQueue.clear();
+        for(Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void refresh_loadsInBackground() {
+        mProvider.data = new ComplicationData("42");
+        mComplications.refresh(0);
+        assertNull(mComplications.getSlot(0).getData());
+        assertEquals(0, mComplications.getVersion());
+
+        runQueue();
+        assertEquals(new ComplicationData("42"), mComplications.getSlot(0).getData());
+        assertEquals(1, mComplications.getVersion());
+        assertEquals(1, mChanges);
+    }
+
+    @Test
+    public void refresh_onlyAfterUpdateInterval() {
+        mComplications.refresh(0);
+        runQueue();
+        mComplications.refresh(59999);
+        assertTrue(mQueue.isEmpty());
+
+        mComplications.refresh(60000);
+        assertEquals(1, mQueue.size());
+        runQueue();
+        assertEquals(2, mProvider.loads);
+    }
+
+    @Test
+    public void refresh_skippedWhileLoading() {
+        mComplications.refreshAll(0);
+        mComplications.refreshAll(1);
+        assertEquals(1, mQueue.size());
+    }
+
+    @Test
+    public void unchangedData_keepsVersion() {
+        mProvider.data = new ComplicationData("42", "BPM");
+        mComplications.refreshAll(0);
+        runQueue();
+        mProvider.data = new ComplicationData("42", "BPM");
+        mComplications.refreshAll(1);
+        runQueue();
+
+        assertEquals(2, mProvider.loads);
+        assertEquals(1, mComplications.getVersion());
+        assertEquals(1, mChanges);
+    }
+
+    @Test
+    public void failingProvider_keepsLastData() {
+        mProvider.data = new ComplicationData("42");
+        mComplications.refreshAll(0);
+        runQueue();
+        mProvider.fail = true;
+        mComplications.refreshAll(1);
+        runQueue();
+
+        assertEquals(new ComplicationData("42"), mComplications.getSlot(0).getData());
+        // loading again is possible after a failure
+        mComplications.refreshAll(2);
+        assertEquals(1, mQueue.size());
+    }
+
+    @Test
+    public void layer_rendersTextOnlyWhenDataChanged() {
+        final FaceDefinition face = new FaceDefinition.Builder()
+                .addBackground()
+                .addComplications(mComplications)
+                .addSecondHand()
+                .build();
+        final LayerEngine engine = new LayerEngine(face, RESOURCES);
+        final RecordingDrawSurface surface = new RecordingDrawSurface(320, 320);
+        final TestWatchFaceConfig config = new TestWatchFaceConfig();
+        config.time.setTimeInMillis(1451653384567L);
+
+        mProvider.data = new ComplicationData("42", "BPM");
+        mComplications.refreshAll(0);
+        runQueue();
+
+        draw(engine, surface, config);
+        // the complications start from the background layer
+        final List<String> complicationCalls = surface.layerSurfaces.get(1).calls;
+        assertEquals(5, complicationCalls.size());
+        assertEquals("layer 320x320 0.0 0.0", complicationCalls.get(0));
+        assertEquals("text 42 160.0 240.0 #FF808080 0.0 aa", complicationCalls.get(2));
+        assertEquals("text BPM 160.0 260.0 #FF808080 0.0 aa", complicationCalls.get(3));
+
+        // other frames only blit the complication layer
+        complicationCalls.add("marker");
+        config.time.setTimeInMillis(config.time.getTimeInMillis() + 1000);
+        draw(engine, surface, config);
+        assertEquals(2, surface.calls.size());
+        assertEquals("layer 320x320 0.0 0.0", surface.calls.get(0));
+        assertEquals("marker", complicationCalls.get(5));
+
+        mProvider.data = new ComplicationData("43", "BPM");
+        mComplications.refreshAll(1);
+        runQueue();
+        final float[] bounds = new float[4];
+        final RenderState state = RenderState.obtain(config, 320, 320);
+        assertFalse(engine.getDirtyBounds(state, false, bounds));
+        state.recycle();
+        draw(engine, surface, config);
+        assertEquals("text 43 160.0 240.0 #FF808080 0.0 aa", complicationCalls.get(2));
+        assertEquals(2, surface.layersCreated);
+    }
+
+    @Test
+    public void dateProvider_formatsDayAndWeekday() {
+        // 2016-01-01T13:03:04Z, a friday
+        final ComplicationData data = DateComplicationProvider.format(1451653384567L, TimeZone.getTimeZone("UTC"), Locale.US);
+        assertEquals(new ComplicationData("1", "FRI"), data);
+
+        final ComplicationData nextDay = DateComplicationProvider.format(1451653384567L, TimeZone.getTimeZone("GMT+12:00"), Locale.US);
+        assertEquals(new ComplicationData("2", "SAT"), nextDay);
+    }
+
+    private static void draw(LayerEngine engine, RecordingDrawSurface surface, TestWatchFaceConfig config) {
+        final RenderState state = RenderState.obtain(config, 320, 320);
+        surface.calls.clear();
+        engine.onDraw(state, surface, false);
+        state.recycle();
+    }
+
+    private static class FakeProvider implements ComplicationProvider {
+        final long updateIntervalMillis;
+        ComplicationData data;
+        boolean fail = false;
+        int loads = 0;
+
+        FakeProvider(long updateIntervalMillis) {
+            this.updateIntervalMillis = updateIntervalMillis;
+        }
+
+        @Override
+        public ComplicationData load() {
+            loads++;
+            if(fail) {
+                throw new IllegalStateException("no connection");
+            }
+            return data;
+        }
+
+        @Override
+        public long getUpdateIntervalMillis() {
+            return updateIntervalMillis;
+        }
+    }
+}
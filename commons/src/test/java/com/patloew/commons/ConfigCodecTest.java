@@ -0,0 +1,104 @@
+package com.patloew.commons;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConfigCodecTest {
+    private final ConfigCodec.Message mMessage = new ConfigCodec.Message();
+
+    @Test
+    public void full_roundTrip() {
+        final WatchFaceOptions options = new WatchFaceOptions();
+        options.setLightTheme(false);
+        options.setSecondHandFps(30);
+
+        final WatchFaceOptions decoded = new WatchFaceOptions();
+        ConfigCodec.decode(ConfigCodec.encodeFull(70000, options), decoded, mMessage);
+
+        assertEquals(options, decoded);
+        assertEquals(ConfigCodec.TYPE_FULL, mMessage.type);
+        assertEquals(70000, mMessage.seq);
+        assertEquals(WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_LIGHT_THEME) | WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_SECOND_HAND_FPS), mMessage.changedFields);
+    }
+
+    @Test
+    public void full_unchangedFields() {
+        final WatchFaceOptions options = new WatchFaceOptions();
+        ConfigCodec.decode(ConfigCodec.encodeFull(1, options), new WatchFaceOptions(), mMessage);
+        assertEquals(0, mMessage.changedFields);
+    }
+
+    @Test
+    public void delta_onlyChangedFields() {
+        final WatchFaceOptions base = new WatchFaceOptions();
+        final WatchFaceOptions options = new WatchFaceOptions(base);
+        options.setSecondHandFps(30);
+
+        final byte[] delta = ConfigCodec.encodeDelta(101, 100, base, options);
+        assertTrue(delta.length < ConfigCodec.encodeFull(101, options).length);
+        assertTrue(delta.length <= 7);
+
+        final WatchFaceOptions decoded = new WatchFaceOptions(base);
+        ConfigCodec.decode(delta, decoded, mMessage);
+        assertEquals(options, decoded);
+        assertEquals(ConfigCodec.TYPE_DELTA, mMessage.type);
+        assertEquals(101, mMessage.seq);
+        assertEquals(100, mMessage.baseSeq);
+        assertEquals(WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_SECOND_HAND_FPS), mMessage.changedFields);
+    }
+
+    @Test
+    public void delta_nothingChanged() {
+        final WatchFaceOptions options = new WatchFaceOptions();
+        assertNull(ConfigCodec.encodeDelta(2, 1, options, new WatchFaceOptions(options)));
+    }
+
+    @Test
+    public void decode_negativeValue() {
+        final WatchFaceOptions options = new WatchFaceOptions();
+        options.setSecondHandFps(-5);
+        final WatchFaceOptions decoded = new WatchFaceOptions();
+        ConfigCodec.decode(ConfigCodec.encodeFull(1, options), decoded, mMessage);
+        assertEquals(-5, decoded.getSecondHandFps());
+    }
+
+    @Test
+    public void decode_skipsUnknownFields() {
+        // full, seq 1, unknown varint field 9 = 300, unknown bytes field 10 of length 2, fps = 30
+        final byte[] payload = { ConfigCodec.TYPE_FULL, 1, 9 << 3, (byte) 0xD8, 0x04, 10 << 3 | 2, 2, 0x11, 0x22, 2 << 3, 60 };
+        final WatchFaceOptions decoded = new WatchFaceOptions();
+        ConfigCodec.decode(payload, decoded, mMessage);
+        assertEquals(30, decoded.getSecondHandFps());
+        assertEquals(WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_SECOND_HAND_FPS), mMessage.changedFields);
+    }
+
+    @Test
+    public void decode_resyncRequest() {
+        ConfigCodec.decode(ConfigCodec.encodeResyncRequest(), new WatchFaceOptions(), mMessage);
+        assertEquals(ConfigCodec.TYPE_RESYNC_REQUEST, mMessage.type);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_empty() {
+        ConfigCodec.decode(new byte[0], new WatchFaceOptions(), mMessage);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_unknownType() {
+        ConfigCodec.decode(new byte[] { 42, 1 }, new WatchFaceOptions(), mMessage);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_truncated() {
+        final byte[] full = ConfigCodec.encodeFull(1, new WatchFaceOptions());
+        final byte[] truncated = new byte[full.length - 1];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+        ConfigCodec.decode(truncated, new WatchFaceOptions(), mMessage);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_truncatedBytesField() {
+        ConfigCodec.decode(new byte[] { ConfigCodec.TYPE_FULL, 1, 10 << 3 | 2, 5, 0 }, new WatchFaceOptions(), mMessage);
+    }
+}
@@ -0,0 +1,153 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConfigSyncTest {
+    private ManualScheduler mScheduler;
+    private LinkedTransport mPhone;
+    private LinkedTransport mWatch;
+
+    private ConfigSyncSender mSender;
+    private WatchFaceOptions mWatchOptions;
+    private ConfigSyncReceiver mReceiver;
+    private final List<Integer> mChanges = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mPhone = new LinkedTransport();
+        mWatch = new LinkedTransport();
+        mPhone.mPeer = mWatch;
+        mWatch.mPeer = mPhone;
+
+        mSender = new ConfigSyncSender(mPhone, mScheduler);
+        mWatchOptions = new WatchFaceOptions();
+        mReceiver = new ConfigSyncReceiver(mWatch, mWatchOptions, new ConfigSyncReceiver.Listener() {
+            @Override
+            public void onOptionsChanged(WatchFaceOptions options, int changedFields) {
+                mChanges.add(changedFields);
+            }
+        });
+    }
+
+    private static WatchFaceOptions options(boolean lightTheme, int fps) {
+        final WatchFaceOptions options = new WatchFaceOptions();
+        options.setLightTheme(lightTheme);
+        options.setSecondHandFps(fps);
+        return options;
+    }
+
+    @Test
+    public void requestSync_answeredWithFull() {
+        mSender.setOptions(options(false, 30));
+        mReceiver.requestSync();
+
+        assertTrue(mReceiver.isSynced());
+        assertEquals(options(false, 30), mWatchOptions);
+        // the pending edit went out with the full update
+        assertFalse(mScheduler.isScheduled());
+    }
+
+    @Test
+    public void setOptions_batched() {
+        mSender.sendFull(new WatchFaceOptions());
+        final int sent = mPhone.mSent;
+
+        mSender.setOptions(options(false, 1));
+        mSender.setOptions(options(true, 1));
+        mSender.setOptions(options(true, 30));
+        assertEquals(sent, mPhone.mSent);
+
+        mScheduler.run();
+        assertEquals(sent + 1, mPhone.mSent);
+        assertEquals(options(true, 30), mWatchOptions);
+        // the theme toggled back, only the fps changed
+        assertEquals(Integer.valueOf(WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_SECOND_HAND_FPS)), mChanges.get(mChanges.size() - 1));
+    }
+
+    @Test
+    public void flush_nothingChanged() {
+        mSender.sendFull(new WatchFaceOptions());
+        final int sent = mPhone.mSent;
+        mSender.setOptions(new WatchFaceOptions());
+        mScheduler.run();
+        assertEquals(sent, mPhone.mSent);
+    }
+
+    @Test
+    public void lostDelta_resyncs() {
+        mSender.sendFull(new WatchFaceOptions());
+
+        mPhone.mDrop = true;
+        mSender.setOptions(options(false, 1));
+        mSender.flush();
+        mPhone.mDrop = false;
+        assertTrue(mWatchOptions.isLightTheme());
+
+        // the next delta is not based on the last received message, the watch asks for everything
+        mSender.setOptions(options(false, 30));
+        mSender.flush();
+
+        assertTrue(mReceiver.isSynced());
+        assertEquals(options(false, 30), mWatchOptions);
+        assertEquals(1, mWatch.mSent);
+    }
+
+    @Test
+    public void deltaBeforeFull_resyncs() {
+        mSender.setOptions(options(false, 1));
+        mSender.flush();
+
+        assertTrue(mReceiver.isSynced());
+        assertEquals(options(false, 1), mWatchOptions);
+    }
+
+    @Test
+    public void malformedMessage_keepsOptions() {
+        mSender.sendFull(options(false, 30));
+        mPhone.mDrop = true;
+        mReceiver.onReceive(new byte[] { ConfigCodec.TYPE_FULL, 1, 2 << 3 });
+
+        assertEquals(options(false, 30), mWatchOptions);
+        assertEquals(1, mWatch.mSent);
+    }
+
+    @Test
+    public void receiver_updatesInPlace() {
+        final WatchFaceOptions options = mWatchOptions;
+        mSender.sendFull(options(false, 30));
+        mSender.setOptions(options(true, 30));
+        mSender.flush();
+
+        assertSame(options, mWatchOptions);
+        assertTrue(mWatchOptions.isLightTheme());
+        assertEquals(2, mChanges.size());
+    }
+
+    /** Delivers messages synchronously to the peer. */
+    private static class LinkedTransport implements ConfigTransport {
+        LinkedTransport mPeer;
+        Listener mListener;
+        boolean mDrop = false;
+        int mSent = 0;
+
+        @Override
+        public void setListener(Listener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        public void send(byte[] payload) {
+            mSent++;
+            if(!mDrop) {
+                mPeer.mListener.onReceive(payload);
+            }
+        }
+    }
+}
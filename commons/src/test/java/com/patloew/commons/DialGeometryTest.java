@@ -0,0 +1,58 @@
+package com.patloew.commons;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DialGeometryTest {
+
+    @Test
+    public void update_onlyRebuildsWhenSizeOrShapeChanges() {
+        DialGeometry geometry = new DialGeometry();
+
+        assertTrue(geometry.update(320, 320, true, 8f));
+        assertFalse(geometry.update(320, 320, true, 8f));
+        assertTrue(geometry.update(320, 290, true, 8f));
+        assertTrue(geometry.update(320, 290, false, 8f));
+        assertFalse(geometry.update(320, 290, false, 8f));
+    }
+
+    @Test
+    public void round_ticksLieOnCircle() {
+        DialGeometry geometry = new DialGeometry();
+        geometry.update(320, 320, true, 8f);
+
+        assertEquals(48 * 4, geometry.getMinuteTicks().length);
+        assertEquals(12 * 4, geometry.getHourTicks().length);
+
+        float[] minuteTicks = geometry.getMinuteTicks();
+        for(int i = 0; i < minuteTicks.length; i += 4) {
+            assertEquals(152f, distance(minuteTicks[i], minuteTicks[i + 1]), 0.01f);
+            assertEquals(160f, distance(minuteTicks[i + 2], minuteTicks[i + 3]), 0.01f);
+        }
+
+        // 12 o'clock
+        float[] hourTicks = geometry.getHourTicks();
+        assertArrayEquals(new float[] { 160f, 16f, 160f, 0f }, new float[] { hourTicks[0], hourTicks[1], hourTicks[2], hourTicks[3] }, 0.01f);
+    }
+
+    @Test
+    public void square_ticksReachTheEdge() {
+        DialGeometry geometry = new DialGeometry();
+        geometry.update(320, 320, false, 8f);
+
+        float[] hourTicks = geometry.getHourTicks();
+        for(int i = 0; i < hourTicks.length; i += 4) {
+            float outerX = hourTicks[i + 2];
+            float outerY = hourTicks[i + 3];
+            boolean onEdge = Math.abs(outerX) < 0.01f || Math.abs(outerX - 320) < 0.01f
+                    || Math.abs(outerY) < 0.01f || Math.abs(outerY - 320) < 0.01f;
+            assertTrue("hour tick " + i / 4 + " ends at " + outerX + ", " + outerY, onEdge);
+            assertEquals(16f, distance(hourTicks[i] - outerX + 160, hourTicks[i + 1] - outerY + 160), 0.01f);
+        }
+    }
+
+    private static float distance(float x, float y) {
+        return (float) Math.hypot(x - 160, y - 160);
+    }
+}
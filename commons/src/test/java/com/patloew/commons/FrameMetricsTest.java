@@ -0,0 +1,105 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameMetricsTest {
+    private static final long MS = 1000000L;
+
+    private FrameMetrics mFrameMetrics;
+    private FrameMetrics.Summary mSummary;
+
+    @Before
+    public void setUp() {
+        mFrameMetrics = new FrameMetrics(100);
+        mSummary = new FrameMetrics.Summary();
+    }
+
+    @Test
+    public void capacity_roundedUpToPowerOfTwo() {
+        assertEquals(128, mFrameMetrics.getCapacity());
+        assertEquals(256, new FrameMetrics(256).getCapacity());
+        assertEquals(1, new FrameMetrics(1).getCapacity());
+    }
+
+    @Test
+    public void summary_empty() {
+        mFrameMetrics.getSummary(mSummary);
+
+        assertEquals(0, mSummary.getFrameCount());
+        assertEquals(0, mSummary.getDrawDurationP99());
+        assertEquals(0, mSummary.getJitterP99());
+    }
+
+    @Test
+    public void summary_percentiles() {
+        for(int i = 1; i <= 100; i++) {
+            mFrameMetrics.onFrameScheduled(i * 1000 * MS, 1000 * MS);
+            mFrameMetrics.recordFrame(i * 1000 * MS + i * MS, i * 1000 * MS + i * MS + i * MS);
+        }
+
+        mFrameMetrics.getSummary(mSummary);
+
+        assertEquals(100, mSummary.getFrameCount());
+        assertEquals(0, mSummary.getSkippedFrameCount());
+        assertEquals(50 * MS, mSummary.getDrawDurationP50());
+        assertEquals(95 * MS, mSummary.getDrawDurationP95());
+        assertEquals(99 * MS, mSummary.getDrawDurationP99());
+        assertEquals(50 * MS, mSummary.getJitterP50());
+        assertEquals(99 * MS, mSummary.getJitterP99());
+    }
+
+    @Test
+    public void summary_onlyKeepsLastFrames() {
+        for(int i = 0; i < 1000; i++) {
+            mFrameMetrics.recordFrame(0, i < 872 ? 100 * MS : MS);
+        }
+
+        mFrameMetrics.getSummary(mSummary);
+
+        assertEquals(1000, mSummary.getFrameCount());
+        assertEquals(MS, mSummary.getDrawDurationP99());
+    }
+
+    @Test
+    public void unscheduledFrames_doNotRecordJitter() {
+        mFrameMetrics.onFrameScheduled(0, 1000 * MS);
+        mFrameMetrics.recordFrame(10 * MS, 12 * MS);
+        mFrameMetrics.recordFrame(500 * MS, 502 * MS);
+
+        mFrameMetrics.getSummary(mSummary);
+
+        assertEquals(2, mSummary.getFrameCount());
+        assertEquals(10 * MS, mSummary.getJitterP99());
+    }
+
+    @Test
+    public void lateFrames_countAsSkipped() {
+        mFrameMetrics.onFrameScheduled(0, 1000 * MS);
+        mFrameMetrics.recordFrame(2500 * MS, 2510 * MS);
+        mFrameMetrics.recordSkippedFrames(3);
+
+        mFrameMetrics.getSummary(mSummary);
+
+        assertEquals(5, mSummary.getSkippedFrameCount());
+    }
+
+    @Test
+    public void recordFrame_doesNotAllocate() {
+        AllocationCounter counter = new AllocationCounter();
+
+        for(int i = 0; i < 10000; i++) {
+            mFrameMetrics.onFrameScheduled(i, 1000);
+            mFrameMetrics.recordFrame(i + 10, i + 20);
+        }
+
+        counter.start();
+        for(int i = 0; i < 10000; i++) {
+            mFrameMetrics.onFrameScheduled(i, 1000);
+            mFrameMetrics.recordFrame(i + 10, i + 20);
+        }
+        assertEquals(0, counter.stop());
+    }
+}
@@ -0,0 +1,102 @@
+package com.patloew.commons;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark comparing the lookup table based {@link HandGeometry} with computing the hand
+ * positions with {@link Math#sin(double)}/{@link Math#cos(double)} on every frame. Each benchmark
+ * is warmed up before it is measured, the results are printed to stdout.
+ */
+public class HandGeometryBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int OPERATIONS = 12 * 60 * 60;
+
+    private static final float SECOND_LENGTH = 150f;
+    private static final float MINUTE_LENGTH = 135f;
+    private static final float HOUR_LENGTH = 120f;
+
+    // prevents the JIT from eliminating the benchmarked code
+    private float mSink;
+
+    @Test
+    public void lookupTable_matchesTrigonometry() {
+        HandGeometry handGeometry = new HandGeometry();
+        handGeometry.setLengths(SECOND_LENGTH, MINUTE_LENGTH, HOUR_LENGTH);
+        float[] expected = new float[6];
+
+        for(int i = 0; i < OPERATIONS; i++) {
+            handGeometry.update(i / 3600, (i / 60) % 60, i % 60);
+            computeWithTrigonometry(i / 3600, (i / 60) % 60, i % 60, expected);
+
+            assertEquals(expected[0], handGeometry.getSecondX(), 0.01f);
+            assertEquals(expected[1], handGeometry.getSecondY(), 0.01f);
+            assertEquals(expected[2], handGeometry.getMinuteX(), 0.01f);
+            assertEquals(expected[3], handGeometry.getMinuteY(), 0.01f);
+            assertEquals(expected[4], handGeometry.getHourX(), 0.01f);
+            assertEquals(expected[5], handGeometry.getHourY(), 0.01f);
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        long trigonometry = measure(new Runnable() {
+            final float[] mResult = new float[6];
+
+            @Override
+            public void run() {
+                for(int i = 0; i < OPERATIONS; i++) {
+                    computeWithTrigonometry(i / 3600, (i / 60) % 60, i % 60, mResult);
+                    mSink += mResult[0] + mResult[3] + mResult[5];
+                }
+            }
+        });
+
+        long lookupTable = measure(new Runnable() {
+            final HandGeometry mHandGeometry = new HandGeometry();
+
+            @Override
+            public void run() {
+                for(int i = 0; i < OPERATIONS; i++) {
+                    mHandGeometry.setLengths(SECOND_LENGTH, MINUTE_LENGTH, HOUR_LENGTH);
+                    mHandGeometry.update(i / 3600, (i / 60) % 60, i % 60);
+                    mSink += mHandGeometry.getSecondX() + mHandGeometry.getMinuteY() + mHandGeometry.getHourY();
+                }
+            }
+        });
+
+        System.out.println(String.format("HandGeometryBenchmark: trigonometry %.1f ns/op, lookup table %.1f ns/op (sink %f)",
+                trigonometry / (double) OPERATIONS, lookupTable / (double) OPERATIONS, mSink));
+    }
+
+    /** @return the best run time in nanoseconds of all measurement iterations */
+    private static long measure(Runnable benchmark) {
+        for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+            benchmark.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            benchmark.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /** The hand math as it was done in WatchFaceDrawer.onDraw() before the lookup tables. */
+    private static void computeWithTrigonometry(int hour, int minute, int second, float[] result) {
+        float secRot = second / 30f * (float) Math.PI;
+        float minRot = minute / 30f * (float) Math.PI;
+        float hrRot = ((hour + (minute / 60f)) / 6f) * (float) Math.PI;
+
+        result[0] = (float) Math.sin(secRot) * SECOND_LENGTH;
+        result[1] = (float) -Math.cos(secRot) * SECOND_LENGTH;
+        result[2] = (float) Math.sin(minRot) * MINUTE_LENGTH;
+        result[3] = (float) -Math.cos(minRot) * MINUTE_LENGTH;
+        result[4] = (float) Math.sin(hrRot) * HOUR_LENGTH;
+        result[5] = (float) -Math.cos(hrRot) * HOUR_LENGTH;
+    }
+}
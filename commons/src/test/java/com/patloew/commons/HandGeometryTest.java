@@ -0,0 +1,85 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HandGeometryTest {
+    private static final float DELTA = 0.001f;
+
+    private HandGeometry mHandGeometry;
+
+    @Before
+    public void setUp() {
+        mHandGeometry = new HandGeometry();
+        mHandGeometry.setLengths(100f, 80f, 50f);
+    }
+
+    @Test
+    public void update_pointsHandsToTwelve() {
+        mHandGeometry.update(0, 0, 0);
+
+        assertEquals(0f, mHandGeometry.getSecondX(), DELTA);
+        assertEquals(-100f, mHandGeometry.getSecondY(), DELTA);
+        assertEquals(0f, mHandGeometry.getMinuteX(), DELTA);
+        assertEquals(-80f, mHandGeometry.getMinuteY(), DELTA);
+        assertEquals(0f, mHandGeometry.getHourX(), DELTA);
+        assertEquals(-50f, mHandGeometry.getHourY(), DELTA);
+    }
+
+    @Test
+    public void update_pointsHandsToQuarterPositions() {
+        mHandGeometry.update(9, 30, 15);
+
+        assertEquals(100f, mHandGeometry.getSecondX(), DELTA);
+        assertEquals(0f, mHandGeometry.getSecondY(), DELTA);
+        assertEquals(0f, mHandGeometry.getMinuteX(), DELTA);
+        assertEquals(80f, mHandGeometry.getMinuteY(), DELTA);
+        // half past nine: the hour hand is halfway between nine and ten
+        assertEquals((float) Math.sin(9.5 / 6 * Math.PI) * 50f, mHandGeometry.getHourX(), DELTA);
+        assertEquals((float) -Math.cos(9.5 / 6 * Math.PI) * 50f, mHandGeometry.getHourY(), DELTA);
+    }
+
+    @Test
+    public void update_interpolatesSweepingSecondHand() {
+        mHandGeometry.setSecondSteps(30);
+
+        mHandGeometry.update(0, 0, 14, 999);
+        assertEquals((float) Math.sin((14 + 29 / 30.0) / 30 * Math.PI) * 100f, mHandGeometry.getSecondX(), DELTA);
+
+        mHandGeometry.update(0, 0, 15, 500);
+        assertEquals((float) Math.sin(15.5 / 30 * Math.PI) * 100f, mHandGeometry.getSecondX(), DELTA);
+        assertEquals((float) -Math.cos(15.5 / 30 * Math.PI) * 100f, mHandGeometry.getSecondY(), DELTA);
+
+        mHandGeometry.setSecondSteps(1);
+        mHandGeometry.update(0, 0, 15, 500);
+        assertEquals(100f, mHandGeometry.getSecondX(), DELTA);
+    }
+
+    @Test
+    public void update_computesDegrees() {
+        mHandGeometry.setSecondSteps(4);
+        mHandGeometry.update(9, 30, 15, 500);
+
+        assertEquals(93f, mHandGeometry.getSecondDegrees(), DELTA);
+        assertEquals(180f, mHandGeometry.getMinuteDegrees(), DELTA);
+        assertEquals(285f, mHandGeometry.getHourDegrees(), DELTA);
+    }
+
+    @Test
+    public void update_doesNotAllocate() {
+        AllocationCounter counter = new AllocationCounter();
+
+        // warm up, so that class loading and JIT compilation are not counted
+        for(int i = 0; i < 10000; i++) {
+            mHandGeometry.update(i % 12, i % 60, i % 60);
+        }
+
+        counter.start();
+        for(int i = 0; i < 10000; i++) {
+            mHandGeometry.update(i % 12, i % 60, i % 60, i % 1000);
+        }
+        assertEquals(0, counter.stop());
+    }
+}
@@ -0,0 +1,209 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class HandSpriteTest {
+    private static final float DELTA = 0.001f;
+
+    private static final WatchFaceResources RESOURCES = new WatchFaceResources.Builder()
+            .setHandOuterOffsets(60f, 37.5f, 15f)
+            .setHandStrokes(7.5f, 4.5f, 2.25f)
+            .setHandColors(0xFF4DC57B, 0xFF2881FD, 0xFFCC0A00)
+            .setLowBitAmbientHandColor(0xFFFFFFFF)
+            .setBackgroundColors(0xFF000000, 0xFFFFFFFF)
+            .setPreviewBorder(0xFF808080, 12f)
+            .setDial(0xFF808080, 7.5f, 1.5f, 21f)
+            .build();
+
+    private static final HandStyle STYLE = new HandStyle.Builder()
+            .setWidths(2f, 1f)
+            .build();
+
+    private static final HandStyle SHADOW_STYLE = new HandStyle.Builder()
+            .setWidths(2f, 1f)
+            .setTailLength(10f)
+            .setInlay(0xFFFFFFFF, 0.25f)
+            .setShadow(0x40000000, 0.5f, 1f)
+            .build();
+
+    private TestWatchFaceConfig mConfig;
+    private RecordingDrawSurface mSurface;
+
+    @Before
+    public void setUp() {
+        mConfig = new TestWatchFaceConfig();
+        mConfig.time.setTimeInMillis(1451653380000L); // 2016-01-01T13:03:00Z
+        mSurface = new RecordingDrawSurface(320, 320);
+    }
+
+    @Test
+    public void prepare_rasterizesOncePerSize() {
+        final HandSprite sprite = new HandSprite();
+
+        assertTrue(sprite.prepare(mSurface, STYLE, 4f, 100f, 0xFFFF0000, true));
+        assertFalse(sprite.prepare(mSurface, STYLE, 4f, 100f, 0xFFFF0000, true));
+        assertEquals(1, mSurface.layersCreated);
+        assertEquals(Arrays.asList("save", "translate 5.0 101.0", "polygon 6 #FFFF0000 0.0 aa", "restore"),
+                mSurface.layerSurfaces.get(0).calls);
+
+        assertTrue(sprite.prepare(mSurface, STYLE, 4f, 80f, 0xFFFF0000, true));
+        assertTrue(sprite.prepare(mSurface, STYLE, 4f, 80f, 0xFFFF0000, false));
+        assertEquals(3, mSurface.layersCreated);
+    }
+
+    @Test
+    public void draw_rotatesAroundCenter() {
+        final HandSprite sprite = new HandSprite();
+        sprite.prepare(mSurface, STYLE, 4f, 100f, 0xFFFF0000, true);
+        sprite.drawShadow(mSurface, 160f, 160f, 90f);
+        sprite.draw(mSurface, 160f, 160f, 90f);
+
+        // 8 pixels wide and 100 long, with a pixel of padding on every side
+        assertEquals(Arrays.asList("save", "rotate 90.0 160.0 160.0", "layer 10x102 155.0 59.0", "restore"), mSurface.calls);
+    }
+
+    @Test
+    public void drawShadow_keepsOffsetIndependentOfRotation() {
+        final HandSprite sprite = new HandSprite();
+        sprite.prepare(mSurface, SHADOW_STYLE, 4f, 100f, 0xFFFF0000, true);
+        assertEquals(2, mSurface.layersCreated);
+        assertEquals(Arrays.asList("save", "translate 5.0 101.0", "polygon 6 #FFFF0000 0.0 aa", "polygon 4 #FFFFFFFF 0.0 aa", "restore"),
+                mSurface.layerSurfaces.get(0).calls);
+
+        sprite.drawShadow(mSurface, 160f, 160f, 180f);
+        assertEquals(Arrays.asList("save", "translate 2.0 4.0", "rotate 180.0 160.0 160.0", "layer 10x142 155.0 59.0", "restore"), mSurface.calls);
+    }
+
+    @Test
+    public void getInlay_falseForNarrowHand() {
+        final float[] points = new float[HandStyle.INLAY_VALUES];
+        assertTrue(SHADOW_STYLE.getInlay(4f, 100f, points));
+        // starts at 30% of the length, where the blade is 6.8 pixels wide, 1 pixel inside
+        assertEquals(-2.4f, points[0], DELTA);
+        assertEquals(-30f, points[1], DELTA);
+        assertEquals(-99f, points[3], DELTA);
+
+        final HandStyle narrow = new HandStyle.Builder().setWidths(1f, 0f).setInlay(0xFFFFFFFF, 1f).build();
+        assertFalse(narrow.getInlay(4f, 100f, points));
+        assertFalse(STYLE.getInlay(4f, 100f, points));
+    }
+
+    @Test
+    public void handsLayer_drawsLinesUntilSpritesAreLoaded() {
+        final HandsLayer layer = new HandsLayer(RESOURCES, STYLE, STYLE);
+        assertTrue(layer.hasDeferredAssets());
+        draw(layer);
+
+        assertEquals(2, count("line "));
+        assertEquals(0, mSurface.layersCreated);
+
+        // the sprites are rasterized at the size of the first frame
+        layer.setLayerFactory(mSurface);
+        layer.loadDeferredAssets();
+        assertEquals(2, mSurface.layersCreated);
+
+        mSurface.calls.clear();
+        draw(layer);
+        assertEquals(2, count("rotate "));
+        assertEquals(2, count("layer "));
+        assertEquals(0, count("line "));
+        assertEquals(2, mSurface.layersCreated);
+    }
+
+    @Test
+    public void handsLayer_linesAreNotDeferred() {
+        assertFalse(new HandsLayer(RESOURCES).hasDeferredAssets());
+        assertFalse(new SecondHandLayer(RESOURCES).hasDeferredAssets());
+    }
+
+    @Test
+    public void secondHandLayer_drawsLineUntilSpriteIsLoaded() {
+        final SecondHandLayer layer = new SecondHandLayer(RESOURCES, SHADOW_STYLE);
+        draw(layer);
+        assertEquals(1, count("line "));
+
+        layer.setLayerFactory(mSurface);
+        layer.loadDeferredAssets();
+        // the hand and its shadow
+        assertEquals(2, mSurface.layersCreated);
+
+        mSurface.calls.clear();
+        draw(layer);
+        assertEquals(0, count("line "));
+        assertEquals(2, count("layer "));
+        assertEquals(2, mSurface.layersCreated);
+    }
+
+    @Test
+    public void secondHandLayer_spriteRasterizedAgainForNewSize() {
+        final SecondHandLayer layer = new SecondHandLayer(RESOURCES, STYLE);
+        draw(layer);
+        layer.setLayerFactory(mSurface);
+        layer.loadDeferredAssets();
+
+        final RenderState state = RenderState.obtain(mConfig, 400, 400);
+        layer.onConfigChanged(state, false);
+        layer.draw(mSurface, state);
+        state.recycle();
+        assertEquals(2, mSurface.layersCreated);
+    }
+
+    @Test
+    public void handsLayer_linesInLowBitAmbient() {
+        mConfig.ambient = true;
+        mConfig.lowBitAmbient = true;
+        final HandsLayer layer = new HandsLayer(RESOURCES, STYLE, STYLE);
+        draw(layer);
+
+        assertEquals(2, count("line "));
+        assertEquals(0, count("layer "));
+        assertEquals(0, mSurface.layersCreated);
+    }
+
+    @Test
+    public void secondHandLayer_boundsCoverTail() {
+        final HandStyle style = new HandStyle.Builder().setWidths(2f, 1f).setTailLength(10f).build();
+        final SecondHandLayer layer = new SecondHandLayer(RESOURCES, style);
+        final RenderState state = RenderState.obtain(mConfig, 320, 320);
+        final float[] bounds = new float[4];
+        assertTrue(layer.getBounds(state, bounds));
+        state.recycle();
+
+        // pointing to 12 o'clock: from the tip 15 pixels below the top to the tail 22.5 pixels
+        // below the center, plus half the width of 2.25 and a pixel
+        assertEquals(156.75f, bounds[0], DELTA);
+        assertEquals(11.75f, bounds[1], DELTA);
+        assertEquals(163.25f, bounds[2], DELTA);
+        assertEquals(185.75f, bounds[3], DELTA);
+    }
+
+    @Test
+    public void factory_comparesStyles() {
+        final HandStyle equalStyle = new HandStyle.Builder().setWidths(2f, 1f).build();
+        assertEquals(HandsLayer.factory(STYLE, STYLE), HandsLayer.factory(equalStyle, equalStyle));
+        assertNotEquals(HandsLayer.factory(STYLE, STYLE), HandsLayer.factory(STYLE, SHADOW_STYLE));
+        assertEquals(SecondHandLayer.factory(STYLE), SecondHandLayer.factory(equalStyle));
+    }
+
+    private void draw(FaceLayer layer) {
+        final RenderState state = RenderState.obtain(mConfig, 320, 320);
+        layer.onConfigChanged(state, false);
+        layer.draw(mSurface, state);
+        state.recycle();
+    }
+
+    private int count(String prefix) {
+        int count = 0;
+        for(String call : mSurface.calls) {
+            if(call.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,48 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LayerCacheKeyTest {
+    private LayerCacheKey mKey;
+
+    @Before
+    public void setUp() {
+        mKey = new LayerCacheKey();
+        mKey.update(320, 320, true, true, false, false);
+    }
+
+    @Test
+    public void update_unchanged() {
+        assertFalse(mKey.update(320, 320, true, true, false, false));
+    }
+
+    @Test
+    public void update_changed() {
+        assertTrue(mKey.update(280, 320, true, true, false, false));
+        assertTrue(mKey.update(280, 280, true, true, false, false));
+        assertTrue(mKey.update(280, 280, false, true, false, false));
+        assertTrue(mKey.update(280, 280, false, false, false, false));
+        assertTrue(mKey.update(280, 280, false, false, true, false));
+        assertTrue(mKey.update(280, 280, false, false, true, true));
+        assertFalse(mKey.update(280, 280, false, false, true, true));
+    }
+
+    @Test
+    public void matches() {
+        assertTrue(mKey.matches(320, 320, true, true, false, false));
+        assertFalse(mKey.matches(320, 320, false, true, false, false));
+        // matches() does not update the key
+        assertTrue(mKey.matches(320, 320, true, true, false, false));
+    }
+
+    @Test
+    public void invalidate() {
+        mKey.invalidate();
+        assertFalse(mKey.matches(320, 320, true, true, false, false));
+        assertTrue(mKey.update(320, 320, true, true, false, false));
+        assertFalse(mKey.update(320, 320, true, true, false, false));
+    }
+}
@@ -0,0 +1,501 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class LayerEngineTest {
+    private static final WatchFaceResources RESOURCES = new WatchFaceResources.Builder()
+            .setHandOuterOffsets(60f, 37.5f, 15f)
+            .setHandStrokes(7.5f, 4.5f, 2.25f)
+            .setHandColors(0xFF4DC57B, 0xFF2881FD, 0xFFCC0A00)
+            .setLowBitAmbientHandColor(0xFFFFFFFF)
+            .setBackgroundColors(0xFF000000, 0xFFFFFFFF)
+            .setPreviewBorder(0xFF808080, 12f)
+            .setDial(0xFF808080, 7.5f, 1.5f, 21f)
+            .build();
+
+    private TestWatchFaceConfig mConfig;
+    private RecordingDrawSurface mSurface;
+
+    private final CountingLayer mConfigLayer = new CountingLayer(FaceLayer.UpdateFrequency.CONFIG_CHANGE);
+    private final CountingLayer mHourLayer = new CountingLayer(FaceLayer.UpdateFrequency.HOUR);
+    private final CountingLayer mMinuteLayer = new CountingLayer(FaceLayer.UpdateFrequency.MINUTE);
+    private final CountingLayer mSecondLayer = new CountingLayer(FaceLayer.UpdateFrequency.SECOND);
+
+    @Before
+    public void setUp() {
+        mConfig = new TestWatchFaceConfig();
+        mConfig.time.setTimeInMillis(1451653384567L); // 2016-01-01T13:03:04.567Z
+        mSurface = new RecordingDrawSurface(320, 320);
+    }
+
+    private LayerEngine createEngine(FaceLayer... layers) {
+        final FaceDefinition.Builder builder = new FaceDefinition.Builder();
+        for(final FaceLayer layer : layers) {
+            builder.add(new FaceLayer.Factory() {
+                @Override
+                public FaceLayer create(WatchFaceResources resources) {
+                    return layer;
+                }
+            });
+        }
+        return new LayerEngine(builder.build(), RESOURCES);
+    }
+
+    private void draw(LayerEngine engine) {
+        final RenderState state = RenderState.obtain(mConfig, 320, 320);
+        mSurface.calls.clear();
+        engine.onDraw(state, mSurface, false);
+        state.recycle();
+    }
+
+    private boolean getDirtyBounds(LayerEngine engine, float[] outBounds) {
+        final RenderState state = RenderState.obtain(mConfig, 320, 320);
+        final boolean partial = engine.getDirtyBounds(state, false, outBounds);
+        state.recycle();
+        return partial;
+    }
+
+    @Test
+    public void defaultFace_blitsOneCacheAndDrawsSecondHand() {
+        final LayerEngine engine = new LayerEngine(FaceDefinition.DEFAULT, RESOURCES);
+        assertEquals(2, engine.getCacheGroupCount());
+
+        draw(engine);
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 1000);
+        draw(engine);
+
+        assertEquals(2, mSurface.calls.size());
+        assertEquals("layer 320x320 0.0 0.0", mSurface.calls.get(0));
+        assertTrue(mSurface.calls.get(1).startsWith("line 160.0 160.0 "));
+        assertEquals(2, mSurface.layersCreated);
+    }
+
+    @Test
+    public void layers_areOnlyRedrawnWhenTheirPeriodRollsOver() {
+        final LayerEngine engine = createEngine(mConfigLayer, mHourLayer, mMinuteLayer, mSecondLayer);
+        assertEquals(3, engine.getCacheGroupCount());
+
+        draw(engine);
+        assertCounts(1, 1, 1, 1);
+
+        // 13:03:05
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 1000);
+        draw(engine);
+        assertCounts(1, 1, 1, 2);
+
+        // 13:04:05
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 60000);
+        draw(engine);
+        assertCounts(1, 1, 2, 3);
+
+        // 14:04:05, the minute group starts from the hour group, so it is redrawn as well
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 3600000);
+        draw(engine);
+        assertCounts(1, 2, 3, 4);
+
+        mConfig.lightTheme = false;
+        draw(engine);
+        assertCounts(2, 3, 4, 5);
+        assertEquals(2, mConfigLayer.configChanges);
+    }
+
+    @Test
+    public void consecutiveCacheGroups_onlyBlitTheTopmost() {
+        final LayerEngine engine = createEngine(mConfigLayer, mMinuteLayer, mSecondLayer);
+
+        draw(engine);
+
+        assertEquals(2, mSurface.calls.size());
+        assertEquals("layer 320x320 0.0 0.0", mSurface.calls.get(0));
+        assertEquals("counting SECOND", mSurface.calls.get(1));
+    }
+
+    @Test
+    public void layersWithTheSameFrequency_shareACache() {
+        final CountingLayer otherConfigLayer = new CountingLayer(FaceLayer.UpdateFrequency.CONFIG_CHANGE);
+        final LayerEngine engine = createEngine(mConfigLayer, otherConfigLayer, mSecondLayer);
+
+        assertEquals(1, engine.getCacheGroupCount());
+    }
+
+    @Test
+    public void dirtyBounds_partialWithinMinute() {
+        final LayerEngine engine = new LayerEngine(FaceDefinition.DEFAULT, RESOURCES);
+        final float[] bounds = new float[4];
+
+        assertFalse(getDirtyBounds(engine, bounds));
+        draw(engine);
+
+        // 13:03:05, the second hand moves from 4s to 5s in the upper right quadrant
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 1000);
+        assertTrue(getDirtyBounds(engine, bounds));
+        assertTrue(bounds[0] >= 150 && bounds[2] < 250);
+        assertTrue(bounds[1] >= 0 && bounds[3] <= 170);
+        draw(engine);
+
+        // 13:04:00
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 55000);
+        assertFalse(getDirtyBounds(engine, bounds));
+        assertArrayEquals(new float[] { 0, 0, 320, 320 }, bounds, 0f);
+    }
+
+    @Test
+    public void hourPeriod_followsLocalHourWithHalfHourOffset() {
+        mConfig.time.setTimeZone(TimeZone.getTimeZone("Asia/Kolkata")); // UTC+5:30
+
+        mConfig.time.setTimeInMillis(1451653384567L); // 18:33 local
+        final RenderState first = RenderState.obtain(mConfig, 320, 320);
+        mConfig.time.setTimeInMillis(1451653384567L + 26 * 60000); // 18:59 local
+        final RenderState second = RenderState.obtain(mConfig, 320, 320);
+        mConfig.time.setTimeInMillis(1451653384567L + 27 * 60000); // 19:00 local
+        final RenderState third = RenderState.obtain(mConfig, 320, 320);
+
+        assertEquals(LayerEngine.getPeriod(FaceLayer.UpdateFrequency.HOUR, first), LayerEngine.getPeriod(FaceLayer.UpdateFrequency.HOUR, second));
+        assertNotEquals(LayerEngine.getPeriod(FaceLayer.UpdateFrequency.HOUR, second), LayerEngine.getPeriod(FaceLayer.UpdateFrequency.HOUR, third));
+
+        first.recycle();
+        second.recycle();
+        third.recycle();
+    }
+
+    @Test
+    public void deferredLayer_skippedUntilLoaded() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final int[] loadedCallbacks = { 0 };
+        final Runnable onLoaded = new Runnable() {
+            @Override
+            public void run() {
+                loadedCallbacks[0]++;
+            }
+        };
+
+        final DeferredLayer deferred = new DeferredLayer();
+        final FaceDefinition face = new FaceDefinition.Builder()
+                .add(factory(mConfigLayer))
+                .add(factory(deferred))
+                .add(factory(mSecondLayer))
+                .build();
+        final LayerEngine engine = new LayerEngine(face, RESOURCES, executor, onLoaded, null);
+        assertFalse(engine.isReady());
+        assertEquals(1, tasks.size());
+
+        draw(engine);
+        assertEquals(0, deferred.draws);
+        assertEquals(1, mConfigLayer.draws);
+
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 1000);
+        final float[] bounds = new float[4];
+        tasks.get(0).run();
+        assertTrue(engine.isReady());
+        assertEquals(1, loadedCallbacks[0]);
+        // the cache group of the loaded layer is redrawn, which is a full repaint
+        assertFalse(getDirtyBounds(engine, bounds));
+
+        draw(engine);
+        assertEquals(1, deferred.draws);
+        assertEquals(2, mConfigLayer.draws);
+    }
+
+    @Test
+    public void placeholderLayer_drawnUntilLoadedWithFirstFrame() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final int[] loadedCallbacks = { 0 };
+        final Runnable onLoaded = new Runnable() {
+            @Override
+            public void run() {
+                loadedCallbacks[0]++;
+            }
+        };
+
+        final PlaceholderLayer placeholder = new PlaceholderLayer();
+        final DeferredLayer deferred = new DeferredLayer();
+        final FaceDefinition face = new FaceDefinition.Builder()
+                .add(factory(deferred))
+                .add(factory(placeholder))
+                .build();
+        final LayerEngine engine = new LayerEngine(face, RESOURCES, executor, onLoaded, null);
+        // the placeholder layer waits for the config of the first frame
+        assertEquals(1, tasks.size());
+
+        draw(engine);
+        assertEquals(2, tasks.size());
+        assertTrue(mSurface.calls.contains("placeholder"));
+
+        tasks.get(0).run();
+        assertEquals(0, loadedCallbacks[0]);
+        tasks.get(1).run();
+        assertEquals(1, loadedCallbacks[0]);
+        // loaded with the surface and the size of the first frame
+        assertSame(mSurface, placeholder.layerFactory);
+        assertEquals(320, placeholder.loadWidth);
+        assertTrue(engine.isReady());
+
+        draw(engine);
+        assertTrue(mSurface.calls.contains("loaded"));
+        // the factory is only kept for loading
+        assertNull(placeholder.getLayerFactory());
+    }
+
+    @Test
+    public void placeholderLayer_loadedOnFirstFrameWithoutExecutor() {
+        final PlaceholderLayer placeholder = new PlaceholderLayer();
+        final LayerEngine engine = createEngine(placeholder);
+        assertFalse(engine.isReady());
+
+        draw(engine);
+        assertTrue(engine.isReady());
+        assertEquals(Arrays.asList("loaded"), mSurface.calls);
+    }
+
+    @Test
+    public void deferredLayer_loadedRightAwayWithoutExecutor() {
+        final DeferredLayer deferred = new DeferredLayer();
+        final LayerEngine engine = createEngine(deferred);
+
+        assertTrue(engine.isReady());
+        draw(engine);
+        assertEquals(1, deferred.draws);
+    }
+
+    @Test
+    public void sharedCache_staticLayerRenderedOnce() {
+        final SharedAssetCache cache = new SharedAssetCache(SharedAssetCache.DEFAULT_MAX_UNUSED_BYTES);
+        final FaceDefinition face = new FaceDefinition.Builder().addBackground().addTickRing().addSecondHand().build();
+        final LayerEngine first = new LayerEngine(face, RESOURCES, null, null, cache);
+        final LayerEngine second = new LayerEngine(face, RESOURCES, null, null, cache);
+
+        draw(first);
+        assertEquals(1, mSurface.layersCreated);
+        draw(second);
+        assertEquals(1, mSurface.layersCreated);
+        // the layer and the dial geometry
+        assertEquals(2, cache.getEntryCount());
+
+        // the second engine never rendered the tick ring, so only the layer is still used
+        first.release();
+        assertEquals((48 + 12) * 4 * 4, cache.getUnusedBytes());
+        second.release();
+        assertEquals(320 * 320 * 4 + (48 + 12) * 4 * 4, cache.getUnusedBytes());
+
+        cache.evictUnused();
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void sharedCache_invalidateOnlyReleasesOwnHandle() {
+        final SharedAssetCache cache = new SharedAssetCache(SharedAssetCache.DEFAULT_MAX_UNUSED_BYTES);
+        final FaceDefinition face = new FaceDefinition.Builder().add(factory(mConfigLayer)).add(factory(mMinuteLayer)).build();
+        final LayerEngine first = new LayerEngine(face, RESOURCES, null, null, cache);
+        final LayerEngine second = new LayerEngine(face, RESOURCES, null, null, cache);
+
+        draw(first);
+        draw(second);
+        first.invalidate();
+        assertEquals(1, cache.getEntryCount());
+
+        draw(first);
+        draw(second);
+        // the shared layer is acquired again, only the own layers are rendered again
+        assertEquals(1, mConfigLayer.draws);
+        assertEquals(3, mMinuteLayer.draws);
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void sharedCache_smallerLayerDownsampled() {
+        final SharedAssetCache cache = new SharedAssetCache(SharedAssetCache.DEFAULT_MAX_UNUSED_BYTES);
+        final FaceDefinition face = new FaceDefinition.Builder().add(factory(mConfigLayer)).add(factory(mSecondLayer)).build();
+        final LayerEngine large = new LayerEngine(face, RESOURCES, null, null, cache);
+        final LayerEngine small = new LayerEngine(face, RESOURCES, null, null, cache);
+
+        draw(large);
+        final RenderState state = RenderState.obtain(mConfig, 200, 200);
+        mSurface.calls.clear();
+        small.onDraw(state, mSurface, false);
+        state.recycle();
+
+        assertEquals(1, mConfigLayer.draws);
+        // the second hand is drawn at the size of the frame
+        assertEquals(2, mSecondLayer.draws);
+        assertEquals("layer 320x320 0.0 0.0 200.0 200.0", mSurface.layerSurfaces.get(1).calls.get(0));
+        assertEquals("layer 200x200 0.0 0.0", mSurface.calls.get(0));
+        assertEquals(1, cache.getSourceHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // both sizes stay cached for the other engines
+        small.invalidate();
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    public void sharedCache_muchSmallerLayerRendered() {
+        final SharedAssetCache cache = new SharedAssetCache(SharedAssetCache.DEFAULT_MAX_UNUSED_BYTES);
+        final FaceDefinition face = new FaceDefinition.Builder().add(factory(mConfigLayer)).build();
+        final LayerEngine large = new LayerEngine(face, RESOURCES, null, null, cache);
+        final LayerEngine small = new LayerEngine(face, RESOURCES, null, null, cache);
+
+        draw(large);
+        final RenderState state = RenderState.obtain(mConfig, 100, 100);
+        small.onDraw(state, mSurface, false);
+        state.recycle();
+
+        assertEquals(2, mConfigLayer.draws);
+        assertEquals(0, cache.getSourceHitCount());
+    }
+
+    @Test
+    public void minimalQuality_skipsOptionalLayers() {
+        final FaceDefinition face = new FaceDefinition.Builder()
+                .add(BackgroundLayer.FACTORY)
+                .add(SecondHandLayer.FACTORY)
+                .build();
+        final LayerEngine engine = new LayerEngine(face, RESOURCES);
+        final float[] bounds = new float[4];
+
+        draw(engine);
+        assertEquals(2, mSurface.calls.size());
+        assertTrue(mSurface.calls.get(1).startsWith("line "));
+
+        mConfig.renderQuality = RenderQuality.MINIMAL;
+        assertFalse(getDirtyBounds(engine, bounds));
+        draw(engine);
+        assertEquals(1, mSurface.calls.size());
+        // the background is redrawn into its layer
+        assertEquals(1, mSurface.layersCreated);
+
+        // nothing is drawn on every frame anymore
+        mConfig.time.setTimeInMillis(mConfig.time.getTimeInMillis() + 1000);
+        assertTrue(getDirtyBounds(engine, bounds));
+        assertArrayEquals(new float[] { 0, 0, 0, 0 }, bounds, 0f);
+    }
+
+    @Test
+    public void qualityChange_notifiesLayers() {
+        final LayerEngine engine = createEngine(mConfigLayer, mSecondLayer);
+
+        draw(engine);
+        mConfig.renderQuality = RenderQuality.REDUCED;
+        draw(engine);
+
+        assertEquals(2, mConfigLayer.configChanges);
+        assertEquals(2, mConfigLayer.draws);
+    }
+
+    private static FaceLayer.Factory factory(final FaceLayer layer) {
+        return new FaceLayer.Factory() {
+            @Override
+            public FaceLayer create(WatchFaceResources resources) {
+                return layer;
+            }
+        };
+    }
+
+    private void assertCounts(int config, int hour, int minute, int second) {
+        assertEquals(config, mConfigLayer.draws);
+        assertEquals(hour, mHourLayer.draws);
+        assertEquals(minute, mMinuteLayer.draws);
+        assertEquals(second, mSecondLayer.draws);
+    }
+
+    private static class DeferredLayer extends FaceLayer {
+        int draws = 0;
+        String asset;
+
+        DeferredLayer() {
+            super(UpdateFrequency.CONFIG_CHANGE);
+        }
+
+        @Override
+        public boolean hasDeferredAssets() {
+            return true;
+        }
+
+        @Override
+        public void loadAssets() {
+            asset = "loaded";
+        }
+
+        @Override
+        public void draw(DrawSurface surface, RenderState state) {
+            assertEquals("loaded", asset);
+            draws++;
+        }
+    }
+
+    private static class PlaceholderLayer extends FaceLayer {
+        int loadWidth = -1;
+        DrawSurface layerFactory;
+        private int mConfigWidth;
+
+        PlaceholderLayer() {
+            super(UpdateFrequency.SECOND);
+        }
+
+        @Override
+        public boolean hasDeferredAssets() {
+            return true;
+        }
+
+        @Override
+        public boolean hasPlaceholder() {
+            return true;
+        }
+
+        @Override
+        public void loadAssets() {
+            loadWidth = mConfigWidth;
+            layerFactory = getLayerFactory();
+        }
+
+        @Override
+        public void onConfigChanged(RenderState state, boolean mobilePreview) {
+            mConfigWidth = state.getWidth();
+        }
+
+        @Override
+        public void draw(DrawSurface surface, RenderState state) {
+            ((RecordingDrawSurface) surface).calls.add(isReady() ? "loaded" : "placeholder");
+        }
+    }
+
+    private static class CountingLayer extends FaceLayer {
+        int draws = 0;
+        int configChanges = 0;
+
+        CountingLayer(UpdateFrequency updateFrequency) {
+            super(updateFrequency);
+        }
+
+        @Override
+        public void onConfigChanged(RenderState state, boolean mobilePreview) {
+            configChanges++;
+        }
+
+        @Override
+        public void draw(DrawSurface surface, RenderState state) {
+            draws++;
+            ((RecordingDrawSurface) surface).calls.add("counting " + getUpdateFrequency());
+        }
+    }
+}
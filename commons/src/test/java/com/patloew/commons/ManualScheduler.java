@@ -0,0 +1,40 @@
+package com.patloew.commons;
+
+/**
+ * {@link Scheduler} for tests, which runs the scheduled task only when the test says so, however
+ * late that is.
+ */
+public class ManualScheduler implements Scheduler {
+    /** Delay of the last scheduled task. */
+    public long delayMs;
+    public int scheduleCount = 0;
+
+    private Runnable mTask;
+
+    @Override
+    public void schedule(Runnable task, long delayMs) {
+        mTask = task;
+        this.delayMs = delayMs;
+        scheduleCount++;
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        if(mTask == task) {
+            mTask = null;
+        }
+    }
+
+    public boolean isScheduled() {
+        return mTask != null;
+    }
+
+    /** Runs the scheduled task, if there is one. */
+    public void run() {
+        final Runnable task = mTask;
+        if(task != null) {
+            mTask = null;
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.patloew.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DrawSurface} for tests, which records the draw calls as strings.
+ */
+public class RecordingDrawSurface implements DrawSurface {
+    public final List<String> calls = new ArrayList<>();
+    public int layersCreated = 0;
+    /** Surfaces of the created layers, in creation order. */
+    public final List<RecordingDrawSurface> layerSurfaces = new ArrayList<>();
+
+    private final int mWidth;
+    private final int mHeight;
+
+    public RecordingDrawSurface(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    private static String style(DrawStyle style) {
+        return String.format("#%08X %s%s", style.getColor(), style.getStrokeWidth(), style.isAntiAlias() ? " aa" : "");
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public void save() {
+        calls.add("save");
+    }
+
+    @Override
+    public void restore() {
+        calls.add("restore");
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        calls.add("translate " + dx + " " + dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        calls.add("scale " + sx + " " + sy);
+    }
+
+    @Override
+    public void rotate(float degrees, float px, float py) {
+        calls.add("rotate " + degrees + " " + px + " " + py);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, DrawStyle style) {
+        calls.add("rect " + left + " " + top + " " + right + " " + bottom + " " + style(style));
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, DrawStyle style) {
+        calls.add("roundRect " + left + " " + top + " " + right + " " + bottom + " " + rx + " " + ry + " " + style(style));
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, DrawStyle style) {
+        calls.add("circle " + cx + " " + cy + " " + radius + " " + style(style));
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, DrawStyle style) {
+        calls.add("line " + startX + " " + startY + " " + stopX + " " + stopY + " " + style(style));
+    }
+
+    @Override
+    public void drawLines(float[] points, int offset, int count, DrawStyle style) {
+        calls.add("lines " + count / 4 + " " + style(style));
+    }
+
+    @Override
+    public void drawPolygon(float[] points, int offset, int count, DrawStyle style) {
+        calls.add("polygon " + count / 2 + " " + style(style));
+    }
+
+    @Override
+    public void drawText(String text, float centerX, float centerY, DrawStyle style) {
+        calls.add("text " + text + " " + centerX + " " + centerY + " " + style(style));
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top) {
+        calls.add("layer " + layer.getWidth() + "x" + layer.getHeight() + " " + left + " " + top);
+    }
+
+    @Override
+    public void drawLayer(Layer layer, float left, float top, float right, float bottom) {
+        calls.add("layer " + layer.getWidth() + "x" + layer.getHeight() + " " + left + " " + top + " " + right + " " + bottom);
+    }
+
+    @Override
+    public Layer createLayer(final int width, final int height) {
+        layersCreated++;
+        final RecordingDrawSurface surface = new RecordingDrawSurface(width, height);
+        layerSurfaces.add(surface);
+        return new Layer() {
+            @Override
+            public int getWidth() {
+                return width;
+            }
+
+            @Override
+            public int getHeight() {
+                return height;
+            }
+
+            @Override
+            public DrawSurface getSurface() {
+                return surface;
+            }
+
+            @Override
+            public void clear() {
+                surface.calls.clear();
+            }
+
+            @Override
+            public void release() { }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RenderGovernorTest {
+    private static final RenderGovernor.Policy POLICY = new RenderGovernor.Policy.Builder()
+            .setBatteryLevels(15, 5)
+            .setTemperatures(400, 450)
+            .setFrameBudget(50, 10)
+            .build();
+
+    private RenderGovernor.Signals mSignals;
+    private RenderGovernor.Decision mDecision;
+
+    @Before
+    public void setUp() {
+        mSignals = new RenderGovernor.Signals();
+        mSignals.setBattery(80, false);
+        mSignals.setTemperature(300);
+        mDecision = new RenderGovernor.Decision();
+    }
+
+    private void decide(int requestedFps) {
+        RenderGovernor.decide(POLICY, mSignals, requestedFps, mDecision);
+    }
+
+    private void assertDecision(int fps, RenderQuality quality, RenderGovernor.Constraint constraint) {
+        assertEquals(fps, mDecision.getFps());
+        assertEquals(quality, mDecision.getQuality());
+        assertEquals(constraint, mDecision.getConstraint());
+    }
+
+    @Test
+    public void unconstrained_keepsRequestedRate() {
+        decide(30);
+        assertDecision(30, RenderQuality.FULL, RenderGovernor.Constraint.NONE);
+    }
+
+    @Test
+    public void unknownSignals_areIgnored() {
+        mSignals.reset();
+        decide(30);
+        assertDecision(30, RenderQuality.FULL, RenderGovernor.Constraint.NONE);
+    }
+
+    @Test
+    public void peekCard_ticks() {
+        mSignals.setPeekCardVisible(true);
+        decide(30);
+        assertDecision(1, RenderQuality.FULL, RenderGovernor.Constraint.PEEK_CARD);
+    }
+
+    @Test
+    public void lowBattery_ticks() {
+        mSignals.setBattery(14, false);
+        decide(30);
+        assertDecision(1, RenderQuality.FULL, RenderGovernor.Constraint.BATTERY_LOW);
+
+        mSignals.setBattery(15, false);
+        decide(30);
+        assertDecision(30, RenderQuality.FULL, RenderGovernor.Constraint.NONE);
+    }
+
+    @Test
+    public void criticalBattery_hidesSecondHand() {
+        mSignals.setBattery(4, false);
+        mSignals.setPeekCardVisible(true);
+        decide(30);
+        assertDecision(0, RenderQuality.MINIMAL, RenderGovernor.Constraint.BATTERY_CRITICAL);
+    }
+
+    @Test
+    public void charging_ignoresBatteryLevel() {
+        mSignals.setBattery(4, true);
+        decide(30);
+        assertDecision(30, RenderQuality.FULL, RenderGovernor.Constraint.NONE);
+    }
+
+    @Test
+    public void temperature_reducesQuality() {
+        mSignals.setBattery(4, true);
+        mSignals.setTemperature(400);
+        decide(30);
+        assertDecision(1, RenderQuality.REDUCED, RenderGovernor.Constraint.TEMPERATURE_WARM);
+
+        mSignals.setTemperature(450);
+        decide(30);
+        assertDecision(0, RenderQuality.MINIMAL, RenderGovernor.Constraint.TEMPERATURE_HOT);
+    }
+
+    @Test
+    public void frameCost_lowersSweepRate() {
+        // 25ms per frame fits into half the interval at 20 fps
+        mSignals.setFrameCostNanos(25000000);
+        decide(30);
+        assertDecision(20, RenderQuality.FULL, RenderGovernor.Constraint.FRAME_COST);
+
+        mSignals.setFrameCostNanos(10000000);
+        decide(30);
+        assertDecision(30, RenderQuality.FULL, RenderGovernor.Constraint.NONE);
+    }
+
+    @Test
+    public void frameCost_ticksBelowMinSweepRate() {
+        mSignals.setFrameCostNanos(60000000);
+        decide(60);
+        assertDecision(1, RenderQuality.FULL, RenderGovernor.Constraint.FRAME_COST);
+    }
+
+    @Test
+    public void update_reportsChanges() {
+        final RenderGovernor governor = new RenderGovernor(POLICY, new RenderGovernor.SignalSource() {
+            @Override
+            public void readSignals(RenderGovernor.Signals signals) {
+                signals.setBattery(mSignals.getBatteryLevel(), mSignals.isCharging());
+                signals.setPeekCardVisible(mSignals.isPeekCardVisible());
+            }
+        });
+
+        assertTrue(governor.update(30));
+        assertEquals(30, governor.getDecision().getFps());
+        assertFalse(governor.update(30));
+
+        mSignals.setPeekCardVisible(true);
+        assertTrue(governor.update(30));
+        assertEquals(1, governor.getDecision().getFps());
+
+        // still ticking, only the reason changed
+        mSignals.setBattery(10, false);
+        assertFalse(governor.update(30));
+        assertEquals(RenderGovernor.Constraint.PEEK_CARD, governor.getDecision().getConstraint());
+
+        mSignals.setPeekCardVisible(false);
+        assertFalse(governor.update(30));
+        assertEquals(RenderGovernor.Constraint.BATTERY_LOW, governor.getDecision().getConstraint());
+    }
+}
@@ -0,0 +1,81 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RenderStateTest {
+    private TestWatchFaceConfig mConfig;
+
+    @Before
+    public void setUp() {
+        mConfig = new TestWatchFaceConfig();
+        mConfig.time.setTimeInMillis(1451653384567L); // 2016-01-01T13:03:04.567Z
+    }
+
+    @Test
+    public void obtain_snapshotsConfig() {
+        mConfig.ambient = true;
+        mConfig.lowBitAmbient = true;
+        mConfig.burnInProtection = true;
+        mConfig.round = false;
+        mConfig.lightTheme = false;
+        mConfig.secondHandFps = 30;
+
+        RenderState state = RenderState.obtain(mConfig, 320, 290);
+
+        assertEquals(1451653384567L, state.getTimeInMillis());
+        assertEquals(13, state.getHour());
+        assertEquals(1, state.getHour12());
+        assertEquals(3, state.getMinute());
+        assertEquals(4, state.getSecond());
+        assertEquals(567, state.getMillis());
+        assertTrue(state.isAmbient());
+        assertTrue(state.isLowBitAmbient());
+        assertTrue(state.isBurnInProtection());
+        assertFalse(state.isRound());
+        assertFalse(state.isLightTheme());
+        assertEquals(30, state.getSecondHandFps());
+        assertEquals(320, state.getWidth());
+        assertEquals(290, state.getHeight());
+
+        state.recycle();
+    }
+
+    @Test
+    public void obtain_isNotAffectedByLaterConfigChanges() {
+        RenderState state = RenderState.obtain(mConfig, 320, 320);
+
+        mConfig.round = false;
+        mConfig.time.setTimeInMillis(0);
+
+        assertTrue(state.isRound());
+        assertEquals(13, state.getHour());
+
+        state.recycle();
+    }
+
+    @Test
+    public void recycle_reusesInstances() {
+        RenderState state = RenderState.obtain(mConfig, 320, 320);
+        state.recycle();
+
+        assertSame(state, RenderState.obtain(mConfig, 320, 320));
+    }
+
+    @Test
+    public void obtainAndRecycle_doNotAllocate() {
+        AllocationCounter counter = new AllocationCounter();
+
+        for(int i = 0; i < 10000; i++) {
+            RenderState.obtain(mConfig, 320, 320).recycle();
+        }
+
+        counter.start();
+        for(int i = 0; i < 10000; i++) {
+            RenderState.obtain(mConfig, 320, 320).recycle();
+        }
+        assertEquals(0, counter.stop());
+    }
+}
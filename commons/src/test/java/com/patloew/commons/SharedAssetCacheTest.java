@@ -0,0 +1,219 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SharedAssetCacheTest {
+    private SharedAssetCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new SharedAssetCache(100);
+    }
+
+    @Test
+    public void acquire_missing() {
+        assertNull(mCache.acquire("a"));
+    }
+
+    @Test
+    public void acquire_sharesAsset() {
+        final TestAsset asset = new TestAsset(10);
+        final SharedAssetCache.Handle<TestAsset> first = mCache.put("a", asset);
+        final SharedAssetCache.Handle<TestAsset> second = mCache.acquire("a");
+
+        assertSame(asset, second.get());
+        first.release();
+        second.release();
+        assertFalse(asset.released);
+        assertEquals(10, mCache.getUnusedBytes());
+    }
+
+    @Test
+    public void put_existingAssetWins() {
+        final TestAsset first = new TestAsset(10);
+        final TestAsset second = new TestAsset(10);
+        mCache.put("a", first);
+
+        assertSame(first, mCache.put("a", second).get());
+        assertTrue(second.released);
+        assertFalse(first.released);
+    }
+
+    @Test
+    public void release_evictsLeastRecentlyUnused() {
+        final TestAsset a = new TestAsset(60);
+        final TestAsset b = new TestAsset(30);
+        final TestAsset c = new TestAsset(30);
+        mCache.put("a", a).release();
+        mCache.put("b", b).release();
+        // used again, so it is more recent than b
+        mCache.acquire("a").release();
+        mCache.put("c", c).release();
+
+        assertFalse(a.released);
+        assertTrue(b.released);
+        assertFalse(c.released);
+        assertEquals(90, mCache.getUnusedBytes());
+        assertEquals(2, mCache.getEntryCount());
+    }
+
+    @Test
+    public void trim_keepsAssetsInUse() {
+        final TestAsset used = new TestAsset(10);
+        final TestAsset unused = new TestAsset(10);
+        final SharedAssetCache.Handle<TestAsset> handle = mCache.put("used", used);
+        mCache.put("unused", unused).release();
+
+        mCache.evictUnused();
+
+        assertFalse(used.released);
+        assertTrue(unused.released);
+        assertSame(used, mCache.acquire("used").get());
+        handle.release();
+    }
+
+    @Test
+    public void remove_releasedWhenLastUserReleases() {
+        final TestAsset asset = new TestAsset(10);
+        final SharedAssetCache.Handle<TestAsset> handle = mCache.put("a", asset);
+
+        mCache.remove("a");
+        assertNull(mCache.acquire("a"));
+        assertFalse(asset.released);
+
+        handle.release();
+        assertTrue(asset.released);
+        assertEquals(0, mCache.getUnusedBytes());
+    }
+
+    @Test
+    public void counters_hitsAndMisses() {
+        assertNull(mCache.acquire("a"));
+        mCache.put("a", new TestAsset(10)).release();
+        mCache.acquire("a").release();
+        mCache.acquire("a").release();
+
+        assertEquals(2, mCache.getHitCount());
+        assertEquals(1, mCache.getMissCount());
+        mCache.resetCounters();
+        assertEquals(0, mCache.getHitCount());
+    }
+
+    @Test
+    public void acquireSource_smallestLargerSize() {
+        final TestAsset large = new TestAsset(10);
+        final TestAsset medium = new TestAsset(10);
+        mCache.put(new SizeKey("a", 400, 400), large).release();
+        mCache.put(new SizeKey("a", 320, 320), medium).release();
+        mCache.put(new SizeKey("b", 300, 300), new TestAsset(10)).release();
+
+        assertSame(medium, mCache.acquireSource(new SizeKey("a", 280, 280), 2f).get());
+        assertSame(large, mCache.acquireSource(new SizeKey("a", 360, 360), 2f).get());
+        assertEquals(2, mCache.getSourceHitCount());
+        // too small, too large or another aspect ratio
+        assertNull(mCache.acquireSource(new SizeKey("a", 480, 480), 2f));
+        assertNull(mCache.acquireSource(new SizeKey("a", 100, 100), 2f));
+        assertNull(mCache.acquireSource(new SizeKey("a", 300, 200), 2f));
+    }
+
+    @Test
+    public void acquireSource_ignoresDerivedSizes() {
+        mCache.put(new SizeKey("a", 400, 400), new TestAsset(10)).release();
+        mCache.putDerived(new SizeKey("a", 300, 300), new TestAsset(10)).release();
+
+        // the source is too large, the derived size is not used
+        assertNull(mCache.acquireSource(new SizeKey("a", 200, 200), 1.6f));
+        assertNotNull(mCache.acquire(new SizeKey("a", 300, 300)));
+    }
+
+    @Test
+    public void remove_removesAllSizes() {
+        final TestAsset large = new TestAsset(10);
+        final TestAsset small = new TestAsset(10);
+        mCache.put(new SizeKey("a", 400, 400), large).release();
+        final SharedAssetCache.Handle<TestAsset> handle = mCache.putDerived(new SizeKey("a", 200, 200), small);
+
+        mCache.remove(new SizeKey("a", 200, 200));
+        assertEquals(0, mCache.getEntryCount());
+        assertTrue(large.released);
+        assertFalse(small.released);
+        assertNull(mCache.acquireSource(new SizeKey("a", 200, 200), 2f));
+
+        handle.release();
+        assertTrue(small.released);
+    }
+
+    @Test
+    public void handle_releaseTwice() {
+        final TestAsset asset = new TestAsset(10);
+        final SharedAssetCache.Handle<TestAsset> first = mCache.put("a", asset);
+        final SharedAssetCache.Handle<TestAsset> second = mCache.acquire("a");
+
+        first.release();
+        first.release();
+        mCache.evictUnused();
+        assertFalse(asset.released);
+        second.release();
+    }
+
+    private static final class SizeKey implements SharedAssetCache.ResolutionKey {
+        final String name;
+        final int width;
+        final int height;
+
+        SizeKey(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public Object getFamilyKey() {
+            return name;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof SizeKey)) { return false; }
+            final SizeKey other = (SizeKey) o;
+            return name.equals(other.name) && width == other.width && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return (name.hashCode() * 31 + width) * 31 + height;
+        }
+    }
+
+    private static class TestAsset implements SharedAssetCache.Asset {
+        final long byteCount;
+        boolean released = false;
+
+        TestAsset(long byteCount) {
+            this.byteCount = byteCount;
+        }
+
+        @Override
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        @Override
+        public void release() {
+            released = true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StartupMetricsTest {
+    private static final WatchFaceResources RESOURCES = new WatchFaceResources.Builder()
+            .setHandOuterOffsets(60f, 37.5f, 15f)
+            .setHandStrokes(7.5f, 4.5f, 2.25f)
+            .setHandColors(0xFF4DC57B, 0xFF2881FD, 0xFFCC0A00)
+            .setLowBitAmbientHandColor(0xFFFFFFFF)
+            .setBackgroundColors(0xFF000000, 0xFFFFFFFF)
+            .setPreviewBorder(0xFF808080, 12f)
+            .setDial(0xFF808080, 7.5f, 1.5f, 21f)
+            .build();
+
+    private StartupMetrics mMetrics;
+
+    @Before
+    public void setUp() {
+        mMetrics = new StartupMetrics();
+        mMetrics.begin(1000);
+    }
+
+    @Test
+    public void marks_relativeToStart() {
+        mMetrics.markResourcesLoaded(1500);
+        mMetrics.markFirstFrame(4000);
+        mMetrics.markAssetsLoaded(9000);
+
+        assertEquals(500, mMetrics.getResourcesNanos());
+        assertEquals(3000, mMetrics.getTimeToFirstFrameNanos());
+        assertEquals(8000, mMetrics.getAssetsNanos());
+    }
+
+    @Test
+    public void marks_onlyFirstCallCounts() {
+        mMetrics.markFirstFrame(2000);
+        mMetrics.markFirstFrame(3000);
+        mMetrics.markFirstFrame();
+
+        assertEquals(1000, mMetrics.getTimeToFirstFrameNanos());
+    }
+
+    @Test
+    public void begin_resetsMarks() {
+        mMetrics.markFirstFrame(2000);
+        mMetrics.begin(5000);
+
+        assertEquals(StartupMetrics.NOT_REACHED, mMetrics.getTimeToFirstFrameNanos());
+        assertEquals(StartupMetrics.NOT_REACHED, mMetrics.getAssetsNanos());
+    }
+
+    @Test
+    public void renderer_marksFirstFrameAndAssets() {
+        final TestWatchFaceConfig config = new TestWatchFaceConfig();
+        final HandStyle style = new HandStyle.Builder().setWidths(2f, 1f).build();
+        final WatchFaceRenderer renderer = new WatchFaceRenderer(RESOURCES, new FaceDefinition.Builder().addBackground().addHands(style, style).build());
+        renderer.prepare();
+        assertEquals(StartupMetrics.NOT_REACHED, renderer.getStartupMetrics().getTimeToFirstFrameNanos());
+        // the hand sprites are rasterized with the size of the first frame
+        assertEquals(StartupMetrics.NOT_REACHED, renderer.getStartupMetrics().getAssetsNanos());
+
+        final RenderState state = RenderState.obtain(config, 320, 320);
+        renderer.onDraw(state, new RecordingDrawSurface(320, 320));
+        state.recycle();
+
+        assertTrue(renderer.getStartupMetrics().getTimeToFirstFrameNanos() >= 0);
+        assertTrue(renderer.getStartupMetrics().getAssetsNanos() >= 0);
+        assertTrue(renderer.isReady());
+    }
+}
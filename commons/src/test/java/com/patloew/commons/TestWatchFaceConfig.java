@@ -0,0 +1,64 @@
+package com.patloew.commons;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Mutable {@link IWatchFaceConfig} for tests.
+ */
+public class TestWatchFaceConfig implements IWatchFaceConfig {
+    public final WatchFaceTime time = new WatchFaceTime(TimeZone.getTimeZone("UTC"));
+    public boolean ambient = false;
+    public boolean lowBitAmbient = false;
+    public boolean burnInProtection = false;
+    public boolean round = true;
+    public boolean lightTheme = true;
+    public int secondHandFps = 1;
+    public RenderQuality renderQuality = RenderQuality.FULL;
+
+    @Override
+    public WatchFaceTime getTime() {
+        return time;
+    }
+
+    @Override
+    public Calendar getCalendar() {
+        return time.toCalendar(new GregorianCalendar());
+    }
+
+    @Override
+    public boolean isAmbient() {
+        return ambient;
+    }
+
+    @Override
+    public boolean isLowBitAmbient() {
+        return lowBitAmbient;
+    }
+
+    @Override
+    public boolean isBurnInProtection() {
+        return burnInProtection;
+    }
+
+    @Override
+    public boolean isRound() {
+        return round;
+    }
+
+    @Override
+    public int getSecondHandFps() {
+        return secondHandFps;
+    }
+
+    @Override
+    public RenderQuality getRenderQuality() {
+        return renderQuality;
+    }
+
+    @Override
+    public boolean isLightTheme() {
+        return lightTheme;
+    }
+}
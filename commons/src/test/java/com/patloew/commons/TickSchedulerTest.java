@@ -0,0 +1,202 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TickSchedulerTest {
+    // 2016-01-01T13:03:04.500Z
+    private static final long START_MILLIS = 1451653384500L;
+
+    private VirtualClock mClock;
+    private RecordingCallback mCallback;
+    private TickScheduler mTicks;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualClock(START_MILLIS);
+        mCallback = new RecordingCallback(mClock);
+        mTicks = new TickScheduler(mClock, mClock, mCallback);
+    }
+
+    @Test
+    public void timer_doesNotDrift() {
+        mTicks.start(1);
+        mClock.advanceBy(3600000);
+
+        assertEquals(3601, mCallback.frames.size());
+        for(int i = 1; i < mCallback.frames.size(); i++) {
+            assertEquals(0, mCallback.frames.get(i) % 1000);
+        }
+        final TickScheduler.Stats stats = mTicks.getStats(new TickScheduler.Stats());
+        assertEquals(0, stats.getMaxLatenessMillis());
+        assertEquals(0, stats.getSkippedFrameCount());
+    }
+
+    @Test
+    public void lateFrame_skipsMissedDeadlines() {
+        final ManualScheduler scheduler = new ManualScheduler();
+        final TickScheduler ticks = new TickScheduler(mClock, scheduler, mCallback);
+        ticks.start(1);
+        scheduler.run();
+
+        // the process was paused for a few seconds
+        mClock.advanceTo(START_MILLIS + 3700);
+        scheduler.run();
+        assertEquals(2, mCallback.frames.size());
+        // the next frame is due at the next full second, not at the missed ones
+        assertEquals(800, scheduler.delayMs);
+
+        final TickScheduler.Stats stats = ticks.getStats(new TickScheduler.Stats());
+        assertEquals(2, stats.getTimerFrameCount());
+        assertEquals(3, stats.getSkippedFrameCount());
+        assertEquals(3200, stats.getMaxLatenessMillis());
+    }
+
+    @Test
+    public void fullFrames_coalesced() {
+        mTicks.requestFullFrame();
+        mTicks.requestFullFrame();
+        mTicks.requestFullFrame();
+        assertEquals(1, mClock.getPendingTaskCount());
+
+        mClock.advanceBy(1000);
+        assertEquals(1, mCallback.frames.size());
+        assertTrue(mCallback.fullFrames.get(0));
+        assertEquals(2, mTicks.getStats(new TickScheduler.Stats()).getCoalescedCount());
+        assertEquals(0, mClock.getPendingTaskCount());
+    }
+
+    @Test
+    public void fullFrame_waitsForCloseDeadline() {
+        mTicks.start(1);
+        mClock.advanceBy(490);
+
+        mTicks.requestFullFrame();
+        mClock.advanceBy(0);
+        assertEquals(1, mCallback.frames.size());
+
+        mClock.advanceBy(10);
+        assertEquals(2, mCallback.frames.size());
+        assertTrue(mCallback.fullFrames.get(1));
+        final TickScheduler.Stats stats = mTicks.getStats(new TickScheduler.Stats());
+        assertEquals(2, stats.getTimerFrameCount());
+        assertEquals(1, stats.getCoalescedCount());
+    }
+
+    @Test
+    public void fullFrame_drawnRightAwayForFarDeadline() {
+        mTicks.start(1);
+        mClock.advanceBy(100);
+
+        mTicks.requestFullFrame();
+        mClock.advanceBy(0);
+        assertEquals(2, mCallback.frames.size());
+        assertTrue(mCallback.fullFrames.get(1));
+
+        // the timer keeps its deadline
+        mClock.advanceBy(400);
+        assertEquals(3, mCallback.frames.size());
+        assertEquals(START_MILLIS + 500, (long) mCallback.frames.get(2));
+    }
+
+    @Test
+    public void start_sameRateDoesNotReschedule() {
+        final ManualScheduler scheduler = new ManualScheduler();
+        final TickScheduler ticks = new TickScheduler(mClock, scheduler, mCallback);
+        ticks.start(1);
+        scheduler.run();
+        final int scheduleCount = scheduler.scheduleCount;
+
+        ticks.start(1);
+        ticks.stop();
+        ticks.stop();
+        ticks.start(1);
+        ticks.start(1);
+        assertEquals(scheduleCount + 1, scheduler.scheduleCount);
+    }
+
+    @Test
+    public void start_changedRateAlignsToNewRate() {
+        mTicks.start(10);
+        mClock.advanceBy(0);
+        mTicks.start(1);
+        mClock.advanceBy(600);
+
+        // the frame which was due, then on the full second
+        assertEquals(START_MILLIS + 100, (long) mCallback.frames.get(1));
+        assertEquals(START_MILLIS + 500, (long) mCallback.frames.get(2));
+        assertEquals(3, mCallback.frames.size());
+    }
+
+    @Test
+    public void clockSetBack_reschedulesDeadline() {
+        final ManualScheduler scheduler = new ManualScheduler();
+        final TickScheduler ticks = new TickScheduler(mClock, scheduler, mCallback);
+        ticks.start(1);
+        scheduler.run();
+
+        mClock.advanceTo(START_MILLIS - 3600000);
+        ticks.requestFullFrame();
+        scheduler.run();
+        assertEquals(2, mCallback.frames.size());
+        // the next frame is due at the next full second of the new time
+        assertEquals(500, scheduler.delayMs);
+    }
+
+    @Test
+    public void release_cancelsEverything() {
+        mTicks.start(1);
+        mTicks.requestFullFrame();
+        mTicks.release();
+        assertFalse(mTicks.isRunning());
+        assertEquals(0, mClock.getPendingTaskCount());
+        mClock.advanceBy(10000);
+        assertEquals(0, mCallback.frames.size());
+    }
+
+    @Test
+    public void timer_roundsDeadlinesWithinEachSecond() {
+        mTicks.start(60);
+        mClock.advanceBy(10000);
+
+        // the first frame right away, then 60 per second
+        assertEquals(1 + 600, mCallback.frames.size());
+        int fullSeconds = 0;
+        for(int i = 1; i < mCallback.frames.size(); i++) {
+            final long millis = mCallback.frames.get(i) % 1000;
+            final long frame = Math.round(millis * 60 / 1000.0);
+            assertEquals(Math.round(frame * 1000 / 60.0), millis);
+            if(millis == 0) {
+                fullSeconds++;
+            }
+        }
+        assertEquals(10, fullSeconds);
+        assertEquals(0, mTicks.getStats(new TickScheduler.Stats()).getMaxLatenessMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void start_rejectsZeroFrameRate() {
+        mTicks.start(0);
+    }
+
+    private static class RecordingCallback implements TickScheduler.Callback {
+        private final Clock mClock;
+        final List<Long> frames = new ArrayList<>();
+        final List<Boolean> fullFrames = new ArrayList<>();
+
+        RecordingCallback(Clock clock) {
+            mClock = clock;
+        }
+
+        @Override
+        public void onFrame(boolean fullFrame) {
+            frames.add(mClock.currentTimeMillis());
+            fullFrames.add(fullFrame);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.patloew.commons;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class TimeZoneTransitionsTest {
+    private static final long MILLIS_PER_DAY = 86400000L;
+    // 2016-01-01T00:00:00Z
+    private static final long START_MILLIS = 1451606400000L;
+
+    @Test
+    public void compute_findsExactTransitions() {
+        TimeZoneTransitions transitions = TimeZoneTransitions.compute(TimeZone.getTimeZone("Europe/Vienna"), START_MILLIS, 365 * MILLIS_PER_DAY);
+
+        assertEquals(3, transitions.getSpanCount());
+        assertEquals(START_MILLIS, transitions.getSpanStart(0));
+        assertEquals(3600000, transitions.getSpanOffset(0));
+        // 2016-03-27T01:00:00Z
+        assertEquals(1459040400000L, transitions.getSpanStart(1));
+        assertEquals(7200000, transitions.getSpanOffset(1));
+        // 2016-10-30T01:00:00Z
+        assertEquals(1477789200000L, transitions.getSpanStart(2));
+        assertEquals(3600000, transitions.getSpanOffset(2));
+        assertEquals(START_MILLIS + 365 * MILLIS_PER_DAY, transitions.getSpanEnd(2));
+    }
+
+    @Test
+    public void compute_noTransitions() {
+        TimeZoneTransitions transitions = TimeZoneTransitions.compute(TimeZone.getTimeZone("UTC"), START_MILLIS);
+
+        assertEquals(1, transitions.getSpanCount());
+        assertEquals(0, transitions.getSpanOffset(0));
+        assertTrue(transitions.covers(START_MILLIS + 300 * MILLIS_PER_DAY));
+    }
+
+    @Test
+    public void getOffset_matchesTimeZone() {
+        String[] timeZoneIds = { "Europe/Vienna", "America/Santiago", "Asia/Kolkata", "Australia/Lord_Howe" };
+
+        for(String timeZoneId : timeZoneIds) {
+            TimeZone timeZone = TimeZone.getTimeZone(timeZoneId);
+            TimeZoneTransitions transitions = TimeZoneTransitions.compute(timeZone, START_MILLIS);
+
+            // also after the end of the table, where the time zone is asked
+            for(long millis = START_MILLIS; millis < START_MILLIS + 2 * 365 * MILLIS_PER_DAY; millis += 1234567L) {
+                assertEquals(timeZoneId, timeZone.getOffset(millis), transitions.getOffset(millis));
+            }
+        }
+    }
+
+    @Test
+    public void covers() {
+        TimeZoneTransitions transitions = TimeZoneTransitions.compute(TimeZone.getTimeZone("Europe/Vienna"), START_MILLIS);
+
+        assertFalse(transitions.covers(START_MILLIS - MILLIS_PER_DAY - 1));
+        assertTrue(transitions.covers(START_MILLIS - MILLIS_PER_DAY));
+        assertTrue(transitions.covers(START_MILLIS + 365 * MILLIS_PER_DAY));
+        assertFalse(transitions.covers(START_MILLIS - MILLIS_PER_DAY + TimeZoneTransitions.DEFAULT_SPAN_MILLIS));
+    }
+}
@@ -0,0 +1,205 @@
+package com.patloew.commons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class WatchFaceSessionTest {
+    // 2016-01-01T13:03:04.500Z
+    private static final long START_MILLIS = 1451653384500L;
+
+    private VirtualClock mClock;
+    private CountingHost mHost;
+    private WatchFaceSession mSession;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualClock(START_MILLIS);
+        mHost = new CountingHost();
+        mSession = newSession(mClock, mHost);
+    }
+
+    private static WatchFaceSession newSession(VirtualClock clock, CountingHost host) {
+        final WatchFaceSession session = new WatchFaceSession(clock, clock, host);
+        host.session = session;
+        session.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return session;
+    }
+
+    @Test
+    public void timer_ticksOnWholeSeconds() {
+        mSession.setVisible(true);
+        mClock.advanceBy(0);
+        assertEquals(1, mHost.frames.size());
+
+        mClock.advanceBy(2000);
+        assertEquals(3, mHost.frames.size());
+        assertEquals(START_MILLIS + 500, (long) mHost.frames.get(1));
+        assertEquals(START_MILLIS + 1500, (long) mHost.frames.get(2));
+        // the time of the frame is set before drawing
+        assertEquals(6, mHost.seconds.get(2).intValue());
+    }
+
+    @Test
+    public void timer_sweepsAtRenderModeRate() {
+        mSession.setRenderMode(10, RenderQuality.FULL);
+        mSession.setVisible(true);
+        mClock.advanceBy(1000);
+        // the first frame right away, then every 100 ms
+        assertEquals(11, mHost.frames.size());
+        assertEquals(START_MILLIS + 100, (long) mHost.frames.get(1));
+    }
+
+    @Test
+    public void timer_stopsInAmbientAndWithoutSecondHand() {
+        mSession.setVisible(true);
+        mClock.advanceBy(0);
+        final long invalidations = mSession.getInvalidationCount();
+
+        mSession.setAmbient(true);
+        assertFalse(mSession.isTimerRunning());
+        assertEquals(invalidations + 1, mSession.getInvalidationCount());
+        // only the repaint for ambient mode
+        mClock.advanceBy(0);
+        assertEquals(0, mClock.getPendingTaskCount());
+
+        mSession.setAmbient(false);
+        assertTrue(mSession.isTimerRunning());
+        mSession.setRenderMode(0, RenderQuality.MINIMAL);
+        assertFalse(mSession.isTimerRunning());
+        mClock.advanceBy(0);
+        assertEquals(0, mClock.getPendingTaskCount());
+    }
+
+    @Test
+    public void timeTick_mergedIntoTimerFrame() {
+        mSession.setVisible(true);
+        mClock.advanceBy(495);
+        assertEquals(1, mHost.frames.size());
+
+        // 5 ms before the frame of the next second
+        mSession.onTimeTick();
+        mClock.advanceBy(1005);
+        assertEquals(3, mHost.frames.size());
+        assertEquals(START_MILLIS + 500, (long) mHost.frames.get(1));
+        assertTrue(mHost.fullFrames.get(1));
+        assertFalse(mHost.fullFrames.get(2));
+    }
+
+    @Test
+    public void invalidate_drawsOnceInAmbient() {
+        mSession.setVisible(true);
+        mSession.setAmbient(true);
+        mClock.advanceBy(0);
+        assertEquals(1, mHost.frames.size());
+
+        mSession.onTimeTick();
+        mSession.invalidate();
+        mClock.advanceBy(60000);
+        assertEquals(2, mHost.frames.size());
+        assertTrue(mHost.fullFrames.get(1));
+    }
+
+    @Test
+    public void timer_keepsOneTaskWhenRestarted() {
+        mSession.setVisible(true);
+        mSession.setVisible(true);
+        mSession.setAmbient(false);
+        assertEquals(1, mClock.getPendingTaskCount());
+    }
+
+    @Test
+    public void replay_reproducesRecordedSession() {
+        mSession.setSurfaceSize(320, 320);
+        mSession.setRound(true);
+        mSession.setRecorder(new SessionTrace.Recorder(mClock, 4096));
+
+        mSession.setVisible(true);
+        mClock.advanceBy(10000);
+        mSession.setAmbient(true);
+        mClock.advanceBy(60000);
+        mSession.onTimeTick();
+        mSession.setTimeZone(TimeZone.getTimeZone("Europe/Vienna"));
+        mSession.setAmbient(false);
+        mClock.advanceBy(5000);
+        mSession.setRenderMode(30, RenderQuality.REDUCED);
+        mClock.advanceBy(1000);
+        mSession.setVisible(false);
+
+        final byte[] trace = mSession.getRecorder().toByteArray();
+        final SessionTrace.Reader reader = new SessionTrace.Reader(trace);
+        assertEquals(START_MILLIS, reader.getStartMillis());
+
+        final VirtualClock clock = new VirtualClock(reader.getStartMillis());
+        final CountingHost host = new CountingHost();
+        final WatchFaceSession session = newSession(clock, host);
+        final SessionReplayer.Result result = SessionReplayer.replay(reader, session, clock);
+
+        assertEquals(mSession.getFrameCount(), result.getRecordedFrameCount());
+        assertEquals(mSession.getFrameCount(), result.getFrameCount());
+        assertEquals(mHost.frames, host.frames);
+        assertEquals(mHost.fullFrames, host.fullFrames);
+        assertEquals(mHost.seconds, host.seconds);
+        assertEquals(76000, result.getDurationMillis());
+        assertEquals("Europe/Vienna", session.getTime().getTimeZone().getID());
+        assertEquals(RenderQuality.REDUCED, session.getRenderQuality());
+        assertEquals(320, session.getWidth());
+        assertTrue(session.isRound());
+        assertFalse(session.isVisible());
+    }
+
+    @Test
+    public void recorder_dropsEventsAfterLimit() {
+        final SessionTrace.Recorder recorder = new SessionTrace.Recorder(mClock, 32);
+        mSession.setRecorder(recorder);
+        for(int i = 0; i < 20; i++) {
+            mClock.advanceBy(60000);
+            mSession.onTimeTick();
+        }
+        assertTrue(recorder.isFull());
+        assertTrue(recorder.size() <= 32);
+
+        final SessionTrace.Reader reader = new SessionTrace.Reader(recorder.toByteArray());
+        int events = 0;
+        while(reader.next()) {
+            events++;
+        }
+        assertEquals(recorder.getEventCount(), events);
+    }
+
+    @Test
+    public void reader_handlesClockSetBack() {
+        final SessionTrace.Recorder recorder = new SessionTrace.Recorder(mClock, 1024);
+        mClock.advanceTo(START_MILLIS - 3600000);
+        recorder.record(SessionTrace.TYPE_TIME_TICK, 0);
+
+        final SessionTrace.Reader reader = new SessionTrace.Reader(recorder.toByteArray());
+        assertTrue(reader.next());
+        assertEquals(START_MILLIS - 3600000, reader.getTimeMillis());
+        assertFalse(reader.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reader_rejectsOtherData() {
+        new SessionTrace.Reader(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 });
+    }
+
+    private static class CountingHost implements WatchFaceSession.Host {
+        WatchFaceSession session;
+        final List<Long> frames = new ArrayList<>();
+        final List<Integer> seconds = new ArrayList<>();
+        final List<Boolean> fullFrames = new ArrayList<>();
+
+        @Override
+        public void drawFrame(boolean fullFrame) {
+            frames.add(session.getClock().currentTimeMillis());
+            seconds.add(session.getTime().getSecond());
+            fullFrames.add(fullFrame);
+        }
+    }
+}
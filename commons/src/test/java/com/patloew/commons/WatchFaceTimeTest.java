@@ -0,0 +1,124 @@
+package com.patloew.commons;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class WatchFaceTimeTest {
+
+    @Test
+    public void setTimeInMillis_matchesCalendar() {
+        String[] timeZoneIds = { "UTC", "Europe/Vienna", "America/Los_Angeles", "Asia/Kolkata", "Australia/Lord_Howe" };
+
+        for(String timeZoneId : timeZoneIds) {
+            TimeZone timeZone = TimeZone.getTimeZone(timeZoneId);
+            WatchFaceTime time = new WatchFaceTime(timeZone);
+            Calendar calendar = new GregorianCalendar(timeZone);
+
+            // two years in steps of 7 minutes and 3 seconds, crossing several DST transitions
+            long start = 1451606400000L; // 2016-01-01T00:00:00Z
+            for(long millis = start; millis < start + 2 * 365 * 86400000L; millis += 423000L) {
+                time.setTimeInMillis(millis);
+                calendar.setTimeInMillis(millis);
+                assertFields(timeZoneId, calendar, time);
+            }
+        }
+    }
+
+    @Test
+    public void setTimeInMillis_beforeEpoch() {
+        TimeZone timeZone = TimeZone.getTimeZone("America/New_York");
+        WatchFaceTime time = new WatchFaceTime(timeZone);
+        Calendar calendar = new GregorianCalendar(timeZone);
+
+        time.setTimeInMillis(-1234567L);
+        calendar.setTimeInMillis(-1234567L);
+        assertFields("America/New_York", calendar, time);
+    }
+
+    @Test
+    public void setTimeZone_recomputesFields() {
+        WatchFaceTime time = new WatchFaceTime(TimeZone.getTimeZone("UTC"));
+        time.setTimeInMillis(1451606400000L);
+        assertEquals(0, time.getHour());
+
+        time.setTimeZone(TimeZone.getTimeZone("Europe/Vienna"));
+        assertEquals(1, time.getHour());
+        assertEquals(1451606400000L, time.getTimeInMillis());
+    }
+
+    @Test
+    public void setTimeInMillis_atTransition() {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Vienna");
+        WatchFaceTime time = new WatchFaceTime(timeZone);
+
+        // 2016-03-27T01:00:00Z, 2:00 local time becomes 3:00
+        time.setTimeInMillis(1459040400000L - 1);
+        assertEquals(1, time.getHour());
+        assertEquals(59, time.getMinute());
+        time.setTimeInMillis(1459040400000L);
+        assertEquals(3, time.getHour());
+        assertEquals(0, time.getMinute());
+    }
+
+    @Test
+    public void secondaryTimeZone_matchesCalendar() {
+        WatchFaceTime time = new WatchFaceTime(TimeZone.getTimeZone("Europe/Vienna"));
+        assertEquals(-1, time.getSecondaryMillisOfDay());
+
+        TimeZone secondary = TimeZone.getTimeZone("America/New_York");
+        time.setSecondaryTimeZone(secondary);
+        Calendar calendar = new GregorianCalendar(secondary);
+
+        long start = 1451606400000L; // 2016-01-01T00:00:00Z
+        for(long millis = start; millis < start + 365 * 86400000L; millis += 4230000L) {
+            time.setTimeInMillis(millis);
+            calendar.setTimeInMillis(millis);
+            int expected = ((calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE)) * 60
+                    + calendar.get(Calendar.SECOND)) * 1000 + calendar.get(Calendar.MILLISECOND);
+            assertEquals(expected, time.getSecondaryMillisOfDay());
+        }
+
+        time.setSecondaryTimeZone(null);
+        assertEquals(-1, time.getSecondaryMillisOfDay());
+    }
+
+    @Test
+    public void toCalendar() {
+        WatchFaceTime time = new WatchFaceTime(TimeZone.getTimeZone("Asia/Tokyo"));
+        time.setTimeInMillis(1451606400000L);
+
+        Calendar calendar = time.toCalendar(new GregorianCalendar(TimeZone.getTimeZone("UTC")));
+        assertEquals(TimeZone.getTimeZone("Asia/Tokyo"), calendar.getTimeZone());
+        assertFields("Asia/Tokyo", calendar, time);
+    }
+
+    @Test
+    public void setTimeInMillis_doesNotAllocate() {
+        WatchFaceTime time = new WatchFaceTime(TimeZone.getTimeZone("Europe/Vienna"));
+        AllocationCounter counter = new AllocationCounter();
+
+        for(int i = 0; i < 10000; i++) {
+            time.setTimeInMillis(1451606400000L + i * 1000L);
+        }
+
+        counter.start();
+        for(int i = 0; i < 10000; i++) {
+            time.setTimeInMillis(1451606400000L + i * 1000L);
+        }
+        assertEquals(0, counter.stop());
+    }
+
+    private static void assertFields(String message, Calendar expected, WatchFaceTime actual) {
+        message = message + " " + expected.getTimeInMillis();
+        assertEquals(message, expected.get(Calendar.HOUR_OF_DAY), actual.getHour());
+        assertEquals(message, expected.get(Calendar.HOUR), actual.getHour12());
+        assertEquals(message, expected.get(Calendar.MINUTE), actual.getMinute());
+        assertEquals(message, expected.get(Calendar.SECOND), actual.getSecond());
+        assertEquals(message, expected.get(Calendar.MILLISECOND), actual.getMillis());
+    }
+}
@@ -1,38 +1,60 @@
 package com.patloew.watchfaceexample;
 
+import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
-
-import com.patloew.commons.IWatchFaceConfig;
-import com.patloew.commons.WatchFaceDrawer;
-
-import java.util.Calendar;
-import java.util.GregorianCalendar;
-
-public class MainActivity extends AppCompatActivity implements IWatchFaceConfig {
+import android.widget.Toast;
+
+import com.patloew.commons.ConfigSyncSender;
+import com.patloew.commons.ExampleFace;
+import com.patloew.commons.FrameMetrics;
+import com.patloew.commons.HandlerScheduler;
+import com.patloew.commons.Scheduler;
+import com.patloew.commons.SharedAssetCache;
+import com.patloew.commons.ThumbnailExporter;
+import com.patloew.commons.ThumbnailSpec;
+import com.patloew.commons.WatchFaceOptions;
+import com.patloew.commons.WearableConfigTransport;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MainActivity extends AppCompatActivity implements PreviewRenderer.Callback {
+    private static final String TAG = "MainActivity";
+
+    private static final String PREFS_NAME = "watchface";
+    private static final String PREF_LIGHT_THEME = "light_theme";
+
+    /** Sizes of the exported thumbnails in pixels. */
+    private static final int[] THUMBNAIL_SIZES = { 280, 320, 400 };
 
     LinearLayout mWatchfaceLayout;
     ImageView mWatchfaceImage;
     ImageView mWatchfaceImageSquare;
-    WatchFaceDrawer mWatchfaceDrawer;
-    Calendar mCalendar;
-    Runnable mUpdateWatchfaceImageRunnable = new Runnable() {
-        @Override
-        public void run() {
-            updateWatchfaceImage();
-        }
-    };
+    PreviewRenderer mPreviewRenderer;
     boolean mIsAmbient = false;
-    boolean mIsRound = false;
     int mSize = 0;
+    final FrameMetrics.Summary mFrameMetricsSummary = new FrameMetrics.Summary();
+
+    final WatchFaceOptions mOptions = new WatchFaceOptions();
+    WearableConfigTransport mConfigTransport;
+    ConfigSyncSender mConfigSender;
+    final Handler mHandler = new Handler();
+    final Scheduler mScheduler = new HandlerScheduler(mHandler);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,12 +64,16 @@ public class MainActivity extends AppCompatActivity implements IWatchFaceConfig
         mWatchfaceLayout = (LinearLayout) findViewById(R.id.ll_watchface);
         mWatchfaceImage = (ImageView) findViewById(R.id.iv_watchface);
         mWatchfaceImageSquare = (ImageView) findViewById(R.id.iv_watchface_square);
-        mWatchfaceDrawer = new WatchFaceDrawer(this);
-        mCalendar = new GregorianCalendar();
 
-        mWatchfaceDrawer.setMobilePreview(this, true);
+        mSize = getResources().getDimensionPixelSize(R.dimen.watchface_preview_size);
+
+        mPreviewRenderer = new PreviewRenderer(this, mSize, this);
+
+        mOptions.setLightTheme(getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(PREF_LIGHT_THEME, true));
+        mPreviewRenderer.setLightTheme(mOptions.isLightTheme());
 
-        mSize = Math.round(320/1.5f*getResources().getDisplayMetrics().density);
+        mConfigTransport = new WearableConfigTransport(this);
+        mConfigSender = new ConfigSyncSender(mConfigTransport, mScheduler);
 
         if(Build.VERSION.SDK_INT >= 21) {
             mWatchfaceLayout.setElevation(getResources().getDimension(R.dimen.watchface_preview_elevation));
@@ -58,13 +84,33 @@ public class MainActivity extends AppCompatActivity implements IWatchFaceConfig
     @Override
     protected void onStart() {
         super.onStart();
-        updateWatchfaceImage();
+        // the time zone might have changed while the activity was stopped
+        mPreviewRenderer.setTimeZone(TimeZone.getDefault());
+        mPreviewRenderer.start();
+
+        // the stored options are the latest edits, the watch might have missed some of them
+        mConfigTransport.connect();
+        mConfigSender.sendFull(mOptions);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        mWatchfaceImage.removeCallbacks(mUpdateWatchfaceImageRunnable);
+        mPreviewRenderer.stop();
+
+        // send pending edits before the connection is closed
+        mConfigSender.flush();
+        mConfigTransport.disconnect();
+
+        if(BuildConfig.DEBUG) {
+            Log.d(TAG, "Frame metrics: " + mPreviewRenderer.getFrameMetrics().getSummary(mFrameMetricsSummary));
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mPreviewRenderer.release();
     }
 
     @Override
@@ -80,9 +126,25 @@ public class MainActivity extends AppCompatActivity implements IWatchFaceConfig
             case R.id.menu_action_toggle_ambient: {
                 mIsAmbient = !mIsAmbient;
                 item.setIcon(mIsAmbient ? R.drawable.ic_ambient_on : R.drawable.ic_ambient_off);
-                mWatchfaceDrawer.onAmbientModeChanged(getApplicationContext(), this);
-                mWatchfaceImage.removeCallbacks(mUpdateWatchfaceImageRunnable);
-                updateWatchfaceImage();
+                mPreviewRenderer.setAmbient(mIsAmbient);
+                mPreviewRenderer.requestFrame();
+                break;
+            }
+            case R.id.menu_action_toggle_theme: {
+                mOptions.setLightTheme(!mOptions.isLightTheme());
+                getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit().putBoolean(PREF_LIGHT_THEME, mOptions.isLightTheme()).apply();
+                mPreviewRenderer.setLightTheme(mOptions.isLightTheme());
+                mPreviewRenderer.requestFrame();
+                // rapid toggles are coalesced into one update for the watch
+                mConfigSender.setOptions(mOptions);
+                break;
+            }
+            case R.id.menu_action_export_thumbnails: {
+                File directory = getExternalFilesDir("thumbnails");
+                if(directory == null) {
+                    directory = new File(getFilesDir(), "thumbnails");
+                }
+                new ThumbnailExportTask(this, mPreviewRenderer.getWatchFaceDrawer().createThumbnailExporter(Bitmap.CompressFormat.PNG, 100), directory).execute();
                 break;
             }
         }
@@ -90,49 +152,80 @@ public class MainActivity extends AppCompatActivity implements IWatchFaceConfig
     }
 
 
-    private void updateWatchfaceImage() {
-        mCalendar.setTimeInMillis(System.currentTimeMillis());
-
-        Bitmap bmp = Bitmap.createBitmap(mSize, mSize, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bmp);
-        mIsRound = true;
-        mWatchfaceDrawer.onDraw(getApplicationContext(), this, canvas, canvas.getClipBounds());
-        mWatchfaceImage.setImageBitmap(bmp);
+    /**
+     * Exports thumbnails of all sizes, shapes, themes and modes with a thread per core, off the
+     * UI thread.
+     */
+    private static class ThumbnailExportTask extends AsyncTask<Void, Void, ThumbnailExporter.Result> {
+        private final Context mContext;
+        private final ThumbnailExporter mExporter;
+        private final File mDirectory;
 
-        bmp = Bitmap.createBitmap(mSize, mSize, Bitmap.Config.ARGB_8888);
-        canvas = new Canvas(bmp);
-        mIsRound = false;
-        mWatchfaceDrawer.onDraw(getApplicationContext(), this, canvas, canvas.getClipBounds());
-        mWatchfaceImageSquare.setImageBitmap(bmp);
-
-        mWatchfaceImage.postDelayed(mUpdateWatchfaceImageRunnable, 1000);
-    }
+        ThumbnailExportTask(Context context, ThumbnailExporter exporter, File directory) {
+            mContext = context.getApplicationContext();
+            mExporter = exporter;
+            mDirectory = directory;
+        }
 
+        @Override
+        protected ThumbnailExporter.Result doInBackground(Void... params) {
+            final List<ThumbnailSpec> specs = new ArrayList<>();
+            // the dual time hand is part of the face, like on the watch
+            final TimeZone secondaryTimeZone = ExampleFace.getSecondaryTimeZone(mContext);
+            for(int size : THUMBNAIL_SIZES) {
+                for(boolean round : new boolean[] { true, false }) {
+                    for(boolean lightTheme : new boolean[] { true, false }) {
+                        specs.add(new ThumbnailSpec.Builder(size, size).setRound(round).setLightTheme(lightTheme)
+                                .setSecondaryTimeZone(secondaryTimeZone).build());
+                    }
+                    specs.add(new ThumbnailSpec.Builder(size, size).setRound(round).setAmbient(true, false)
+                            .setSecondaryTimeZone(secondaryTimeZone).build());
+                }
+            }
 
-    // IWatchFaceConfig
+            if(!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                Log.w(TAG, "Could not create " + mDirectory);
+                return null;
+            }
 
-    @Override
-    public Calendar getCalendar() {
-        return mCalendar;
-    }
+            final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                final ThumbnailExporter.Result result = mExporter.export(specs, mDirectory, executor);
+                // all jobs are done, so nothing is drawn anymore
+                mExporter.release();
+                return result;
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                executor.shutdown();
+            }
+        }
 
-    @Override
-    public boolean isAmbient() {
-        return mIsAmbient;
+        @Override
+        protected void onPostExecute(ThumbnailExporter.Result result) {
+            if(BuildConfig.DEBUG) {
+                final SharedAssetCache cache = SharedAssetCache.getInstance();
+                Log.d(TAG, "Asset cache: " + cache.getHitCount() + " hits, " + cache.getMissCount() + " misses, "
+                        + cache.getSourceHitCount() + " derived from a larger size, " + cache.getUnusedBytes() + " bytes unused");
+            }
+            if(result == null || !result.isSuccessful()) {
+                if(result != null) {
+                    Log.w(TAG, "Thumbnail export failed: " + result.getErrors());
+                }
+                Toast.makeText(mContext, R.string.thumbnails_export_failed, Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(mContext, mContext.getString(R.string.thumbnails_exported, result.getFiles().size(), mDirectory), Toast.LENGTH_LONG).show();
+            }
+        }
     }
 
-    @Override
-    public boolean isLowBitAmbient() {
-        return false;
-    }
 
-    @Override
-    public boolean isRound() {
-        return mIsRound;
-    }
+    // PreviewRenderer.Callback
 
     @Override
-    public boolean isLightTheme() {
-        return true;
+    public void onFrameRendered(Bitmap roundBitmap, Bitmap squareBitmap) {
+        mWatchfaceImage.setImageBitmap(roundBitmap);
+        mWatchfaceImageSquare.setImageBitmap(squareBitmap);
     }
 }
@@ -0,0 +1,358 @@
+package com.patloew.watchfaceexample;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.patloew.commons.Clock;
+import com.patloew.commons.ComplicationManager;
+import com.patloew.commons.ExampleFace;
+import com.patloew.commons.FrameMetrics;
+import com.patloew.commons.HandlerScheduler;
+import com.patloew.commons.IWatchFaceConfig;
+import com.patloew.commons.RenderQuality;
+import com.patloew.commons.RenderState;
+import com.patloew.commons.Scheduler;
+import com.patloew.commons.WatchFaceDrawer;
+import com.patloew.commons.WatchFaceRenderer;
+import com.patloew.commons.WatchFaceTime;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the round and the square watch face preview once a second. Both shapes are rendered in
+ * parallel on a background executor by one shared {@link WatchFaceDrawer}, each into a pair of
+ * reused bitmaps (double buffering). Only finished frames are passed to the {@link Callback} on the
+ * main thread. If the previous frame is still being rendered when the next one is due, the next
+ * frame is skipped.
+ *
+ * The face is the {@link ExampleFace} of the watch, with its own {@link ComplicationManager}, so the
+ * preview and the thumbnails exported from its drawer show the same layers as the watch.
+ *
+ * The time of the frames and the ticks come from an injectable {@link Clock} and
+ * {@link Scheduler}.
+ */
+public class PreviewRenderer {
+    private static final long FRAME_INTERVAL_MS = 1000;
+
+    public interface Callback {
+        /** Called on the main thread. The bitmaps stay valid until the next call. */
+        void onFrameRendered(Bitmap roundBitmap, Bitmap squareBitmap);
+    }
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(2);
+    private final ExecutorService mComplicationExecutor = Executors.newSingleThreadExecutor();
+    private final Callback mCallback;
+    private final Clock mClock;
+    private final Scheduler mScheduler;
+    private final ComplicationManager mComplications;
+    private final WatchFaceDrawer mWatchfaceDrawer;
+
+    private final ShapeRenderer mRoundRenderer;
+    private final ShapeRenderer mSquareRenderer;
+
+    private final FrameMetrics mFrameMetrics = new FrameMetrics();
+    private final AtomicInteger mPendingRenders = new AtomicInteger();
+    private final AtomicInteger mSkippedFrames = new AtomicInteger();
+
+    // written on the main thread before the render tasks are submitted, read by the render thread
+    // which finishes the frame
+    private long mFrameStartNanos;
+    private long mIntendedFrameTimeNanos;
+
+    private volatile boolean mAmbient = false;
+    private volatile boolean mLightTheme = true;
+
+    // main thread only
+    private TimeZone mTimeZone = TimeZone.getDefault();
+    private boolean mRunning = false;
+    private boolean mFrameInFlight = false;
+    private long mNextTickNanos;
+
+    private final Runnable mTickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            requestFrame(mNextTickNanos);
+            scheduleNextTick();
+        }
+    };
+
+    private final Runnable mPublishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mRoundRenderer.swapBuffers();
+            mSquareRenderer.swapBuffers();
+            mFrameInFlight = false;
+            mCallback.onFrameRendered(mRoundRenderer.getFrontBuffer(), mSquareRenderer.getFrontBuffer());
+        }
+    };
+
+    private final Runnable mRedrawRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if(mRunning) {
+                requestFrame();
+            }
+        }
+    };
+
+    public PreviewRenderer(Context context, int size, Callback callback) {
+        this(context, size, callback, Clock.SYSTEM, null);
+    }
+
+    /**
+     * @param scheduler schedules the ticks on the main thread, or null for a {@link Handler}
+     */
+    public PreviewRenderer(Context context, int size, Callback callback, Clock clock, Scheduler scheduler) {
+        mCallback = callback;
+        mClock = clock;
+        mScheduler = scheduler != null ? scheduler : new HandlerScheduler(mMainHandler);
+
+        mComplications = ExampleFace.createComplications(context, clock, mComplicationExecutor);
+        mWatchfaceDrawer = new WatchFaceDrawer(context.getApplicationContext(), ExampleFace.create(mComplications));
+        mWatchfaceDrawer.setMobilePreview(context, true);
+        // show the deferred layers and new complication data without waiting for the next tick
+        mWatchfaceDrawer.setAssetListener(new WatchFaceRenderer.AssetListener() {
+            @Override
+            public void onAssetsLoaded() {
+                mMainHandler.post(mRedrawRunnable);
+            }
+        });
+        mComplications.setListener(new ComplicationManager.Listener() {
+            @Override
+            public void onComplicationsChanged() {
+                mMainHandler.post(mRedrawRunnable);
+            }
+        });
+
+        mRoundRenderer = new ShapeRenderer(size, true);
+        mSquareRenderer = new ShapeRenderer(size, false);
+        final TimeZone secondaryTimeZone = ExampleFace.getSecondaryTimeZone(context);
+        mRoundRenderer.mTime.setSecondaryTimeZone(secondaryTimeZone);
+        mSquareRenderer.mTime.setSecondaryTimeZone(secondaryTimeZone);
+    }
+
+    public WatchFaceDrawer getWatchFaceDrawer() {
+        return mWatchfaceDrawer;
+    }
+
+    public FrameMetrics getFrameMetrics() {
+        return mFrameMetrics;
+    }
+
+    /** Starts rendering a frame every second. Must be called on the main thread. */
+    public void start() {
+        if(!mRunning) {
+            mRunning = true;
+            mComplications.refreshAll(mClock.currentTimeMillis());
+            mNextTickNanos = System.nanoTime();
+            mTickRunnable.run();
+        }
+    }
+
+    /** Stops rendering. Must be called on the main thread. */
+    public void stop() {
+        mRunning = false;
+        mScheduler.cancel(mTickRunnable);
+    }
+
+    /**
+     * Stops rendering and shuts down the executors. The drawer is released once the frame which
+     * might be in flight is done. The renderer can't be used afterwards.
+     */
+    public void release() {
+        stop();
+        mWatchfaceDrawer.setAssetListener(null);
+        mComplications.setListener(null);
+        mComplicationExecutor.shutdown();
+        mExecutor.shutdown();
+        // both render threads might still draw their shape of the last frame, and the drawer must
+        // not be released while any of them draws. Waits off the main thread, a frame can take a
+        // while on a slow phone.
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                    mWatchfaceDrawer.release();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "PreviewRelease").start();
+    }
+
+    public void setAmbient(boolean ambient) {
+        mAmbient = ambient;
+    }
+
+    public void setLightTheme(boolean lightTheme) {
+        mLightTheme = lightTheme;
+    }
+
+    /** Sets the time zone used from the next frame on. Must be called on the main thread. */
+    public void setTimeZone(TimeZone timeZone) {
+        mTimeZone = timeZone;
+    }
+
+    /**
+     * Renders a new frame now, e.g. after an option changed, unless a frame is already being
+     * rendered. Must be called on the main thread.
+     */
+    public void requestFrame() {
+        requestFrame(System.nanoTime());
+    }
+
+    /**
+     * @param intendedFrameTimeNanos when the frame should have started, to measure the jitter
+     */
+    private void requestFrame(long intendedFrameTimeNanos) {
+        if(mFrameInFlight) {
+            mSkippedFrames.incrementAndGet();
+            return;
+        }
+        mFrameInFlight = true;
+
+        // the renderers are idle, so their time can be set from here
+        final long timeMillis = mClock.currentTimeMillis();
+        mComplications.refresh(timeMillis);
+        if(mRoundRenderer.mTime.getTimeZone() != mTimeZone) {
+            mRoundRenderer.mTime.setTimeZone(mTimeZone);
+            mSquareRenderer.mTime.setTimeZone(mTimeZone);
+        }
+        mRoundRenderer.mTime.setTimeInMillis(timeMillis);
+        mSquareRenderer.mTime.setTimeInMillis(timeMillis);
+
+        mFrameStartNanos = System.nanoTime();
+        mIntendedFrameTimeNanos = intendedFrameTimeNanos;
+        mPendingRenders.set(2);
+        mExecutor.execute(mRoundRenderer);
+        mExecutor.execute(mSquareRenderer);
+    }
+
+    private void scheduleNextTick() {
+        if(mRunning) {
+            long delayMs = FRAME_INTERVAL_MS - (mClock.currentTimeMillis() % FRAME_INTERVAL_MS);
+            mNextTickNanos = System.nanoTime() + delayMs * 1000000L;
+            mScheduler.schedule(mTickRunnable, delayMs);
+        }
+    }
+
+    /** Called on the render thread which finished the frame last. */
+    private void onRenderFinished() {
+        mFrameMetrics.recordSkippedFrames(mSkippedFrames.getAndSet(0));
+        mFrameMetrics.onFrameScheduled(mIntendedFrameTimeNanos, FRAME_INTERVAL_MS * 1000000L);
+        mFrameMetrics.endFrame(mFrameStartNanos);
+        mMainHandler.post(mPublishRunnable);
+    }
+
+    /**
+     * Renders one shape. Each instance is only used by one render task at a time, so its buffers
+     * are never accessed concurrently. The shared drawer renders from a {@link RenderState}
+     * snapshot of it.
+     */
+    private class ShapeRenderer implements Runnable, IWatchFaceConfig {
+        private final boolean mIsRound;
+        private final int mSize;
+
+        private final Bitmap[] mBuffers = new Bitmap[2];
+        private final Canvas[] mCanvases = new Canvas[2];
+        private int mBackIndex = 0;
+
+        final WatchFaceTime mTime = new WatchFaceTime();
+        private final Calendar mCalendar = new GregorianCalendar();
+        private boolean mIsAmbient = false;
+        private boolean mIsLightTheme = true;
+
+        ShapeRenderer(int size, boolean isRound) {
+            mIsRound = isRound;
+            mSize = size;
+
+            for(int i = 0; i < mBuffers.length; i++) {
+                mBuffers[i] = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+                mCanvases[i] = new Canvas(mBuffers[i]);
+            }
+        }
+
+        @Override
+        public void run() {
+            mIsAmbient = mAmbient;
+            mIsLightTheme = mLightTheme;
+
+            final RenderState state = RenderState.obtain(this, mSize, mSize);
+            mBuffers[mBackIndex].eraseColor(Color.TRANSPARENT);
+            mWatchfaceDrawer.onDraw(state, mCanvases[mBackIndex]);
+            state.recycle();
+
+            if(mPendingRenders.decrementAndGet() == 0) {
+                onRenderFinished();
+            }
+        }
+
+        void swapBuffers() {
+            mBackIndex ^= 1;
+        }
+
+        Bitmap getFrontBuffer() {
+            return mBuffers[mBackIndex ^ 1];
+        }
+
+
+        // IWatchFaceConfig
+
+        @Override
+        public WatchFaceTime getTime() {
+            return mTime;
+        }
+
+        @Override
+        public Calendar getCalendar() {
+            return mTime.toCalendar(mCalendar);
+        }
+
+        @Override
+        public boolean isAmbient() {
+            return mIsAmbient;
+        }
+
+        @Override
+        public boolean isLowBitAmbient() {
+            return false;
+        }
+
+        @Override
+        public boolean isBurnInProtection() {
+            return false;
+        }
+
+        @Override
+        public boolean isRound() {
+            return mIsRound;
+        }
+
+        @Override
+        public int getSecondHandFps() {
+            return 1;
+        }
+
+        @Override
+        public RenderQuality getRenderQuality() {
+            return RenderQuality.FULL;
+        }
+
+        @Override
+        public boolean isLightTheme() {
+            return mIsLightTheme;
+        }
+    }
+}
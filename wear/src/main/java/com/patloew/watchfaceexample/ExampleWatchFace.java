@@ -20,73 +20,241 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.os.BatteryManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
+import android.util.Base64;
+import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
-import com.patloew.commons.IWatchFaceConfig;
+import com.patloew.commons.ChoreographerScheduler;
+import com.patloew.commons.Clock;
+import com.patloew.commons.ComplicationManager;
+import com.patloew.commons.ConfigCodec;
+import com.patloew.commons.ConfigSyncReceiver;
+import com.patloew.commons.ExampleFace;
+import com.patloew.commons.FrameMetrics;
+import com.patloew.commons.HardwareCanvasBackend;
+import com.patloew.commons.RenderBackend;
+import com.patloew.commons.RenderGovernor;
+import com.patloew.commons.RenderState;
+import com.patloew.commons.SessionTrace;
+import com.patloew.commons.SoftwareCanvasBackend;
+import com.patloew.commons.TickScheduler;
 import com.patloew.commons.WatchFaceDrawer;
-
+import com.patloew.commons.WatchFaceOptions;
+import com.patloew.commons.WatchFaceRenderer;
+import com.patloew.commons.WatchFaceSession;
+import com.patloew.commons.WearableConfigTransport;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Analog watch face with a ticking second hand. In ambient mode, the second hand isn't shown. On
- * devices with low-bit ambient mode, the hands are drawn without anti-aliasing in ambient mode.
+ * Analog watch face with a ticking or sweeping second hand. In ambient mode, the second hand isn't
+ * shown. On devices with low-bit ambient mode, the hands are drawn in reduced colors without
+ * anti-aliasing in ambient mode. With burn-in protection, the face is shifted by a few pixels every
+ * minute in ambient mode.
+ *
+ * Frames are drawn through a {@link RenderBackend}: a hardware accelerated canvas if enabled and
+ * supported, otherwise the software canvas, which only redraws the region that changed.
+ *
+ * The date and the battery level are shown as complications. Their data is loaded and formatted on
+ * a background thread, see {@link ComplicationManager}.
+ *
+ * In interactive mode, the rate and quality of the frames are picked by a {@link RenderGovernor}
+ * from the battery state, the peek card and the frame cost. Its thresholds are integer resources.
+ *
+ * The state of the face and the timer of the second hand are kept by a {@link WatchFaceSession}.
+ * In debug builds, its inputs are recorded into a {@link SessionTrace} file, which can be pulled
+ * from the watch and replayed off-device.
  */
 public class ExampleWatchFace extends CanvasWatchFaceService {
+    private static final String TAG = "ExampleWatchFace";
 
     /**
-     * Update rate in milliseconds for interactive mode. We update once a second to advance the
-     * second hand.
+     * Handler message id for updating the render governor periodically in interactive mode, to
+     * follow the measured frame cost.
      */
-    private static final long INTERACTIVE_UPDATE_RATE_MS = 1000;
+    private static final int MSG_UPDATE_GOVERNOR = 1;
+
+    private static final long GOVERNOR_UPDATE_RATE_MS = 10000;
 
     /**
-     * Handler message id for updating the time periodically in interactive mode.
+     * Handler message id for a full repaint requested from another thread, which is scheduled by
+     * the session on the main thread.
      */
-    private static final int MSG_UPDATE_TIME = 0;
+    private static final int MSG_INVALIDATE = 2;
+
+    /** Size limit of the recorded session trace, about a day of ticking. */
+    private static final int MAX_TRACE_BYTES = 256 * 1024;
+    private static final String TRACE_FILE_NAME = "session.trace";
+
+    private static final String PREFS_NAME = "watchface";
+    private static final String PREF_OPTIONS = "options";
 
     @Override
     public Engine onCreateEngine() {
         return new Engine();
     }
 
-    private class Engine extends CanvasWatchFaceService.Engine implements IWatchFaceConfig {
+    private class Engine extends CanvasWatchFaceService.Engine {
         WatchFaceDrawer mWatchfaceDrawer;
 
-        boolean mAmbient = false;
-        boolean mLowBitAmbient = false;
-        boolean mIsRound = false;
-        GregorianCalendar mCalendar = new GregorianCalendar();
+        final Clock mClock = Clock.SYSTEM;
+        // all frames run on the vsync, so they are aligned with the display
+        final WatchFaceSession mSession = new WatchFaceSession(mClock, new ChoreographerScheduler(), new WatchFaceSession.Host() {
+            @Override
+            public void drawFrame(boolean fullFrame) {
+                Engine.this.drawFrame(fullFrame);
+            }
+        });
+        final TickScheduler.Stats mTickStats = new TickScheduler.Stats();
 
         final Handler mUpdateTimeHandler = new EngineHandler(this);
 
         final BroadcastReceiver mTimeZoneReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                mCalendar.setTimeZone(TimeZone.getTimeZone(intent.getStringExtra("time-zone")));
-                mCalendar.setTimeInMillis(System.currentTimeMillis());
+                mSession.setTimeZone(TimeZone.getTimeZone(intent.getStringExtra("time-zone")));
+                mComplications.refreshAll(mClock.currentTimeMillis());
+            }
+        };
+        boolean mRegisteredBatteryReceiver = false;
+
+        final BroadcastReceiver mBatteryReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                updateBatteryState(intent);
+            }
+        };
+
+        // synced from the phone, see onOptionsChanged()
+        final WatchFaceOptions mOptions = new WatchFaceOptions();
+        WearableConfigTransport mConfigTransport;
+        ConfigSyncReceiver mConfigReceiver;
+        final ConfigSyncReceiver.Listener mOptionsListener = new ConfigSyncReceiver.Listener() {
+            @Override
+            public void onOptionsChanged(WatchFaceOptions options, int changedFields) {
+                Engine.this.onOptionsChanged(changedFields);
+            }
+        };
+        boolean mConfigConnectPosted = false;
+        final Runnable mConfigConnectRunnable = new Runnable() {
+            @Override
+            public void run() {
+                mConfigTransport.connect();
+            }
+        };
+
+        ExecutorService mComplicationExecutor;
+        ComplicationManager mComplications;
+
+        // called on a background thread, the face is drawn without the layers which were loading
+        final WatchFaceRenderer.AssetListener mAssetListener = new WatchFaceRenderer.AssetListener() {
+            @Override
+            public void onAssetsLoaded() {
+                postInvalidate();
+            }
+        };
+
+        // called on the complication thread, the changed text is rendered on the next frame
+        final ComplicationManager.Listener mComplicationListener = new ComplicationManager.Listener() {
+            @Override
+            public void onComplicationsChanged() {
+                postInvalidate();
+            }
+        };
+
+        RenderGovernor mGovernor;
+        // from the last battery broadcast
+        int mBatteryLevel = RenderGovernor.UNKNOWN;
+        boolean mCharging = false;
+        int mBatteryTemperature = RenderGovernor.UNKNOWN;
+        boolean mPeekCardVisible = false;
+
+        final RenderGovernor.SignalSource mSignalSource = new RenderGovernor.SignalSource() {
+            @Override
+            public void readSignals(RenderGovernor.Signals signals) {
+                signals.setBattery(mBatteryLevel, mCharging);
+                // the battery temperature is the only thermal signal available on this API level
+                signals.setTemperature(mBatteryTemperature);
+                signals.setPeekCardVisible(mPeekCardVisible);
+                signals.setFrameCostNanos(mWatchfaceDrawer.getFrameMetrics().getSummary(mFrameMetricsSummary).getDrawDurationP95());
             }
         };
-        boolean mRegisteredTimeZoneReceiver = false;
 
-        boolean mLightTheme = true;
+        final FrameMetrics.Summary mFrameMetricsSummary = new FrameMetrics.Summary();
+
+        final Rect mSurfaceBounds = new Rect();
+
+        RenderBackend mBackend;
+        // all frames go through the backend, the software drawing of the base class is bypassed
+        boolean mHardwareRendering = false;
 
         @Override
         public void onCreate(SurfaceHolder holder) {
             super.onCreate(holder);
 
-            mWatchfaceDrawer = new WatchFaceDrawer(getApplicationContext());
+            // only what the first frame needs is done here, heavier work is deferred: the drawer
+            // loads its assets in the background and the config sync connects after the first frame
+            mComplicationExecutor = Executors.newSingleThreadExecutor();
+            mComplications = ExampleFace.createComplications(getApplicationContext(), mClock, mComplicationExecutor);
+            mComplications.setListener(mComplicationListener);
+
+            mWatchfaceDrawer = new WatchFaceDrawer(getApplicationContext(), ExampleFace.create(mComplications));
+            if (getResources().getBoolean(R.bool.hardware_rendering) && HardwareCanvasBackend.isSupported()) {
+                mBackend = new HardwareCanvasBackend(holder);
+                mHardwareRendering = true;
+            } else {
+                mBackend = new SoftwareCanvasBackend(holder);
+            }
+            mWatchfaceDrawer.setAssetListener(mAssetListener);
+            mWatchfaceDrawer.prepare();
+            mSession.setFrameMetrics(mWatchfaceDrawer.getFrameMetrics());
+            if (BuildConfig.DEBUG) {
+                mSession.setRecorder(new SessionTrace.Recorder(mClock, MAX_TRACE_BYTES));
+            }
+            mOptions.setSecondHandFps(getResources().getInteger(R.integer.second_hand_fps));
+            loadOptions();
+            mSession.setLightTheme(mOptions.isLightTheme());
+            mGovernor = new RenderGovernor(loadGovernorPolicy(), mSignalSource);
+            mGovernor.update(mOptions.getSecondHandFps());
+            mSession.setRenderMode(mGovernor.getDecision().getFps(), mGovernor.getDecision().getQuality());
+            mSession.setSecondaryTimeZone(ExampleFace.getSecondaryTimeZone(getApplicationContext()));
             setNewWatchFaceStyle();
+
+            // registered for the whole lifetime of the engine, so the time zone is never queried
+            // when the watch face becomes visible, only when it changes
+            mSession.setTimeZone(TimeZone.getDefault());
+            ExampleWatchFace.this.registerReceiver(mTimeZoneReceiver, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED));
+
+            mConfigTransport = new WearableConfigTransport(getApplicationContext());
+            mConfigReceiver = new ConfigSyncReceiver(mConfigTransport, mOptions, mOptionsListener);
+            // queued until the transport is connected
+            mConfigReceiver.requestSync();
+        }
+
+        private RenderGovernor.Policy loadGovernorPolicy() {
+            final Resources res = getResources();
+            return new RenderGovernor.Policy.Builder()
+                    .setBatteryLevels(res.getInteger(R.integer.low_battery_level), res.getInteger(R.integer.critical_battery_level))
+                    .setTemperatures(res.getInteger(R.integer.warm_battery_temperature), res.getInteger(R.integer.hot_battery_temperature))
+                    .setFrameBudget(res.getInteger(R.integer.frame_budget_percent), res.getInteger(R.integer.min_sweep_fps))
+                    .build();
         }
 
         private void setNewWatchFaceStyle() {
@@ -96,53 +264,146 @@ public class ExampleWatchFace extends CanvasWatchFaceService {
                     .setBackgroundVisibility(WatchFaceStyle.BACKGROUND_VISIBILITY_INTERRUPTIVE)
                     .setShowSystemUiTime(false);
 
-            if(mLightTheme) { watchfaceStyleBuilder = watchfaceStyleBuilder.setViewProtectionMode(WatchFaceStyle.PROTECT_STATUS_BAR | WatchFaceStyle.PROTECT_HOTWORD_INDICATOR); }
+            if(mOptions.isLightTheme()) { watchfaceStyleBuilder = watchfaceStyleBuilder.setViewProtectionMode(WatchFaceStyle.PROTECT_STATUS_BAR | WatchFaceStyle.PROTECT_HOTWORD_INDICATOR); }
 
             setWatchFaceStyle(watchfaceStyleBuilder.build());
         }
 
         @Override
         public void onDestroy() {
-            mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            mSession.release();
+            mUpdateTimeHandler.removeMessages(MSG_UPDATE_GOVERNOR);
+            mUpdateTimeHandler.removeMessages(MSG_INVALIDATE);
+            mUpdateTimeHandler.removeCallbacks(mConfigConnectRunnable);
+            mWatchfaceDrawer.setAssetListener(null);
+            mComplications.setListener(null);
+            mComplicationExecutor.shutdown();
+            // gives the shared layers back, another engine or the preview might still use them
+            mWatchfaceDrawer.release();
+            mConfigTransport.disconnect();
+            ExampleWatchFace.this.unregisterReceiver(mTimeZoneReceiver);
             super.onDestroy();
         }
 
+        /**
+         * Applies options synced from the phone. The drawer keeps running, the layers depending on
+         * the theme are redrawn because the theme is part of their cache key.
+         */
+        private void onOptionsChanged(int changedFields) {
+            saveOptions();
+            if ((changedFields & WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_LIGHT_THEME)) != 0) {
+                setNewWatchFaceStyle();
+                mSession.setLightTheme(mOptions.isLightTheme());
+            }
+            if ((changedFields & WatchFaceOptions.fieldBit(WatchFaceOptions.FIELD_SECOND_HAND_FPS)) != 0) {
+                updateGovernor();
+            }
+            mSession.invalidate();
+        }
+
+        private void loadOptions() {
+            String encoded = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getString(PREF_OPTIONS, null);
+            if (encoded != null) {
+                try {
+                    ConfigCodec.decode(Base64.decode(encoded, Base64.NO_WRAP), mOptions, new ConfigCodec.Message());
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Ignoring invalid stored options", e);
+                }
+            }
+        }
+
+        private void saveOptions() {
+            SharedPreferences.Editor editor = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit();
+            editor.putString(PREF_OPTIONS, Base64.encodeToString(ConfigCodec.encodeFull(0, mOptions), Base64.NO_WRAP));
+            editor.apply();
+        }
+
         @Override
         public void onApplyWindowInsets(WindowInsets insets) {
             super.onApplyWindowInsets(insets);
-            mIsRound = insets.isRound();
+            mSession.setRound(insets.isRound());
+        }
+
+        @Override
+        public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+            mSurfaceBounds.set(0, 0, width, height);
+            mSession.setSurfaceSize(width, height);
+            super.onSurfaceChanged(holder, format, width, height);
         }
 
         @Override
         public void onPropertiesChanged(Bundle properties) {
             super.onPropertiesChanged(properties);
-            mLowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
+            mSession.setProperties(properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false),
+                    properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false));
+        }
+
+        @Override
+        public void onPeekCardPositionUpdate(Rect rect) {
+            super.onPeekCardPositionUpdate(rect);
+            boolean peekCardVisible = !rect.isEmpty();
+            if (mPeekCardVisible != peekCardVisible) {
+                mPeekCardVisible = peekCardVisible;
+                // the second hand falls back to ticking while the face is covered
+                updateGovernor();
+            }
         }
 
         @Override
         public void onTimeTick() {
             super.onTimeTick();
-            invalidate();
+            mComplications.refresh(mClock.currentTimeMillis());
+            mSession.onTimeTick();
         }
 
         @Override
         public void onAmbientModeChanged(boolean inAmbientMode) {
             super.onAmbientModeChanged(inAmbientMode);
-            if (mAmbient != inAmbientMode) {
-                mAmbient = inAmbientMode;
-                mWatchfaceDrawer.onAmbientModeChanged(getApplicationContext(), this);
-                invalidate();
-            }
+            // starts or stops the timer, which only runs while visible in interactive mode
+            mSession.setAmbient(inAmbientMode);
+            updateGovernorTimer();
+        }
+
+        /**
+         * Full repaints are scheduled by the session, so they are merged with the timer frames
+         * into one draw per vsync.
+         */
+        @Override
+        public void invalidate() {
+            mSession.invalidate();
+        }
+
+        @Override
+        public void postInvalidate() {
+            // the handler is thread-safe, the session is not. A duplicate message is merged by the
+            // session.
+            mUpdateTimeHandler.sendEmptyMessage(MSG_INVALIDATE);
+        }
 
-            // Whether the timer should be running depends on whether we're visible (as well as
-            // whether we're in ambient mode), so we may need to start or stop the timer.
-            updateTimer();
+        @Override
+        public void onSurfaceRedrawNeeded(SurfaceHolder holder) {
+            if (mHardwareRendering) {
+                drawFrame(true);
+            } else {
+                super.onSurfaceRedrawNeeded(holder);
+            }
         }
 
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
-            mCalendar.setTimeInMillis(System.currentTimeMillis());
-            mWatchfaceDrawer.onDraw(getApplicationContext(), this, canvas, bounds);
+            mSession.updateTime();
+            mWatchfaceDrawer.onDraw(getApplicationContext(), mSession, canvas, bounds);
+            onFrameDrawn();
+        }
+
+        private void onFrameDrawn() {
+            if (!mConfigConnectPosted) {
+                mConfigConnectPosted = true;
+                mUpdateTimeHandler.post(mConfigConnectRunnable);
+                if (BuildConfig.DEBUG) {
+                    Log.d(TAG, "Time to first frame: " + mWatchfaceDrawer.getStartupMetrics());
+                }
+            }
         }
 
         @Override
@@ -152,94 +413,151 @@ public class ExampleWatchFace extends CanvasWatchFaceService {
             if (visible) {
                 registerReceiver();
 
-                // Update time zone in case it changed while we weren't visible.
-                mCalendar.setTimeZone(TimeZone.getDefault());
-                mCalendar.setTimeInMillis(System.currentTimeMillis());
+                mComplications.refreshAll(mClock.currentTimeMillis());
+
+                // the phone might not have been reachable when the engine was created
+                if (!mConfigReceiver.isSynced()) {
+                    mConfigReceiver.requestSync();
+                }
             } else {
                 unregisterReceiver();
+
+                if (BuildConfig.DEBUG) {
+                    Log.d(TAG, "Frame metrics: " + mWatchfaceDrawer.getFrameMetrics().getSummary(mFrameMetricsSummary));
+                    Log.d(TAG, "Startup metrics: " + mWatchfaceDrawer.getStartupMetrics());
+                    Log.d(TAG, "Tick stats: " + mSession.getTickStats(mTickStats));
+                }
+            }
+
+            // starts or stops the timer, which only runs while visible in interactive mode
+            mSession.setVisible(visible);
+            updateGovernorTimer();
+
+            if (!visible && mSession.getRecorder() != null) {
+                writeTrace(mSession.getRecorder());
             }
+        }
 
-            // Whether the timer should be running depends on whether we're visible (as well as
-            // whether we're in ambient mode), so we may need to start or stop the timer.
-            updateTimer();
+        /**
+         * Writes the session recorded so far to the files directory, to be pulled with adb and
+         * replayed by the benchmark module.
+         */
+        private void writeTrace(SessionTrace.Recorder recorder) {
+            File file = new File(getFilesDir(), TRACE_FILE_NAME);
+            FileOutputStream out = null;
+            try {
+                out = new FileOutputStream(file);
+                out.write(recorder.toByteArray());
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write session trace", e);
+            } finally {
+                if (out != null) {
+                    try {
+                        out.close();
+                    } catch (IOException ignored) { }
+                }
+            }
         }
 
         private void registerReceiver() {
-            if (mRegisteredTimeZoneReceiver) {
+            if (mRegisteredBatteryReceiver) {
                 return;
             }
-            mRegisteredTimeZoneReceiver = true;
-            IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
-            ExampleWatchFace.this.registerReceiver(mTimeZoneReceiver, filter);
+            mRegisteredBatteryReceiver = true;
+
+            // ACTION_BATTERY_CHANGED is sticky, so the current battery state is returned right away
+            Intent batteryStatus = ExampleWatchFace.this.registerReceiver(mBatteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            if (batteryStatus != null) {
+                updateBatteryState(batteryStatus);
+            }
         }
 
         private void unregisterReceiver() {
-            if (!mRegisteredTimeZoneReceiver) {
+            if (!mRegisteredBatteryReceiver) {
                 return;
             }
-            mRegisteredTimeZoneReceiver = false;
-            ExampleWatchFace.this.unregisterReceiver(mTimeZoneReceiver);
+            mRegisteredBatteryReceiver = false;
+            ExampleWatchFace.this.unregisterReceiver(mBatteryReceiver);
+        }
+
+        private void updateBatteryState(Intent batteryStatus) {
+            int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            mBatteryLevel = level >= 0 && scale > 0 ? level * 100 / scale : RenderGovernor.UNKNOWN;
+            mCharging = batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            mBatteryTemperature = batteryStatus.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, RenderGovernor.UNKNOWN);
+            updateGovernor();
         }
 
         /**
-         * Starts the {@link #mUpdateTimeHandler} timer if it should be running and isn't currently
-         * or stops it if it shouldn't be running but currently is.
+         * Lets the governor decide again. If the rate or quality changed, the timer is updated and
+         * the face is redrawn, the layers pick up the quality on the next frame.
          */
-        private void updateTimer() {
-            mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
-            if (shouldTimerBeRunning()) {
-                mUpdateTimeHandler.sendEmptyMessage(MSG_UPDATE_TIME);
+        private void updateGovernor() {
+            if (mGovernor.update(mOptions.getSecondHandFps())) {
+                if (BuildConfig.DEBUG) {
+                    Log.d(TAG, "Render governor: " + mGovernor.getDecision());
+                }
+                mSession.setRenderMode(mGovernor.getDecision().getFps(), mGovernor.getDecision().getQuality());
             }
         }
 
-        /**
-         * Returns whether the {@link #mUpdateTimeHandler} timer should be running. The timer should
-         * only run when we're visible and in interactive mode.
-         */
-        private boolean shouldTimerBeRunning() {
-            return isVisible() && !isInAmbientMode();
+        private void handleUpdateGovernorMessage() {
+            // posted first, so updateGovernorTimer() does not post it again
+            if (isVisible() && !isInAmbientMode()) {
+                mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_GOVERNOR, GOVERNOR_UPDATE_RATE_MS);
+            }
+            updateGovernor();
         }
 
         /**
-         * Handle updating the time periodically in interactive mode.
+         * Starts or stops the periodic governor update, which only runs while visible in
+         * interactive mode.
          */
-        private void handleUpdateTimeMessage() {
-            invalidate();
-            if (shouldTimerBeRunning()) {
-                long timeMs = System.currentTimeMillis();
-                long delayMs = INTERACTIVE_UPDATE_RATE_MS - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-                mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
+        private void updateGovernorTimer() {
+            if (!isVisible() || isInAmbientMode()) {
+                mUpdateTimeHandler.removeMessages(MSG_UPDATE_GOVERNOR);
+            } else if (!mUpdateTimeHandler.hasMessages(MSG_UPDATE_GOVERNOR)) {
+                mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_GOVERNOR, GOVERNOR_UPDATE_RATE_MS);
             }
         }
 
+        /**
+         * Draws a frame through the backend. For a timer frame, usually only the second hand
+         * moved, so with the software backend only the region reported by
+         * {@link WatchFaceDrawer#getDirtyRegion} is locked and redrawn.
+         *
+         * @param fullFrame true to redraw the whole surface
+         */
+        private void drawFrame(boolean fullFrame) {
+            if (mSurfaceBounds.isEmpty()) {
+                // the surface is not ready yet, it is drawn once its size is known or it needs a
+                // redraw
+                if (!mHardwareRendering) {
+                    super.invalidate();
+                }
+                return;
+            }
 
-        // IWatchfaceConfig
-
-        @Override
-        public Calendar getCalendar() {
-            return mCalendar;
-        }
-
-        @Override
-        public boolean isLightTheme() {
-            return mLightTheme;
-        }
-
-        @Override
-        public boolean isAmbient() {
-            return mAmbient;
-        }
-
-        @Override
-        public boolean isLowBitAmbient() {
-            return mLowBitAmbient;
-        }
-
-        @Override
-        public boolean isRound() {
-            return mIsRound;
+            mSession.updateTime();
+            final RenderState state = RenderState.obtain(mSession, mSurfaceBounds);
+            try {
+                if (mWatchfaceDrawer.drawFrame(state, mBackend, fullFrame)) {
+                    onFrameDrawn();
+                } else if (mHardwareRendering && getSurfaceHolder().getSurface().isValid()) {
+                    // not supported by the surface, the software canvas works everywhere
+                    Log.w(TAG, "Hardware canvas not available, falling back to software rendering");
+                    mHardwareRendering = false;
+                    mBackend = new SoftwareCanvasBackend(getSurfaceHolder());
+                    super.invalidate();
+                } else if (!mHardwareRendering) {
+                    // drawn by the system with onDraw, once the surface can be locked
+                    super.invalidate();
+                }
+            } finally {
+                state.recycle();
+            }
         }
-
     }
 
     private static class EngineHandler extends Handler {
@@ -254,8 +572,11 @@ public class ExampleWatchFace extends CanvasWatchFaceService {
             ExampleWatchFace.Engine engine = mWeakReference.get();
             if (engine != null) {
                 switch (msg.what) {
-                    case MSG_UPDATE_TIME:
-                        engine.handleUpdateTimeMessage();
+                    case MSG_UPDATE_GOVERNOR:
+                        engine.handleUpdateGovernorMessage();
+                        break;
+                    case MSG_INVALIDATE:
+                        engine.invalidate();
                         break;
                 }
             }